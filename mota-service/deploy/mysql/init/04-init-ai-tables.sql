@@ -42,6 +42,8 @@ CREATE TABLE IF NOT EXISTS ai_chat_session (
     message_count INT DEFAULT 0 COMMENT '消息数量',
     is_pinned BOOLEAN DEFAULT FALSE COMMENT '是否置顶',
     is_archived BOOLEAN DEFAULT FALSE COMMENT '是否归档',
+    context_summary TEXT COMMENT '滚动摘要（被挤出上下文窗口的较早消息）',
+    summary_until_message_id BIGINT COMMENT '摘要覆盖到的最后一条消息ID',
     last_message_at DATETIME COMMENT '最后消息时间',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -71,7 +73,7 @@ CREATE TABLE IF NOT EXISTS ai_chat_message (
     feedback_comment VARCHAR(500) COMMENT '反馈评论',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     INDEX idx_tenant_id (tenant_id),
-    INDEX idx_session_id (session_id),
+    INDEX idx_session_id (session_id, id),
     INDEX idx_role (role),
     INDEX idx_intent_type (intent_type)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='AI对话消息表';
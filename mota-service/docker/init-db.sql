@@ -1773,6 +1773,8 @@ CREATE TABLE IF NOT EXISTS ai_chat_session (
     message_count INT DEFAULT 0 COMMENT '消息数量',
     is_pinned BOOLEAN DEFAULT FALSE COMMENT '是否置顶',
     is_archived BOOLEAN DEFAULT FALSE COMMENT '是否归档',
+    context_summary TEXT COMMENT '滚动摘要（被挤出上下文窗口的较早消息）',
+    summary_until_message_id BIGINT COMMENT '摘要覆盖到的最后一条消息ID',
     last_message_at DATETIME COMMENT '最后消息时间',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -1799,7 +1801,7 @@ CREATE TABLE IF NOT EXISTS ai_chat_message (
     feedback_rating INT COMMENT '反馈评分',
     feedback_comment VARCHAR(500) COMMENT '反馈评论',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_session_id (session_id),
+    INDEX idx_session_id (session_id, id),
     INDEX idx_role (role),
     INDEX idx_intent_type (intent_type)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='AI对话消息表';
@@ -1866,6 +1868,7 @@ CREATE TABLE IF NOT EXISTS ai_document_vector (
     chunk_text TEXT NOT NULL COMMENT '分块文本',
     chunk_start INT COMMENT '分块起始位置',
     chunk_end INT COMMENT '分块结束位置',
+    content_hash CHAR(64) COMMENT '分块内容SHA-256',
     token_count INT COMMENT 'Token数量',
     embedding_model VARCHAR(100) DEFAULT 'text-embedding-ada-002' COMMENT '向量模型',
     embedding_dimension INT DEFAULT 1536 COMMENT '向量维度',
@@ -1881,7 +1884,8 @@ CREATE TABLE IF NOT EXISTS ai_document_vector (
     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_document_id (document_id),
     INDEX idx_vectorize_status (vectorize_status),
-    INDEX idx_collection_name (collection_name)
+    INDEX idx_collection_name (collection_name),
+    INDEX idx_document_hash (document_id, content_hash)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='AI文档向量表';
 
 -- 智能搜索日志表
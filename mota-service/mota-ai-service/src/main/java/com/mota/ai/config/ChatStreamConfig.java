@@ -0,0 +1,40 @@
+package com.mota.ai.config;
+
+import com.mota.common.core.llm.StubStreamingChatClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 流式对话配置
+ *
+ * 所有模型共用一个异步 HttpClient；未配置密钥的模型回退到本地模拟流
+ */
+@Configuration
+public class ChatStreamConfig {
+
+    @Value("${ai.chat.stream.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    @Value("${ai.chat.stream.stub-chunk-size:4}")
+    private int stubChunkSize;
+
+    @Value("${ai.chat.stream.stub-interval-ms:30}")
+    private long stubIntervalMs;
+
+    @Bean
+    public HttpClient chatHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public StubStreamingChatClient stubStreamingChatClient() {
+        return StubStreamingChatClient.echo(stubChunkSize, stubIntervalMs);
+    }
+}
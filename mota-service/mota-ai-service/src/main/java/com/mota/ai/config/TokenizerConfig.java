@@ -0,0 +1,45 @@
+package com.mota.ai.config;
+
+import com.mota.common.core.llm.BpeTokenizer;
+import com.mota.common.core.llm.ChatContextBuilder;
+import com.mota.common.core.llm.TokenCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 本地 Token 计数配置
+ *
+ * 请求发出前用本地 BPE 词表估算 Token，用于上下文裁剪与预算预占；词表加载失败时回退到按字符估算
+ */
+@Slf4j
+@Configuration
+public class TokenizerConfig {
+
+    @Value("${ai.tokenizer.vocabulary:" + BpeTokenizer.DEFAULT_VOCABULARY + "}")
+    private String vocabulary;
+
+    @Value("${ai.tokenizer.cache-size:20000}")
+    private int cacheSize;
+
+    @Value("${ai.tokenizer.min-cached-length:256}")
+    private int minCachedLength;
+
+    @Bean
+    public TokenCounter tokenCounter() {
+        try {
+            BpeTokenizer tokenizer = BpeTokenizer.loadResource(vocabulary);
+            if (tokenizer != null) {
+                log.info("加载本地分词词表: {}, 词表大小={}", vocabulary, tokenizer.getVocabularySize());
+                return new TokenCounter(tokenizer::count, cacheSize, minCachedLength);
+            }
+            log.warn("分词词表不存在，回退到按字符估算: {}", vocabulary);
+        } catch (IOException | RuntimeException e) {
+            log.warn("分词词表加载失败，回退到按字符估算: {}, error={}", vocabulary, e.getMessage());
+        }
+        return new TokenCounter(ChatContextBuilder::estimateTokens, cacheSize, minCachedLength);
+    }
+}
@@ -6,14 +6,24 @@ import com.mota.ai.entity.AIChatSession;
 import com.mota.ai.service.AIChatService;
 import com.mota.common.core.result.Result;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * AI对话控制器
  */
+@Slf4j
 @RestController
 @RequestMapping("/api/v1/ai/assistant")
 @RequiredArgsConstructor
@@ -21,6 +31,9 @@ public class AIChatController {
 
     private final AIChatService aiChatService;
 
+    @Value("${ai.chat.stream.emitter-timeout-ms:300000}")
+    private long emitterTimeoutMs;
+
     /**
      * 创建会话
      */
@@ -98,11 +111,43 @@ public class AIChatController {
     }
 
     /**
-     * 获取会话消息列表
+     * 发送消息（SSE流式返回）
+     *
+     * 事件：token（增量文本）、done（完整助手消息）、error（生成失败）
+     */
+    @PostMapping(value = "/sessions/{sessionId}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @PathVariable Long sessionId,
+            @RequestBody Map<String, String> request) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        CompletableFuture<AIChatMessage> future = aiChatService.streamMessage(sessionId, request.get("content"),
+                token -> sendEvent(emitter, "token", Map.of("content", token)));
+
+        future.whenComplete((message, error) -> {
+            if (error == null) {
+                sendQuietly(emitter, "done", message);
+                emitter.complete();
+            } else if (!(error instanceof CancellationException)) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                sendQuietly(emitter, "error", Map.of("message", String.valueOf(cause.getMessage())));
+                emitter.complete();
+            }
+        });
+        // 客户端断开或超时后停止生成
+        emitter.onTimeout(() -> future.cancel(true));
+        emitter.onError(e -> future.cancel(true));
+        return emitter;
+    }
+
+    /**
+     * 获取会话消息列表（键集分页，beforeId 为当前已加载的最早消息ID）
      */
     @GetMapping("/sessions/{sessionId}/messages")
-    public Result<List<AIChatMessage>> getSessionMessages(@PathVariable Long sessionId) {
-        List<AIChatMessage> messages = aiChatService.getSessionMessages(sessionId);
+    public Result<List<AIChatMessage>> getSessionMessages(
+            @PathVariable Long sessionId,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<AIChatMessage> messages = aiChatService.getSessionMessages(sessionId, beforeId, limit);
         return Result.success(messages);
     }
 
@@ -118,4 +163,20 @@ public class AIChatController {
         aiChatService.submitFeedback(messageId, rating, comment);
         return Result.success();
     }
-}
\ No newline at end of file
+
+    private static void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sendQuietly(SseEmitter emitter, String name, Object data) {
+        try {
+            sendEvent(emitter, name, data);
+        } catch (Exception e) {
+            log.debug("SSE事件发送失败，客户端可能已断开: {}", e.getMessage());
+        }
+    }
+}
@@ -127,6 +127,36 @@ public class AIModelController {
         return Result.success();
     }
 
+    @Operation(summary = "上报模型调用结果")
+    @PostMapping("/{modelId}/calls")
+    public Result<Void> recordModelCall(
+            @PathVariable Long modelId,
+            @RequestParam long latencyMillis,
+            @RequestParam boolean success) {
+        modelRouterService.recordModelCall(modelId, latencyMillis, success);
+        return Result.success();
+    }
+
+    @Operation(summary = "归还未使用的模型许可")
+    @PostMapping("/{modelId}/release")
+    public Result<Void> releaseModel(@PathVariable Long modelId) {
+        modelRouterService.releaseModel(modelId);
+        return Result.success();
+    }
+
+    @Operation(summary = "获取模型运行时状态")
+    @GetMapping("/runtime")
+    public Result<List<Map<String, Object>>> getModelRuntimeStatus() {
+        return Result.success(modelRouterService.getModelRuntimeStatus());
+    }
+
+    @Operation(summary = "重置模型熔断器")
+    @PostMapping("/{modelId}/circuit-breaker/reset")
+    public Result<Void> resetCircuitBreaker(@PathVariable Long modelId) {
+        modelRouterService.resetCircuitBreaker(modelId);
+        return Result.success();
+    }
+
     // ==================== 使用统计 ====================
 
     @Operation(summary = "获取今日统计摘要")
@@ -78,6 +78,16 @@ public class AIChatSession {
      */
     private Integer status;
     
+    /**
+     * 滚动摘要（被挤出上下文窗口的较早消息）
+     */
+    private String contextSummary;
+    
+    /**
+     * 摘要覆盖到的最后一条消息ID
+     */
+    private Long summaryUntilMessageId;
+    
     /**
      * 最后消息时间
      */
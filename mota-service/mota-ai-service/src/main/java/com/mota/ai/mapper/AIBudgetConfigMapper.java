@@ -5,7 +5,10 @@ import com.mota.ai.entity.AIBudgetConfig;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -45,4 +48,12 @@ public interface AIBudgetConfigMapper extends BaseMapper<AIBudgetConfig> {
     @Select("SELECT * FROM ai_budget_config WHERE tenant_id = #{tenantId} AND is_enabled = 1 AND alert_enabled = 1 AND deleted = 0 " +
             "AND (used_amount / budget_amount * 100 >= alert_threshold OR used_tokens / token_budget * 100 >= alert_threshold)")
     List<AIBudgetConfig> selectNeedingAlert(@Param("tenantId") Long tenantId);
-}
\ No newline at end of file
+
+    /**
+     * 回写当前周期使用量（由Redis对账任务调用）
+     */
+    @Update("UPDATE ai_budget_config SET current_usage = #{usage}, used_amount = #{usage}, period_start_date = #{periodStartDate} " +
+            "WHERE id = #{id} AND deleted = 0")
+    int updatePeriodUsage(@Param("id") Long id, @Param("usage") BigDecimal usage,
+                          @Param("periodStartDate") LocalDate periodStartDate);
+}
@@ -3,10 +3,45 @@ package com.mota.ai.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.mota.ai.entity.AIChatMessage;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * AI对话消息Mapper
  */
 @Mapper
 public interface AIChatMessageMapper extends BaseMapper<AIChatMessage> {
-}
\ No newline at end of file
+
+    /**
+     * 键集分页：查询 beforeId 之前（不含）最近的消息，按ID倒序；beforeId 为空时从最新一条开始
+     */
+    @Select("<script>" +
+            "SELECT * FROM ai_chat_message WHERE session_id = #{sessionId}" +
+            "<if test='beforeId != null'> AND id &lt; #{beforeId}</if> " +
+            "ORDER BY id DESC LIMIT #{limit}" +
+            "</script>")
+    List<AIChatMessage> selectPageBefore(@Param("sessionId") Long sessionId,
+                                         @Param("beforeId") Long beforeId,
+                                         @Param("limit") int limit);
+
+    /**
+     * 查询 afterId 之后（不含）最近的消息，按ID倒序，用于构建对话上下文
+     */
+    @Select("SELECT * FROM ai_chat_message WHERE session_id = #{sessionId} AND id > #{afterId} " +
+            "ORDER BY id DESC LIMIT #{limit}")
+    List<AIChatMessage> selectRecentAfter(@Param("sessionId") Long sessionId,
+                                          @Param("afterId") long afterId,
+                                          @Param("limit") int limit);
+
+    /**
+     * 查询 (afterId, beforeId) 区间内的消息，按ID升序，用于将窗口之外的未摘要消息折叠进摘要
+     */
+    @Select("SELECT * FROM ai_chat_message WHERE session_id = #{sessionId} AND id > #{afterId} " +
+            "AND id < #{beforeId} ORDER BY id ASC LIMIT #{limit}")
+    List<AIChatMessage> selectBetween(@Param("sessionId") Long sessionId,
+                                      @Param("afterId") long afterId,
+                                      @Param("beforeId") long beforeId,
+                                      @Param("limit") int limit);
+}
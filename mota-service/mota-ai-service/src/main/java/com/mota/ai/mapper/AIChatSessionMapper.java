@@ -3,10 +3,31 @@ package com.mota.ai.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.mota.ai.entity.AIChatSession;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
 
 /**
  * AI对话会话Mapper
  */
 @Mapper
 public interface AIChatSessionMapper extends BaseMapper<AIChatSession> {
+
+    /**
+     * 一轮对话结束后一次性更新会话：累加消息数与Token数、刷新最后消息时间，摘要变化时一并写入
+     */
+    @Update("<script>" +
+            "UPDATE ai_chat_session SET message_count = IFNULL(message_count, 0) + #{delta}, " +
+            "total_tokens = IFNULL(total_tokens, 0) + #{tokens}, " +
+            "last_message_at = #{messageAt}, updated_at = #{messageAt}" +
+            "<if test='summaryUntilId != null'>, context_summary = #{summary}, summary_until_message_id = #{summaryUntilId}</if> " +
+            "WHERE id = #{sessionId}" +
+            "</script>")
+    int updateAfterTurn(@Param("sessionId") Long sessionId,
+                        @Param("delta") int delta,
+                        @Param("tokens") int tokens,
+                        @Param("summary") String summary,
+                        @Param("summaryUntilId") Long summaryUntilId,
+                        @Param("messageAt") LocalDateTime messageAt);
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import com.mota.ai.entity.AIModelConfig;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -43,4 +45,11 @@ public interface AIModelConfigMapper extends BaseMapper<AIModelConfig> {
      */
     @Select("SELECT * FROM ai_model_config WHERE tenant_id = #{tenantId} AND health_status = 'healthy' AND is_enabled = 1 AND deleted = 0 ORDER BY priority ASC")
     List<AIModelConfig> selectHealthyModels(@Param("tenantId") Long tenantId);
-}
\ No newline at end of file
+
+    /**
+     * 只更新健康状态与检查时间，不覆盖其他配置字段
+     */
+    @Update("UPDATE ai_model_config SET health_status = #{status}, last_health_check = #{checkedAt} WHERE id = #{id}")
+    int updateHealthStatus(@Param("id") Long id, @Param("status") String status,
+                           @Param("checkedAt") LocalDateTime checkedAt);
+}
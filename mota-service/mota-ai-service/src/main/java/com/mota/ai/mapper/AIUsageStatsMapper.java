@@ -2,6 +2,7 @@ package com.mota.ai.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.mota.ai.entity.AIUsageStats;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -92,18 +93,48 @@ public interface AIUsageStatsMapper extends BaseMapper<AIUsageStats> {
     /**
      * 统计输入Token总数
      */
-    @Select("SELECT SUM(input_tokens) FROM ai_usage_stats WHERE tenant_id = #{tenantId} AND stats_date BETWEEN #{startDate} AND #{endDate}")
+    @Select("SELECT SUM(total_input_tokens) FROM ai_usage_stats WHERE tenant_id = #{tenantId} AND stats_date BETWEEN #{startDate} AND #{endDate}")
     Long sumInputTokens(@Param("tenantId") Long tenantId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
     /**
      * 统计输出Token总数
      */
-    @Select("SELECT SUM(output_tokens) FROM ai_usage_stats WHERE tenant_id = #{tenantId} AND stats_date BETWEEN #{startDate} AND #{endDate}")
+    @Select("SELECT SUM(total_output_tokens) FROM ai_usage_stats WHERE tenant_id = #{tenantId} AND stats_date BETWEEN #{startDate} AND #{endDate}")
     Long sumOutputTokens(@Param("tenantId") Long tenantId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
     /**
      * 统计费用总数
      */
-    @Select("SELECT SUM(cost) FROM ai_usage_stats WHERE tenant_id = #{tenantId} AND stats_date BETWEEN #{startDate} AND #{endDate}")
+    @Select("SELECT SUM(total_cost) FROM ai_usage_stats WHERE tenant_id = #{tenantId} AND stats_date BETWEEN #{startDate} AND #{endDate}")
     java.math.BigDecimal sumCost(@Param("tenantId") Long tenantId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * 批量累加使用统计增量（按 租户+模型+用户+日期 唯一键合并）
+     * 平均响应时间在累加后的列上重算，最小响应时间忽略无样本的增量
+     */
+    @Insert("<script>" +
+            "INSERT INTO ai_usage_stats (tenant_id, model_config_id, user_id, stats_date, request_count, success_count, " +
+            "failure_count, total_input_tokens, total_output_tokens, total_cost, total_response_time, avg_response_time, " +
+            "min_response_time, max_response_time) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.tenantId}, #{item.modelConfigId}, #{item.userId}, #{item.statsDate}, #{item.requestCount}, " +
+            "#{item.successCount}, #{item.failureCount}, #{item.totalInputTokens}, #{item.totalOutputTokens}, " +
+            "#{item.totalCost}, #{item.totalResponseTime}, #{item.avgResponseTime}, #{item.minResponseTime}, " +
+            "#{item.maxResponseTime})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "request_count = request_count + VALUES(request_count), " +
+            "success_count = success_count + VALUES(success_count), " +
+            "failure_count = failure_count + VALUES(failure_count), " +
+            "total_input_tokens = total_input_tokens + VALUES(total_input_tokens), " +
+            "total_output_tokens = total_output_tokens + VALUES(total_output_tokens), " +
+            "total_cost = total_cost + VALUES(total_cost), " +
+            "total_response_time = total_response_time + VALUES(total_response_time), " +
+            "avg_response_time = IF(request_count > 0, total_response_time DIV request_count, 0), " +
+            "min_response_time = CASE WHEN VALUES(min_response_time) = 0 THEN min_response_time " +
+            "WHEN min_response_time = 0 THEN VALUES(min_response_time) " +
+            "ELSE LEAST(min_response_time, VALUES(min_response_time)) END, " +
+            "max_response_time = GREATEST(max_response_time, VALUES(max_response_time))" +
+            "</script>")
+    int upsertBatch(@Param("list") List<AIUsageStats> list);
+}
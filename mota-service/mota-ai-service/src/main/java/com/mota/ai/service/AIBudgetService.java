@@ -64,6 +64,21 @@ public interface AIBudgetService {
      */
     boolean checkRequestAllowed(BigDecimal estimatedCost);
 
+    /**
+     * 原子地检查并预占预算
+     * 所有 block 策略的预算均有余量时才预占，调用结束后需通过 settleBudgetUsage 按实际费用结算
+     * @param estimatedCost 预估费用
+     * @return true 如果预占成功
+     */
+    boolean reserveBudget(BigDecimal estimatedCost);
+
+    /**
+     * 按实际费用结算预占的预算（差额可为负，即退回多占部分）
+     * @param reservedCost 预占费用
+     * @param actualCost 实际费用
+     */
+    void settleBudgetUsage(BigDecimal reservedCost, BigDecimal actualCost);
+
     /**
      * 获取剩余预算
      */
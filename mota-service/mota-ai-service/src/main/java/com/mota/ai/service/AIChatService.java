@@ -5,6 +5,8 @@ import com.mota.ai.entity.AIChatMessage;
 import com.mota.ai.entity.AIChatSession;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * AI对话服务接口
@@ -47,9 +49,16 @@ public interface AIChatService {
     AIChatMessage sendMessage(Long sessionId, String content);
 
     /**
-     * 获取会话消息列表
+     * 发送消息并流式生成AI回复，增量文本通过 onToken 推送；
+     * 回复完成后落库并返回助手消息，取消 Future 即停止生成
      */
-    List<AIChatMessage> getSessionMessages(Long sessionId);
+    CompletableFuture<AIChatMessage> streamMessage(Long sessionId, String content, Consumer<String> onToken);
+
+    /**
+     * 键集分页获取会话消息：返回 beforeId 之前（不含）最近的 limit 条，按时间升序；
+     * beforeId 为空时返回最新一页，加载更早消息时传入当前页第一条的ID
+     */
+    List<AIChatMessage> getSessionMessages(Long sessionId, Long beforeId, int limit);
 
     /**
      * 提交消息反馈
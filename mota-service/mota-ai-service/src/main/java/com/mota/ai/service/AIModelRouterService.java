@@ -69,9 +69,36 @@ public interface AIModelRouterService {
 
     /**
      * 执行健康检查
+     * 近期有足够真实调用的模型按窗口内成功率与P95延迟被动判断，其余模型并发主动探测
      */
     void performHealthCheck();
 
+    /**
+     * 上报模型调用结果，更新延迟/错误率统计与熔断器
+     * @param modelId 模型ID
+     * @param latencyMillis 调用耗时（毫秒）
+     * @param success 是否成功
+     */
+    void recordModelCall(Long modelId, long latencyMillis, boolean success);
+
+    /**
+     * 归还已选中但未实际调用的模型许可（如被预算、舱壁拒绝或调用前取消），不计入统计
+     * @param modelId 模型ID
+     */
+    void releaseModel(Long modelId);
+
+    /**
+     * 获取模型运行时状态（熔断器、EWMA延迟与错误率、所属提供商的并发舱壁）
+     * @return 状态列表
+     */
+    List<Map<String, Object>> getModelRuntimeStatus();
+
+    /**
+     * 重置模型熔断器
+     * @param modelId 模型ID
+     */
+    void resetCircuitBreaker(Long modelId);
+
     /**
      * 模型配置CRUD
      */
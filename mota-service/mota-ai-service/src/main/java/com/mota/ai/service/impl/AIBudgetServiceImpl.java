@@ -1,5 +1,7 @@
 package com.mota.ai.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mota.ai.entity.AIBudgetConfig;
 import com.mota.ai.mapper.AIBudgetConfigMapper;
 import com.mota.ai.service.AIBudgetService;
@@ -7,8 +9,13 @@ import com.mota.ai.service.AIUsageStatsService;
 import com.mota.common.core.context.TenantContext;
 import com.mota.common.core.exception.BusinessException;
 import com.mota.common.redis.service.RedisService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,10 +27,18 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
  * AI预算服务实现
+ *
+ * 当前周期花费以微元（1e-6元）定点整数保存在Redis，键带周期开始日期，周期切换后自然换键：
+ * 1. 检查与预占由同一段Lua脚本原子完成，所有 block 策略的预算都有余量才累加
+ * 2. 租户的启用预算配置本地缓存，脚本返回的各预算使用量作为本地余量快照，
+ *    快照有效期内预估费用不超过余量的检查不访问Redis
+ * 3. 计数键缺失（首次使用或Redis数据丢失）时，取数据库回写值与使用统计中的较大者补种
+ * 4. 有变动的预算定时回写 current_usage，数据库只承担对账与展示
  */
 @Slf4j
 @Service
@@ -33,10 +48,82 @@ public class AIBudgetServiceImpl implements AIBudgetService {
     private final AIBudgetConfigMapper budgetConfigMapper;
     private final AIUsageStatsService usageStatsService;
     private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
 
     private static final String BUDGET_USAGE_KEY = "ai:budget:usage:";
     private static final String ALERT_SENT_KEY = "ai:budget:alert:";
 
+    /**
+     * 金额精度：微元
+     */
+    private static final int MICRO_SCALE = 6;
+
+    private static final long STATUS_OK = 1L;
+    private static final long STATUS_MISSING = -1L;
+
+    /**
+     * 检查并预占预算
+     * KEYS: 各预算计数键
+     * ARGV: [1]金额(微元) [2]是否累加(1/0) [2+i]第i个预算上限(-1不限制) [2+n+i]第i个键过期秒数
+     * 返回: {1, 0, 使用量...} 成功；{0, i, 使用量...} 第i个预算超限；{-1, i} 第i个键缺失
+     */
+    private static final DefaultRedisScript<List> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local amount = tonumber(ARGV[1])\n" +
+            "local n = #KEYS\n" +
+            "local used = {}\n" +
+            "for i = 1, n do\n" +
+            "  local v = redis.call('GET', KEYS[i])\n" +
+            "  if not v then return {-1, i} end\n" +
+            "  used[i] = tonumber(v)\n" +
+            "end\n" +
+            "local status, failed = 1, 0\n" +
+            "for i = 1, n do\n" +
+            "  local limit = tonumber(ARGV[2 + i])\n" +
+            "  if limit >= 0 and used[i] + amount > limit then\n" +
+            "    status, failed = 0, i\n" +
+            "    break\n" +
+            "  end\n" +
+            "end\n" +
+            "if status == 1 and ARGV[2] == '1' and amount ~= 0 then\n" +
+            "  for i = 1, n do\n" +
+            "    used[i] = redis.call('INCRBY', KEYS[i], amount)\n" +
+            "    redis.call('EXPIRE', KEYS[i], ARGV[2 + n + i])\n" +
+            "  end\n" +
+            "end\n" +
+            "local result = {status, failed}\n" +
+            "for i = 1, n do result[2 + i] = used[i] end\n" +
+            "return result",
+            List.class);
+
+    @Value("${ai.budget.config-cache-seconds:30}")
+    private long configCacheSeconds;
+
+    @Value("${ai.budget.headroom-ttl-ms:1000}")
+    private long headroomTtlMs;
+
+    /**
+     * 租户启用的预算配置（按当前周期展开为计数键）
+     */
+    private Cache<Long, List<BudgetSlot>> slotCache;
+
+    /**
+     * 租户最近一次脚本返回的使用量快照
+     */
+    private final Map<Long, Headroom> headroomCache = new ConcurrentHashMap<>();
+
+    /**
+     * 待回写数据库的计数键
+     */
+    private final Map<String, BudgetSlot> dirtySlots = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        slotCache = Caffeine.newBuilder()
+                .expireAfterWrite(configCacheSeconds, TimeUnit.SECONDS)
+                .maximumSize(10000)
+                .build();
+    }
+
     @Override
     @Transactional
     public AIBudgetConfig createBudgetConfig(AIBudgetConfig config) {
@@ -44,6 +131,7 @@ public class AIBudgetServiceImpl implements AIBudgetService {
         config.setCurrentUsage(BigDecimal.ZERO);
         config.setPeriodStartDate(calculatePeriodStartDate(config.getBudgetType()));
         budgetConfigMapper.insert(config);
+        invalidateTenant(config.getTenantId());
         return config;
     }
 
@@ -51,6 +139,7 @@ public class AIBudgetServiceImpl implements AIBudgetService {
     @Transactional
     public AIBudgetConfig updateBudgetConfig(AIBudgetConfig config) {
         budgetConfigMapper.updateById(config);
+        invalidateTenant(TenantContext.getTenantId());
         return budgetConfigMapper.selectById(config.getId());
     }
 
@@ -58,6 +147,7 @@ public class AIBudgetServiceImpl implements AIBudgetService {
     @Transactional
     public void deleteBudgetConfig(Long configId) {
         budgetConfigMapper.deleteById(configId);
+        invalidateTenant(TenantContext.getTenantId());
     }
 
     @Override
@@ -102,23 +192,56 @@ public class AIBudgetServiceImpl implements AIBudgetService {
     @Override
     public boolean checkRequestAllowed(BigDecimal estimatedCost) {
         Long tenantId = TenantContext.getTenantId();
-        
-        // 检查所有启用的预算配置
-        List<AIBudgetConfig> configs = budgetConfigMapper.selectEnabledByTenant(tenantId);
-        
-        for (AIBudgetConfig config : configs) {
-            BigDecimal currentUsage = getCurrentPeriodUsage(config.getBudgetType());
-            BigDecimal projectedUsage = currentUsage.add(estimatedCost);
-            
-            if (projectedUsage.compareTo(config.getBudgetAmount()) > 0) {
-                // 检查超限策略
-                if ("block".equals(config.getOverLimitPolicy())) {
-                    return false;
-                }
+        List<BudgetSlot> slots = getBudgetSlots(tenantId);
+        if (slots.stream().noneMatch(BudgetSlot::isEnforced)) {
+            return true;
+        }
+
+        // 本地余量快照足够时直接放行
+        long amount = toMicros(estimatedCost);
+        Headroom headroom = headroomCache.get(tenantId);
+        if (headroom != null && headroom.isFresh(slots, headroomTtlMs) && amount <= headroom.minRemaining()) {
+            return true;
+        }
+
+        try {
+            List<Long> result = executeBudgetScript(tenantId, slots, amount, false, true);
+            return result == null || result.get(0) == STATUS_OK;
+        } catch (Exception e) {
+            log.warn("预算检查失败，放行请求: tenantId={}, error={}", tenantId, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public boolean reserveBudget(BigDecimal estimatedCost) {
+        Long tenantId = TenantContext.getTenantId();
+        List<BudgetSlot> slots = getBudgetSlots(tenantId);
+        if (slots.isEmpty()) {
+            return true;
+        }
+
+        try {
+            List<Long> result = executeBudgetScript(tenantId, slots, toMicros(estimatedCost), true, true);
+            if (result == null) {
+                return true;
+            }
+            if (result.get(0) != STATUS_OK) {
+                return false;
             }
+            markDirty(slots);
+            return true;
+        } catch (Exception e) {
+            log.warn("预算预占失败，放行请求: tenantId={}, error={}", tenantId, e.getMessage());
+            return true;
         }
-        
-        return true;
+    }
+
+    @Override
+    public void settleBudgetUsage(BigDecimal reservedCost, BigDecimal actualCost) {
+        BigDecimal reserved = reservedCost != null ? reservedCost : BigDecimal.ZERO;
+        BigDecimal actual = actualCost != null ? actualCost : BigDecimal.ZERO;
+        addUsage(actual.subtract(reserved));
     }
 
     @Override
@@ -147,37 +270,32 @@ public class AIBudgetServiceImpl implements AIBudgetService {
     }
 
     @Override
-    @Transactional
     public void recordBudgetUsage(BigDecimal cost) {
-        Long tenantId = TenantContext.getTenantId();
-        
-        // 更新所有启用的预算配置
-        List<AIBudgetConfig> configs = budgetConfigMapper.selectEnabledByTenant(tenantId);
-        
-        for (AIBudgetConfig config : configs) {
-            config.setCurrentUsage(config.getCurrentUsage().add(cost));
-            budgetConfigMapper.updateById(config);
-            
-            // 更新Redis缓存
-            String cacheKey = BUDGET_USAGE_KEY + tenantId + ":" + config.getBudgetType();
-            redisService.increment(cacheKey, cost.longValue());
-        }
+        addUsage(cost);
     }
 
     @Override
     public BigDecimal getCurrentPeriodUsage(String budgetType) {
-        AIBudgetConfig config = getBudgetConfigByType(budgetType);
-        if (config == null) {
+        Long tenantId = TenantContext.getTenantId();
+        BudgetSlot slot = findSlot(tenantId, budgetType);
+        if (slot == null) {
             return BigDecimal.ZERO;
         }
-        
-        // 计算周期的开始和结束日期
-        LocalDate[] period = calculatePeriodDates(budgetType);
-        LocalDate startDate = period[0];
-        LocalDate endDate = period[1];
-        
-        // 从统计服务获取实际使用量
-        return usageStatsService.getTotalCost(startDate, endDate);
+
+        try {
+            String value = stringRedisTemplate.opsForValue().get(slot.key);
+            if (value == null) {
+                seedSlot(slot);
+                value = stringRedisTemplate.opsForValue().get(slot.key);
+            }
+            if (value != null) {
+                return fromMicros(Long.parseLong(value));
+            }
+        } catch (Exception e) {
+            log.warn("读取预算使用量失败，改用统计数据: tenantId={}, budgetType={}, error={}",
+                tenantId, budgetType, e.getMessage());
+        }
+        return usageStatsService.getTotalCost(slot.periodStart, slot.periodEnd);
     }
 
     @Override
@@ -189,11 +307,59 @@ public class AIBudgetServiceImpl implements AIBudgetService {
             config.setPeriodStartDate(calculatePeriodStartDate(budgetType));
             budgetConfigMapper.updateById(config);
             
-            // 清除Redis缓存
+            // 计数键置零而不是删除，避免下次访问时又从统计数据补种
             Long tenantId = TenantContext.getTenantId();
-            String cacheKey = BUDGET_USAGE_KEY + tenantId + ":" + budgetType;
-            redisService.deleteObject(cacheKey);
+            BudgetSlot slot = BudgetSlot.of(config, calculatePeriodDates(budgetType));
+            dirtySlots.remove(slot.key);
+            stringRedisTemplate.opsForValue().set(slot.key, "0", slot.ttlSeconds(), TimeUnit.SECONDS);
+            invalidateTenant(tenantId);
+        }
+    }
+
+    /**
+     * 将Redis中的当前周期使用量回写数据库
+     */
+    @Scheduled(fixedDelayString = "${ai.budget.reconcile-interval-ms:60000}")
+    public void reconcileBudgetUsage() {
+        if (dirtySlots.isEmpty()) {
+            return;
+        }
+        List<BudgetSlot> slots = new ArrayList<>(dirtySlots.values());
+        slots.forEach(slot -> dirtySlots.remove(slot.key, slot));
+
+        List<String> values;
+        try {
+            values = stringRedisTemplate.opsForValue().multiGet(slots.stream().map(slot -> slot.key).toList());
+        } catch (Exception e) {
+            log.error("读取预算使用量失败，下次对账重试: {}", e.getMessage());
+            slots.forEach(slot -> dirtySlots.putIfAbsent(slot.key, slot));
+            return;
+        }
+
+        int updated = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            BudgetSlot slot = slots.get(i);
+            String value = values != null ? values.get(i) : null;
+            if (value == null) {
+                continue;
+            }
+            try {
+                budgetConfigMapper.updatePeriodUsage(slot.configId, fromMicros(Long.parseLong(value)), slot.periodStart);
+                updated++;
+            } catch (Exception e) {
+                log.error("回写预算使用量失败: configId={}, error={}", slot.configId, e.getMessage());
+                dirtySlots.putIfAbsent(slot.key, slot);
+            }
         }
+        log.debug("预算使用量对账完成: {}", updated);
+    }
+
+    /**
+     * 停机前回写使用量
+     */
+    @PreDestroy
+    public void shutdown() {
+        reconcileBudgetUsage();
     }
 
     @Override
@@ -315,6 +481,7 @@ public class AIBudgetServiceImpl implements AIBudgetService {
         if (config != null) {
             config.setOverLimitPolicy(policy);
             budgetConfigMapper.updateById(config);
+            invalidateTenant(config.getTenantId());
         }
     }
 
@@ -342,6 +509,120 @@ public class AIBudgetServiceImpl implements AIBudgetService {
 
     // ==================== 辅助方法 ====================
 
+    /**
+     * 无条件累加使用量（实际费用已发生，不受 block 策略限制）
+     */
+    private void addUsage(BigDecimal cost) {
+        if (cost == null || cost.signum() == 0) {
+            return;
+        }
+        Long tenantId = TenantContext.getTenantId();
+        List<BudgetSlot> slots = getBudgetSlots(tenantId);
+        if (slots.isEmpty()) {
+            return;
+        }
+        try {
+            if (executeBudgetScript(tenantId, slots, toMicros(cost), true, false) != null) {
+                markDirty(slots);
+            }
+        } catch (Exception e) {
+            log.error("记录预算使用失败: tenantId={}, cost={}, error={}", tenantId, cost, e.getMessage());
+        }
+    }
+
+    /**
+     * 执行预占脚本，计数键缺失时补种后重试
+     *
+     * @return [状态, 超限序号, 各预算使用量...]
+     */
+    @SuppressWarnings("unchecked")
+    private List<Long> executeBudgetScript(Long tenantId, List<BudgetSlot> slots, long amount,
+                                           boolean commit, boolean enforce) {
+        int n = slots.size();
+        List<String> keys = new ArrayList<>(n);
+        Object[] args = new Object[2 + 2 * n];
+        args[0] = Long.toString(amount);
+        args[1] = commit ? "1" : "0";
+        for (int i = 0; i < n; i++) {
+            BudgetSlot slot = slots.get(i);
+            keys.add(slot.key);
+            args[2 + i] = Long.toString(enforce ? slot.limit : -1L);
+            args[2 + n + i] = Long.toString(slot.ttlSeconds());
+        }
+
+        // 每轮最多补种一个键
+        for (int attempt = 0; attempt <= n; attempt++) {
+            List<Long> result = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args);
+            if (result == null || result.size() < 2) {
+                return null;
+            }
+            if (result.get(0) != STATUS_MISSING) {
+                headroomCache.put(tenantId, new Headroom(slots, result));
+                return result;
+            }
+            seedSlot(slots.get(result.get(1).intValue() - 1));
+        }
+        return null;
+    }
+
+    /**
+     * 补种计数键：取数据库回写值与使用统计中的较大者
+     */
+    private void seedSlot(BudgetSlot slot) {
+        BigDecimal seed = usageStatsService.getTotalCost(slot.periodStart, slot.periodEnd);
+        if (seed == null) {
+            seed = BigDecimal.ZERO;
+        }
+        if (slot.periodStart.equals(slot.persistedPeriodStart) && slot.persistedUsage != null
+                && slot.persistedUsage.compareTo(seed) > 0) {
+            seed = slot.persistedUsage;
+        }
+        stringRedisTemplate.opsForValue().setIfAbsent(slot.key, Long.toString(toMicros(seed)),
+                slot.ttlSeconds(), TimeUnit.SECONDS);
+    }
+
+    private List<BudgetSlot> getBudgetSlots(Long tenantId) {
+        return slotCache.get(tenantId, id -> budgetConfigMapper.selectEnabledByTenant(id).stream()
+                .map(config -> BudgetSlot.of(config, calculatePeriodDates(config.getBudgetType())))
+                .toList());
+    }
+
+    private BudgetSlot findSlot(Long tenantId, String budgetType) {
+        for (BudgetSlot slot : getBudgetSlots(tenantId)) {
+            if (slot.budgetType.equals(budgetType)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private void markDirty(List<BudgetSlot> slots) {
+        for (BudgetSlot slot : slots) {
+            dirtySlots.put(slot.key, slot);
+        }
+    }
+
+    private void invalidateTenant(Long tenantId) {
+        if (tenantId != null) {
+            slotCache.invalidate(tenantId);
+            headroomCache.remove(tenantId);
+        }
+    }
+
+    /**
+     * 元转微元，向上取整保证不少计
+     */
+    private static long toMicros(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.movePointRight(MICRO_SCALE).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    private static BigDecimal fromMicros(long micros) {
+        return BigDecimal.valueOf(micros, MICRO_SCALE);
+    }
+
     /**
      * 计算周期开始日期
      */
@@ -405,4 +686,79 @@ public class AIBudgetServiceImpl implements AIBudgetService {
             config.getBudgetType(),
             getBudgetUsagePercentage(config.getBudgetType()));
     }
-}
\ No newline at end of file
+
+    /**
+     * 一条启用的预算配置在当前周期的计数键
+     */
+    private static final class BudgetSlot {
+        private final Long configId;
+        private final String budgetType;
+        private final String key;
+        /**
+         * 预算上限（微元），非 block 策略为 -1
+         */
+        private final long limit;
+        private final LocalDate periodStart;
+        private final LocalDate periodEnd;
+        private final LocalDate persistedPeriodStart;
+        private final BigDecimal persistedUsage;
+
+        private BudgetSlot(AIBudgetConfig config, LocalDate[] period) {
+            this.configId = config.getId();
+            this.budgetType = config.getBudgetType();
+            this.periodStart = period[0];
+            this.periodEnd = period[1];
+            // 花括号内的租户ID作为哈希标签，同一租户的计数键落在同一集群槽位，可在一个脚本内操作
+            this.key = BUDGET_USAGE_KEY + "{" + config.getTenantId() + "}:" + budgetType + ":" + periodStart;
+            this.limit = "block".equals(config.getOverLimitPolicy()) && config.getBudgetAmount() != null
+                    ? toMicros(config.getBudgetAmount()) : -1L;
+            this.persistedPeriodStart = config.getPeriodStartDate();
+            this.persistedUsage = config.getCurrentUsage();
+        }
+
+        private static BudgetSlot of(AIBudgetConfig config, LocalDate[] period) {
+            return new BudgetSlot(config, period);
+        }
+
+        private boolean isEnforced() {
+            return limit >= 0;
+        }
+
+        /**
+         * 计数键保留到周期结束后一天，便于对账
+         */
+        private long ttlSeconds() {
+            LocalDateTime expireAt = periodEnd.plusDays(2).atStartOfDay();
+            return Math.max(60L, java.time.Duration.between(LocalDateTime.now(), expireAt).getSeconds());
+        }
+    }
+
+    /**
+     * 脚本返回的使用量快照
+     */
+    private static final class Headroom {
+        private final List<BudgetSlot> slots;
+        private final long minRemaining;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Headroom(List<BudgetSlot> slots, List<Long> result) {
+            this.slots = slots;
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < slots.size() && 2 + i < result.size(); i++) {
+                BudgetSlot slot = slots.get(i);
+                if (slot.isEnforced()) {
+                    min = Math.min(min, slot.limit - result.get(2 + i));
+                }
+            }
+            this.minRemaining = min;
+        }
+
+        private boolean isFresh(List<BudgetSlot> currentSlots, long ttlMs) {
+            return slots == currentSlots && System.currentTimeMillis() - createdAt < ttlMs;
+        }
+
+        private long minRemaining() {
+            return minRemaining;
+        }
+    }
+}
@@ -3,18 +3,48 @@ package com.mota.ai.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mota.ai.entity.AIChatMessage;
 import com.mota.ai.entity.AIChatSession;
+import com.mota.ai.entity.AIModelConfig;
 import com.mota.ai.mapper.AIChatMessageMapper;
 import com.mota.ai.mapper.AIChatSessionMapper;
+import com.mota.ai.service.AIBudgetService;
 import com.mota.ai.service.AIChatService;
+import com.mota.ai.service.AIModelRouterService;
+import com.mota.ai.service.AIUsageStatsService;
+import com.mota.ai.support.ModelRegistry;
+import com.mota.common.core.context.TenantContext;
+import com.mota.common.core.exception.BusinessException;
+import com.mota.common.core.llm.ChatContextBuilder;
+import com.mota.common.core.llm.ChatStreamRequest;
+import com.mota.common.core.llm.HttpStreamingChatClient;
+import com.mota.common.core.llm.StreamingChatClient;
+import com.mota.common.core.llm.StubStreamingChatClient;
+import com.mota.common.core.llm.TokenCounter;
+import com.mota.common.core.resilience.AdaptiveBulkhead;
+import com.mota.common.core.resilience.BulkheadFullException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * AI对话服务实现类
@@ -26,6 +56,37 @@ public class AIChatServiceImpl implements AIChatService {
 
     private final AIChatSessionMapper sessionMapper;
     private final AIChatMessageMapper messageMapper;
+    private final AIModelRouterService modelRouterService;
+    private final ModelRegistry modelRegistry;
+    private final HttpClient chatHttpClient;
+    private final StubStreamingChatClient stubStreamingChatClient;
+    private final ObjectMapper objectMapper;
+    private final TokenCounter tokenCounter;
+    private final AIBudgetService budgetService;
+    private final AIUsageStatsService usageStatsService;
+
+    private static final int DEFAULT_MAX_TOKENS = 4096;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final BigDecimal TOKENS_PER_PRICE_UNIT = BigDecimal.valueOf(1000);
+    private static final String SYSTEM_PROMPT = "你是摩塔AI助手，帮助用户处理项目管理、任务协作和知识检索相关的问题。";
+
+    @Value("${ai.chat.stream.response-timeout-ms:30000}")
+    private long responseTimeoutMs;
+
+    /**
+     * 单次生成的总时长上限；响应超时只约束响应头，流中途停滞时由该上限结束生成并释放舱壁与预算
+     */
+    @Value("${ai.chat.stream.generation-timeout-ms:300000}")
+    private long generationTimeoutMs;
+
+    @Value("${ai.chat.context.max-tokens:6000}")
+    private int contextMaxTokens;
+
+    @Value("${ai.chat.context.summary-max-tokens:800}")
+    private int summaryMaxTokens;
+
+    @Value("${ai.chat.context.history-window:40}")
+    private int historyWindow;
 
     @Override
     @Transactional
@@ -47,7 +108,9 @@ public class AIChatServiceImpl implements AIChatService {
     public IPage<AIChatSession> getUserSessions(Long userId, int page, int size) {
         Page<AIChatSession> pageParam = new Page<>(page, size);
         LambdaQueryWrapper<AIChatSession> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(AIChatSession::getUserId, userId)
+        // 列表不需要滚动摘要，避免分页查询携带大文本列
+        wrapper.select(AIChatSession.class, field -> !"context_summary".equals(field.getColumn()))
+               .eq(AIChatSession::getUserId, userId)
                .eq(AIChatSession::getDeleted, 0)
                .orderByDesc(AIChatSession::getUpdatedAt);
         return sessionMapper.selectPage(pageParam, wrapper);
@@ -93,52 +156,203 @@ public class AIChatServiceImpl implements AIChatService {
     }
 
     @Override
-    @Transactional
     public AIChatMessage sendMessage(Long sessionId, String content) {
-        // 保存用户消息
-        AIChatMessage userMessage = new AIChatMessage();
-        userMessage.setSessionId(sessionId);
-        userMessage.setRole("user");
-        userMessage.setContent(content);
-        userMessage.setContentType("text");
-        userMessage.setCreatedAt(LocalDateTime.now());
-        messageMapper.insert(userMessage);
-
-        // 更新会话
+        try {
+            return streamMessage(sessionId, content, token -> { }).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new BusinessException("AI回复生成失败: " + cause.getMessage());
+        }
+    }
+
+    @Override
+    public CompletableFuture<AIChatMessage> streamMessage(Long sessionId, String content, Consumer<String> onToken) {
+        if (!StringUtils.hasText(content)) {
+            throw new BusinessException("消息内容不能为空");
+        }
+
         AIChatSession session = sessionMapper.selectById(sessionId);
-        if (session != null) {
-            session.setMessageCount(session.getMessageCount() + 1);
-            session.setLastMessageAt(LocalDateTime.now());
-            session.setUpdatedAt(LocalDateTime.now());
-            sessionMapper.updateById(session);
+        if (session == null) {
+            throw new BusinessException("会话不存在");
         }
 
-        // TODO: 调用AI模型生成回复
-        // 这里暂时返回模拟回复
-        AIChatMessage aiMessage = new AIChatMessage();
-        aiMessage.setSessionId(sessionId);
-        aiMessage.setRole("assistant");
-        aiMessage.setContent("感谢您的消息！我是摩塔AI助手，目前正在开发中。您的问题是：" + content);
-        aiMessage.setContentType("text");
-        aiMessage.setTokensUsed(100);
-        aiMessage.setCreatedAt(LocalDateTime.now());
-        messageMapper.insert(aiMessage);
+        AIModelConfig model = selectChatModel();
+        StreamingChatClient client = clientFor(model);
+        boolean remote = client != stubStreamingChatClient;
+        int maxTokens = model != null && model.getMaxTokens() != null ? model.getMaxTokens() : DEFAULT_MAX_TOKENS;
 
-        // 更新会话消息数
-        if (session != null) {
-            session.setMessageCount(session.getMessageCount() + 1);
-            sessionMapper.updateById(session);
+        // 只加载摘要之后的最近消息，放不下的较早消息折叠进滚动摘要；上下文预算不超过模型窗口减去输出上限
+        long summaryUntil = session.getSummaryUntilMessageId() != null ? session.getSummaryUntilMessageId() : 0L;
+        List<AIChatMessage> recent = messageMapper.selectRecentAfter(sessionId, summaryUntil, historyWindow);
+        List<ChatContextBuilder.Turn> history = new ArrayList<>(recent.size());
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            AIChatMessage message = recent.get(i);
+            if (!Boolean.TRUE.equals(message.getIsError()) && StringUtils.hasText(message.getContent())) {
+                history.add(new ChatContextBuilder.Turn(message.getId(), message.getRole(), message.getContent()));
+            }
+        }
+        int contextBudget = contextMaxTokens;
+        if (model != null && model.getContextWindow() != null && model.getContextWindow() > maxTokens) {
+            contextBudget = Math.min(contextBudget, model.getContextWindow() - maxTokens);
         }
+        ChatContextBuilder contextBuilder = new ChatContextBuilder(
+                tokenCounter::count, contextBudget, Math.min(summaryMaxTokens, contextBudget / 4));
 
-        return aiMessage;
+        // 窗口已满时，摘要与窗口之间的消息同样按时间顺序折叠进摘要，避免被跳过
+        String summary = session.getContextSummary();
+        Long foldedUntil = null;
+        if (!recent.isEmpty() && recent.size() >= historyWindow) {
+            long oldestLoaded = recent.get(recent.size() - 1).getId();
+            long cursor = summaryUntil;
+            List<AIChatMessage> overflow;
+            do {
+                overflow = messageMapper.selectBetween(sessionId, cursor, oldestLoaded, historyWindow);
+                if (overflow.isEmpty()) {
+                    break;
+                }
+                List<ChatContextBuilder.Turn> turns = new ArrayList<>(overflow.size());
+                for (AIChatMessage message : overflow) {
+                    if (!Boolean.TRUE.equals(message.getIsError()) && StringUtils.hasText(message.getContent())) {
+                        turns.add(new ChatContextBuilder.Turn(message.getId(), message.getRole(), message.getContent()));
+                    }
+                }
+                summary = contextBuilder.foldIntoSummary(summary, turns);
+                cursor = overflow.get(overflow.size() - 1).getId();
+                foldedUntil = cursor;
+            } while (overflow.size() == historyWindow);
+        }
+        ChatContextBuilder.ChatContext context = contextBuilder.build(SYSTEM_PROMPT, summary, history, content);
+        Long summaryUntilId = context.getSummaryUntilId() != null ? context.getSummaryUntilId() : foldedUntil;
+        int promptTokens = context.getPromptTokens();
+
+        // 发送前按本地估算的提示词 Token 与输出上限预占预算，不足时直接拒绝
+        Long tenantId = TenantContext.getTenantId();
+        BigDecimal reservedCost = remote ? estimateCost(model, promptTokens, maxTokens) : BigDecimal.ZERO;
+        if (remote && !budgetService.reserveBudget(reservedCost)) {
+            log.warn("AI预算不足，拒绝对话请求: sessionId={}, promptTokens={}, reservedCost={}",
+                    sessionId, promptTokens, reservedCost);
+            releaseModel(model);
+            throw new BusinessException("AI预算不足，请联系管理员");
+        }
+
+        // 真实模型调用进入提供商舱壁，并发已满时直接拒绝，不写入消息
+        AdaptiveBulkhead bulkhead = remote ? modelRegistry.bulkhead(model.getProvider()) : null;
+        CompletableFuture<String> generation;
+        long startNanos;
+        try {
+            if (bulkhead != null) {
+                acquire(bulkhead);
+            }
+            try {
+                // 保存用户消息
+                AIChatMessage userMessage = new AIChatMessage();
+                userMessage.setSessionId(sessionId);
+                userMessage.setRole("user");
+                userMessage.setContent(content);
+                userMessage.setContentType("text");
+                userMessage.setTokensUsed(tokenCounter.count(content));
+                userMessage.setCreatedAt(LocalDateTime.now());
+                messageMapper.insert(userMessage);
+
+                ChatStreamRequest request = ChatStreamRequest.builder()
+                        .model(model != null ? model.getModelName() : null)
+                        .system(context.getSystem())
+                        .maxTokens(maxTokens)
+                        .messages(context.getMessages())
+                        .build();
+
+                // 生成期间不占用请求线程，完成后一次性写入助手消息并更新会话
+                startNanos = System.nanoTime();
+                generation = client.streamAsync(request, onToken)
+                        .orTimeout(generationTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                if (bulkhead != null) {
+                    bulkhead.onIgnored();
+                }
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            if (remote) {
+                budgetService.settleBudgetUsage(reservedCost, BigDecimal.ZERO);
+            }
+            // 舱壁拒绝或发起前失败，模型未被实际调用
+            releaseModel(model);
+            throw e;
+        }
+        // 续延在公共线程池执行，整体放入发起请求时的租户上下文，消息、会话、预算与统计都按该租户写入
+        CompletableFuture<AIChatMessage> result = generation.handleAsync((reply, error) ->
+                TenantContext.callWithTenant(tenantId, () -> {
+                    long latencyNanos = System.nanoTime() - startNanos;
+                    int latencyMs = (int) TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+                    boolean cancelled = generation.isCancelled();
+                    int outputTokens = error == null ? tokenCounter.count(reply) : 0;
+                    if (bulkhead != null) {
+                        release(bulkhead, cancelled, latencyNanos, error);
+                    }
+                    if (remote) {
+                        // 按实际 Token 结算预占的预算并记录使用量；失败不计费，取消按已发送的提示词计费
+                        BigDecimal actualCost = error == null || cancelled ? estimateCost(model, promptTokens, outputTokens)
+                                : BigDecimal.ZERO;
+                        budgetService.settleBudgetUsage(reservedCost, actualCost);
+                        usageStatsService.recordApiCall(model.getId(), session.getUserId(), promptTokens, outputTokens,
+                                actualCost, latencyMs, error == null, error != null && !cancelled ? error.getMessage() : null);
+                    }
+                    if (cancelled) {
+                        // 取消不代表模型好坏，只归还熔断器许可
+                        releaseModel(model);
+                        sessionMapper.updateAfterTurn(sessionId, 1, promptTokens, context.getSummary(),
+                                summaryUntilId, LocalDateTime.now());
+                        throw new CancellationException("生成已取消");
+                    }
+                    if (model != null) {
+                        modelRouterService.recordModelCall(model.getId(), latencyMs, error == null);
+                    }
+
+                    AIChatMessage aiMessage = new AIChatMessage();
+                    aiMessage.setSessionId(sessionId);
+                    aiMessage.setRole("assistant");
+                    aiMessage.setContentType("text");
+                    aiMessage.setResponseTimeMs(latencyMs);
+                    aiMessage.setCreatedAt(LocalDateTime.now());
+                    if (error == null) {
+                        aiMessage.setContent(reply);
+                        aiMessage.setTokensUsed(outputTokens);
+                        aiMessage.setIsError(false);
+                    } else {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        log.warn("AI回复生成失败: sessionId={}, model={}, error={}", sessionId,
+                                model != null ? model.getModelName() : "stub", cause.getMessage());
+                        aiMessage.setContent("");
+                        aiMessage.setIsError(true);
+                        aiMessage.setErrorMessage(cause.getMessage());
+                    }
+                    messageMapper.insert(aiMessage);
+
+                    // 单条语句完成消息数、Token数、最后消息时间与摘要的更新
+                    sessionMapper.updateAfterTurn(sessionId, 2, promptTokens + outputTokens, context.getSummary(),
+                            summaryUntilId, aiMessage.getCreatedAt());
+
+                    if (error != null) {
+                        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                    }
+                    return aiMessage;
+                }));
+        // 下游取消（如客户端断开）时停止模型生成
+        result.whenComplete((message, error) -> {
+            if (result.isCancelled()) {
+                generation.cancel(true);
+            }
+        });
+        return result;
     }
 
     @Override
-    public List<AIChatMessage> getSessionMessages(Long sessionId) {
-        LambdaQueryWrapper<AIChatMessage> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(AIChatMessage::getSessionId, sessionId)
-               .orderByAsc(AIChatMessage::getCreatedAt);
-        return messageMapper.selectList(wrapper);
+    public List<AIChatMessage> getSessionMessages(Long sessionId, Long beforeId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<AIChatMessage> page = new ArrayList<>(messageMapper.selectPageBefore(sessionId, beforeId, pageSize));
+        // 倒序取出一页后翻转为时间升序返回
+        Collections.reverse(page);
+        return page;
     }
 
     @Override
@@ -151,4 +365,86 @@ public class AIChatServiceImpl implements AIChatService {
             messageMapper.updateById(message);
         }
     }
-}
\ No newline at end of file
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 选择对话模型，无可用模型时返回 null（使用本地模拟流）
+     */
+    private AIModelConfig selectChatModel() {
+        try {
+            return modelRouterService.selectBestModel("chat", null);
+        } catch (BusinessException e) {
+            log.debug("无可用对话模型，使用本地模拟回复: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 归还模型的熔断器许可，本地模拟回复无需归还
+     */
+    private void releaseModel(AIModelConfig model) {
+        if (model != null) {
+            modelRouterService.releaseModel(model.getId());
+        }
+    }
+
+    /**
+     * 按模型单价（每1K Token）估算费用，未配置单价时为 0
+     */
+    private static BigDecimal estimateCost(AIModelConfig model, int inputTokens, int outputTokens) {
+        BigDecimal cost = BigDecimal.ZERO;
+        if (model.getInputPrice() != null) {
+            cost = cost.add(model.getInputPrice().multiply(BigDecimal.valueOf(inputTokens)));
+        }
+        if (model.getOutputPrice() != null) {
+            cost = cost.add(model.getOutputPrice().multiply(BigDecimal.valueOf(outputTokens)));
+        }
+        return cost.divide(TOKENS_PER_PRICE_UNIT, 6, RoundingMode.HALF_UP);
+    }
+
+    private static void acquire(AdaptiveBulkhead bulkhead) {
+        try {
+            bulkhead.acquire();
+        } catch (BulkheadFullException e) {
+            log.warn("AI提供商并发已满，拒绝请求: {}", e.getMessage());
+            throw new BusinessException("AI服务繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("请求已中断");
+        }
+    }
+
+    /**
+     * 释放舱壁许可：成功按延迟调整并发上限，限流/网关错误/超时视为过载，取消与其他错误只释放
+     */
+    private static void release(AdaptiveBulkhead bulkhead, boolean cancelled, long latencyNanos, Throwable error) {
+        if (cancelled) {
+            bulkhead.onIgnored();
+            return;
+        }
+        if (error == null) {
+            bulkhead.onSuccess(latencyNanos);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String message = cause.getMessage();
+        boolean overload = cause instanceof HttpTimeoutException || message != null
+                && (message.startsWith("HTTP 429") || message.startsWith("HTTP 502")
+                || message.startsWith("HTTP 503") || message.startsWith("HTTP 504"));
+        if (overload) {
+            bulkhead.onDropped();
+        } else {
+            bulkhead.onIgnored();
+        }
+    }
+
+    private StreamingChatClient clientFor(AIModelConfig model) {
+        if (model == null || !StringUtils.hasText(model.getApiKey()) || !StringUtils.hasText(model.getApiEndpoint())) {
+            return stubStreamingChatClient;
+        }
+        return new HttpStreamingChatClient(chatHttpClient, objectMapper, model.getApiEndpoint(), model.getApiKey(),
+                HttpStreamingChatClient.ApiFormat.fromBaseUrl(model.getApiEndpoint()),
+                Duration.ofMillis(responseTimeoutMs));
+    }
+}
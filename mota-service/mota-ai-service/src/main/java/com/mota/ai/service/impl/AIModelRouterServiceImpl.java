@@ -3,107 +3,133 @@ package com.mota.ai.service.impl;
 import com.mota.ai.entity.AIModelConfig;
 import com.mota.ai.mapper.AIModelConfigMapper;
 import com.mota.ai.service.AIModelRouterService;
+import com.mota.ai.support.ModelChangedEvent;
+import com.mota.ai.support.ModelHealthProbe;
+import com.mota.ai.support.ModelRegistry;
 import com.mota.common.core.context.TenantContext;
 import com.mota.common.core.exception.BusinessException;
+import com.mota.common.core.resilience.AdaptiveBulkhead;
+import com.mota.common.core.resilience.CircuitBreaker;
+import com.mota.common.core.resilience.EwmaStats;
+import com.mota.common.core.resilience.SlidingWindowStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
  * AI模型路由服务实现
+ *
+ * 路由读取 {@link ModelRegistry} 中的内存快照，不访问数据库；候选模型需健康、能力满足且熔断器放行，
+ * 再按 配置权重 × 延迟因子 × 成功率因子 加权随机选择，延迟与错误率取调用方上报结果的EWMA。
+ * 健康状态以真实流量为准：调用结果同时计入滑动窗口，窗口内样本足够的模型直接按成功率与P95延迟判定，
+ * 只有近期无流量的模型才主动探测，探测并发执行且单独限时。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AIModelRouterServiceImpl implements AIModelRouterService {
 
+    /**
+     * 延迟/成功率因子下限，避免模型权重降为0后再也得不到流量
+     */
+    private static final double MIN_FACTOR = 0.01;
+
     private final AIModelConfigMapper modelConfigMapper;
+    private final ModelRegistry modelRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ModelHealthProbe healthProbe;
+
+    @Value("${ai.router.health.min-samples:10}")
+    private int healthMinSamples;
+
+    @Value("${ai.router.health.min-success-rate:0.5}")
+    private double healthMinSuccessRate;
+
+    @Value("${ai.router.health.max-p95-ms:60000}")
+    private long healthMaxP95Ms;
 
     @Override
     public AIModelConfig selectBestModel(String modelType, List<String> capabilities) {
-        Long tenantId = TenantContext.getTenantId();
-        
-        // 获取所有健康的模型
-        List<AIModelConfig> healthyModels = modelConfigMapper.selectHealthyModels(tenantId);
+        ModelRegistry.Snapshot snapshot = modelRegistry.get(TenantContext.getTenantId());
+        long requiredMask = modelRegistry.requiredMask(capabilities);
         
-        // 按模型类型过滤
-        List<AIModelConfig> filteredModels = healthyModels.stream()
-            .filter(m -> modelType == null || modelType.equals(m.getModelType()))
-            .collect(Collectors.toList());
-        
-        // 按能力过滤
-        if (capabilities != null && !capabilities.isEmpty()) {
-            filteredModels = filteredModels.stream()
-                .filter(m -> {
-                    if (m.getCapabilities() == null) return false;
-                    Set<String> modelCaps = new HashSet<>(Arrays.asList(m.getCapabilities().split(",")));
-                    return modelCaps.containsAll(capabilities);
-                })
-                .collect(Collectors.toList());
+        // 按类型、健康状态、能力和熔断状态过滤
+        List<ModelRegistry.Entry> candidates = new ArrayList<>();
+        for (ModelRegistry.Entry entry : snapshot.getModels()) {
+            if ((modelType == null || modelType.equals(entry.getConfig().getModelType()))
+                    && entry.isHealthy()
+                    && entry.hasCapabilities(requiredMask)
+                    && entry.getRuntime().getCircuitBreaker().isCallPermitted()) {
+                candidates.add(entry);
+            }
         }
         
-        if (filteredModels.isEmpty()) {
-            // 尝试获取默认模型
-            AIModelConfig defaultModel = modelConfigMapper.selectDefaultByTenant(tenantId);
-            if (defaultModel != null) {
-                return defaultModel;
+        // 加权选择，熔断器半开时只有取得探测名额的请求能选中该模型
+        while (!candidates.isEmpty()) {
+            ModelRegistry.Entry selected = selectByWeight(candidates);
+            if (selected.getRuntime().getCircuitBreaker().tryAcquire()) {
+                return selected.getConfig();
             }
-            throw new BusinessException("没有可用的AI模型");
+            candidates.remove(selected);
         }
         
-        // 按优先级和权重选择
-        return selectByWeight(filteredModels);
+        // 尝试获取默认模型，同样需要取得熔断器许可，熔断中的默认模型不再接收流量
+        ModelRegistry.Entry defaultModel = snapshot.getDefaultModel();
+        if (defaultModel != null && defaultModel.getRuntime().getCircuitBreaker().tryAcquire()) {
+            return defaultModel.getConfig();
+        }
+        throw new BusinessException("没有可用的AI模型");
     }
 
     @Override
     public AIModelConfig getModel(String modelName) {
-        Long tenantId = TenantContext.getTenantId();
-        List<AIModelConfig> models = modelConfigMapper.selectEnabledByTenant(tenantId);
-        
-        return models.stream()
-            .filter(m -> modelName.equals(m.getModelName()))
-            .findFirst()
-            .orElseThrow(() -> new BusinessException("模型不存在: " + modelName));
+        ModelRegistry.Entry entry = modelRegistry.get(TenantContext.getTenantId()).findByName(modelName);
+        if (entry == null) {
+            throw new BusinessException("模型不存在: " + modelName);
+        }
+        return entry.getConfig();
     }
 
     @Override
     public AIModelConfig getDefaultModel() {
-        Long tenantId = TenantContext.getTenantId();
-        AIModelConfig defaultModel = modelConfigMapper.selectDefaultByTenant(tenantId);
-        
-        if (defaultModel == null) {
-            // 返回第一个可用模型
-            List<AIModelConfig> models = modelConfigMapper.selectEnabledByTenant(tenantId);
-            if (!models.isEmpty()) {
-                return models.get(0);
-            }
-            throw new BusinessException("没有可用的AI模型");
+        ModelRegistry.Snapshot snapshot = modelRegistry.get(TenantContext.getTenantId());
+        if (snapshot.getDefaultModel() != null) {
+            return snapshot.getDefaultModel().getConfig();
         }
         
-        return defaultModel;
+        // 返回第一个可用模型
+        if (!snapshot.getModels().isEmpty()) {
+            return snapshot.getModels().get(0).getConfig();
+        }
+        throw new BusinessException("没有可用的AI模型");
     }
 
     @Override
     public AIModelConfig getFallbackModel(Long modelId) {
-        AIModelConfig model = modelConfigMapper.selectById(modelId);
-        if (model == null || model.getFallbackModelId() == null) {
-            return null;
-        }
-        
-        AIModelConfig fallback = modelConfigMapper.selectById(model.getFallbackModelId());
-        if (fallback != null && fallback.getIsEnabled() && "healthy".equals(fallback.getHealthStatus())) {
-            return fallback;
-        }
+        ModelRegistry.Snapshot snapshot = modelRegistry.get(TenantContext.getTenantId());
+        AIModelConfig model = findModel(snapshot, modelId);
         
-        // 递归查找降级模型
-        if (fallback != null && fallback.getFallbackModelId() != null) {
-            return getFallbackModel(fallback.getId());
+        // 沿降级链查找第一个健康且取得熔断器许可的模型，与 selectBestModel 一样打开到期时转为半开探测；
+        // 记录已访问节点防止配置成环
+        Set<Long> visited = new HashSet<>();
+        visited.add(modelId);
+        while (model != null && model.getFallbackModelId() != null && visited.add(model.getFallbackModelId())) {
+            ModelRegistry.Entry fallback = snapshot.findById(model.getFallbackModelId());
+            if (fallback != null && fallback.isHealthy()
+                    && fallback.getRuntime().getCircuitBreaker().tryAcquire()) {
+                return fallback.getConfig();
+            }
+            model = findModel(snapshot, model.getFallbackModelId());
         }
         
         return null;
@@ -111,18 +137,23 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
 
     @Override
     public List<AIModelConfig> getAvailableModels() {
-        Long tenantId = TenantContext.getTenantId();
-        return modelConfigMapper.selectEnabledByTenant(tenantId);
+        return toConfigs(modelRegistry.get(TenantContext.getTenantId()).getModels());
     }
 
     @Override
     public List<AIModelConfig> getModelsByProvider(String provider) {
-        Long tenantId = TenantContext.getTenantId();
-        return modelConfigMapper.selectByProvider(tenantId, provider);
+        return modelRegistry.get(TenantContext.getTenantId()).getModels().stream()
+            .map(ModelRegistry.Entry::getConfig)
+            .filter(m -> provider.equals(m.getProvider()))
+            .collect(Collectors.toList());
     }
 
     @Override
     public boolean checkModelHealth(Long modelId) {
+        ModelRegistry.Entry entry = modelRegistry.get(TenantContext.getTenantId()).findById(modelId);
+        if (entry != null) {
+            return entry.isHealthy() && entry.getRuntime().getCircuitBreaker().getState() != CircuitBreaker.State.OPEN;
+        }
         AIModelConfig model = modelConfigMapper.selectById(modelId);
         return model != null && "healthy".equals(model.getHealthStatus());
     }
@@ -135,34 +166,109 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
             model.setHealthStatus(status);
             model.setLastHealthCheck(LocalDateTime.now());
             modelConfigMapper.updateById(model);
+            eventPublisher.publishEvent(new ModelChangedEvent(model.getTenantId()));
         }
     }
 
     @Override
-    @Scheduled(fixedRate = 60000) // 每分钟执行一次
+    public void recordModelCall(Long modelId, long latencyMillis, boolean success) {
+        ModelRegistry.ModelRuntime runtime = modelRegistry.runtime(modelId);
+        runtime.getStats().record(latencyMillis, success);
+        runtime.getHealth().record(latencyMillis, success);
+        if (success) {
+            runtime.getCircuitBreaker().onSuccess();
+        } else {
+            runtime.getCircuitBreaker().onFailure();
+        }
+    }
+
+    @Override
+    public void releaseModel(Long modelId) {
+        modelRegistry.runtime(modelId).getCircuitBreaker().release();
+    }
+
+    @Override
+    public List<Map<String, Object>> getModelRuntimeStatus() {
+        List<Map<String, Object>> statuses = new ArrayList<>();
+        for (ModelRegistry.Entry entry : modelRegistry.get(TenantContext.getTenantId()).getModels()) {
+            CircuitBreaker breaker = entry.getRuntime().getCircuitBreaker();
+            EwmaStats stats = entry.getRuntime().getStats();
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("modelId", entry.getConfig().getId());
+            status.put("modelName", entry.getConfig().getModelName());
+            status.put("healthStatus", entry.getConfig().getHealthStatus());
+            status.put("circuitState", breaker.getState().name().toLowerCase());
+            status.put("failureCount", breaker.getConsecutiveFailures());
+            status.put("lastFailureTime", breaker.getLastFailureTime() > 0 ? breaker.getLastFailureTime() : null);
+            status.put("latencyEwmaMs", stats.getSamples() > 0 ? Math.round(stats.getLatencyMillis()) : null);
+            status.put("errorRate", stats.getErrorRate());
+            status.put("samples", stats.getSamples());
+            SlidingWindowStats.Snapshot window = entry.getRuntime().getHealth().snapshot();
+            status.put("windowRequests", window.getRequests());
+            status.put("windowSuccessRate", window.getSuccessRate());
+            status.put("windowP95Ms", window.getRequests() > 0 ? window.latencyPercentile(0.95) : null);
+            AdaptiveBulkhead bulkhead = modelRegistry.bulkhead(entry.getConfig().getProvider());
+            status.put("provider", bulkhead.getName());
+            status.put("concurrencyLimit", bulkhead.getLimit());
+            status.put("inFlight", bulkhead.getInFlight());
+            status.put("queued", bulkhead.getQueued());
+            status.put("rejected", bulkhead.getRejected());
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    @Override
+    public void resetCircuitBreaker(Long modelId) {
+        modelRegistry.runtime(modelId).getCircuitBreaker().reset();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${ai.router.health.check-interval-ms:15000}")
     public void performHealthCheck() {
         log.debug("执行AI模型健康检查...");
         
         // 获取所有启用的模型
         List<AIModelConfig> allModels = modelConfigMapper.selectList(null);
         
+        // 有近期流量的模型被动判定，其余模型发起探测；探测并发执行，各自带超时
+        Map<AIModelConfig, Boolean> verdicts = new LinkedHashMap<>();
+        Map<AIModelConfig, CompletableFuture<Boolean>> probes = new LinkedHashMap<>();
         for (AIModelConfig model : allModels) {
-            if (!model.getIsEnabled()) continue;
+            if (!Boolean.TRUE.equals(model.getIsEnabled())) continue;
+            
+            SlidingWindowStats.Snapshot window = modelRegistry.runtime(model.getId()).getHealth().snapshot();
+            if (window.getRequests() >= healthMinSamples) {
+                verdicts.put(model, window.getSuccessRate() >= healthMinSuccessRate
+                        && window.latencyPercentile(0.95) <= healthMaxP95Ms);
+            } else {
+                probes.put(model, healthProbe.probe(model));
+            }
+        }
+        if (!probes.isEmpty()) {
+            CompletableFuture.allOf(probes.values().toArray(new CompletableFuture[0])).join();
+            probes.forEach((model, probe) -> verdicts.put(model, probe.join()));
+        }
+        
+        // 只写入状态变化的模型，每个租户刷新一次注册表
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> changedTenants = new HashSet<>();
+        for (Map.Entry<AIModelConfig, Boolean> verdict : verdicts.entrySet()) {
+            AIModelConfig model = verdict.getKey();
+            String newStatus = verdict.getValue() ? "healthy" : "unhealthy";
+            if (newStatus.equals(model.getHealthStatus())) continue;
             
             try {
-                // TODO: 实际的健康检查逻辑（调用模型API）
-                boolean isHealthy = performSingleHealthCheck(model);
-                
-                String newStatus = isHealthy ? "healthy" : "unhealthy";
-                if (!newStatus.equals(model.getHealthStatus())) {
-                    updateModelHealth(model.getId(), newStatus);
-                    log.info("模型 {} 健康状态变更: {} -> {}", model.getModelName(), model.getHealthStatus(), newStatus);
-                }
+                modelConfigMapper.updateHealthStatus(model.getId(), newStatus, now);
+                changedTenants.add(model.getTenantId());
+                log.info("模型 {} 健康状态变更: {} -> {}", model.getModelName(), model.getHealthStatus(), newStatus);
             } catch (Exception e) {
-                log.warn("模型 {} 健康检查失败: {}", model.getModelName(), e.getMessage());
-                updateModelHealth(model.getId(), "unhealthy");
+                log.warn("模型 {} 健康状态更新失败: {}", model.getModelName(), e.getMessage());
             }
         }
+        for (Long tenantId : changedTenants) {
+            eventPublisher.publishEvent(new ModelChangedEvent(tenantId));
+        }
     }
 
     @Override
@@ -172,6 +278,7 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
         config.setHealthStatus("healthy");
         config.setLastHealthCheck(LocalDateTime.now());
         modelConfigMapper.insert(config);
+        eventPublisher.publishEvent(new ModelChangedEvent(config.getTenantId()));
         return config;
     }
 
@@ -179,6 +286,7 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
     @Transactional
     public AIModelConfig updateModelConfig(AIModelConfig config) {
         modelConfigMapper.updateById(config);
+        eventPublisher.publishEvent(new ModelChangedEvent(TenantContext.getTenantId()));
         return modelConfigMapper.selectById(config.getId());
     }
 
@@ -186,6 +294,7 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
     @Transactional
     public void deleteModelConfig(Long modelId) {
         modelConfigMapper.deleteById(modelId);
+        eventPublisher.publishEvent(new ModelChangedEvent(TenantContext.getTenantId()));
     }
 
     @Override
@@ -195,8 +304,7 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
 
     @Override
     public List<AIModelConfig> listModelConfigs() {
-        Long tenantId = TenantContext.getTenantId();
-        return modelConfigMapper.selectEnabledByTenant(tenantId);
+        return getAvailableModels();
     }
 
     @Override
@@ -217,6 +325,7 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
             newDefault.setIsDefault(true);
             modelConfigMapper.updateById(newDefault);
         }
+        eventPublisher.publishEvent(new ModelChangedEvent(tenantId));
     }
 
     @Override
@@ -226,6 +335,7 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
         if (model != null) {
             model.setIsEnabled(enabled);
             modelConfigMapper.updateById(model);
+            eventPublisher.publishEvent(new ModelChangedEvent(model.getTenantId()));
         }
     }
 
@@ -233,37 +343,64 @@ public class AIModelRouterServiceImpl implements AIModelRouterService {
 
     /**
      * 按权重选择模型
+     * 有效权重 = 配置权重 × (最快模型EWMA延迟 / 本模型EWMA延迟) × (1 - EWMA错误率)²，
+     * 尚无调用样本的模型延迟与成功率因子取1
      */
-    private AIModelConfig selectByWeight(List<AIModelConfig> models) {
+    private ModelRegistry.Entry selectByWeight(List<ModelRegistry.Entry> models) {
         if (models.size() == 1) {
             return models.get(0);
         }
         
-        // 计算总权重
-        int totalWeight = models.stream()
-            .mapToInt(m -> m.getWeight() != null ? m.getWeight() : 1)
-            .sum();
+        double fastest = Double.MAX_VALUE;
+        for (ModelRegistry.Entry model : models) {
+            EwmaStats stats = model.getRuntime().getStats();
+            if (stats.getSamples() > 0) {
+                fastest = Math.min(fastest, Math.max(stats.getLatencyMillis(), 1.0));
+            }
+        }
         
-        // 随机选择
-        int random = new Random().nextInt(totalWeight);
-        int currentWeight = 0;
+        // 计算有效权重
+        double[] weights = new double[models.size()];
+        double totalWeight = 0;
+        for (int i = 0; i < models.size(); i++) {
+            ModelRegistry.Entry model = models.get(i);
+            Integer configured = model.getConfig().getWeight();
+            double weight = configured != null ? Math.max(configured, 0) : 1;
+            EwmaStats stats = model.getRuntime().getStats();
+            if (stats.getSamples() > 0) {
+                double latencyFactor = fastest / Math.max(stats.getLatencyMillis(), 1.0);
+                double successRate = 1 - stats.getErrorRate();
+                weight *= Math.max(latencyFactor, MIN_FACTOR) * Math.max(successRate * successRate, MIN_FACTOR);
+            }
+            weights[i] = weight;
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            return models.get(0);
+        }
         
-        for (AIModelConfig model : models) {
-            currentWeight += model.getWeight() != null ? model.getWeight() : 1;
+        // 随机选择
+        double random = ThreadLocalRandom.current().nextDouble(totalWeight);
+        double currentWeight = 0;
+        for (int i = 0; i < models.size(); i++) {
+            currentWeight += weights[i];
             if (random < currentWeight) {
-                return model;
+                return models.get(i);
             }
         }
         
-        return models.get(0);
+        return models.get(models.size() - 1);
     }
 
     /**
-     * 执行单个模型的健康检查
+     * 优先从快照查找模型，已禁用的模型回查数据库
      */
-    private boolean performSingleHealthCheck(AIModelConfig model) {
-        // TODO: 实现实际的健康检查逻辑
-        // 可以发送一个简单的请求到模型API来验证连接
-        return true;
+    private AIModelConfig findModel(ModelRegistry.Snapshot snapshot, Long modelId) {
+        ModelRegistry.Entry entry = snapshot.findById(modelId);
+        return entry != null ? entry.getConfig() : modelConfigMapper.selectById(modelId);
+    }
+
+    private List<AIModelConfig> toConfigs(List<ModelRegistry.Entry> entries) {
+        return entries.stream().map(ModelRegistry.Entry::getConfig).collect(Collectors.toList());
     }
 }
\ No newline at end of file
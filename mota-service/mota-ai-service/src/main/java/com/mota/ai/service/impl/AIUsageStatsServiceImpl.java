@@ -6,9 +6,11 @@ import com.mota.ai.mapper.AIUsageStatsMapper;
 import com.mota.ai.service.AIUsageStatsService;
 import com.mota.common.core.context.TenantContext;
 import com.mota.common.redis.service.RedisService;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,11 +19,17 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * AI使用统计服务实现
+ *
+ * 调用记录只累加内存中按 租户+模型+用户+日期 分组的 LongAdder 计数器，
+ * 定时任务批量以 INSERT ... ON DUPLICATE KEY UPDATE x = x + VALUES(x) 写入，停机前写出剩余增量。
  */
 @Slf4j
 @Service
@@ -34,50 +42,116 @@ public class AIUsageStatsServiceImpl implements AIUsageStatsService {
     private static final String QPS_KEY = "ai:qps:";
     private static final String DAILY_STATS_KEY = "ai:daily:stats:";
 
+    /**
+     * 未关联用户的调用记为用户0，保证唯一键可合并
+     */
+    private static final Long NO_USER = 0L;
+
+    /**
+     * 费用以 1/10000 元为单位累加，与 total_cost DECIMAL(12,4) 精度一致
+     */
+    private static final int COST_SCALE = 4;
+
+    @Value("${ai.usage-stats.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final Map<UsageKey, UsageCounters> pendingUsage = new ConcurrentHashMap<>();
+    private final Map<Long, LongAdder> pendingQps = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
     @Override
-    @Async
-    @Transactional
     public void recordApiCall(Long modelConfigId, Long userId, Integer inputTokens, Integer outputTokens,
                               BigDecimal cost, Integer responseTime, boolean success, String errorMessage) {
         Long tenantId = TenantContext.getTenantId();
-        LocalDate today = LocalDate.now();
-        
-        // 获取或创建今日统计记录
-        AIUsageStats stats = getOrCreateStats(tenantId, modelConfigId, userId, today);
-        
-        // 更新统计数据
-        stats.setRequestCount(stats.getRequestCount() + 1);
-        stats.setTotalInputTokens(stats.getTotalInputTokens() + (inputTokens != null ? inputTokens : 0));
-        stats.setTotalOutputTokens(stats.getTotalOutputTokens() + (outputTokens != null ? outputTokens : 0));
-        stats.setTotalCost(stats.getTotalCost().add(cost != null ? cost : BigDecimal.ZERO));
+        UsageKey key = new UsageKey(tenantId, modelConfigId, userId != null ? userId : NO_USER, LocalDate.now());
         
+        // 只累加内存计数器，由定时任务批量写入数据库
+        UsageCounters counters = pendingUsage.computeIfAbsent(key, k -> new UsageCounters());
+        counters.requestCount.increment();
         if (success) {
-            stats.setSuccessCount(stats.getSuccessCount() + 1);
+            counters.successCount.increment();
         } else {
-            stats.setFailureCount(stats.getFailureCount() + 1);
+            counters.failureCount.increment();
+        }
+        if (inputTokens != null) {
+            counters.inputTokens.add(inputTokens);
+        }
+        if (outputTokens != null) {
+            counters.outputTokens.add(outputTokens);
+        }
+        if (cost != null) {
+            counters.costUnits.add(cost.movePointRight(COST_SCALE).setScale(0, RoundingMode.HALF_UP).longValue());
         }
-        
-        // 更新响应时间统计
         if (responseTime != null) {
-            stats.setTotalResponseTime(stats.getTotalResponseTime() + responseTime);
-            if (responseTime < stats.getMinResponseTime() || stats.getMinResponseTime() == 0) {
-                stats.setMinResponseTime(responseTime);
+            counters.totalResponseTime.add(responseTime);
+            counters.minResponseTime.accumulate(responseTime);
+            counters.maxResponseTime.accumulate(responseTime);
+        }
+        
+        if (tenantId != null) {
+            pendingQps.computeIfAbsent(tenantId, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * 定时将累加的使用增量批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${ai.usage-stats.flush-interval-ms:5000}")
+    public void flushUsage() {
+        synchronized (flushLock) {
+            flushQps();
+            
+            List<AIUsageStats> deltas = new ArrayList<>();
+            LocalDate today = LocalDate.now();
+            for (Map.Entry<UsageKey, UsageCounters> entry : pendingUsage.entrySet()) {
+                AIUsageStats delta = entry.getValue().drain(entry.getKey());
+                if (delta != null && delta.getTenantId() == null) {
+                    // tenant_id 非空，无租户上下文的增量无法写入，丢弃以免阻塞后续刷新
+                    pendingUsage.remove(entry.getKey(), entry.getValue());
+                    log.warn("丢弃无租户的使用统计增量: modelConfigId={}, userId={}, date={}, requests={}",
+                            delta.getModelConfigId(), delta.getUserId(), delta.getStatsDate(), delta.getRequestCount());
+                } else if (delta != null) {
+                    deltas.add(delta);
+                } else if (entry.getKey().statsDate.isBefore(today)) {
+                    // 过期日期已无新增量，移除计数器
+                    pendingUsage.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            if (deltas.isEmpty()) {
+                return;
             }
-            if (responseTime > stats.getMaxResponseTime()) {
-                stats.setMaxResponseTime(responseTime);
+            
+            // 每个分片独立提交，记录已写入的位置
+            int written = 0;
+            try {
+                while (written < deltas.size()) {
+                    int to = Math.min(written + flushBatchSize, deltas.size());
+                    usageStatsMapper.upsertBatch(deltas.subList(written, to));
+                    written = to;
+                }
+            } catch (Exception e) {
+                // 只把失败及未写入分片的增量加回计数器，等待下次刷新，已提交的分片不重复累加
+                for (AIUsageStats delta : deltas.subList(written, deltas.size())) {
+                    UsageKey key = new UsageKey(delta.getTenantId(), delta.getModelConfigId(), delta.getUserId(), delta.getStatsDate());
+                    pendingUsage.computeIfAbsent(key, k -> new UsageCounters()).restore(delta);
+                }
+                log.error("使用统计批量写入失败: written={}, restored={}", written, deltas.size() - written, e);
             }
-            // 计算平均响应时间
-            int avgResponseTime = stats.getTotalResponseTime() / stats.getRequestCount();
-            stats.setAvgResponseTime(avgResponseTime);
+            
+            // 使涉及租户的日统计缓存失效
+            deltas.subList(0, written).stream()
+                    .map(delta -> delta.getTenantId() + ":" + delta.getStatsDate())
+                    .distinct()
+                    .forEach(suffix -> redisService.deleteObject(DAILY_STATS_KEY + suffix));
         }
-        
-        usageStatsMapper.updateById(stats);
-        
-        // 更新Redis中的QPS计数
-        updateQpsCounter(tenantId);
-        
-        // 更新Redis中的日统计缓存
-        invalidateDailyStatsCache(tenantId, today);
+    }
+
+    /**
+     * 停机前写出剩余增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushUsage();
     }
 
     @Override
@@ -169,7 +243,7 @@ public class AIUsageStatsServiceImpl implements AIUsageStatsService {
         // 按用户聚合
         Map<Long, Map<String, Object>> userStats = new HashMap<>();
         for (AIUsageStats stat : stats) {
-            if (stat.getUserId() == null) continue;
+            if (stat.getUserId() == null || NO_USER.equals(stat.getUserId())) continue;
             
             Long userId = stat.getUserId();
             Map<String, Object> userStat = userStats.computeIfAbsent(userId, k -> {
@@ -328,47 +402,120 @@ public class AIUsageStatsServiceImpl implements AIUsageStatsService {
     // ==================== 辅助方法 ====================
 
     /**
-     * 获取或创建统计记录
+     * 将本地QPS计数累加到Redis
      */
-    private AIUsageStats getOrCreateStats(Long tenantId, Long modelConfigId, Long userId, LocalDate date) {
-        AIUsageStats stats = usageStatsMapper.selectByModelAndDate(tenantId, modelConfigId, date);
-        
-        if (stats == null) {
-            stats = new AIUsageStats();
-            stats.setTenantId(tenantId);
-            stats.setModelConfigId(modelConfigId);
-            stats.setUserId(userId);
-            stats.setStatsDate(date);
-            stats.setRequestCount(0);
-            stats.setSuccessCount(0);
-            stats.setFailureCount(0);
-            stats.setTotalInputTokens(0L);
-            stats.setTotalOutputTokens(0L);
-            stats.setTotalCost(BigDecimal.ZERO);
-            stats.setTotalResponseTime(0);
-            stats.setAvgResponseTime(0);
-            stats.setMinResponseTime(0);
-            stats.setMaxResponseTime(0);
-            usageStatsMapper.insert(stats);
+    private void flushQps() {
+        for (Map.Entry<Long, LongAdder> entry : pendingQps.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            try {
+                String key = QPS_KEY + entry.getKey();
+                redisService.increment(key, count);
+                redisService.expire(key, 60L, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("QPS计数写入失败: tenantId={}", entry.getKey(), e);
+            }
         }
-        
-        return stats;
     }
 
     /**
-     * 更新QPS计数器
+     * 统计维度：租户 + 模型 + 用户 + 日期
      */
-    private void updateQpsCounter(Long tenantId) {
-        String key = QPS_KEY + tenantId;
-        redisService.increment(key, 1L);
-        redisService.expire(key, 60L, TimeUnit.SECONDS);
+    private static final class UsageKey {
+        private final Long tenantId;
+        private final Long modelConfigId;
+        private final Long userId;
+        private final LocalDate statsDate;
+
+        private UsageKey(Long tenantId, Long modelConfigId, Long userId, LocalDate statsDate) {
+            this.tenantId = tenantId;
+            this.modelConfigId = modelConfigId;
+            this.userId = userId;
+            this.statsDate = statsDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof UsageKey)) return false;
+            UsageKey other = (UsageKey) o;
+            return Objects.equals(tenantId, other.tenantId) && Objects.equals(modelConfigId, other.modelConfigId)
+                    && Objects.equals(userId, other.userId) && Objects.equals(statsDate, other.statsDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tenantId, modelConfigId, userId, statsDate);
+        }
     }
 
     /**
-     * 使日统计缓存失效
+     * 无锁计数器，刷新时逐项 sumThenReset 取出增量
      */
-    private void invalidateDailyStatsCache(Long tenantId, LocalDate date) {
-        String cacheKey = DAILY_STATS_KEY + tenantId + ":" + date;
-        redisService.deleteObject(cacheKey);
+    private static final class UsageCounters {
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder successCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder costUnits = new LongAdder();
+        private final LongAdder totalResponseTime = new LongAdder();
+        private final LongAccumulator minResponseTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxResponseTime = new LongAccumulator(Math::max, 0L);
+
+        /**
+         * 取出并清零增量，无新增请求时返回 null
+         */
+        private AIUsageStats drain(UsageKey key) {
+            long requests = requestCount.sumThenReset();
+            long success = successCount.sumThenReset();
+            long failure = failureCount.sumThenReset();
+            long input = inputTokens.sumThenReset();
+            long output = outputTokens.sumThenReset();
+            long cost = costUnits.sumThenReset();
+            long responseTime = totalResponseTime.sumThenReset();
+            long min = minResponseTime.getThenReset();
+            long max = maxResponseTime.getThenReset();
+            if (requests == 0 && success == 0 && failure == 0 && input == 0 && output == 0 && cost == 0
+                    && responseTime == 0) {
+                return null;
+            }
+
+            AIUsageStats delta = new AIUsageStats();
+            delta.setTenantId(key.tenantId);
+            delta.setModelConfigId(key.modelConfigId);
+            delta.setUserId(key.userId);
+            delta.setStatsDate(key.statsDate);
+            delta.setRequestCount((int) requests);
+            delta.setSuccessCount((int) success);
+            delta.setFailureCount((int) failure);
+            delta.setTotalInputTokens(input);
+            delta.setTotalOutputTokens(output);
+            delta.setTotalCost(BigDecimal.valueOf(cost, COST_SCALE));
+            delta.setTotalResponseTime((int) responseTime);
+            delta.setAvgResponseTime(requests > 0 ? (int) (responseTime / requests) : 0);
+            delta.setMinResponseTime(min == Long.MAX_VALUE ? 0 : (int) min);
+            delta.setMaxResponseTime((int) max);
+            return delta;
+        }
+
+        /**
+         * 写入失败时加回增量
+         */
+        private void restore(AIUsageStats delta) {
+            requestCount.add(delta.getRequestCount());
+            successCount.add(delta.getSuccessCount());
+            failureCount.add(delta.getFailureCount());
+            inputTokens.add(delta.getTotalInputTokens());
+            outputTokens.add(delta.getTotalOutputTokens());
+            costUnits.add(delta.getTotalCost().movePointRight(COST_SCALE).longValue());
+            totalResponseTime.add(delta.getTotalResponseTime());
+            if (delta.getMinResponseTime() > 0) {
+                minResponseTime.accumulate(delta.getMinResponseTime());
+            }
+            maxResponseTime.accumulate(delta.getMaxResponseTime());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.mota.ai.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 模型配置变更事件
+ *
+ * 模型配置增删改、启停、默认模型与健康状态变更后发布，{@link ModelRegistry} 在事务提交后重新加载该租户的模型。
+ *
+ * @author mota
+ */
+@Getter
+@AllArgsConstructor
+public class ModelChangedEvent {
+
+    /**
+     * 租户ID，为空时重新加载全部已缓存租户
+     */
+    private final Long tenantId;
+}
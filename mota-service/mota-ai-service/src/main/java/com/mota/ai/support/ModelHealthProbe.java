@@ -0,0 +1,65 @@
+package com.mota.ai.support;
+
+import com.mota.ai.entity.AIModelConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模型主动健康探测
+ *
+ * 向模型接口地址发送不计费的轻量请求，只验证连通性与服务端状态：
+ * 5xx、429 或超时视为不健康，其余响应（含 401/404 等业务错误）说明服务端可达，视为健康。
+ * 探测走异步 HttpClient，多个模型的探测并发进行，每个探测单独限时，互不拖慢。
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ModelHealthProbe {
+
+    private final HttpClient chatHttpClient;
+
+    @Value("${ai.router.health.probe-timeout-ms:5000}")
+    private long probeTimeoutMs;
+
+    /**
+     * 异步探测模型，结果不会异常完成；未配置接口地址或密钥的模型使用本地模拟流，直接视为健康
+     */
+    public CompletableFuture<Boolean> probe(AIModelConfig model) {
+        if (!StringUtils.hasText(model.getApiKey()) || !StringUtils.hasText(model.getApiEndpoint())) {
+            return CompletableFuture.completedFuture(true);
+        }
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(model.getApiEndpoint()))
+                    .timeout(Duration.ofMillis(probeTimeoutMs))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.warn("模型 {} 接口地址无效: {}", model.getModelName(), model.getApiEndpoint());
+            return CompletableFuture.completedFuture(false);
+        }
+        return chatHttpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .orTimeout(probeTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        log.debug("模型 {} 探测失败: {}", model.getModelName(), error.toString());
+                        return false;
+                    }
+                    int status = response.statusCode();
+                    return status < 500 && status != 429;
+                });
+    }
+}
@@ -0,0 +1,288 @@
+package com.mota.ai.support;
+
+import com.mota.ai.entity.AIModelConfig;
+import com.mota.ai.mapper.AIModelConfigMapper;
+import com.mota.common.core.resilience.AdaptiveBulkhead;
+import com.mota.common.core.resilience.CircuitBreaker;
+import com.mota.common.core.resilience.EwmaStats;
+import com.mota.common.core.resilience.SlidingWindowStats;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模型注册表
+ *
+ * 1. 按租户缓存启用模型的不可变快照（按优先级排序），路由时不再查库
+ * 2. 能力字符串在加载时解析为位掩码，能力过滤只需一次按位与
+ * 3. 每个模型一份运行时状态（熔断器 + EWMA 延迟/错误率 + 滑动窗口健康统计），快照刷新时保留；
+ *    每个提供商一个自适应并发舱壁，同一提供商下的模型共享出站并发
+ * 4. 收到 {@link ModelChangedEvent} 后在事务提交后重新加载对应租户，
+ *    另定时全量刷新，覆盖其他实例的修改
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ModelRegistry {
+
+    /**
+     * 请求了未登记的能力，任何模型都不满足
+     */
+    public static final long UNSATISFIABLE = -1L;
+
+    private final AIModelConfigMapper modelConfigMapper;
+
+    @Value("${ai.router.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${ai.router.circuit-breaker.open-seconds:30}")
+    private long openSeconds;
+
+    @Value("${ai.router.circuit-breaker.half-open-probes:1}")
+    private int halfOpenProbes;
+
+    @Value("${ai.router.circuit-breaker.probe-timeout-seconds:120}")
+    private long probeTimeoutSeconds;
+
+    @Value("${ai.router.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    @Value("${ai.router.health.window-seconds:60}")
+    private long healthWindowSeconds;
+
+    @Value("${ai.router.health.window-buckets:6}")
+    private int healthWindowBuckets;
+
+    @Value("${ai.router.bulkhead.initial-limit:8}")
+    private int bulkheadInitialLimit;
+
+    @Value("${ai.router.bulkhead.min-limit:1}")
+    private int bulkheadMinLimit;
+
+    @Value("${ai.router.bulkhead.max-limit:64}")
+    private int bulkheadMaxLimit;
+
+    @Value("${ai.router.bulkhead.max-queue:100}")
+    private int bulkheadMaxQueue;
+
+    @Value("${ai.router.bulkhead.queue-timeout-ms:3000}")
+    private long bulkheadQueueTimeoutMs;
+
+    private final Map<Long, Snapshot> tenants = new ConcurrentHashMap<>();
+    private final Map<Long, ModelRuntime> runtimes = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveBulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Integer> capabilityBits = new ConcurrentHashMap<>();
+
+    /**
+     * 获取租户模型快照，首次访问时加载
+     */
+    public Snapshot get(Long tenantId) {
+        Snapshot snapshot = tenants.get(tenantId);
+        if (snapshot == null) {
+            snapshot = load(tenantId);
+            Snapshot existing = tenants.putIfAbsent(tenantId, snapshot);
+            if (existing != null) {
+                snapshot = existing;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 重新加载租户模型，租户为空时刷新全部
+     */
+    public void refresh(Long tenantId) {
+        if (tenantId == null) {
+            refreshAll();
+            return;
+        }
+        tenants.put(tenantId, load(tenantId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onModelChanged(ModelChangedEvent event) {
+        try {
+            refresh(event.getTenantId());
+        } catch (Exception e) {
+            log.error("刷新模型注册表失败: tenantId={}, error={}", event.getTenantId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ai.router.registry-refresh-ms:30000}")
+    public void refreshAll() {
+        for (Long tenantId : new ArrayList<>(tenants.keySet())) {
+            try {
+                tenants.put(tenantId, load(tenantId));
+            } catch (Exception e) {
+                log.error("刷新模型注册表失败: tenantId={}, error={}", tenantId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 获取模型运行时状态
+     */
+    public ModelRuntime runtime(Long modelId) {
+        return runtimes.computeIfAbsent(modelId, id -> new ModelRuntime(
+                new CircuitBreaker(failureThreshold, Duration.ofSeconds(openSeconds), halfOpenProbes,
+                        Duration.ofSeconds(probeTimeoutSeconds)),
+                new EwmaStats(ewmaAlpha),
+                new SlidingWindowStats(Duration.ofSeconds(healthWindowSeconds), healthWindowBuckets)));
+    }
+
+    /**
+     * 获取提供商的并发舱壁，未设置提供商的模型共用 default
+     */
+    public AdaptiveBulkhead bulkhead(String provider) {
+        String key = provider != null && !provider.isEmpty() ? provider : "default";
+        return bulkheads.computeIfAbsent(key, name -> new AdaptiveBulkhead(name, bulkheadInitialLimit,
+                bulkheadMinLimit, bulkheadMaxLimit, bulkheadMaxQueue, Duration.ofMillis(bulkheadQueueTimeoutMs)));
+    }
+
+    /**
+     * 将所需能力转为位掩码；包含任何模型都未声明的能力时返回 {@link #UNSATISFIABLE}
+     */
+    public long requiredMask(Collection<String> capabilities) {
+        if (capabilities == null || capabilities.isEmpty()) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String capability : capabilities) {
+            Integer bit = capabilityBits.get(capability.trim());
+            if (bit == null) {
+                return UNSATISFIABLE;
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private Snapshot load(Long tenantId) {
+        List<AIModelConfig> models = modelConfigMapper.selectEnabledByTenant(tenantId);
+        List<Entry> entries = new ArrayList<>(models.size());
+        for (AIModelConfig model : models) {
+            entries.add(new Entry(model, parseCapabilities(model.getCapabilities()), runtime(model.getId())));
+        }
+        return new Snapshot(entries);
+    }
+
+    private long parseCapabilities(String capabilities) {
+        if (capabilities == null || capabilities.isEmpty()) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (String capability : capabilities.split(",")) {
+            String name = capability.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Integer bit = capabilityBits.get(name);
+            if (bit == null) {
+                synchronized (capabilityBits) {
+                    bit = capabilityBits.get(name);
+                    if (bit == null) {
+                        if (capabilityBits.size() >= Long.SIZE) {
+                            log.warn("模型能力种类超过{}个，忽略能力: {}", Long.SIZE, name);
+                            continue;
+                        }
+                        bit = capabilityBits.size();
+                        capabilityBits.put(name, bit);
+                    }
+                }
+            }
+            mask |= 1L << bit;
+        }
+        return mask;
+    }
+
+    /**
+     * 租户模型快照
+     */
+    @Getter
+    public static class Snapshot {
+        private final List<Entry> models;
+        private final Entry defaultModel;
+        private final Map<Long, Entry> byId;
+        private final Map<String, Entry> byName;
+
+        private Snapshot(List<Entry> models) {
+            this.models = Collections.unmodifiableList(models);
+            Map<Long, Entry> ids = new HashMap<>();
+            Map<String, Entry> names = new HashMap<>();
+            Entry defaultEntry = null;
+            for (Entry entry : models) {
+                ids.put(entry.config.getId(), entry);
+                names.putIfAbsent(entry.config.getModelName(), entry);
+                if (defaultEntry == null && Boolean.TRUE.equals(entry.config.getIsDefault())) {
+                    defaultEntry = entry;
+                }
+            }
+            this.byId = ids;
+            this.byName = names;
+            this.defaultModel = defaultEntry;
+        }
+
+        public Entry findById(Long modelId) {
+            return byId.get(modelId);
+        }
+
+        public Entry findByName(String modelName) {
+            return byName.get(modelName);
+        }
+    }
+
+    /**
+     * 快照中的单个模型
+     */
+    @Getter
+    public static class Entry {
+        private final AIModelConfig config;
+        private final long capabilityMask;
+        private final ModelRuntime runtime;
+
+        private Entry(AIModelConfig config, long capabilityMask, ModelRuntime runtime) {
+            this.config = config;
+            this.capabilityMask = capabilityMask;
+            this.runtime = runtime;
+        }
+
+        public boolean isHealthy() {
+            return "healthy".equals(config.getHealthStatus());
+        }
+
+        public boolean hasCapabilities(long requiredMask) {
+            return requiredMask != UNSATISFIABLE && (capabilityMask & requiredMask) == requiredMask;
+        }
+    }
+
+    /**
+     * 模型运行时状态
+     */
+    @Getter
+    public static class ModelRuntime {
+        private final CircuitBreaker circuitBreaker;
+        private final EwmaStats stats;
+        /**
+         * 最近窗口内的真实调用统计，用于被动健康判断
+         */
+        private final SlidingWindowStats health;
+
+        private ModelRuntime(CircuitBreaker circuitBreaker, EwmaStats stats, SlidingWindowStats health) {
+            this.circuitBreaker = circuitBreaker;
+            this.stats = stats;
+            this.health = health;
+        }
+    }
+}
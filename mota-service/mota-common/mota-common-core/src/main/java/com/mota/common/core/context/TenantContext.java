@@ -3,6 +3,8 @@ package com.mota.common.core.context;
 import com.alibaba.ttl.TransmittableThreadLocal;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.function.Supplier;
+
 /**
  * 多租户上下文
  * 使用 TransmittableThreadLocal 支持线程池场景下的租户信息传递
@@ -173,10 +175,24 @@ public class TenantContext {
      * @param runnable 要执行的操作
      */
     public static void runWithTenant(Long tenantId, Runnable runnable) {
+        callWithTenant(tenantId, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在指定租户上下文中执行操作并返回结果
+     *
+     * @param tenantId 租户ID
+     * @param supplier 要执行的操作
+     * @return 操作结果
+     */
+    public static <T> T callWithTenant(Long tenantId, Supplier<T> supplier) {
         Long oldTenantId = TENANT_ID.get();
         try {
             TENANT_ID.set(tenantId);
-            runnable.run();
+            return supplier.get();
         } finally {
             if (oldTenantId != null) {
                 TENANT_ID.set(oldTenantId);
@@ -0,0 +1,265 @@
+package com.mota.common.core.embedding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 向量化微批处理与内容哈希缓存
+ *
+ * 1. 以 模型名称 + 文本 的 SHA-256 为键做 LRU 缓存，相同内容只向量化一次
+ * 2. 同一内容正在计算时复用同一个 Future，并发请求不会重复提交
+ * 3. 后台线程从队列取出首个请求后最多再等待 maxWaitMillis 凑批，
+ *    按 maxBatchSize 一次调用 {@link EmbeddingProvider#embedBatch}
+ * 返回的向量与缓存共享，调用方不得修改。同步等待有超时上限，关闭时所有未完成的请求以异常结束。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class EmbeddingBatcher implements AutoCloseable {
+
+    /**
+     * 同步等待向量化结果的默认超时
+     */
+    public static final long DEFAULT_AWAIT_TIMEOUT_MILLIS = 60_000L;
+
+    private final EmbeddingProvider provider;
+    private final int maxBatchSize;
+    private final long maxWaitMillis;
+    private final long awaitTimeoutMillis;
+
+    private final Map<String, float[]> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public EmbeddingBatcher(EmbeddingProvider provider, int maxBatchSize, long maxWaitMillis, int cacheSize) {
+        this(provider, maxBatchSize, maxWaitMillis, cacheSize, DEFAULT_AWAIT_TIMEOUT_MILLIS);
+    }
+
+    public EmbeddingBatcher(EmbeddingProvider provider, int maxBatchSize, long maxWaitMillis, int cacheSize,
+                            long awaitTimeoutMillis) {
+        if (maxBatchSize <= 0 || cacheSize <= 0 || awaitTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("maxBatchSize, cacheSize and awaitTimeoutMillis must be positive");
+        }
+        this.provider = provider;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, float[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        this.worker = new Thread(this::runLoop, "embedding-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 文本内容哈希（SHA-256 十六进制）
+     */
+    public static String contentHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((text != null ? text : "").getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public EmbeddingProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * 单条向量化，阻塞至所在批次完成或超时
+     */
+    public float[] embed(String text) {
+        return await(embedAsync(text));
+    }
+
+    /**
+     * 多条向量化，一次性入队以便合并为尽量少的批次
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            futures.add(embedAsync(text));
+        }
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (CompletableFuture<float[]> future : futures) {
+            vectors.add(await(future));
+        }
+        return vectors;
+    }
+
+    /**
+     * 异步向量化
+     */
+    public CompletableFuture<float[]> embedAsync(String text) {
+        String normalized = text != null ? text : "";
+        String key = contentHash(provider.getModelName() + "\u0000" + normalized);
+        float[] cached = cache.get(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (!running) {
+            return closedFuture();
+        }
+        CompletableFuture<float[]> future = inFlight.computeIfAbsent(key, k -> {
+            cacheMisses.incrementAndGet();
+            CompletableFuture<float[]> created = new CompletableFuture<>();
+            queue.offer(new Pending(k, normalized, created));
+            return created;
+        });
+        if (!running) {
+            // 与 close 并发时入队的请求可能已错过清理
+            inFlight.remove(key, future);
+            future.completeExceptionally(new IllegalStateException("embedding batcher closed"));
+        }
+        return future;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        queue.clear();
+        // 队列中与工作线程已取出未处理的请求都登记在 inFlight 中
+        for (String key : new ArrayList<>(inFlight.keySet())) {
+            CompletableFuture<float[]> future = inFlight.remove(key);
+            if (future != null) {
+                future.completeExceptionally(new IllegalStateException("embedding batcher closed"));
+            }
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void runLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable e) {
+                // 工作线程不能因单批异常退出，否则后续请求全部挂起
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        List<String> texts = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            texts.add(pending.text);
+        }
+        try {
+            List<float[]> vectors = provider.embedBatch(texts);
+            if (vectors.size() != batch.size()) {
+                throw new IllegalStateException("provider returned " + vectors.size() + " vectors for " + batch.size() + " texts");
+            }
+            batchCount.incrementAndGet();
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                cache.put(pending.key, vectors.get(i));
+                inFlight.remove(pending.key);
+                pending.future.complete(vectors.get(i));
+            }
+        } catch (Throwable e) {
+            fail(batch, e);
+        }
+    }
+
+    private void fail(List<Pending> batch, Throwable e) {
+        for (Pending pending : batch) {
+            inFlight.remove(pending.key, pending.future);
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static CompletableFuture<float[]> closedFuture() {
+        CompletableFuture<float[]> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("embedding batcher closed"));
+        return failed;
+    }
+
+    private float[] await(CompletableFuture<float[]> future) {
+        try {
+            return future.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for embedding", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("embedding timed out after " + awaitTimeoutMillis + "ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("embedding failed", cause);
+        }
+    }
+
+    private static final class Pending {
+        private final String key;
+        private final String text;
+        private final CompletableFuture<float[]> future;
+
+        private Pending(String key, String text, CompletableFuture<float[]> future) {
+            this.key = key;
+            this.text = text;
+            this.future = future;
+        }
+    }
+}
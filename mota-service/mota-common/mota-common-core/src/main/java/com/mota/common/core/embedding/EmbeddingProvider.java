@@ -0,0 +1,39 @@
+package com.mota.common.core.embedding;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文本向量化提供者
+ *
+ * 实现需保证同一模型对相同文本输出相同向量，且线程安全。
+ * 默认实现为本地哈希 n-gram 向量（{@link HashedNgramEmbeddingProvider}），
+ * 接入 ONNX 句向量模型或远程 Embedding API 时实现本接口并注册为 Bean 即可替换。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * 模型名称，写入向量记录并作为缓存键的一部分
+     */
+    String getModelName();
+
+    /**
+     * 向量维度
+     */
+    int getDimension();
+
+    /**
+     * 批量向量化，返回结果与入参一一对应
+     */
+    List<float[]> embedBatch(List<String> texts);
+
+    /**
+     * 单条向量化
+     */
+    default float[] embed(String text) {
+        return embedBatch(Collections.singletonList(text)).get(0);
+    }
+}
@@ -0,0 +1,146 @@
+package com.mota.common.core.embedding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 本地哈希 n-gram 向量化
+ *
+ * 纯 CPU、无模型文件的向量化实现，适合作为默认或兜底模型：
+ * 1. 文本按字母数字串与 CJK 字符切分，字母数字串取整词及其字符三元组，CJK 取单字与相邻二元组
+ * 2. 每个特征经 64 位 FNV-1a 哈希映射到维度下标，哈希高位决定正负号以抵消碰撞偏差
+ * 3. 词频取 1 + ln(tf) 做亚线性缩放，最后 L2 归一化，余弦相似度即点积
+ * 字面重叠越多的文本向量越接近，可支撑同义改写较少的中文/英文检索场景。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class HashedNgramEmbeddingProvider implements EmbeddingProvider {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int dimension;
+
+    public HashedNgramEmbeddingProvider(int dimension) {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("dimension must be positive");
+        }
+        this.dimension = dimension;
+    }
+
+    @Override
+    public String getModelName() {
+        return "hashed-ngram-v1";
+    }
+
+    @Override
+    public int getDimension() {
+        return dimension;
+    }
+
+    @Override
+    public List<float[]> embedBatch(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            vectors.add(embed(text));
+        }
+        return vectors;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimension];
+        if (text == null || text.isEmpty()) {
+            return vector;
+        }
+
+        Map<String, Integer> features = new HashMap<>();
+        extractFeatures(text.toLowerCase(Locale.ROOT), features);
+
+        for (Map.Entry<String, Integer> feature : features.entrySet()) {
+            long hash = fnv1a(feature.getKey());
+            int index = (int) Long.remainderUnsigned(hash, dimension);
+            float weight = (float) (1.0 + Math.log(feature.getValue()));
+            vector[index] += hash < 0 ? -weight : weight;
+        }
+
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm > 0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < dimension; i++) {
+                vector[i] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private static void extractFeatures(String text, Map<String, Integer> features) {
+        StringBuilder word = new StringBuilder();
+        int previousCjk = -1;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (isCjk(codePoint)) {
+                flushWord(word, features);
+                String ch = new String(Character.toChars(codePoint));
+                add(features, "c:" + ch);
+                if (previousCjk >= 0) {
+                    add(features, "b:" + new String(Character.toChars(previousCjk)) + ch);
+                }
+                previousCjk = codePoint;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(codePoint);
+                previousCjk = -1;
+            } else {
+                flushWord(word, features);
+                previousCjk = -1;
+            }
+        }
+        flushWord(word, features);
+    }
+
+    private static void flushWord(StringBuilder word, Map<String, Integer> features) {
+        if (word.length() == 0) {
+            return;
+        }
+        String w = word.toString();
+        add(features, "w:" + w);
+        String padded = "^" + w + "$";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            add(features, "t:" + padded.substring(i, i + 3));
+        }
+        word.setLength(0);
+    }
+
+    private static void add(Map<String, Integer> features, String feature) {
+        features.merge(feature, 1, Integer::sum);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static long fnv1a(String feature) {
+        long hash = FNV_OFFSET;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= FNV_PRIME;
+        }
+        // 末尾再混合一次，使低位分布更均匀
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,250 @@
+package com.mota.common.core.embedding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 结构感知的文本分块器
+ *
+ * 先按标题切分章节（分块不跨章节），再把章节切成句子，按句子贪心装入分块；
+ * 分块装满时优先退回到块内后半段的段落边界处断开，相邻分块之间保留不超过 overlapChars 的句子重叠。
+ * 超长句子按 maxChars 硬切。每个分块记录原文偏移与内容哈希，用于增量向量化时识别未变化的分块。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class TextChunker {
+
+    /**
+     * 标题行：Markdown 标题、“第X章/节/部分”、数字编号标题（如 1. / 2.3 ），长度有限且不以句末标点结尾
+     */
+    private static final Pattern HEADING = Pattern.compile(
+            "^(#{1,6}\\s+.+|第[一二三四五六七八九十百零〇\\d]+[章节部分篇].*|\\d+(\\.\\d+)*[.、]?\\s+\\S.*)$");
+    private static final int MAX_HEADING_LENGTH = 60;
+
+    private final int maxChars;
+    private final int overlapChars;
+
+    public TextChunker(int maxChars, int overlapChars) {
+        if (maxChars <= 0 || overlapChars < 0 || overlapChars >= maxChars) {
+            throw new IllegalArgumentException("require maxChars > overlapChars >= 0");
+        }
+        this.maxChars = maxChars;
+        this.overlapChars = overlapChars;
+    }
+
+    /**
+     * 分块
+     */
+    public List<Chunk> split(String text) {
+        List<Chunk> chunks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return chunks;
+        }
+        for (Section section : sections(text)) {
+            packSection(text, section, chunks);
+        }
+        return chunks;
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 按标题行切分章节，每个章节以其标题开头
+     */
+    private List<Section> sections(String text) {
+        List<Section> sections = new ArrayList<>();
+        int sectionStart = 0;
+        String heading = null;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            String line = text.substring(lineStart, lineEnd).trim();
+            if (isHeading(line) && lineStart > sectionStart) {
+                sections.add(new Section(sectionStart, lineStart, heading));
+                sectionStart = lineStart;
+            }
+            if (isHeading(line)) {
+                heading = line.replaceFirst("^#{1,6}\\s+", "");
+            }
+            lineStart = lineEnd + 1;
+        }
+        sections.add(new Section(sectionStart, text.length(), heading));
+        return sections;
+    }
+
+    private static boolean isHeading(String line) {
+        if (line.isEmpty() || line.length() > MAX_HEADING_LENGTH) {
+            return false;
+        }
+        char last = line.charAt(line.length() - 1);
+        if (last == '。' || last == '；' || last == '，' || last == ',' || last == ';') {
+            return false;
+        }
+        return HEADING.matcher(line).matches();
+    }
+
+    /**
+     * 把章节切成句子单元，记录每个单元是否为段落开头
+     */
+    private List<Unit> units(String text, Section section) {
+        List<Unit> units = new ArrayList<>();
+        int start = -1;
+        boolean paragraphStart = true;
+        int newlines = 0;
+        for (int i = section.start; i < section.end; i++) {
+            char c = text.charAt(i);
+            if (start < 0) {
+                if (Character.isWhitespace(c)) {
+                    if (c == '\n' && ++newlines >= 2) {
+                        paragraphStart = true;
+                    }
+                    continue;
+                }
+                start = i;
+            }
+            boolean lineBreak = c == '\n';
+            boolean sentenceEnd = c == '。' || c == '！' || c == '？' || c == '；' || c == '!' || c == '?'
+                    || (c == '.' && (i + 1 >= section.end || Character.isWhitespace(text.charAt(i + 1))));
+            if (sentenceEnd || lineBreak || i - start + 1 >= maxChars) {
+                int end = lineBreak ? i : i + 1;
+                addUnit(text, units, start, end, paragraphStart);
+                paragraphStart = false;
+                newlines = lineBreak ? 1 : 0;
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            addUnit(text, units, start, section.end, paragraphStart);
+        }
+        return units;
+    }
+
+    private static void addUnit(String text, List<Unit> units, int start, int end, boolean paragraphStart) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end > start) {
+            units.add(new Unit(start, end, paragraphStart));
+        }
+    }
+
+    private void packSection(String text, Section section, List<Chunk> chunks) {
+        List<Unit> units = units(text, section);
+        int first = 0;
+        while (first < units.size()) {
+            int last = first;
+            while (last + 1 < units.size() && units.get(last + 1).end - units.get(first).start <= maxChars) {
+                last++;
+            }
+            // 未到章节末尾时，优先在块内后半段的段落边界处断开
+            if (last + 1 < units.size()) {
+                int minEnd = units.get(first).start + maxChars / 2;
+                for (int i = last; i > first; i--) {
+                    if (units.get(i).paragraphStart && units.get(i - 1).end >= minEnd) {
+                        last = i - 1;
+                        break;
+                    }
+                }
+            }
+            int start = units.get(first).start;
+            int end = units.get(last).end;
+            chunks.add(new Chunk(chunks.size(), text.substring(start, end), start, end, section.heading));
+            if (last + 1 >= units.size()) {
+                break;
+            }
+
+            // 下一块从末尾若干句开始，重叠不超过 overlapChars，且至少前进一句
+            int next = last + 1;
+            while (next - 1 > first && units.get(last).end - units.get(next - 1).start <= overlapChars) {
+                next--;
+            }
+            first = next;
+        }
+    }
+
+    private static final class Section {
+        private final int start;
+        private final int end;
+        private final String heading;
+
+        private Section(int start, int end, String heading) {
+            this.start = start;
+            this.end = end;
+            this.heading = heading;
+        }
+    }
+
+    private static final class Unit {
+        private final int start;
+        private final int end;
+        private final boolean paragraphStart;
+
+        private Unit(int start, int end, boolean paragraphStart) {
+            this.start = start;
+            this.end = end;
+            this.paragraphStart = paragraphStart;
+        }
+    }
+
+    /**
+     * 文本分块
+     */
+    public static final class Chunk {
+        private final int index;
+        private final String text;
+        private final int start;
+        private final int end;
+        private final String heading;
+        private final String contentHash;
+
+        Chunk(int index, String text, int start, int end, String heading) {
+            this.index = index;
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.heading = heading;
+            this.contentHash = EmbeddingBatcher.contentHash(text);
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 原文起始偏移（含）
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * 原文结束偏移（不含）
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * 所属章节标题，无标题时为 null
+         */
+        public String getHeading() {
+            return heading;
+        }
+
+        /**
+         * 分块内容 SHA-256
+         */
+        public String getContentHash() {
+            return contentHash;
+        }
+    }
+}
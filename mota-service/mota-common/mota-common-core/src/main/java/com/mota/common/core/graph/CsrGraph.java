@@ -0,0 +1,187 @@
+package com.mota.common.core.graph;
+
+import java.util.Arrays;
+
+/**
+ * 压缩稀疏行（CSR）格式的无向邻接快照
+ *
+ * 节点ID升序存放在 nodeIds 中，下标即节点序号；节点 i 的邻居位于
+ * neighbors[offsets[i] .. offsets[i + 1])，对应的边ID在 edgeIds 的同一位置。
+ * 每条边在两个端点下各存一次（自环只存一次），不保留方向，遍历时按无向图处理。
+ * 构建后不可变，可被任意线程并发读取；整体内存约为 节点数×12 + 边数×24 字节。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public final class CsrGraph {
+
+    private static final CsrGraph EMPTY = new CsrGraph(new long[0], new int[]{0}, new int[0], new long[0], 0);
+
+    private final long[] nodeIds;
+    private final int[] offsets;
+    private final int[] neighbors;
+    private final long[] edgeIds;
+    private final int edgeCount;
+
+    private CsrGraph(long[] nodeIds, int[] offsets, int[] neighbors, long[] edgeIds, int edgeCount) {
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.edgeIds = edgeIds;
+        this.edgeCount = edgeCount;
+    }
+
+    public static CsrGraph empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 节点数（只包含至少有一条边的节点）
+     */
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * 边数
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * 节点度数，不存在的节点为 0
+     */
+    public int degree(long nodeId) {
+        int index = indexOf(nodeId);
+        return index < 0 ? 0 : offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * 依次回调节点的每个邻居及连接边
+     */
+    public void forEachNeighbor(long nodeId, NeighborConsumer consumer) {
+        int index = indexOf(nodeId);
+        if (index < 0) {
+            return;
+        }
+        for (int slot = offsets[index]; slot < offsets[index + 1]; slot++) {
+            consumer.accept(nodeIds[neighbors[slot]], edgeIds[slot]);
+        }
+    }
+
+    /**
+     * 依次回调每条边一次，端点按节点ID升序给出
+     */
+    public void forEachEdge(EdgeConsumer consumer) {
+        for (int i = 0; i < nodeIds.length; i++) {
+            for (int slot = offsets[i]; slot < offsets[i + 1]; slot++) {
+                if (neighbors[slot] >= i) {
+                    consumer.accept(edgeIds[slot], nodeIds[i], nodeIds[neighbors[slot]]);
+                }
+            }
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private int indexOf(long nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * 邻居回调
+     */
+    @FunctionalInterface
+    public interface NeighborConsumer {
+        void accept(long neighborId, long edgeId);
+    }
+
+    /**
+     * 边回调
+     */
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(long edgeId, long sourceId, long targetId);
+    }
+
+    /**
+     * CSR 构建器：先以原始数组追加边，build 时排序去重节点并两遍填充邻接数组，
+     * 不为每条边创建对象，适合从数据库流式加载大量边
+     */
+    public static final class Builder {
+        private long[] sources = new long[1024];
+        private long[] targets = new long[1024];
+        private long[] ids = new long[1024];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder addEdge(long edgeId, long sourceId, long targetId) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1);
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            sources[size] = sourceId;
+            targets[size] = targetId;
+            ids[size] = edgeId;
+            size++;
+            return this;
+        }
+
+        public CsrGraph build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            long[] endpoints = new long[size * 2];
+            System.arraycopy(sources, 0, endpoints, 0, size);
+            System.arraycopy(targets, 0, endpoints, size, size);
+            Arrays.sort(endpoints);
+            int nodeCount = 0;
+            for (int i = 0; i < endpoints.length; i++) {
+                if (i == 0 || endpoints[i] != endpoints[i - 1]) {
+                    endpoints[nodeCount++] = endpoints[i];
+                }
+            }
+            long[] nodeIds = Arrays.copyOf(endpoints, nodeCount);
+
+            // 第一遍统计度数，第二遍按偏移填充
+            int[] source = new int[size];
+            int[] target = new int[size];
+            int[] offsets = new int[nodeCount + 1];
+            for (int e = 0; e < size; e++) {
+                source[e] = Arrays.binarySearch(nodeIds, sources[e]);
+                target[e] = Arrays.binarySearch(nodeIds, targets[e]);
+                offsets[source[e] + 1]++;
+                if (target[e] != source[e]) {
+                    offsets[target[e] + 1]++;
+                }
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] cursor = Arrays.copyOf(offsets, nodeCount);
+            int[] neighbors = new int[offsets[nodeCount]];
+            long[] edgeIds = new long[offsets[nodeCount]];
+            for (int e = 0; e < size; e++) {
+                int slot = cursor[source[e]]++;
+                neighbors[slot] = target[e];
+                edgeIds[slot] = ids[e];
+                if (target[e] != source[e]) {
+                    slot = cursor[target[e]]++;
+                    neighbors[slot] = source[e];
+                    edgeIds[slot] = ids[e];
+                }
+            }
+            return new CsrGraph(nodeIds, offsets, neighbors, edgeIds, size);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.mota.common.core.graph;
+
+import java.util.*;
+
+/**
+ * 可增量更新的内存图及其遍历算法
+ *
+ * 由不可变的 CSR 基线加一份小的增量（新增边、已删除边ID）组成，每次写入都生成新的只读视图并整体替换，
+ * 读操作取一次视图后全程无锁；增量累积到阈值时在写线程内合并为新的 CSR 基线。
+ * 全量重建期间的写入会被记录下来，重建完成后在新基线上重放，避免丢失重建窗口内的变更。
+ * 图按无向处理，路径长度按边数（跳数）计算：
+ * 1. 最短路径：双向 BFS，每次扩展较小一侧的一整层
+ * 2. K 条最短路径：Yen 算法，偏离路径用带禁用节点/边的双向 BFS 求解，只返回无环路径
+ * 3. K 跳邻域：逐层 BFS，可限制最大节点数
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class IncrementalGraph {
+
+    private final int compactThreshold;
+    private final Object writeLock = new Object();
+    private volatile View view = new View(CsrGraph.empty(), Map.of(), Map.of(), Set.of());
+
+    /**
+     * 全量重建期间记录的写操作，非 null 表示正在重建
+     */
+    private List<Runnable> pendingReplay;
+
+    /**
+     * @param compactThreshold 增量中新增边与删除边的总数达到该值时合并为新基线
+     */
+    public IncrementalGraph(int compactThreshold) {
+        if (compactThreshold <= 0) {
+            throw new IllegalArgumentException("compactThreshold must be positive");
+        }
+        this.compactThreshold = compactThreshold;
+    }
+
+    /**
+     * 开始全量重建：此后的写入在 finishRebuild 时重放到新基线上
+     */
+    public void beginRebuild() {
+        synchronized (writeLock) {
+            pendingReplay = new ArrayList<>();
+        }
+    }
+
+    /**
+     * 以新基线替换当前图，并重放 beginRebuild 之后的写入
+     */
+    public void finishRebuild(CsrGraph base) {
+        synchronized (writeLock) {
+            List<Runnable> replay = pendingReplay != null ? pendingReplay : List.of();
+            pendingReplay = null;
+            view = new View(base, Map.of(), Map.of(), Set.of());
+            replay.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * 放弃本次重建，保留当前图（其中已包含重建期间的写入）
+     */
+    public void abortRebuild() {
+        synchronized (writeLock) {
+            pendingReplay = null;
+        }
+    }
+
+    /**
+     * 添加一条边，已存在的边ID忽略
+     */
+    public void addEdge(long edgeId, long sourceId, long targetId) {
+        synchronized (writeLock) {
+            record(() -> addEdge(edgeId, sourceId, targetId));
+            View current = view;
+            if (current.containsEdge(edgeId, sourceId)) {
+                return;
+            }
+            Map<Long, long[]> added = new HashMap<>(current.addedEdges);
+            added.put(edgeId, new long[]{sourceId, targetId});
+            update(current.base, added, current.removedEdges);
+        }
+    }
+
+    /**
+     * 删除一条边
+     */
+    public void removeEdge(long edgeId) {
+        synchronized (writeLock) {
+            record(() -> removeEdge(edgeId));
+            removeEdges(List.of(edgeId));
+        }
+    }
+
+    /**
+     * 删除节点的所有边
+     */
+    public void removeNode(long nodeId) {
+        synchronized (writeLock) {
+            record(() -> removeNode(nodeId));
+            List<Long> edgeIds = new ArrayList<>();
+            view.forEachNeighbor(nodeId, (neighborId, edgeId) -> edgeIds.add(edgeId));
+            removeEdges(edgeIds);
+        }
+    }
+
+    /**
+     * 回调节点的每个邻居及连接边
+     */
+    public void forEachNeighbor(long nodeId, CsrGraph.NeighborConsumer consumer) {
+        view.forEachNeighbor(nodeId, consumer);
+    }
+
+    /**
+     * 两端都在给定节点集合内的边ID
+     */
+    public Set<Long> edgesAmong(Collection<Long> nodeIds) {
+        View current = view;
+        Set<Long> members = new HashSet<>(nodeIds);
+        Set<Long> edgeIds = new LinkedHashSet<>();
+        for (Long nodeId : members) {
+            current.forEachNeighbor(nodeId, (neighborId, edgeId) -> {
+                if (members.contains(neighborId)) {
+                    edgeIds.add(edgeId);
+                }
+            });
+        }
+        return edgeIds;
+    }
+
+    /**
+     * 最短路径（按跳数），不存在或超过 maxDepth 时返回 null
+     */
+    public GraphPath shortestPath(long sourceId, long targetId, int maxDepth) {
+        return view.shortestPath(sourceId, targetId, maxDepth, Set.of(), Set.of());
+    }
+
+    /**
+     * 按跳数从短到长的至多 k 条无环路径，每条不超过 maxDepth 跳
+     */
+    public List<GraphPath> kShortestPaths(long sourceId, long targetId, int maxDepth, int k) {
+        View current = view;
+        List<GraphPath> result = new ArrayList<>();
+        GraphPath first = current.shortestPath(sourceId, targetId, maxDepth, Set.of(), Set.of());
+        if (first == null || k <= 0) {
+            return result;
+        }
+        result.add(first);
+        PriorityQueue<GraphPath> candidates = new PriorityQueue<>(Comparator.comparingInt(GraphPath::length));
+        Set<GraphPath> seen = new HashSet<>(result);
+
+        while (result.size() < k) {
+            GraphPath previous = result.get(result.size() - 1);
+            for (int i = 0; i < previous.length(); i++) {
+                long spurNode = previous.nodeAt(i);
+                // 禁用与当前根路径相同的已选路径在偏离点的下一条边，以及根路径上除偏离点外的节点
+                Set<Long> bannedEdges = new HashSet<>();
+                for (GraphPath path : result) {
+                    if (path.length() > i && path.sharesPrefix(previous, i)) {
+                        bannedEdges.add(path.edgeAt(i));
+                    }
+                }
+                Set<Long> bannedNodes = new HashSet<>();
+                for (int j = 0; j < i; j++) {
+                    bannedNodes.add(previous.nodeAt(j));
+                }
+                GraphPath spur = current.shortestPath(spurNode, targetId, maxDepth - i, bannedNodes, bannedEdges);
+                if (spur != null) {
+                    GraphPath candidate = previous.prefix(i).concat(spur);
+                    if (seen.add(candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+            }
+            GraphPath next = candidates.poll();
+            if (next == null) {
+                break;
+            }
+            result.add(next);
+        }
+        return result;
+    }
+
+    /**
+     * K 跳邻域，节点按遍历顺序排列（起点在首位），超过 maxNodes 时不再加入新节点
+     */
+    public Neighborhood kHop(long nodeId, int hops, int maxNodes) {
+        View current = view;
+        Map<Long, Integer> depths = new LinkedHashMap<>();
+        Set<Long> edgeIds = new LinkedHashSet<>();
+        boolean[] truncated = {false};
+        depths.put(nodeId, 0);
+        List<Long> frontier = List.of(nodeId);
+        for (int depth = 1; depth <= hops && !frontier.isEmpty(); depth++) {
+            int nextDepth = depth;
+            List<Long> next = new ArrayList<>();
+            for (Long currentId : frontier) {
+                current.forEachNeighbor(currentId, (neighborId, edgeId) -> {
+                    if (!depths.containsKey(neighborId)) {
+                        if (depths.size() >= maxNodes) {
+                            truncated[0] = true;
+                            return;
+                        }
+                        depths.put(neighborId, nextDepth);
+                        next.add(neighborId);
+                    }
+                    edgeIds.add(edgeId);
+                });
+            }
+            frontier = next;
+        }
+        return new Neighborhood(depths, edgeIds, truncated[0]);
+    }
+
+    /**
+     * 基线节点数
+     */
+    public int baseNodeCount() {
+        return view.base.nodeCount();
+    }
+
+    /**
+     * 基线边数
+     */
+    public int baseEdgeCount() {
+        return view.base.edgeCount();
+    }
+
+    /**
+     * 尚未合并进基线的增量条数
+     */
+    public int pendingChanges() {
+        View current = view;
+        return current.addedEdges.size() + current.removedEdges.size();
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void record(Runnable change) {
+        if (pendingReplay != null) {
+            pendingReplay.add(change);
+        }
+    }
+
+    private void removeEdges(Collection<Long> edgeIds) {
+        if (edgeIds.isEmpty()) {
+            return;
+        }
+        View current = view;
+        Map<Long, long[]> added = new HashMap<>(current.addedEdges);
+        Set<Long> removed = new HashSet<>(current.removedEdges);
+        for (Long edgeId : edgeIds) {
+            if (added.remove(edgeId) == null) {
+                removed.add(edgeId);
+            }
+        }
+        update(current.base, added, removed);
+    }
+
+    private void update(CsrGraph base, Map<Long, long[]> added, Set<Long> removed) {
+        if (added.size() + removed.size() < compactThreshold) {
+            view = new View(base, added, indexByNode(added), removed);
+            return;
+        }
+        CsrGraph.Builder builder = CsrGraph.builder();
+        base.forEachEdge((edgeId, sourceId, targetId) -> {
+            if (!removed.contains(edgeId)) {
+                builder.addEdge(edgeId, sourceId, targetId);
+            }
+        });
+        added.forEach((edgeId, endpoints) -> builder.addEdge(edgeId, endpoints[0], endpoints[1]));
+        view = new View(builder.build(), Map.of(), Map.of(), Set.of());
+    }
+
+    private static Map<Long, List<long[]>> indexByNode(Map<Long, long[]> added) {
+        Map<Long, List<long[]>> adjacency = new HashMap<>();
+        added.forEach((edgeId, endpoints) -> {
+            adjacency.computeIfAbsent(endpoints[0], k -> new ArrayList<>()).add(new long[]{endpoints[1], edgeId});
+            if (endpoints[0] != endpoints[1]) {
+                adjacency.computeIfAbsent(endpoints[1], k -> new ArrayList<>()).add(new long[]{endpoints[0], edgeId});
+            }
+        });
+        return adjacency;
+    }
+
+    /**
+     * 只读视图：基线 + 增量
+     */
+    private static final class View {
+        private final CsrGraph base;
+        private final Map<Long, long[]> addedEdges;
+        private final Map<Long, List<long[]>> addedAdjacency;
+        private final Set<Long> removedEdges;
+
+        private View(CsrGraph base, Map<Long, long[]> addedEdges,
+                     Map<Long, List<long[]>> addedAdjacency, Set<Long> removedEdges) {
+            this.base = base;
+            this.addedEdges = addedEdges;
+            this.addedAdjacency = addedAdjacency;
+            this.removedEdges = removedEdges;
+        }
+
+        private void forEachNeighbor(long nodeId, CsrGraph.NeighborConsumer consumer) {
+            if (removedEdges.isEmpty()) {
+                base.forEachNeighbor(nodeId, consumer);
+            } else {
+                base.forEachNeighbor(nodeId, (neighborId, edgeId) -> {
+                    if (!removedEdges.contains(edgeId)) {
+                        consumer.accept(neighborId, edgeId);
+                    }
+                });
+            }
+            List<long[]> extra = addedAdjacency.get(nodeId);
+            if (extra != null) {
+                for (long[] neighbor : extra) {
+                    consumer.accept(neighbor[0], neighbor[1]);
+                }
+            }
+        }
+
+        private boolean containsEdge(long edgeId, long sourceId) {
+            if (addedEdges.containsKey(edgeId)) {
+                return true;
+            }
+            boolean[] found = {false};
+            forEachNeighbor(sourceId, (neighborId, id) -> found[0] |= id == edgeId);
+            return found[0];
+        }
+
+        /**
+         * 双向 BFS：每轮扩展节点较少一侧的一整层，本层出现相遇时取经过相遇点的最短组合
+         */
+        private GraphPath shortestPath(long sourceId, long targetId, int maxDepth,
+                                       Set<Long> bannedNodes, Set<Long> bannedEdges) {
+            if (sourceId == targetId) {
+                return new GraphPath(new long[]{sourceId}, new long[0]);
+            }
+            // 节点 -> {前驱节点, 连接边, 深度}
+            Map<Long, long[]> forward = new HashMap<>();
+            Map<Long, long[]> backward = new HashMap<>();
+            forward.put(sourceId, null);
+            backward.put(targetId, null);
+            List<Long> forwardFrontier = List.of(sourceId);
+            List<Long> backwardFrontier = List.of(targetId);
+            int forwardDepth = 0;
+            int backwardDepth = 0;
+
+            while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty()
+                    && forwardDepth + backwardDepth < maxDepth) {
+                boolean expandForward = forwardFrontier.size() <= backwardFrontier.size();
+                Map<Long, long[]> visited = expandForward ? forward : backward;
+                Map<Long, long[]> other = expandForward ? backward : forward;
+                int nextDepth = (expandForward ? forwardDepth : backwardDepth) + 1;
+                int otherDepth = expandForward ? backwardDepth : forwardDepth;
+                List<Long> next = new ArrayList<>();
+                // {相遇节点, 路径长度}
+                long[] best = {0, Long.MAX_VALUE};
+
+                for (Long currentId : expandForward ? forwardFrontier : backwardFrontier) {
+                    forEachNeighbor(currentId, (neighborId, edgeId) -> {
+                        if (bannedEdges.contains(edgeId) || bannedNodes.contains(neighborId)
+                                || visited.containsKey(neighborId)) {
+                            return;
+                        }
+                        visited.put(neighborId, new long[]{currentId, edgeId, nextDepth});
+                        next.add(neighborId);
+                        if (other.containsKey(neighborId)) {
+                            long[] meet = other.get(neighborId);
+                            long length = nextDepth + (meet != null ? meet[2] : 0);
+                            if (length < best[1]) {
+                                best[0] = neighborId;
+                                best[1] = length;
+                            }
+                        }
+                    });
+                }
+                if (best[1] <= maxDepth) {
+                    return join(forward, backward, best[0]);
+                }
+                if (best[1] != Long.MAX_VALUE || nextDepth + otherDepth >= maxDepth) {
+                    return null;
+                }
+                if (expandForward) {
+                    forwardFrontier = next;
+                    forwardDepth = nextDepth;
+                } else {
+                    backwardFrontier = next;
+                    backwardDepth = nextDepth;
+                }
+            }
+            return null;
+        }
+
+        private static GraphPath join(Map<Long, long[]> forward, Map<Long, long[]> backward, long meetId) {
+            Deque<Long> nodes = new ArrayDeque<>();
+            Deque<Long> edges = new ArrayDeque<>();
+            nodes.add(meetId);
+            for (long[] step = forward.get(meetId); step != null; step = forward.get(step[0])) {
+                nodes.addFirst(step[0]);
+                edges.addFirst(step[1]);
+            }
+            for (long[] step = backward.get(meetId); step != null; step = backward.get(step[0])) {
+                nodes.addLast(step[0]);
+                edges.addLast(step[1]);
+            }
+            return new GraphPath(nodes.stream().mapToLong(Long::longValue).toArray(),
+                    edges.stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+
+    /**
+     * 路径：节点序列及相邻节点之间的边
+     */
+    public static final class GraphPath {
+        private final long[] nodeIds;
+        private final long[] edgeIds;
+
+        private GraphPath(long[] nodeIds, long[] edgeIds) {
+            this.nodeIds = nodeIds;
+            this.edgeIds = edgeIds;
+        }
+
+        public List<Long> getNodeIds() {
+            return Arrays.stream(nodeIds).boxed().toList();
+        }
+
+        public List<Long> getEdgeIds() {
+            return Arrays.stream(edgeIds).boxed().toList();
+        }
+
+        /**
+         * 跳数
+         */
+        public int length() {
+            return edgeIds.length;
+        }
+
+        private long nodeAt(int index) {
+            return nodeIds[index];
+        }
+
+        private long edgeAt(int index) {
+            return edgeIds[index];
+        }
+
+        private boolean sharesPrefix(GraphPath other, int hops) {
+            return Arrays.equals(nodeIds, 0, hops + 1, other.nodeIds, 0, hops + 1)
+                    && Arrays.equals(edgeIds, 0, hops, other.edgeIds, 0, hops);
+        }
+
+        private GraphPath prefix(int hops) {
+            return new GraphPath(Arrays.copyOf(nodeIds, hops + 1), Arrays.copyOf(edgeIds, hops));
+        }
+
+        /**
+         * 拼接以本路径终点为起点的路径
+         */
+        private GraphPath concat(GraphPath tail) {
+            long[] nodes = Arrays.copyOf(nodeIds, nodeIds.length + tail.nodeIds.length - 1);
+            System.arraycopy(tail.nodeIds, 1, nodes, nodeIds.length, tail.nodeIds.length - 1);
+            long[] edges = Arrays.copyOf(edgeIds, edgeIds.length + tail.edgeIds.length);
+            System.arraycopy(tail.edgeIds, 0, edges, edgeIds.length, tail.edgeIds.length);
+            return new GraphPath(nodes, edges);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GraphPath)) {
+                return false;
+            }
+            GraphPath that = (GraphPath) o;
+            return Arrays.equals(nodeIds, that.nodeIds) && Arrays.equals(edgeIds, that.edgeIds);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(nodeIds) + Arrays.hashCode(edgeIds);
+        }
+    }
+
+    /**
+     * K 跳邻域：节点及其跳数、遍历到的边
+     */
+    public static final class Neighborhood {
+        private final Map<Long, Integer> depths;
+        private final Set<Long> edgeIds;
+        private final boolean truncated;
+
+        private Neighborhood(Map<Long, Integer> depths, Set<Long> edgeIds, boolean truncated) {
+            this.depths = depths;
+            this.edgeIds = edgeIds;
+            this.truncated = truncated;
+        }
+
+        /**
+         * 按遍历顺序排列的节点ID，起点在首位
+         */
+        public List<Long> getNodeIds() {
+            return new ArrayList<>(depths.keySet());
+        }
+
+        /**
+         * 节点距起点的跳数，不在邻域内时为 -1
+         */
+        public int getDepth(long nodeId) {
+            return depths.getOrDefault(nodeId, -1);
+        }
+
+        public Set<Long> getEdgeIds() {
+            return edgeIds;
+        }
+
+        /**
+         * 是否因节点数上限而截断
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.mota.common.core.llm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地字节级 BPE 分词器
+ *
+ * 词表为 tiktoken 格式（每行“Base64 编码的字节序列 + 空格 + 合并优先级”），也可加载 cl100k_base 等公开词表。
+ * 先用正则把文本预切分为单词、数字、标点与空白片段，再对每个片段的 UTF-8 字节按优先级从低到高反复合并相邻对，
+ * 合并结束后的字节序列数即 Token 数。实例不可变，可多线程共享。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class BpeTokenizer {
+
+    /**
+     * 内置词表：在项目文档与代码语料上训练的 8K 字节级 BPE 词表
+     */
+    public static final String DEFAULT_VOCABULARY = "tokenizer/mota-bpe-8k.tiktoken";
+
+    /**
+     * 预切分规则（在 cl100k_base 基础上把汉字逐字切开）：英文缩写、单个汉字、带前导符号的字母串、
+     * 最多三位的数字、标点串、换行与空白。主流模型对中文基本按字计 Token，逐字切分使估算不会因词表合并了常用词而偏低
+     */
+    static final Pattern PRE_TOKENIZE = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|\\p{IsHan}|[^\\r\\n\\p{L}\\p{N}]?[\\p{L}&&[^\\p{IsHan}]]+|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+
+    /**
+     * 单个片段参与合并的最大字节数，超长片段（如连续的长段中文）分段合并，避免平方级开销
+     */
+    private static final int MAX_PIECE_BYTES = 256;
+
+    /**
+     * 字节序列（按 ISO-8859-1 一字节一字符映射为字符串）到合并优先级
+     */
+    private final Map<String, Integer> ranks;
+
+    public BpeTokenizer(Map<String, Integer> ranks) {
+        for (int b = 0; b < 256; b++) {
+            if (!ranks.containsKey(String.valueOf((char) b))) {
+                throw new IllegalArgumentException("vocabulary must contain all 256 single bytes");
+            }
+        }
+        this.ranks = ranks;
+    }
+
+    /**
+     * 加载 tiktoken 格式词表，空行忽略
+     */
+    public static BpeTokenizer load(InputStream in) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(1 << 16);
+        Base64.Decoder decoder = Base64.getDecoder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    throw new IOException("invalid vocabulary line " + lineNo);
+                }
+                byte[] token = decoder.decode(line.substring(0, space));
+                ranks.put(new String(token, StandardCharsets.ISO_8859_1), Integer.parseInt(line.substring(space + 1).trim()));
+            }
+        }
+        return new BpeTokenizer(ranks);
+    }
+
+    /**
+     * 从类路径加载词表，不存在时返回 null
+     */
+    public static BpeTokenizer loadResource(String resource) throws IOException {
+        InputStream in = BpeTokenizer.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            return null;
+        }
+        return load(in);
+    }
+
+    /**
+     * 计算 Token 数
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        Matcher matcher = PRE_TOKENIZE.matcher(text);
+        while (matcher.find()) {
+            String piece = new String(matcher.group().getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            if (ranks.containsKey(piece)) {
+                count++;
+                continue;
+            }
+            for (int from = 0; from < piece.length(); ) {
+                int to = segmentEnd(piece, from);
+                count += mergeCount(piece, from, to);
+                from = to;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 编码为 Token 优先级序列
+     */
+    public int[] encode(String text) {
+        if (text == null || text.isEmpty()) {
+            return new int[0];
+        }
+        int[] tokens = new int[Math.max(16, text.length())];
+        int size = 0;
+        Matcher matcher = PRE_TOKENIZE.matcher(text);
+        while (matcher.find()) {
+            String piece = new String(matcher.group().getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            Integer whole = ranks.get(piece);
+            if (whole != null) {
+                if (size == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, size * 2);
+                }
+                tokens[size++] = whole;
+                continue;
+            }
+            for (int from = 0; from < piece.length(); ) {
+                int to = segmentEnd(piece, from);
+                int[] bounds = merge(piece, from, to);
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    if (size == tokens.length) {
+                        tokens = Arrays.copyOf(tokens, size * 2);
+                    }
+                    tokens[size++] = ranks.get(piece.substring(bounds[i], bounds[i + 1]));
+                }
+                from = to;
+            }
+        }
+        return Arrays.copyOf(tokens, size);
+    }
+
+    /**
+     * 词表大小
+     */
+    public int getVocabularySize() {
+        return ranks.size();
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * 分段终点：不超过 MAX_PIECE_BYTES，且不切断 UTF-8 多字节字符
+     */
+    private static int segmentEnd(String piece, int from) {
+        int to = Math.min(piece.length(), from + MAX_PIECE_BYTES);
+        while (to < piece.length() && to > from + 1 && (piece.charAt(to) & 0xC0) == 0x80) {
+            to--;
+        }
+        return to;
+    }
+
+    private int mergeCount(String piece, int from, int to) {
+        return merge(piece, from, to).length - 1;
+    }
+
+    /**
+     * 对 [from, to) 的字节做 BPE 合并，返回合并后各 Token 的边界
+     */
+    private int[] merge(String piece, int from, int to) {
+        int n = to - from;
+        int[] bounds = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            bounds[i] = from + i;
+        }
+        int parts = n;
+        int[] pairRanks = new int[n];
+        for (int i = 0; i + 1 < parts; i++) {
+            pairRanks[i] = rankOf(piece, bounds[i], bounds[i + 2]);
+        }
+
+        while (parts > 1) {
+            int best = -1;
+            int bestRank = Integer.MAX_VALUE;
+            for (int i = 0; i + 1 < parts; i++) {
+                if (pairRanks[i] < bestRank) {
+                    bestRank = pairRanks[i];
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            // 合并 best 与 best+1：删除边界 best+1，并更新两侧相邻对的优先级
+            System.arraycopy(bounds, best + 2, bounds, best + 1, parts - best - 1);
+            System.arraycopy(pairRanks, best + 1, pairRanks, best, parts - best - 2);
+            parts--;
+            if (best + 1 < parts) {
+                pairRanks[best] = rankOf(piece, bounds[best], bounds[best + 2]);
+            }
+            if (best > 0) {
+                pairRanks[best - 1] = rankOf(piece, bounds[best - 1], bounds[best + 1]);
+            }
+        }
+        return Arrays.copyOf(bounds, parts + 1);
+    }
+
+    private int rankOf(String piece, int start, int end) {
+        Integer rank = ranks.get(piece.substring(start, end));
+        return rank != null ? rank : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,269 @@
+package com.mota.common.core.llm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 对话上下文构建器
+ *
+ * 在 Token 预算内从最近一轮向前装入历史消息，放不下的较早消息折叠进滚动摘要，
+ * 摘要随系统提示词一起发送并回写会话，下一轮只需加载摘要之后的消息。
+ * 摘要为抽取式（每条消息保留首句），超出摘要预算时从最早的条目开始丢弃。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class ChatContextBuilder {
+
+    /**
+     * 每条消息的格式开销（角色标记、分隔符）
+     */
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * 摘要中单条消息保留的最大字符数
+     */
+    private static final int SUMMARY_LINE_MAX_CHARS = 120;
+
+    private static final String SUMMARY_HEADER = "以下是此前对话的摘要：\n";
+
+    private final ToIntFunction<String> tokenCounter;
+    private final int maxContextTokens;
+    private final int maxSummaryTokens;
+
+    /**
+     * @param tokenCounter     Token 计数函数
+     * @param maxContextTokens 提示词总预算（系统提示词 + 摘要 + 历史 + 本轮消息）
+     * @param maxSummaryTokens 滚动摘要预算，从总预算中预留
+     */
+    public ChatContextBuilder(ToIntFunction<String> tokenCounter, int maxContextTokens, int maxSummaryTokens) {
+        this.tokenCounter = tokenCounter;
+        this.maxContextTokens = maxContextTokens;
+        this.maxSummaryTokens = maxSummaryTokens;
+    }
+
+    /**
+     * 粗略估算 Token 数：中日韩字符按 1 个计，其余非空白字符按 4 个 1 Token 计
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp)) {
+                continue;
+            }
+            Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+            if (script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                    || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+
+    /**
+     * 构建本轮上下文
+     *
+     * @param systemPrompt 系统提示词，可为空
+     * @param summary      会话当前的滚动摘要，可为空
+     * @param history      摘要之后的历史消息，按时间升序
+     * @param userMessage  本轮用户消息
+     */
+    public ChatContext build(String systemPrompt, String summary, List<Turn> history, String userMessage) {
+        int budget = maxContextTokens - countMessage(systemPrompt) - countMessage(userMessage)
+                - MESSAGE_OVERHEAD_TOKENS - maxSummaryTokens;
+
+        // 从最近一轮向前装入，遇到第一条放不下的即停止，保证历史连续
+        int firstIncluded = history.size();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            int cost = countMessage(history.get(i).getContent());
+            if (cost > budget) {
+                break;
+            }
+            budget -= cost;
+            firstIncluded = i;
+        }
+
+        List<Turn> dropped = history.subList(0, firstIncluded);
+        String newSummary = summary;
+        Long summaryUntilId = null;
+        if (!dropped.isEmpty()) {
+            newSummary = foldIntoSummary(summary, dropped);
+            summaryUntilId = dropped.get(dropped.size() - 1).getId();
+        }
+
+        List<Map<String, String>> messages = new ArrayList<>(history.size() - firstIncluded + 1);
+        for (Turn turn : history.subList(firstIncluded, history.size())) {
+            messages.add(Map.of("role", turn.getRole(), "content", turn.getContent()));
+        }
+        messages.add(Map.of("role", "user", "content", userMessage));
+
+        String system = systemPrompt;
+        if (newSummary != null && !newSummary.isEmpty()) {
+            system = (systemPrompt != null && !systemPrompt.isEmpty() ? systemPrompt + "\n\n" : "")
+                    + SUMMARY_HEADER + newSummary;
+        }
+        int promptTokens = countMessage(system);
+        for (Map<String, String> message : messages) {
+            promptTokens += countMessage(message.get("content"));
+        }
+        return new ChatContext(system, Collections.unmodifiableList(messages), newSummary, summaryUntilId,
+                history.size() - firstIncluded, promptTokens);
+    }
+
+    /**
+     * 将被挤出窗口的消息追加到摘要，超出预算时丢弃最早的摘要条目；
+     * 调用方也可用于折叠未加载进历史窗口的更早消息
+     *
+     * @param summary 当前摘要，可为空
+     * @param dropped 待折叠的消息，按时间升序
+     */
+    public String foldIntoSummary(String summary, List<Turn> dropped) {
+        LinkedList<String> lines = new LinkedList<>();
+        int tokens = 0;
+        if (summary != null && !summary.isEmpty()) {
+            for (String line : summary.split("\n")) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                    tokens += tokenCounter.applyAsInt(line);
+                }
+            }
+        }
+        for (Turn turn : dropped) {
+            String line = ("assistant".equals(turn.getRole()) ? "助手：" : "用户：") + condense(turn.getContent());
+            lines.add(line);
+            tokens += tokenCounter.applyAsInt(line);
+        }
+        while (tokens > maxSummaryTokens && lines.size() > 1) {
+            tokens -= tokenCounter.applyAsInt(lines.removeFirst());
+        }
+        return String.join("\n", lines);
+    }
+
+    private int countMessage(String content) {
+        return content == null || content.isEmpty() ? 0 : tokenCounter.applyAsInt(content) + MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * 取首句并截断，换行折叠为空格
+     */
+    private static String condense(String content) {
+        String text = content == null ? "" : content.replaceAll("\\s+", " ").trim();
+        int end = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '。' || c == '！' || c == '？' || c == '!' || c == '?' || (c == '.' && i + 1 < text.length() && text.charAt(i + 1) == ' ')) {
+                end = i + 1;
+                break;
+            }
+        }
+        end = Math.min(end, SUMMARY_LINE_MAX_CHARS);
+        return end < text.length() ? text.substring(0, end) + "…" : text;
+    }
+
+    /**
+     * 历史消息
+     */
+    public static class Turn {
+        private final Long id;
+        private final String role;
+        private final String content;
+
+        public Turn(Long id, String role, String content) {
+            this.id = id;
+            this.role = role;
+            this.content = content != null ? content : "";
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    /**
+     * 构建结果
+     */
+    public static class ChatContext {
+        private final String system;
+        private final List<Map<String, String>> messages;
+        private final String summary;
+        private final Long summaryUntilId;
+        private final int historyCount;
+        private final int promptTokens;
+
+        ChatContext(String system, List<Map<String, String>> messages, String summary, Long summaryUntilId,
+                    int historyCount, int promptTokens) {
+            this.system = system;
+            this.messages = messages;
+            this.summary = summary;
+            this.summaryUntilId = summaryUntilId;
+            this.historyCount = historyCount;
+            this.promptTokens = promptTokens;
+        }
+
+        /**
+         * 系统提示词（已拼接摘要）
+         */
+        public String getSystem() {
+            return system;
+        }
+
+        /**
+         * 发送给模型的消息，最后一条为本轮用户消息
+         */
+        public List<Map<String, String>> getMessages() {
+            return messages;
+        }
+
+        /**
+         * 更新后的滚动摘要
+         */
+        public String getSummary() {
+            return summary;
+        }
+
+        /**
+         * 摘要覆盖到的最后一条消息ID，本轮摘要未变化时为 null
+         */
+        public Long getSummaryUntilId() {
+            return summaryUntilId;
+        }
+
+        public boolean isSummaryChanged() {
+            return summaryUntilId != null;
+        }
+
+        /**
+         * 装入上下文的历史消息数
+         */
+        public int getHistoryCount() {
+            return historyCount;
+        }
+
+        /**
+         * 提示词估算 Token 数
+         */
+        public int getPromptTokens() {
+            return promptTokens;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mota.common.core.llm;
+
+/**
+ * 进行中的流式对话
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface ChatStreamHandle {
+
+    /**
+     * 取消生成并释放连接
+     */
+    void cancel();
+}
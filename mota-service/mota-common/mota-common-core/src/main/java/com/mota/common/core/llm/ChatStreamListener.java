@@ -0,0 +1,29 @@
+package com.mota.common.core.llm;
+
+/**
+ * 流式对话回调
+ *
+ * 回调在HTTP客户端线程中执行，实现不得阻塞。
+ * onComplete 与 onError 只会触发其一且只触发一次，被取消的流不再触发任何回调。
+ * onToken 抛出异常视为调用方取消生成（如下游连接已断开），流随即取消，不再触发 onError。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public interface ChatStreamListener {
+
+    /**
+     * 收到一段增量文本
+     */
+    void onToken(String token);
+
+    /**
+     * 生成结束，参数为完整回复
+     */
+    void onComplete(String content);
+
+    /**
+     * 生成失败
+     */
+    void onError(Throwable error);
+}
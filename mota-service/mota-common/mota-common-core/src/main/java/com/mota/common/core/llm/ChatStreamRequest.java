@@ -0,0 +1,47 @@
+package com.mota.common.core.llm;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式对话请求
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatStreamRequest {
+
+    /**
+     * 模型名称
+     */
+    private String model;
+
+    /**
+     * 系统提示词
+     */
+    private String system;
+
+    /**
+     * 对话消息，每条包含 role（user/assistant）与 content
+     */
+    private List<Map<String, String>> messages;
+
+    /**
+     * 最大生成Token数
+     */
+    private Integer maxTokens;
+
+    /**
+     * 温度参数
+     */
+    private Double temperature;
+}
@@ -0,0 +1,278 @@
+package com.mota.common.core.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 JDK HttpClient 的流式对话客户端
+ *
+ * 以 stream=true 调用 OpenAI 兼容（/chat/completions）或 Anthropic（/messages）接口，
+ * 响应体按行推送给 {@link ServerSentEventReader}，解析出的增量文本逐段回调。
+ * 请求异步发送、响应由行订阅者驱动，等待模型输出期间不占用任何线程；
+ * 超时只约束收到响应头之前的时间，不限制生成时长。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class HttpStreamingChatClient implements StreamingChatClient {
+
+    /**
+     * 接口格式
+     */
+    public enum ApiFormat {
+        OPENAI, ANTHROPIC;
+
+        /**
+         * 官方 Anthropic 地址使用原生格式，其余（代理服务）按 OpenAI 兼容格式
+         */
+        public static ApiFormat fromBaseUrl(String baseUrl) {
+            return baseUrl != null && baseUrl.contains("anthropic.com") ? ANTHROPIC : OPENAI;
+        }
+    }
+
+    private static final String ANTHROPIC_VERSION = "2023-06-01";
+    private static final int MAX_ERROR_BODY = 500;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final String apiKey;
+    private final ApiFormat format;
+    private final Duration responseTimeout;
+
+    public HttpStreamingChatClient(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl,
+                                   String apiKey, ApiFormat format, Duration responseTimeout) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.format = format;
+        this.responseTimeout = responseTimeout;
+    }
+
+    @Override
+    public ChatStreamHandle stream(ChatStreamRequest request, ChatStreamListener listener) {
+        StreamSubscriber subscriber = new StreamSubscriber(listener);
+        HttpRequest httpRequest;
+        try {
+            httpRequest = buildRequest(request);
+        } catch (JsonProcessingException e) {
+            subscriber.fail(e);
+            return subscriber::cancel;
+        }
+
+        CompletableFuture<HttpResponse<Void>> future = httpClient.sendAsync(httpRequest, info -> {
+            if (info.statusCode() / 100 == 2) {
+                return HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+            }
+            return HttpResponse.BodySubscribers.mapping(
+                    HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                    body -> {
+                        subscriber.fail(new IllegalStateException("HTTP " + info.statusCode() + ": " + abbreviate(body)));
+                        return null;
+                    });
+        });
+        future.whenComplete((response, error) -> {
+            if (error != null) {
+                subscriber.fail(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                subscriber.finish();
+            }
+        });
+
+        return () -> {
+            subscriber.cancel();
+            future.cancel(true);
+        };
+    }
+
+    // ==================== 私有方法 ====================
+
+    private HttpRequest buildRequest(ChatStreamRequest request) throws JsonProcessingException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", request.getModel());
+        if (request.getMaxTokens() != null) {
+            body.put("max_tokens", request.getMaxTokens());
+        }
+        if (request.getTemperature() != null) {
+            body.put("temperature", request.getTemperature());
+        }
+        body.put("stream", true);
+
+        List<Map<String, String>> messages = new ArrayList<>();
+        if (format == ApiFormat.ANTHROPIC) {
+            if (request.getSystem() != null) {
+                body.put("system", request.getSystem());
+            }
+        } else if (request.getSystem() != null) {
+            Map<String, String> system = new HashMap<>();
+            system.put("role", "system");
+            system.put("content", request.getSystem());
+            messages.add(system);
+        }
+        if (request.getMessages() != null) {
+            messages.addAll(request.getMessages());
+        }
+        body.put("messages", messages);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + (format == ApiFormat.ANTHROPIC ? "/messages" : "/chat/completions")))
+                .timeout(responseTimeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body), StandardCharsets.UTF_8));
+        if (format == ApiFormat.ANTHROPIC) {
+            builder.header("x-api-key", apiKey).header("anthropic-version", ANTHROPIC_VERSION);
+        } else {
+            builder.header("Authorization", "Bearer " + apiKey);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 是否为流结束事件
+     */
+    static boolean isEndEvent(ApiFormat format, String event, String data) {
+        if (format == ApiFormat.OPENAI) {
+            return "[DONE]".equals(data.trim());
+        }
+        return "message_stop".equals(event) || event == null && data.contains("\"message_stop\"");
+    }
+
+    /**
+     * 解析事件中的增量文本，无文本的事件返回 null
+     */
+    static String parseText(ObjectMapper objectMapper, ApiFormat format, String event, String data)
+            throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(data);
+        if (format == ApiFormat.OPENAI) {
+            JsonNode content = node.path("choices").path(0).path("delta").path("content");
+            return content.isTextual() ? content.asText() : null;
+        }
+
+        String type = event != null ? event : node.path("type").asText();
+        if ("error".equals(type)) {
+            throw new IllegalStateException("Anthropic stream error: " + node.path("error").path("message").asText());
+        }
+        JsonNode text = node.path("delta").path("text");
+        return "content_block_delta".equals(type) && text.isTextual() ? text.asText() : null;
+    }
+
+    private static String abbreviate(String body) {
+        if (body == null) {
+            return "";
+        }
+        return body.length() > MAX_ERROR_BODY ? body.substring(0, MAX_ERROR_BODY) + "..." : body;
+    }
+
+    /**
+     * 响应行订阅者，负责解析事件、累积全文并保证终止回调只触发一次
+     */
+    private final class StreamSubscriber implements Flow.Subscriber<String> {
+
+        private final ChatStreamListener listener;
+        private final ServerSentEventReader reader = new ServerSentEventReader(this::onEvent);
+        private final StringBuilder content = new StringBuilder();
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile Flow.Subscription subscription;
+
+        private StreamSubscriber(ChatStreamListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (done.get()) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!done.get()) {
+                reader.accept(line);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done.get()) {
+                reader.flush();
+            }
+            finish();
+        }
+
+        private void onEvent(String event, String data) {
+            if (done.get()) {
+                return;
+            }
+            String token;
+            try {
+                if (isEndEvent(format, event, data)) {
+                    finish();
+                    return;
+                }
+                token = parseText(objectMapper, format, event, data);
+            } catch (Exception e) {
+                fail(e);
+                return;
+            }
+            if (token != null && !token.isEmpty()) {
+                content.append(token);
+                try {
+                    listener.onToken(token);
+                } catch (RuntimeException e) {
+                    // 回调方写入失败（如客户端断开）属于取消，不是模型错误
+                    cancel();
+                }
+            }
+        }
+
+        private void finish() {
+            if (done.compareAndSet(false, true)) {
+                cancelSubscription();
+                listener.onComplete(content.toString());
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (done.compareAndSet(false, true)) {
+                cancelSubscription();
+                listener.onError(error);
+            }
+        }
+
+        private void cancel() {
+            done.set(true);
+            cancelSubscription();
+        }
+
+        private void cancelSubscription() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.mota.common.core.llm;
+
+import com.mota.common.core.embedding.EmbeddingBatcher;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 大模型响应两级缓存
+ *
+ * 一级为精确匹配：对 模型 + 参数 + 归一化提示词 计算 SHA-256 作为键；
+ * 二级为语义匹配（可选）：语义文本向量与同租户、同模型参数的最近条目比较余弦相似度，
+ * 超过阈值即复用。语义文本默认为整个提示词；提示词中固定模板占比较大时，调用方应只传入用户填写的部分，
+ * 并把必须完全一致的结构化字段放入参数，否则模板会主导相似度。按租户隔离，每个租户独立 LRU 容量与 TTL；
+ * 写入时可关联来源标识（如文档、任务），来源变更时按标识失效。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class SemanticResponseCache {
+
+    private static final Long DEFAULT_TENANT = 0L;
+
+    private final Function<String, float[]> embedder;
+    private final double similarityThreshold;
+    private final int maxEntriesPerTenant;
+    private final int semanticScanLimit;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<Long, TenantCache> tenants = new ConcurrentHashMap<>();
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong semanticHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param embedder            提示词向量化函数，为 null 时只启用精确匹配
+     * @param similarityThreshold 语义命中的最低余弦相似度
+     * @param maxEntriesPerTenant 每个租户的最大条目数
+     * @param ttl                 条目存活时间
+     * @param semanticScanLimit   语义匹配时最多比较的最近条目数
+     */
+    public SemanticResponseCache(Function<String, float[]> embedder, double similarityThreshold,
+                                 int maxEntriesPerTenant, Duration ttl, int semanticScanLimit) {
+        this(embedder, similarityThreshold, maxEntriesPerTenant, ttl, semanticScanLimit, System::nanoTime);
+    }
+
+    SemanticResponseCache(Function<String, float[]> embedder, double similarityThreshold,
+                          int maxEntriesPerTenant, Duration ttl, int semanticScanLimit, LongSupplier nanoClock) {
+        if (maxEntriesPerTenant <= 0) {
+            throw new IllegalArgumentException("maxEntriesPerTenant must be positive");
+        }
+        this.embedder = embedder;
+        this.similarityThreshold = similarityThreshold;
+        this.maxEntriesPerTenant = maxEntriesPerTenant;
+        this.semanticScanLimit = Math.max(0, semanticScanLimit);
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 归一化提示词：去除首尾空白并将连续空白折叠为单个空格
+     */
+    public static String normalize(String prompt) {
+        if (prompt == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(prompt.length());
+        boolean space = false;
+        for (int i = 0; i < prompt.length(); i++) {
+            char c = prompt.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 精确匹配键
+     */
+    public static String cacheKey(String model, String params, String prompt) {
+        return EmbeddingBatcher.contentHash(fingerprint(model, params) + "\u0000" + normalize(prompt));
+    }
+
+    /**
+     * 查询缓存，先精确匹配，未命中且 allowSemantic 时再做语义匹配
+     */
+    public String get(Long tenantId, String model, String params, String prompt, boolean allowSemantic) {
+        return get(tenantId, model, params, prompt, allowSemantic ? prompt : null);
+    }
+
+    /**
+     * 查询缓存，先按提示词精确匹配，未命中且 semanticText 不为 null 时再按语义文本做语义匹配
+     */
+    public String get(Long tenantId, String model, String params, String prompt, String semanticText) {
+        TenantCache cache = tenants.get(tenantKey(tenantId));
+        if (cache != null) {
+            long now = nanoClock.getAsLong();
+            String response = cache.getExact(cacheKey(model, params, prompt), now);
+            if (response != null) {
+                exactHits.incrementAndGet();
+                return response;
+            }
+            if (semanticText != null && embedder != null && semanticScanLimit > 0) {
+                response = cache.getSimilar(fingerprint(model, params), embed(semanticText), now);
+                if (response != null) {
+                    semanticHits.incrementAndGet();
+                    return response;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param sourceIds 响应依赖的来源标识，来源变更时通过 {@link #invalidateSource} 失效
+     */
+    public void put(Long tenantId, String model, String params, String prompt, String response,
+                    Collection<String> sourceIds) {
+        put(tenantId, model, params, prompt, prompt, response, sourceIds);
+    }
+
+    /**
+     * 写入缓存，semanticText 为 null 时条目只参与精确匹配
+     *
+     * @param semanticText 语义匹配使用的文本，应与查询时传入的语义文本同构
+     * @param sourceIds    响应依赖的来源标识，来源变更时通过 {@link #invalidateSource} 失效
+     */
+    public void put(Long tenantId, String model, String params, String prompt, String semanticText, String response,
+                    Collection<String> sourceIds) {
+        if (response == null) {
+            return;
+        }
+        float[] vector = semanticText != null && embedder != null && semanticScanLimit > 0 ? embed(semanticText) : null;
+        Entry entry = new Entry(cacheKey(model, params, prompt), fingerprint(model, params), vector, response,
+                sourceIds != null ? new HashSet<>(sourceIds) : Collections.emptySet(),
+                nanoClock.getAsLong() + ttlNanos);
+        tenants.computeIfAbsent(tenantKey(tenantId), k -> new TenantCache()).put(entry);
+    }
+
+    /**
+     * 失效依赖指定来源的全部条目，返回失效条数
+     */
+    public int invalidateSource(Long tenantId, String sourceId) {
+        TenantCache cache = tenants.get(tenantKey(tenantId));
+        return cache != null ? cache.invalidateSource(sourceId) : 0;
+    }
+
+    /**
+     * 清空租户缓存
+     */
+    public void invalidateTenant(Long tenantId) {
+        tenants.remove(tenantKey(tenantId));
+    }
+
+    public long getExactHits() {
+        return exactHits.get();
+    }
+
+    public long getSemanticHits() {
+        return semanticHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size(Long tenantId) {
+        TenantCache cache = tenants.get(tenantKey(tenantId));
+        return cache != null ? cache.size() : 0;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private static Long tenantKey(Long tenantId) {
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    private static String fingerprint(String model, String params) {
+        return (model != null ? model : "") + "|" + (params != null ? params : "");
+    }
+
+    /**
+     * 向量化并做 L2 归一化，使余弦相似度退化为点积
+     */
+    private float[] embed(String prompt) {
+        float[] raw = embedder.apply(normalize(prompt));
+        double norm = 0;
+        for (float v : raw) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return raw;
+        }
+        float[] vector = new float[raw.length];
+        double scale = 1.0 / Math.sqrt(norm);
+        for (int i = 0; i < raw.length; i++) {
+            vector[i] = (float) (raw[i] * scale);
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return -1;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final float[] vector;
+        private final String response;
+        private final Set<String> sources;
+        private final long expiresAt;
+
+        private Entry(String key, String fingerprint, float[] vector, String response, Set<String> sources,
+                      long expiresAt) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.vector = vector;
+            this.response = response;
+            this.sources = sources;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 单租户缓存：访问顺序 LRU + 来源反向索引，所有操作在实例锁内完成
+     */
+    private final class TenantCache {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntriesPerTenant) {
+                    unindex(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        private final Map<String, Set<String>> keysBySource = new HashMap<>();
+
+        synchronized String getExact(String key, long now) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - now <= 0) {
+                remove(entry);
+                return null;
+            }
+            return entry.response;
+        }
+
+        synchronized String getSimilar(String fingerprint, float[] vector, long now) {
+            // LinkedHashMap 按访问顺序排列，从尾部（最近访问）向前扫描
+            Entry best = null;
+            double bestScore = similarityThreshold;
+            int scanned = 0;
+            List<Entry> expired = new ArrayList<>();
+            Entry[] recent = entries.values().toArray(new Entry[0]);
+            for (int i = recent.length - 1; i >= 0 && scanned < semanticScanLimit; i--) {
+                Entry entry = recent[i];
+                if (entry.vector == null || !entry.fingerprint.equals(fingerprint)) {
+                    continue;
+                }
+                scanned++;
+                if (entry.expiresAt - now <= 0) {
+                    expired.add(entry);
+                    continue;
+                }
+                double score = dot(vector, entry.vector);
+                if (score >= bestScore) {
+                    best = entry;
+                    bestScore = score;
+                }
+            }
+            expired.forEach(this::remove);
+            if (best == null) {
+                return null;
+            }
+            entries.get(best.key);
+            return best.response;
+        }
+
+        synchronized void put(Entry entry) {
+            Entry previous = entries.put(entry.key, entry);
+            if (previous != null) {
+                unindex(previous);
+            }
+            for (String source : entry.sources) {
+                keysBySource.computeIfAbsent(source, s -> new HashSet<>()).add(entry.key);
+            }
+        }
+
+        synchronized int invalidateSource(String sourceId) {
+            Set<String> keys = keysBySource.remove(sourceId);
+            if (keys == null) {
+                return 0;
+            }
+            int removed = 0;
+            for (String key : keys) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    remove(entry);
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void remove(Entry entry) {
+            entries.remove(entry.key);
+            unindex(entry);
+        }
+
+        private void unindex(Entry entry) {
+            for (String source : entry.sources) {
+                Set<String> keys = keysBySource.get(source);
+                if (keys != null) {
+                    keys.remove(entry.key);
+                    if (keys.isEmpty()) {
+                        keysBySource.remove(source);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mota.common.core.llm;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Server-Sent Events 行解析器
+ *
+ * 按行输入事件流，遇到空行时分发一个事件（事件名，数据）；
+ * 多行 data 以换行拼接，以冒号开头的注释行（心跳）忽略。非线程安全，每个流一个实例。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class ServerSentEventReader {
+
+    private final BiConsumer<String, String> onEvent;
+
+    private String event;
+    private StringBuilder data;
+
+    public ServerSentEventReader(BiConsumer<String, String> onEvent) {
+        this.onEvent = onEvent;
+    }
+
+    /**
+     * 输入一行（不含行尾换行符）
+     */
+    public void accept(String line) {
+        if (line.isEmpty()) {
+            dispatch();
+            return;
+        }
+        if (line.charAt(0) == ':') {
+            return;
+        }
+        int colon = line.indexOf(':');
+        String field = colon >= 0 ? line.substring(0, colon) : line;
+        String value = colon >= 0 ? line.substring(colon + 1) : "";
+        if (value.startsWith(" ")) {
+            value = value.substring(1);
+        }
+        if ("event".equals(field)) {
+            event = value;
+        } else if ("data".equals(field)) {
+            if (data == null) {
+                data = new StringBuilder(value);
+            } else {
+                data.append('\n').append(value);
+            }
+        }
+    }
+
+    /**
+     * 流结束时分发未以空行结尾的最后一个事件
+     */
+    public void flush() {
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (data != null) {
+            onEvent.accept(event, data.toString());
+        }
+        event = null;
+        data = null;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mota.common.core.llm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 流式对话客户端
+ *
+ * 调用立即返回，增量文本通过回调推送，等待模型输出期间不占用调用线程。
+ * 实现：{@link HttpStreamingChatClient}（OpenAI 兼容 / Anthropic SSE 接口）、
+ * {@link StubStreamingChatClient}（本地模拟，用于离线开发与测试）。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public interface StreamingChatClient {
+
+    /**
+     * 发起流式对话
+     */
+    ChatStreamHandle stream(ChatStreamRequest request, ChatStreamListener listener);
+
+    /**
+     * 发起流式对话，返回完整回复的 Future；取消 Future 或使其异常结束（如 orTimeout 超时）即取消生成。
+     * onToken 抛出异常（如下游客户端已断开）时 Future 以取消结束，不视为模型调用失败
+     */
+    default CompletableFuture<String> streamAsync(ChatStreamRequest request, Consumer<String> onToken) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        ChatStreamHandle handle = stream(request, new ChatStreamListener() {
+            @Override
+            public void onToken(String token) {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    onToken.accept(token);
+                } catch (RuntimeException e) {
+                    future.cancel(true);
+                }
+            }
+
+            @Override
+            public void onComplete(String content) {
+                future.complete(content);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                future.completeExceptionally(error);
+            }
+        });
+        future.whenComplete((content, error) -> {
+            if (error != null) {
+                handle.cancel();
+            }
+        });
+        return future;
+    }
+}
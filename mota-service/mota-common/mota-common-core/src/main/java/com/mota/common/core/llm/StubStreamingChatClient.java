@@ -0,0 +1,127 @@
+package com.mota.common.core.llm;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 本地模拟流式对话客户端
+ *
+ * 由 replyGenerator 生成完整回复，按 chunkSize 个字符切分后每隔 intervalMillis 推送一段，
+ * 模拟模型逐段输出。所有流共用一个调度线程，用于未配置模型密钥的开发环境与离线测试。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class StubStreamingChatClient implements StreamingChatClient, AutoCloseable {
+
+    private final Function<ChatStreamRequest, String> replyGenerator;
+    private final int chunkSize;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    public StubStreamingChatClient(Function<ChatStreamRequest, String> replyGenerator, int chunkSize, long intervalMillis) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.replyGenerator = replyGenerator;
+        this.chunkSize = chunkSize;
+        this.intervalMillis = Math.max(0, intervalMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stub-chat-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 回显最后一条用户消息的默认模拟客户端
+     */
+    public static StubStreamingChatClient echo(int chunkSize, long intervalMillis) {
+        return new StubStreamingChatClient(request -> "（本地模拟回复）您的问题是：" + lastUserMessage(request),
+                chunkSize, intervalMillis);
+    }
+
+    /**
+     * 原样回放最后一条用户消息的模拟客户端，用于把预先生成的内容（如模拟数据）按流式推送
+     */
+    public static StubStreamingChatClient replay(int chunkSize, long intervalMillis) {
+        return new StubStreamingChatClient(StubStreamingChatClient::lastUserMessage, chunkSize, intervalMillis);
+    }
+
+    @Override
+    public ChatStreamHandle stream(ChatStreamRequest request, ChatStreamListener listener) {
+        String reply;
+        try {
+            reply = replyGenerator.apply(request);
+        } catch (Exception e) {
+            listener.onError(e);
+            return () -> { };
+        }
+        String content = reply != null ? reply : "";
+        AtomicInteger offset = new AtomicInteger(0);
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+
+        Runnable emit = () -> {
+            if (done.get()) {
+                return;
+            }
+            int start = offset.get();
+            if (start >= content.length()) {
+                if (done.compareAndSet(false, true)) {
+                    cancelTask(task);
+                    listener.onComplete(content);
+                }
+                return;
+            }
+            int end = Math.min(content.length(), content.offsetByCodePoints(start,
+                    Math.min(chunkSize, content.codePointCount(start, content.length()))));
+            offset.set(end);
+            try {
+                listener.onToken(content.substring(start, end));
+            } catch (RuntimeException e) {
+                // 回调方写入失败视为取消
+                done.set(true);
+                cancelTask(task);
+            }
+        };
+        task.set(scheduler.scheduleWithFixedDelay(emit, 0, Math.max(1, intervalMillis), TimeUnit.MILLISECONDS));
+
+        return () -> {
+            done.set(true);
+            cancelTask(task);
+        };
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static void cancelTask(AtomicReference<ScheduledFuture<?>> task) {
+        ScheduledFuture<?> future = task.get();
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private static String lastUserMessage(ChatStreamRequest request) {
+        List<Map<String, String>> messages = request.getMessages();
+        if (messages != null) {
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                if ("user".equals(messages.get(i).get("role"))) {
+                    return messages.get(i).get("content");
+                }
+            }
+        }
+        return "";
+    }
+}
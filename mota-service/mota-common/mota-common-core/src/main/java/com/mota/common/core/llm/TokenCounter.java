@@ -0,0 +1,110 @@
+package com.mota.common.core.llm;
+
+import com.mota.common.core.embedding.EmbeddingBatcher;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * 带缓存的 Token 计数器
+ *
+ * 在请求发出前估算提示词 Token 数，用于预算预占与上下文裁剪。
+ * 较长文本（如文档分块、系统提示词）按内容哈希缓存计数结果，重复出现时不再分词；
+ * 已知内容哈希的分块可直接用哈希查询，省去一次哈希计算。短文本直接计数。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class TokenCounter {
+
+    /**
+     * 每条消息的格式开销（角色标记、分隔符），与 {@link ChatContextBuilder} 一致
+     */
+    public static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private final ToIntFunction<String> counter;
+    private final int minCachedLength;
+    private final Map<String, Integer> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param counter         底层计数函数（如 {@link BpeTokenizer#count}）
+     * @param maxEntries      缓存条目上限
+     * @param minCachedLength 参与缓存的最小文本长度
+     */
+    public TokenCounter(ToIntFunction<String> counter, int maxEntries, int minCachedLength) {
+        this.counter = counter;
+        this.minCachedLength = minCachedLength;
+        this.cache = new LinkedHashMap<String, Integer>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 计算文本 Token 数
+     */
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        if (text.length() < minCachedLength) {
+            return counter.applyAsInt(text);
+        }
+        return countChunk(EmbeddingBatcher.contentHash(text), text);
+    }
+
+    /**
+     * 按已知内容哈希计算分块 Token 数
+     */
+    public int countChunk(String contentHash, String text) {
+        Integer cached;
+        synchronized (cache) {
+            cached = cache.get(contentHash);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        int tokens = counter.applyAsInt(text);
+        synchronized (cache) {
+            cache.put(contentHash, tokens);
+        }
+        return tokens;
+    }
+
+    /**
+     * 计算一次对话请求的提示词 Token 数（系统提示词 + 各条消息 + 格式开销）
+     */
+    public int countPrompt(String system, List<Map<String, String>> messages) {
+        int tokens = system != null && !system.isEmpty() ? count(system) + MESSAGE_OVERHEAD_TOKENS : 0;
+        if (messages != null) {
+            for (Map<String, String> message : messages) {
+                tokens += count(message.get("content")) + MESSAGE_OVERHEAD_TOKENS;
+            }
+        }
+        return tokens;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.mota.common.core.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 自适应并发舱壁
+ *
+ * 1. 舱壁：并发数达到上限时调用方排队等待，排队超过 maxQueue 或等待超过 queueTimeout 即拒绝，
+ *    避免下游变慢时把调用线程全部耗尽
+ * 2. 自适应上限（梯度算法）：以长期 EWMA 延迟为基线，单次延迟明显高于基线时按比例收缩上限，
+ *    低于基线时以 sqrt(limit) 的余量缓慢增长；实际并发不足上限一半时不再增长
+ * 3. 过载（限流 429、超时等）按 backoffRatio 乘性减小上限，快速让出下游容量
+ * 调用方先 {@link #acquire()} 获取许可，结束后必须上报 {@link #onSuccess(long)}、
+ * {@link #onDropped()} 或 {@link #onIgnored()} 之一释放许可。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class AdaptiveBulkhead {
+
+    /**
+     * 延迟容忍度：单次延迟不超过基线的该倍数时不收缩
+     */
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double LONG_RTT_ALPHA = 0.05;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private double longRttNanos = Double.NaN;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+    private long dropped;
+
+    /**
+     * @param name         舱壁名称（通常为模型提供商）
+     * @param initialLimit 初始并发上限
+     * @param minLimit     并发上限下界
+     * @param maxLimit     并发上限上界
+     * @param maxQueue     最大排队数
+     * @param queueTimeout 最长排队时间
+     */
+    public AdaptiveBulkhead(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                            Duration queueTimeout) {
+        if (minLimit <= 0 || maxLimit < minLimit || maxQueue < 0) {
+            throw new IllegalArgumentException("require 0 < minLimit <= maxLimit and maxQueue >= 0");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * 获取许可，并发已满时排队等待
+     *
+     * @throws BulkheadFullException 排队已满或等待超时
+     */
+    public void acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return;
+            }
+            if (queued >= maxQueue) {
+                rejected++;
+                throw new BulkheadFullException(name + " 并发已满（上限 " + currentLimit() + "，排队 " + queued + "）");
+            }
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        throw new BulkheadFullException(name + " 排队超时（上限 " + currentLimit() + "）");
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+                inFlight++;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用成功，按本次延迟调整上限并释放许可
+     */
+    public void onSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            release();
+            double rtt = Math.max(1, latencyNanos);
+            longRttNanos = Double.isNaN(longRttNanos) ? rtt : longRttNanos + LONG_RTT_ALPHA * (rtt - longRttNanos);
+
+            // 实际并发远低于上限时延迟不能反映容量，不再增长
+            if (inFlight + 1 < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rtt));
+            double target = limit * gradient + Math.sqrt(limit);
+            setLimit(limit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 下游过载（限流、超时），乘性减小上限并释放许可
+     */
+    public void onDropped() {
+        lock.lock();
+        try {
+            release();
+            dropped++;
+            setLimit(limit * BACKOFF_RATIO);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 与容量无关的失败（参数错误、取消等），只释放许可
+     */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 累计拒绝次数（排队已满或排队超时）
+     */
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 累计过载次数
+     */
+    public long getDropped() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 长期基线延迟（毫秒），没有样本时为 NaN
+     */
+    public double getBaselineLatencyMillis() {
+        lock.lock();
+        try {
+            return longRttNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+        permitAvailable.signal();
+    }
+
+    private void setLimit(double newLimit) {
+        int before = currentLimit();
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        // 上限增大时唤醒多个排队者
+        for (int i = before; i < currentLimit(); i++) {
+            permitAvailable.signal();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mota.common.core.resilience;
+
+/**
+ * 舱壁已满：并发已达上限且排队已满或排队超时
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,177 @@
+package com.mota.common.core.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 熔断器
+ *
+ * 1. 关闭（CLOSED）：正常放行，连续失败达到阈值后打开
+ * 2. 打开（OPEN）：拒绝调用，持续 openDuration 后转为半开
+ * 3. 半开（HALF_OPEN）：最多放行 halfOpenProbes 个探测调用，
+ *    任一探测成功即关闭，失败则重新打开并重新计时
+ * 调用方先 {@link #tryAcquire()} 获取许可，调用结束后上报 {@link #onSuccess()} 或 {@link #onFailure()}；
+ * 取得许可但最终没有发起调用时用 {@link #release()} 归还。探测名额占满超过 probeTimeout 仍无结果上报时，
+ * 视为探测已丢失并重新放行，避免一次漏报使模型永久不可用。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final long probeTimeoutNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile State state = State.CLOSED;
+    private int consecutiveFailures;
+    private int probesInFlight;
+    private long openedAt;
+    private long lastProbeAt;
+    private volatile long lastFailureTime;
+
+    /**
+     * 探测超时默认与打开持续时间相同
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes) {
+        this(failureThreshold, openDuration, halfOpenProbes, openDuration);
+    }
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes, Duration probeTimeout) {
+        this(failureThreshold, openDuration, halfOpenProbes, probeTimeout, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes, Duration probeTimeout,
+                   LongSupplier nanoClock) {
+        if (failureThreshold <= 0 || halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("failureThreshold and halfOpenProbes must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.probeTimeoutNanos = probeTimeout.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 是否可以放行调用（只读判断，不占用半开探测名额）
+     */
+    public boolean isCallPermitted() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            switch (state) {
+                case OPEN:
+                    return nanoClock.getAsLong() - openedAt >= openDurationNanos;
+                case HALF_OPEN:
+                    return probesInFlight < halfOpenProbes || probesExpired();
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * 获取调用许可；打开状态到期后转为半开并占用一个探测名额
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= halfOpenProbes) {
+                    if (!probesExpired()) {
+                        return false;
+                    }
+                    // 已发出的探测超时未上报结果，视为丢失
+                    probesInFlight = 0;
+                }
+                probesInFlight++;
+                lastProbeAt = nanoClock.getAsLong();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 归还未实际使用的许可（如被预算、舱壁拒绝或调用前取消），不计入成功或失败
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    /**
+     * 上报调用成功
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probesInFlight = 0;
+        }
+    }
+
+    /**
+     * 上报调用失败
+     */
+    public synchronized void onFailure() {
+        lastFailureTime = System.currentTimeMillis();
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * 强制关闭并清空计数
+     */
+    public synchronized void reset() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probesInFlight = 0;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * 最近一次失败时间（毫秒时间戳），没有失败时为 0
+     */
+    public long getLastFailureTime() {
+        return lastFailureTime;
+    }
+
+    private boolean probesExpired() {
+        return nanoClock.getAsLong() - lastProbeAt >= probeTimeoutNanos;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        probesInFlight = 0;
+        consecutiveFailures = Math.max(consecutiveFailures, failureThreshold);
+    }
+}
@@ -0,0 +1,48 @@
+package com.mota.common.core.resilience;
+
+/**
+ * 指数加权移动平均的调用延迟与错误率
+ *
+ * 每次调用按 value += alpha * (sample - value) 更新，alpha 越大越偏向最近的调用；
+ * 首个样本直接作为初始延迟。没有样本时延迟为 NaN、错误率为 0。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class EwmaStats {
+
+    private final double alpha;
+
+    private double latencyMillis = Double.NaN;
+    private double errorRate;
+    private long samples;
+
+    public EwmaStats(double alpha) {
+        if (!(alpha > 0 && alpha <= 1)) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        this.alpha = alpha;
+    }
+
+    /**
+     * 记录一次调用
+     */
+    public synchronized void record(long latencyMillis, boolean success) {
+        double latency = Math.max(0, latencyMillis);
+        this.latencyMillis = samples == 0 ? latency : this.latencyMillis + alpha * (latency - this.latencyMillis);
+        this.errorRate += alpha * ((success ? 0 : 1) - this.errorRate);
+        samples++;
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+}
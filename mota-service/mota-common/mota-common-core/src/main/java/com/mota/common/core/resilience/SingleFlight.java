@@ -0,0 +1,104 @@
+package com.mota.common.core.resilience;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并（single-flight）
+ *
+ * 同一个键同时只执行一次调用：第一个调用方执行，其余调用方等待并共享同一结果（包括异常）。
+ * 调用结束后立即移除，之后的请求会重新执行，本类不做结果缓存。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong merged = new AtomicLong();
+
+    /**
+     * 同步执行，已有相同键的调用进行中时等待其结果
+     */
+    public V execute(K key, Callable<V> call) throws Exception {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            merged.incrementAndGet();
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+
+        try {
+            V value = call.call();
+            mine.complete(value);
+            return value;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 异步执行，返回的 Future 被取消不会影响共享的调用
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            merged.incrementAndGet();
+            return existing.thenApply(value -> value);
+        }
+
+        CompletableFuture<V> source;
+        try {
+            source = call.get();
+        } catch (Throwable t) {
+            source = CompletableFuture.failedFuture(t);
+        }
+        source.whenComplete((value, error) -> {
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                mine.complete(value);
+            }
+        });
+        return mine.thenApply(value -> value);
+    }
+
+    /**
+     * 进行中的调用数
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * 累计被合并（未实际执行）的调用数
+     */
+    public long getMerged() {
+        return merged.get();
+    }
+
+    private static Exception unwrap(Throwable cause) {
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new CompletionException(cause);
+    }
+}
@@ -0,0 +1,218 @@
+package com.mota.common.core.similarity;
+
+import java.util.*;
+
+/**
+ * MinHash 签名 + LSH 分桶的近重复文本候选生成
+ *
+ * 1. 文本转小写、去掉空白和标点后切成长度为 shingleSize 的字符片段（不足一个片段时整体作为一个片段）
+ * 2. 用 bands × rows 个独立哈希函数取片段哈希的最小值得到签名，签名相同位置的比例即 Jaccard 相似度的无偏估计
+ * 3. 签名按 band 分段哈希入桶，任一 band 完全相同的文本成为候选对；
+ *    Jaccard 为 s 的两段文本成为候选的概率为 1 - (1 - s^rows)^bands，阈值附近约为 (1 / bands)^(1 / rows)
+ * 只对候选对做精确比较，避免两两比较所有文本。非线程安全，由调用方在单线程内构建和查询。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class MinHashLsh {
+
+    private final int bands;
+    private final int rows;
+    private final int shingleSize;
+    private final long[] seeds;
+
+    private final Map<Long, int[]> signatures = new LinkedHashMap<>();
+    private final List<Map<Long, List<Long>>> buckets;
+
+    public MinHashLsh(int bands, int rows, int shingleSize) {
+        if (bands <= 0 || rows <= 0 || shingleSize <= 0) {
+            throw new IllegalArgumentException("bands, rows and shingleSize must be positive");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.shingleSize = shingleSize;
+        // 固定种子，保证同一文本在不同进程中的签名一致
+        this.seeds = new long[bands * rows];
+        long state = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < seeds.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+        this.buckets = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * 计算文本签名，没有有效字符时返回 null
+     */
+    public int[] signature(String text) {
+        long[] shingles = shingles(text);
+        if (shingles.length == 0) {
+            return null;
+        }
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int i = 0; i < seeds.length; i++) {
+                int hash = (int) (mix(shingle ^ seeds[i]) >>> 33);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * 加入一段文本，没有有效字符的文本忽略
+     *
+     * @return 是否已加入
+     */
+    public boolean add(long id, String text) {
+        int[] signature = signature(text);
+        if (signature == null) {
+            return false;
+        }
+        signatures.put(id, signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>()).add(id);
+        }
+        return true;
+    }
+
+    /**
+     * 已加入的文本数
+     */
+    public int size() {
+        return signatures.size();
+    }
+
+    /**
+     * 候选对（去重，first &lt; second）；单个桶内超过 maxBucketSize 的部分不再两两配对，
+     * 防止大量相同模板文本产生平方级候选
+     */
+    public Set<Pair> candidatePairs(int maxBucketSize) {
+        Set<Pair> pairs = new LinkedHashSet<>();
+        for (Map<Long, List<Long>> bandBuckets : buckets) {
+            for (List<Long> ids : bandBuckets.values()) {
+                int size = Math.min(ids.size(), maxBucketSize);
+                for (int i = 0; i < size; i++) {
+                    for (int j = i + 1; j < size; j++) {
+                        pairs.add(Pair.of(ids.get(i), ids.get(j)));
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * 两段已加入文本的估计 Jaccard 相似度，任一不存在时为 0
+     */
+    public double similarity(long first, long second) {
+        int[] a = signatures.get(first);
+        int[] b = signatures.get(second);
+        if (a == null || b == null) {
+            return 0;
+        }
+        int same = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / a.length;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private long[] shingles(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        text.toLowerCase(Locale.ROOT).codePoints()
+                .filter(Character::isLetterOrDigit)
+                .forEach(normalized::appendCodePoint);
+        if (normalized.length() == 0) {
+            return new long[0];
+        }
+        if (normalized.length() <= shingleSize) {
+            return new long[]{hash(normalized, 0, normalized.length())};
+        }
+        Set<Long> unique = new HashSet<>();
+        for (int i = 0; i + shingleSize <= normalized.length(); i++) {
+            unique.add(hash(normalized, i, i + shingleSize));
+        }
+        return unique.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = 0xcbf29ce484222325L;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            key = (key ^ signature[i]) * 0x100000001b3L;
+        }
+        return key;
+    }
+
+    private static long hash(CharSequence text, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * SplitMix64 终混函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 候选对，first &lt; second
+     */
+    public static final class Pair {
+        private final long first;
+        private final long second;
+
+        private Pair(long first, long second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        public static Pair of(long a, long b) {
+            return a <= b ? new Pair(a, b) : new Pair(b, a);
+        }
+
+        public long getFirst() {
+            return first;
+        }
+
+        public long getSecond() {
+            return second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair that = (Pair) o;
+            return first == that.first && second == that.second;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(first) * 31 + Long.hashCode(second);
+        }
+    }
+}
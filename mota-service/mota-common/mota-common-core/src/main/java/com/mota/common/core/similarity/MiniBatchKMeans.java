@@ -0,0 +1,153 @@
+package com.mota.common.core.similarity;
+
+import com.mota.common.core.util.VectorUtils;
+
+import java.util.*;
+
+/**
+ * 基于余弦相似度的小批量 K-Means（球面 K-Means）
+ *
+ * 质心在多次 partialFit 之间保留，适合周期性地用新数据逐批增量训练：
+ * 1. 首批数据用 k-means++ 选初始质心（距离取 1 - 余弦），数据不足 k 个时后续批次继续补齐
+ * 2. 每个样本归入最相似的质心，质心按 1 / 累计样本数 的学习率向样本移动后重新归一化
+ * 输入向量不会被修改。方法均为同步方法，可在后台训练的同时查询。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class MiniBatchKMeans {
+
+    private final int k;
+    private final Random random;
+    private final List<float[]> centroids;
+    private final List<Long> counts;
+
+    public MiniBatchKMeans(int k, long seed) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        this.k = k;
+        this.random = new Random(seed);
+        this.centroids = new ArrayList<>(k);
+        this.counts = new ArrayList<>(k);
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * 已初始化的质心数
+     */
+    public synchronized int centroidCount() {
+        return centroids.size();
+    }
+
+    /**
+     * 用一批样本更新质心，维度与已有质心不一致或为零向量的样本忽略
+     */
+    public synchronized void partialFit(List<float[]> batch) {
+        List<float[]> samples = new ArrayList<>(batch.size());
+        for (float[] vector : batch) {
+            if (vector != null && VectorUtils.dot(vector, vector) > 0
+                    && (centroids.isEmpty() || vector.length == centroids.get(0).length)) {
+                samples.add(VectorUtils.normalize(vector));
+            }
+        }
+        if (samples.isEmpty()) {
+            return;
+        }
+        if (centroids.size() < k) {
+            seed(samples);
+        }
+
+        // 先按当前质心完成整批分配，再逐个样本更新，与小批量 K-Means 原始算法一致
+        int[] assignments = new int[samples.size()];
+        for (int i = 0; i < samples.size(); i++) {
+            assignments[i] = nearest(samples.get(i));
+        }
+        for (int i = 0; i < samples.size(); i++) {
+            int cluster = assignments[i];
+            long count = counts.get(cluster) + 1;
+            counts.set(cluster, count);
+            float[] centroid = centroids.get(cluster);
+            float[] sample = samples.get(i);
+            double eta = 1.0 / count;
+            for (int d = 0; d < centroid.length; d++) {
+                centroid[d] = (float) ((1 - eta) * centroid[d] + eta * sample[d]);
+            }
+            centroids.set(cluster, VectorUtils.normalize(centroid));
+        }
+    }
+
+    /**
+     * 最相似的质心下标，尚无质心或维度不符时返回 -1
+     */
+    public synchronized int predict(float[] vector) {
+        if (vector == null || centroids.isEmpty() || vector.length != centroids.get(0).length) {
+            return -1;
+        }
+        return nearest(vector);
+    }
+
+    /**
+     * 与指定质心的余弦相似度
+     */
+    public synchronized double similarity(float[] vector, int cluster) {
+        if (cluster < 0 || cluster >= centroids.size()) {
+            return 0;
+        }
+        return VectorUtils.cosine(vector, centroids.get(cluster));
+    }
+
+    // ==================== 私有方法 ====================
+
+    /**
+     * k-means++：首个质心随机选取，之后按 (1 - 最大余弦)^2 的概率选取
+     */
+    private void seed(List<float[]> samples) {
+        if (centroids.isEmpty()) {
+            addCentroid(samples.get(random.nextInt(samples.size())));
+        }
+        double[] weights = new double[samples.size()];
+        while (centroids.size() < k) {
+            double total = 0;
+            for (int i = 0; i < samples.size(); i++) {
+                double distance = 1 - VectorUtils.dot(samples.get(i), centroids.get(nearest(samples.get(i))));
+                weights[i] = distance > 1e-9 ? distance * distance : 0;
+                total += weights[i];
+            }
+            if (total == 0) {
+                // 本批样本都与已有质心重合，等待后续批次补齐
+                return;
+            }
+            double target = random.nextDouble() * total;
+            int chosen = -1;
+            for (int i = 0; i < samples.size() && (chosen < 0 || target > 0); i++) {
+                if (weights[i] > 0) {
+                    chosen = i;
+                    target -= weights[i];
+                }
+            }
+            addCentroid(samples.get(chosen));
+        }
+    }
+
+    private void addCentroid(float[] sample) {
+        centroids.add(sample.clone());
+        counts.add(0L);
+    }
+
+    private int nearest(float[] vector) {
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < centroids.size(); i++) {
+            double score = VectorUtils.dot(vector, centroids.get(i));
+            if (score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
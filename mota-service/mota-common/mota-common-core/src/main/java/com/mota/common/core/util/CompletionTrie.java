@@ -0,0 +1,292 @@
+package com.mota.common.core.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带热度排序的前缀补全树
+ *
+ * 压缩前缀树（Radix Trie），每个节点预存其子树内热度最高的 topK 个词条，
+ * 前缀查询只需沿路径下行 O(|prefix|)，无需遍历子树。
+ * 写操作串行执行并自底向上重算路径上的 topK；读操作无锁，
+ * 节点标签不可变、topK 为不可变列表，分裂节点时复制而非修改，保证并发读一致。
+ * 匹配不区分大小写，返回原始文本。
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public class CompletionTrie {
+
+    private final int topK;
+    private final Node root = new Node("", new ConcurrentHashMap<>());
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private int size;
+
+    public CompletionTrie(int topK) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.topK = topK;
+    }
+
+    /**
+     * 写入或覆盖词条热度
+     */
+    public void put(String text, long score) {
+        put(text, text, score);
+    }
+
+    /**
+     * 以指定匹配键写入词条，用于拼音、缩写等与展示文本不同的补全入口
+     */
+    public void put(String key, String text, long score) {
+        if (StringUtils.isEmpty(key) || StringUtils.isEmpty(text)) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Deque<Node> path = locateOrCreate(normalize(key));
+            Node node = path.peekLast();
+            if (node.entry == null) {
+                size++;
+            }
+            node.entry = new Entry(text, score);
+            recompute(path);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 累加词条热度，词条不存在时以增量为初始热度
+     */
+    public void increment(String text, long delta) {
+        if (StringUtils.isEmpty(text)) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Deque<Node> path = locateOrCreate(normalize(text));
+            Node node = path.peekLast();
+            if (node.entry == null) {
+                size++;
+                node.entry = new Entry(text, delta);
+            } else {
+                node.entry = new Entry(node.entry.getText(), node.entry.getScore() + delta);
+            }
+            recompute(path);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 删除词条
+     *
+     * @return 词条是否存在
+     */
+    public boolean remove(String text) {
+        if (StringUtils.isEmpty(text)) {
+            return false;
+        }
+        writeLock.lock();
+        try {
+            Deque<Node> path = locate(normalize(text));
+            if (path == null || path.peekLast().entry == null) {
+                return false;
+            }
+            path.peekLast().entry = null;
+            size--;
+            recompute(path);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 前缀补全，按热度降序返回，最多返回 min(limit, topK) 条
+     */
+    public List<Entry> complete(String prefix, int limit) {
+        if (prefix == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String key = normalize(prefix);
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.children.get(key.charAt(offset));
+            if (child == null) {
+                return Collections.emptyList();
+            }
+            String label = child.label;
+            int common = commonPrefixLength(label, key, offset);
+            if (offset + common == key.length()) {
+                // 前缀在边中间结束，子节点的 topK 即为结果
+                node = child;
+                break;
+            }
+            if (common < label.length()) {
+                return Collections.emptyList();
+            }
+            offset += common;
+            node = child;
+        }
+        List<Entry> best = node.best;
+        return best.size() <= limit ? best : best.subList(0, limit);
+    }
+
+    /**
+     * 词条数量
+     */
+    public int size() {
+        return size;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 查找词条路径（含根节点），不存在返回 null
+     */
+    private Deque<Node> locate(String key) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.addLast(node);
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.children.get(key.charAt(offset));
+            if (child == null || !key.startsWith(child.label, offset)) {
+                return null;
+            }
+            offset += child.label.length();
+            node = child;
+            path.addLast(node);
+        }
+        return path;
+    }
+
+    /**
+     * 查找词条路径，必要时分裂边或新建节点
+     */
+    private Deque<Node> locateOrCreate(String key) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.addLast(node);
+        int offset = 0;
+        while (offset < key.length()) {
+            char first = key.charAt(offset);
+            Node child = node.children.get(first);
+            if (child == null) {
+                Node leaf = new Node(key.substring(offset), new ConcurrentHashMap<>());
+                node.children.put(first, leaf);
+                path.addLast(leaf);
+                return path;
+            }
+            int common = commonPrefixLength(child.label, key, offset);
+            if (common < child.label.length()) {
+                // 分裂：新建中间节点，复制原子节点并缩短其标签，整体替换后再发布
+                Node middle = new Node(child.label.substring(0, common), new ConcurrentHashMap<>());
+                Node tail = child.withLabel(child.label.substring(common));
+                middle.children.put(tail.label.charAt(0), tail);
+                middle.best = tail.best;
+                node.children.put(first, middle);
+                child = middle;
+            }
+            offset += common;
+            node = child;
+            path.addLast(node);
+        }
+        return path;
+    }
+
+    /**
+     * 自底向上重算路径上每个节点的 topK，并清理无词条的空叶子
+     */
+    private void recompute(Deque<Node> path) {
+        Iterator<Node> iterator = path.descendingIterator();
+        Node previous = null;
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (previous != null && previous.entry == null && previous.children.isEmpty()) {
+                node.children.remove(previous.label.charAt(0));
+            }
+            List<Entry> candidates = new ArrayList<>();
+            if (node.entry != null) {
+                candidates.add(node.entry);
+            }
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.best);
+            }
+            candidates.sort(Entry.BY_SCORE_DESC);
+            node.best = Collections.unmodifiableList(
+                    new ArrayList<>(candidates.subList(0, Math.min(topK, candidates.size()))));
+            previous = node;
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 树节点
+     */
+    private static final class Node {
+        private final String label;
+        private final Map<Character, Node> children;
+        private volatile Entry entry;
+        private volatile List<Entry> best = Collections.emptyList();
+
+        private Node(String label, Map<Character, Node> children) {
+            this.label = label;
+            this.children = children;
+        }
+
+        private Node withLabel(String newLabel) {
+            Node copy = new Node(newLabel, children);
+            copy.entry = entry;
+            copy.best = best;
+            return copy;
+        }
+    }
+
+    /**
+     * 补全词条
+     */
+    public static final class Entry {
+
+        private static final Comparator<Entry> BY_SCORE_DESC =
+                Comparator.comparingLong(Entry::getScore).reversed().thenComparing(Entry::getText);
+
+        private final String text;
+        private final long score;
+
+        public Entry(String text, long score) {
+            this.text = text;
+            this.score = score;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public long getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return text + ":" + score;
+        }
+    }
+}
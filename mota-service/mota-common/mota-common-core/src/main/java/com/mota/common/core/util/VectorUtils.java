@@ -0,0 +1,95 @@
+package com.mota.common.core.util;
+
+/**
+ * 向量工具类
+ *
+ * 向量以 JSON 数组文本存储（与 Arrays.toString 输出一致），解析时不依赖 JSON 库
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+public final class VectorUtils {
+
+    private VectorUtils() {
+    }
+
+    /**
+     * 格式化为 JSON 数组文本
+     */
+    public static String format(float[] vector) {
+        if (vector == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(vector.length * 12 + 2).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * 解析 JSON 数组文本，格式错误或为空时返回 null
+     */
+    public static float[] parse(String text) {
+        if (StringUtils.isBlank(text)) {
+            return null;
+        }
+        String body = text.trim();
+        if (body.length() < 2 || body.charAt(0) != '[' || body.charAt(body.length() - 1) != ']') {
+            return null;
+        }
+        body = body.substring(1, body.length() - 1).trim();
+        if (body.isEmpty()) {
+            return null;
+        }
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                vector[i] = Float.parseFloat(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return vector;
+    }
+
+    /**
+     * 点积，维度不一致时返回 0
+     */
+    public static double dot(float[] a, float[] b) {
+        if (a == null || b == null || a.length != b.length) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 余弦相似度，任一向量为零向量时返回 0
+     */
+    public static double cosine(float[] a, float[] b) {
+        double norm = Math.sqrt(dot(a, a) * dot(b, b));
+        return norm == 0 ? 0 : dot(a, b) / norm;
+    }
+
+    /**
+     * 返回 L2 归一化后的副本，零向量原样复制
+     */
+    public static float[] normalize(float[] vector) {
+        float[] copy = vector.clone();
+        double norm = Math.sqrt(dot(vector, vector));
+        if (norm > 0) {
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = (float) (copy[i] / norm);
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,156 @@
+package com.mota.common.core.embedding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 向量化微批处理与本地向量化单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("向量化微批处理测试")
+class EmbeddingBatcherTest {
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // ========== 本地向量化测试 ==========
+
+    @Test
+    @DisplayName("HashedNgram - 相同文本向量一致且已归一化")
+    void hashedNgram_shouldBeDeterministicAndNormalized() {
+        HashedNgramEmbeddingProvider provider = new HashedNgramEmbeddingProvider(256);
+        float[] first = provider.embed("项目进度管理 Project Schedule");
+        float[] second = provider.embed("项目进度管理 Project Schedule");
+
+        assertArrayEquals(first, second);
+        assertEquals(1.0, dot(first, first), 1e-5);
+        assertEquals(256, first.length);
+    }
+
+    @Test
+    @DisplayName("HashedNgram - 字面相近的文本相似度更高")
+    void hashedNgram_similarTextShouldScoreHigher() {
+        HashedNgramEmbeddingProvider provider = new HashedNgramEmbeddingProvider(512);
+        float[] query = provider.embed("项目进度延期");
+        float[] similar = provider.embed("项目进度严重延期的原因");
+        float[] unrelated = provider.embed("员工报销流程说明");
+
+        assertTrue(dot(query, similar) > dot(query, unrelated));
+    }
+
+    @Test
+    @DisplayName("HashedNgram - 空文本返回零向量")
+    void hashedNgram_emptyText_shouldReturnZeroVector() {
+        float[] vector = new HashedNgramEmbeddingProvider(8).embed("");
+        assertArrayEquals(new float[8], vector);
+    }
+
+    // ========== 批处理与缓存测试 ==========
+
+    @Test
+    @DisplayName("embedAll - 重复内容只向量化一次并合并批次")
+    void embedAll_duplicates_shouldEmbedOnce() {
+        AtomicInteger embeddedTexts = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        EmbeddingProvider counting = new HashedNgramEmbeddingProvider(16) {
+            @Override
+            public List<float[]> embedBatch(List<String> texts) {
+                batches.incrementAndGet();
+                embeddedTexts.addAndGet(texts.size());
+                return super.embedBatch(texts);
+            }
+        };
+
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(counting, 64, 20, 100)) {
+            List<float[]> vectors = batcher.embedAll(Arrays.asList("a", "b", "a", "c", "b"));
+
+            assertEquals(5, vectors.size());
+            assertSame(vectors.get(0), vectors.get(2));
+            assertEquals(3, embeddedTexts.get());
+            assertEquals(1, batches.get());
+
+            batcher.embed("a");
+            assertEquals(3, embeddedTexts.get());
+            assertEquals(1, batcher.getCacheHits());
+        }
+    }
+
+    @Test
+    @DisplayName("embed - 向量化失败时抛出异常且不写入缓存")
+    void embed_providerFailure_shouldPropagate() {
+        EmbeddingProvider failing = new HashedNgramEmbeddingProvider(16) {
+            @Override
+            public List<float[]> embedBatch(List<String> texts) {
+                throw new IllegalStateException("model unavailable");
+            }
+        };
+
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(failing, 8, 0, 10)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> batcher.embed("x"));
+            assertEquals("model unavailable", e.getMessage());
+            assertEquals(0, batcher.getCacheSize());
+        }
+    }
+
+    @Test
+    @DisplayName("embed - 提供者抛出 Error 后工作线程仍可继续处理")
+    void embed_providerError_shouldKeepWorkerAlive() {
+        AtomicInteger calls = new AtomicInteger();
+        EmbeddingProvider flaky = new HashedNgramEmbeddingProvider(16) {
+            @Override
+            public List<float[]> embedBatch(List<String> texts) {
+                if (calls.getAndIncrement() == 0) {
+                    throw new AssertionError("native crash");
+                }
+                return super.embedBatch(texts);
+            }
+        };
+
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(flaky, 8, 0, 10, 2000)) {
+            assertThrows(IllegalStateException.class, () -> batcher.embed("first"));
+            assertEquals(16, batcher.embed("second").length);
+        }
+    }
+
+    @Test
+    @DisplayName("embed/close - 等待超时抛出异常，关闭时未完成请求以异常结束")
+    void embed_stalledProvider_shouldTimeoutAndFailOnClose() {
+        EmbeddingProvider stalled = new HashedNgramEmbeddingProvider(16) {
+            @Override
+            public List<float[]> embedBatch(List<String> texts) {
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.embedBatch(texts);
+            }
+        };
+
+        EmbeddingBatcher batcher = new EmbeddingBatcher(stalled, 8, 0, 10, 200);
+        assertThrows(IllegalStateException.class, () -> batcher.embed("stalled"));
+        CompletableFuture<float[]> pending = batcher.embedAsync("pending");
+        batcher.close();
+        assertTrue(pending.isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("contentHash - 返回64位十六进制SHA-256")
+    void contentHash_shouldReturnSha256Hex() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                EmbeddingBatcher.contentHash(""));
+    }
+}
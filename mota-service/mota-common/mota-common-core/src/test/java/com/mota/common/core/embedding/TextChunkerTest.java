@@ -0,0 +1,115 @@
+package com.mota.common.core.embedding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文本分块器单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("文本分块器测试")
+class TextChunkerTest {
+
+    private static String sentences(String prefix, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            sb.append(prefix).append(i).append("句内容说明。");
+        }
+        return sb.toString();
+    }
+
+    // ========== 边界测试 ==========
+
+    @Test
+    @DisplayName("空文本返回空列表")
+    void split_shouldReturnEmptyForBlankText() {
+        TextChunker chunker = new TextChunker(100, 10);
+        assertTrue(chunker.split(null).isEmpty());
+        assertTrue(chunker.split("  \n ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("重叠不小于分块大小时拒绝创建")
+    void constructor_shouldRejectInvalidOverlap() {
+        assertThrows(IllegalArgumentException.class, () -> new TextChunker(100, 100));
+    }
+
+    // ========== 结构切分测试 ==========
+
+    @Test
+    @DisplayName("分块不跨越标题并记录所属标题")
+    void split_shouldNotCrossHeadings() {
+        String text = "# 概述\n项目背景介绍。目标说明。\n\n# 方案\n技术选型说明。";
+        List<TextChunker.Chunk> chunks = new TextChunker(200, 0).split(text);
+
+        assertEquals(2, chunks.size());
+        assertEquals("概述", chunks.get(0).getHeading());
+        assertEquals("方案", chunks.get(1).getHeading());
+        assertTrue(chunks.get(1).getText().startsWith("# 方案"));
+        assertFalse(chunks.get(0).getText().contains("技术选型"));
+    }
+
+    @Test
+    @DisplayName("分块在句末断开且偏移与原文一致")
+    void split_shouldCutAtSentenceBoundary() {
+        String text = sentences("第", 30);
+        List<TextChunker.Chunk> chunks = new TextChunker(50, 0).split(text);
+
+        assertTrue(chunks.size() > 1);
+        for (TextChunker.Chunk chunk : chunks) {
+            assertTrue(chunk.getText().length() <= 50);
+            assertTrue(chunk.getText().endsWith("。"));
+            assertEquals(chunk.getText(), text.substring(chunk.getStart(), chunk.getEnd()));
+        }
+    }
+
+    @Test
+    @DisplayName("相邻分块按句重叠且始终前进")
+    void split_shouldOverlapBySentences() {
+        String text = sentences("第", 30);
+        List<TextChunker.Chunk> chunks = new TextChunker(50, 20).split(text);
+
+        for (int i = 1; i < chunks.size(); i++) {
+            TextChunker.Chunk prev = chunks.get(i - 1);
+            TextChunker.Chunk next = chunks.get(i);
+            assertTrue(next.getStart() > prev.getStart());
+            assertTrue(next.getStart() < prev.getEnd(), "相邻分块应有重叠");
+            assertTrue(prev.getEnd() - next.getStart() <= 20);
+        }
+        assertEquals(text.length(), chunks.get(chunks.size() - 1).getEnd());
+    }
+
+    @Test
+    @DisplayName("超长句子按分块大小硬切")
+    void split_shouldHardSplitLongSentence() {
+        String text = "a".repeat(250);
+        List<TextChunker.Chunk> chunks = new TextChunker(100, 0).split(text);
+
+        assertEquals(3, chunks.size());
+        assertEquals(100, chunks.get(0).getText().length());
+        assertEquals(50, chunks.get(2).getText().length());
+    }
+
+    // ========== 内容哈希测试 ==========
+
+    @Test
+    @DisplayName("修改一处只改变所在分块的哈希")
+    void split_shouldKeepHashesOfUnchangedChunks() {
+        String original = "# 一\n" + sentences("甲", 5) + "\n\n# 二\n" + sentences("乙", 5) + "\n\n# 三\n" + sentences("丙", 5);
+        String edited = original.replace("乙3句", "乙3段");
+        TextChunker chunker = new TextChunker(200, 0);
+        List<TextChunker.Chunk> before = chunker.split(original);
+        List<TextChunker.Chunk> after = chunker.split(edited);
+
+        assertEquals(before.size(), after.size());
+        assertEquals(before.get(0).getContentHash(), after.get(0).getContentHash());
+        assertNotEquals(before.get(1).getContentHash(), after.get(1).getContentHash());
+        assertEquals(before.get(2).getContentHash(), after.get(2).getContentHash());
+    }
+}
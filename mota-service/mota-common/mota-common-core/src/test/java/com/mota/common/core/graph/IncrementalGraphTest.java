@@ -0,0 +1,112 @@
+package com.mota.common.core.graph;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 增量内存图单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("增量内存图测试")
+class IncrementalGraphTest {
+
+    private IncrementalGraph graph;
+
+    /**
+     * 1-2-3-4 链，1-5-4 绕行，2-4 捷径，6-7 孤立分量
+     */
+    @BeforeEach
+    void setUp() {
+        graph = new IncrementalGraph(3);
+        graph.beginRebuild();
+        graph.finishRebuild(CsrGraph.builder()
+                .addEdge(10, 1, 2).addEdge(11, 2, 3).addEdge(12, 3, 4)
+                .addEdge(13, 1, 5).addEdge(14, 5, 4).addEdge(15, 2, 4)
+                .addEdge(16, 6, 7)
+                .build());
+    }
+
+    // ========== 路径查询测试 ==========
+
+    @Test
+    @DisplayName("双向BFS返回跳数最少的路径，不连通或超出深度时返回null")
+    void shortestPath_shouldFindMinimalHops() {
+        IncrementalGraph.GraphPath path = graph.shortestPath(1, 4, 5);
+        assertEquals(2, path.length());
+        assertEquals(1L, path.getNodeIds().get(0));
+        assertEquals(4L, path.getNodeIds().get(2));
+
+        assertNull(graph.shortestPath(1, 7, 10));
+        assertNull(graph.shortestPath(1, 4, 1));
+        assertEquals(List.of(3L), graph.shortestPath(3, 3, 1).getNodeIds());
+    }
+
+    @Test
+    @DisplayName("K条最短路径按跳数升序、无重复且受深度限制")
+    void kShortestPaths_shouldEnumerateLooplessPaths() {
+        List<IncrementalGraph.GraphPath> paths = graph.kShortestPaths(1, 4, 5, 10);
+        assertEquals(3, paths.size());
+        assertEquals(2, paths.get(0).length());
+        assertEquals(2, paths.get(1).length());
+        assertEquals(List.of(1L, 2L, 3L, 4L), paths.get(2).getNodeIds());
+        assertEquals(List.of(10L, 11L, 12L), paths.get(2).getEdgeIds());
+
+        assertEquals(2, graph.kShortestPaths(1, 4, 2, 10).size());
+        assertEquals(1, graph.kShortestPaths(1, 4, 5, 1).size());
+    }
+
+    // ========== 邻域测试 ==========
+
+    @Test
+    @DisplayName("K跳邻域按层展开并在节点上限处截断")
+    void kHop_shouldExpandByLevel() {
+        IncrementalGraph.Neighborhood oneHop = graph.kHop(1, 1, 100);
+        assertEquals(List.of(1L, 2L, 5L), oneHop.getNodeIds());
+        assertEquals(Set.of(10L, 13L), oneHop.getEdgeIds());
+        assertFalse(oneHop.isTruncated());
+
+        IncrementalGraph.Neighborhood twoHops = graph.kHop(1, 2, 100);
+        assertEquals(2, twoHops.getDepth(4));
+        assertEquals(-1, twoHops.getDepth(6));
+
+        IncrementalGraph.Neighborhood capped = graph.kHop(1, 3, 3);
+        assertEquals(3, capped.getNodeIds().size());
+        assertTrue(capped.isTruncated());
+    }
+
+    // ========== 增量更新测试 ==========
+
+    @Test
+    @DisplayName("增删边立即可见，达到阈值后合并进基线")
+    void changes_shouldApplyAndCompact() {
+        graph.removeEdge(15);
+        graph.addEdge(17, 4, 6);
+        assertEquals(2, graph.pendingChanges());
+        assertEquals(List.of(1L, 5L, 4L, 6L, 7L), graph.shortestPath(1, 7, 5).getNodeIds());
+
+        graph.removeNode(5);
+        assertEquals(0, graph.pendingChanges());
+        assertEquals(5, graph.baseEdgeCount());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 6L, 7L), graph.shortestPath(1, 7, 5).getNodeIds());
+    }
+
+    @Test
+    @DisplayName("重建期间的写入在新基线上重放")
+    void rebuild_shouldReplayConcurrentChanges() {
+        graph.beginRebuild();
+        graph.addEdge(18, 1, 7);
+        graph.finishRebuild(CsrGraph.builder().addEdge(10, 1, 2).build());
+
+        assertEquals(List.of(1L, 7L), graph.shortestPath(1, 7, 5).getNodeIds());
+        assertEquals(Set.of(10L, 18L), graph.edgesAmong(List.of(1L, 2L, 7L)));
+        assertNull(graph.shortestPath(1, 4, 5));
+    }
+}
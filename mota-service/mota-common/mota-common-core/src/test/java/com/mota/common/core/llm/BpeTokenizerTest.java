@@ -0,0 +1,118 @@
+package com.mota.common.core.llm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BPE分词器与Token计数器单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("BPE分词器测试")
+class BpeTokenizerTest {
+
+    /**
+     * 256 个单字节 + 给定的合并结果，优先级按参数顺序递增
+     */
+    private static BpeTokenizer tokenizer(String... merges) {
+        StringBuilder vocabulary = new StringBuilder();
+        Base64.Encoder encoder = Base64.getEncoder();
+        int rank = 0;
+        for (int b = 0; b < 256; b++) {
+            vocabulary.append(encoder.encodeToString(new byte[]{(byte) b})).append(' ').append(rank++).append('\n');
+        }
+        for (String merge : merges) {
+            vocabulary.append(encoder.encodeToString(merge.getBytes(StandardCharsets.UTF_8))).append(' ')
+                    .append(rank++).append('\n');
+        }
+        try {
+            return BpeTokenizer.load(new ByteArrayInputStream(vocabulary.toString().getBytes(StandardCharsets.US_ASCII)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ========== 合并测试 ==========
+
+    @Test
+    @DisplayName("按优先级合并相邻字节")
+    void count_shouldMergeByRank() {
+        BpeTokenizer tokenizer = tokenizer("ab", "abc", "cd");
+        // abcd：先合并 ab(256)，再合并 abc(257)，剩余 d
+        assertEquals(2, tokenizer.count("abcd"));
+        assertArrayEquals(new int[]{257, 'd'}, tokenizer.encode("abcd"));
+        // 优先级：bc 未登记，cd(258) 在 ab 之后
+        assertEquals(2, tokenizer.count("xcd"));
+    }
+
+    @Test
+    @DisplayName("未合并的中文按UTF-8字节计数，标点与空白单独切分")
+    void count_shouldFallBackToBytes() {
+        BpeTokenizer tokenizer = tokenizer();
+        assertEquals(0, tokenizer.count(""));
+        assertEquals(3, tokenizer.count("中"));
+        assertEquals(5, tokenizer.count("ab, c"));
+    }
+
+    @Test
+    @DisplayName("词表缺少单字节时拒绝加载")
+    void constructor_missingBytes_shouldThrow() {
+        Map<String, Integer> ranks = new HashMap<>();
+        ranks.put("a", 0);
+        assertThrows(IllegalArgumentException.class, () -> new BpeTokenizer(ranks));
+    }
+
+    @Test
+    @DisplayName("内置词表中常用汉字按字计数，编码与计数一致")
+    void bundledVocabulary_shouldCountCommonHanPerCharacter() throws Exception {
+        BpeTokenizer tokenizer = BpeTokenizer.loadResource(BpeTokenizer.DEFAULT_VOCABULARY);
+        assertNotNull(tokenizer);
+        assertEquals(8192, tokenizer.getVocabularySize());
+        assertEquals(4, tokenizer.count("项目任务"));
+
+        String text = "Please decompose the project into milestones. 任务分解：设计数据库 3 天。";
+        assertEquals(tokenizer.encode(text).length, tokenizer.count(text));
+        assertTrue(tokenizer.count(text) < text.getBytes(StandardCharsets.UTF_8).length / 2);
+    }
+
+    // ========== 计数缓存测试 ==========
+
+    @Test
+    @DisplayName("长文本按内容哈希缓存计数，短文本不缓存")
+    void tokenCounter_shouldCacheLongTexts() {
+        AtomicInteger calls = new AtomicInteger();
+        TokenCounter counter = new TokenCounter(text -> {
+            calls.incrementAndGet();
+            return text.length();
+        }, 2, 10);
+
+        assertEquals(3, counter.count("abc"));
+        assertEquals(3, counter.count("abc"));
+        assertEquals(2, calls.get());
+        assertEquals(0, counter.size());
+
+        String chunk = "0123456789abcdef";
+        assertEquals(16, counter.count(chunk));
+        assertEquals(16, counter.count(chunk));
+        assertEquals(3, calls.get());
+        assertEquals(1L, counter.getHits());
+    }
+
+    @Test
+    @DisplayName("提示词计数包含每条消息的格式开销")
+    void tokenCounter_countPrompt_shouldAddOverhead() {
+        TokenCounter counter = new TokenCounter(String::length, 10, 100);
+        assertEquals(2 + 4 + 3 + 4, counter.countPrompt("ab", List.of(Map.of("role", "user", "content", "xyz"))));
+    }
+}
@@ -0,0 +1,81 @@
+package com.mota.common.core.llm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 对话上下文构建器单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("对话上下文构建器测试")
+class ChatContextBuilderTest {
+
+    private static List<ChatContextBuilder.Turn> history(int turns) {
+        List<ChatContextBuilder.Turn> history = new ArrayList<>();
+        for (int i = 1; i <= turns; i++) {
+            history.add(new ChatContextBuilder.Turn((long) i, i % 2 == 1 ? "user" : "assistant",
+                    "第" + i + "条消息。后面是补充说明内容"));
+        }
+        return history;
+    }
+
+    // ========== Token估算测试 ==========
+
+    @Test
+    @DisplayName("中文按字计数，英文约四个字符一个Token")
+    void estimateTokens_shouldCountCjkAndLatin() {
+        assertEquals(0, ChatContextBuilder.estimateTokens(null));
+        assertEquals(4, ChatContextBuilder.estimateTokens("项目进度"));
+        assertEquals(2, ChatContextBuilder.estimateTokens("hello wor"));
+        assertEquals(3, ChatContextBuilder.estimateTokens("进度 ok"));
+    }
+
+    // ========== 上下文构建测试 ==========
+
+    @Test
+    @DisplayName("预算充足时装入全部历史且不生成摘要")
+    void build_withinBudget_shouldIncludeAllHistory() {
+        ChatContextBuilder builder = new ChatContextBuilder(ChatContextBuilder::estimateTokens, 10000, 500);
+        ChatContextBuilder.ChatContext context = builder.build("你是助手", null, history(4), "新问题");
+
+        assertEquals(5, context.getMessages().size());
+        assertEquals("新问题", context.getMessages().get(4).get("content"));
+        assertEquals(4, context.getHistoryCount());
+        assertFalse(context.isSummaryChanged());
+        assertEquals("你是助手", context.getSystem());
+    }
+
+    @Test
+    @DisplayName("超出预算时保留最近消息，较早消息折叠进摘要")
+    void build_overBudget_shouldFoldOlderTurnsIntoSummary() {
+        // 每条历史约 19 Token，预算只够装入最近 3 条
+        ChatContextBuilder builder = new ChatContextBuilder(ChatContextBuilder::estimateTokens, 60 + 11 + 100, 100);
+        ChatContextBuilder.ChatContext context = builder.build(null, "用户：更早的问题", history(6), "新问题");
+
+        assertEquals(3, context.getHistoryCount());
+        assertEquals("第4条消息。后面是补充说明内容", context.getMessages().get(0).get("content"));
+        assertTrue(context.isSummaryChanged());
+        assertEquals(Long.valueOf(3), context.getSummaryUntilId());
+        assertEquals("用户：更早的问题\n用户：第1条消息。…\n助手：第2条消息。…\n用户：第3条消息。…", context.getSummary());
+        assertTrue(context.getSystem().endsWith(context.getSummary()));
+    }
+
+    @Test
+    @DisplayName("摘要超出预算时丢弃最早的条目")
+    void foldIntoSummary_overBudget_shouldDropOldestLines() {
+        ChatContextBuilder builder = new ChatContextBuilder(ChatContextBuilder::estimateTokens, 10000, 20);
+        String summary = builder.foldIntoSummary("用户：很早之前的一个问题", history(2));
+
+        assertEquals("用户：第1条消息。…\n助手：第2条消息。…", summary);
+        assertEquals("用户：短", builder.foldIntoSummary(null,
+                Collections.singletonList(new ChatContextBuilder.Turn(1L, "user", "短"))));
+    }
+}
@@ -0,0 +1,114 @@
+package com.mota.common.core.llm;
+
+import com.mota.common.core.embedding.HashedNgramEmbeddingProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 大模型响应两级缓存单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("大模型响应缓存测试")
+class SemanticResponseCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final HashedNgramEmbeddingProvider provider = new HashedNgramEmbeddingProvider(256);
+
+    private SemanticResponseCache newCache(double threshold, int maxEntries) {
+        return new SemanticResponseCache(provider::embed, threshold, maxEntries, Duration.ofMinutes(10), 50, now::get);
+    }
+
+    // ========== 精确匹配测试 ==========
+
+    @Test
+    @DisplayName("空白差异归一化后精确命中，模型或参数不同则不命中")
+    void get_exact_shouldIgnoreWhitespace() {
+        SemanticResponseCache cache = newCache(0.99, 100);
+        cache.put(1L, "m1", "t=0.7", "总结  这份\n文档", "摘要", null);
+
+        assertEquals("摘要", cache.get(1L, "m1", "t=0.7", " 总结 这份 文档 ", false));
+        assertNull(cache.get(1L, "m2", "t=0.7", "总结 这份 文档", false));
+        assertNull(cache.get(1L, "m1", "t=0.2", "总结 这份 文档", false));
+        assertEquals(1, cache.getExactHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("租户之间互相隔离")
+    void get_shouldBeScopedPerTenant() {
+        SemanticResponseCache cache = newCache(0.99, 100);
+        cache.put(1L, "m", "", "prompt", "r1", null);
+
+        assertNull(cache.get(2L, "m", "", "prompt", true));
+        assertEquals("r1", cache.get(1L, "m", "", "prompt", true));
+    }
+
+    @Test
+    @DisplayName("过期条目不再命中")
+    void get_expired_shouldMiss() {
+        SemanticResponseCache cache = newCache(0.99, 100);
+        cache.put(1L, "m", "", "prompt", "r", null);
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        assertNull(cache.get(1L, "m", "", "prompt", true));
+        assertEquals(0, cache.size(1L));
+    }
+
+    @Test
+    @DisplayName("超过容量时淘汰最久未访问的条目")
+    void put_overCapacity_shouldEvictLeastRecentlyUsed() {
+        SemanticResponseCache cache = newCache(0.99, 2);
+        cache.put(1L, "m", "", "a", "ra", null);
+        cache.put(1L, "m", "", "b", "rb", null);
+        cache.get(1L, "m", "", "a", false);
+        cache.put(1L, "m", "", "c", "rc", null);
+
+        assertEquals("ra", cache.get(1L, "m", "", "a", false));
+        assertNull(cache.get(1L, "m", "", "b", false));
+        assertEquals(2, cache.size(1L));
+    }
+
+    // ========== 语义匹配测试 ==========
+
+    @Test
+    @DisplayName("相似提示词语义命中，差异较大的提示词不命中")
+    void get_semantic_shouldMatchSimilarPrompt() {
+        SemanticResponseCache cache = newCache(0.9, 100);
+        String prompt = "请为以下项目生成任务分解：企业内部知识库系统建设，包括文档上传、全文检索、权限管理和统计报表。";
+        cache.put(1L, "m", "", prompt, "分解结果", null);
+
+        assertEquals("分解结果", cache.get(1L, "m", "",
+                "请为以下项目生成任务分解：企业内部知识库系统建设，包括文档上传、全文检索、权限管理和统计报表", true));
+        assertEquals(1, cache.getSemanticHits());
+        assertNull(cache.get(1L, "m", "", "今天天气怎么样", true));
+        assertNull(cache.get(1L, "m", "",
+                "请为以下项目生成任务分解：企业内部知识库系统建设，包括文档上传、全文检索、权限管理和统计报表", false));
+    }
+
+    // ========== 失效测试 ==========
+
+    @Test
+    @DisplayName("来源变更时失效关联条目")
+    void invalidateSource_shouldRemoveDependentEntries() {
+        SemanticResponseCache cache = newCache(0.99, 100);
+        cache.put(1L, "m", "", "p1", "r1", List.of("doc:1"));
+        cache.put(1L, "m", "", "p2", "r2", List.of("doc:1", "doc:2"));
+        cache.put(1L, "m", "", "p3", "r3", Collections.singletonList("doc:2"));
+
+        assertEquals(2, cache.invalidateSource(1L, "doc:1"));
+        assertNull(cache.get(1L, "m", "", "p1", false));
+        assertNull(cache.get(1L, "m", "", "p2", false));
+        assertEquals("r3", cache.get(1L, "m", "", "p3", false));
+        assertEquals(1, cache.invalidateSource(1L, "doc:2"));
+        assertEquals(0, cache.invalidateSource(1L, "doc:3"));
+    }
+}
@@ -0,0 +1,251 @@
+package com.mota.common.core.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 流式对话客户端单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("流式对话客户端测试")
+class StreamingChatClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static ChatStreamRequest request(String content) {
+        ChatStreamRequest request = new ChatStreamRequest();
+        request.setModel("test-model");
+        request.setMessages(Collections.singletonList(Map.of("role", "user", "content", content)));
+        return request;
+    }
+
+    // ========== SSE解析测试 ==========
+
+    @Test
+    @DisplayName("按空行分发事件，多行data拼接，注释行忽略")
+    void reader_shouldDispatchEvents() {
+        List<String> events = new ArrayList<>();
+        ServerSentEventReader reader = new ServerSentEventReader((event, data) -> events.add(event + "|" + data));
+
+        reader.accept(": ping");
+        reader.accept("event: delta");
+        reader.accept("data: a");
+        reader.accept("data:b");
+        reader.accept("");
+        reader.accept("");
+        reader.accept("data: tail");
+        reader.flush();
+
+        assertEquals(List.of("delta|a\nb", "null|tail"), events);
+    }
+
+    @Test
+    @DisplayName("解析OpenAI与Anthropic增量文本及结束事件")
+    void parseText_shouldHandleBothFormats() throws Exception {
+        HttpStreamingChatClient.ApiFormat openai = HttpStreamingChatClient.ApiFormat.OPENAI;
+        HttpStreamingChatClient.ApiFormat anthropic = HttpStreamingChatClient.ApiFormat.ANTHROPIC;
+
+        assertEquals("你好", HttpStreamingChatClient.parseText(objectMapper, openai, null,
+                "{\"choices\":[{\"delta\":{\"content\":\"你好\"}}]}"));
+        assertNull(HttpStreamingChatClient.parseText(objectMapper, openai, null,
+                "{\"choices\":[{\"delta\":{\"role\":\"assistant\"}}]}"));
+        assertTrue(HttpStreamingChatClient.isEndEvent(openai, null, "[DONE]"));
+
+        assertEquals("Hi", HttpStreamingChatClient.parseText(objectMapper, anthropic, "content_block_delta",
+                "{\"type\":\"content_block_delta\",\"delta\":{\"type\":\"text_delta\",\"text\":\"Hi\"}}"));
+        assertNull(HttpStreamingChatClient.parseText(objectMapper, anthropic, "message_start",
+                "{\"type\":\"message_start\"}"));
+        assertTrue(HttpStreamingChatClient.isEndEvent(anthropic, "message_stop", "{\"type\":\"message_stop\"}"));
+        assertThrows(IllegalStateException.class, () -> HttpStreamingChatClient.parseText(objectMapper, anthropic,
+                "error", "{\"type\":\"error\",\"error\":{\"message\":\"overloaded\"}}"));
+
+        assertEquals(anthropic, HttpStreamingChatClient.ApiFormat.fromBaseUrl("https://api.anthropic.com/v1"));
+        assertEquals(openai, HttpStreamingChatClient.ApiFormat.fromBaseUrl("https://proxy.example.com/v1"));
+    }
+
+    // ========== 模拟客户端测试 ==========
+
+    @Test
+    @DisplayName("模拟客户端按块推送并以完整回复结束")
+    void stub_shouldEmitChunksInOrder() throws Exception {
+        try (StubStreamingChatClient client = new StubStreamingChatClient(r -> "abcdefg", 3, 1)) {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            String content = client.streamAsync(request("q"), tokens::add).get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of("abc", "def", "g"), tokens);
+            assertEquals("abcdefg", content);
+        }
+    }
+
+    @Test
+    @DisplayName("取消Future后模拟客户端停止推送")
+    void stub_cancel_shouldStopEmitting() throws Exception {
+        try (StubStreamingChatClient client = new StubStreamingChatClient(r -> "x".repeat(1000), 1, 5)) {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> future = client.streamAsync(request("q"), tokens::add);
+            Thread.sleep(30);
+            future.cancel(true);
+            int emitted = tokens.size();
+            Thread.sleep(50);
+
+            assertTrue(emitted < 1000);
+            assertTrue(tokens.size() <= emitted + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("orTimeout超时后模拟客户端停止推送")
+    void stub_timeout_shouldStopEmitting() throws Exception {
+        try (StubStreamingChatClient client = new StubStreamingChatClient(r -> "x".repeat(1000), 1, 5)) {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> future = client.streamAsync(request("q"), tokens::add)
+                    .orTimeout(30, TimeUnit.MILLISECONDS);
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            int emitted = tokens.size();
+            Thread.sleep(50);
+
+            assertTrue(emitted < 1000);
+            assertTrue(tokens.size() <= emitted + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("回调写入失败时模拟客户端以取消结束且停止推送")
+    void stub_sinkFailure_shouldCancel() throws Exception {
+        try (StubStreamingChatClient client = new StubStreamingChatClient(r -> "x".repeat(1000), 1, 1)) {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> future = client.streamAsync(request("q"), token -> {
+                tokens.add(token);
+                if (tokens.size() == 3) {
+                    throw new UncheckedIOException(new IOException("连接已断开"));
+                }
+            });
+            assertThrows(CancellationException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(future.isCancelled());
+            Thread.sleep(30);
+
+            assertEquals(3, tokens.size());
+        }
+    }
+
+    @Test
+    @DisplayName("回显模拟客户端包含最后一条用户消息")
+    void stub_echo_shouldContainUserMessage() throws Exception {
+        try (StubStreamingChatClient client = StubStreamingChatClient.echo(8, 1)) {
+            String content = client.streamAsync(request("项目进度"), token -> { }).get(5, TimeUnit.SECONDS);
+            assertTrue(content.contains("项目进度"));
+        }
+    }
+
+    @Test
+    @DisplayName("回放模拟客户端原样推送最后一条用户消息")
+    void stub_replay_shouldEmitUserMessage() throws Exception {
+        try (StubStreamingChatClient client = StubStreamingChatClient.replay(5, 1)) {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            String content = client.streamAsync(request("{\"tasks\":[]}"), tokens::add).get(5, TimeUnit.SECONDS);
+
+            assertEquals("{\"tasks\":[]}", content);
+            assertEquals("{\"tas", tokens.get(0));
+        }
+    }
+
+    // ========== HTTP流式测试 ==========
+
+    @Test
+    @DisplayName("HTTP客户端逐段解析SSE响应")
+    void http_shouldStreamTokens() throws Exception {
+        String body = "data: {\"choices\":[{\"delta\":{\"content\":\"Hel\"}}]}\n\n"
+                + ": keep-alive\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"lo\"}}]}\n\n"
+                + "data: [DONE]\n\n";
+        HttpServer server = startServer(200, body);
+        try {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            String content = newHttpClient(server).streamAsync(request("q"), tokens::add).get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of("Hel", "lo"), tokens);
+            assertEquals("Hello", content);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("HTTP非2xx响应以异常结束")
+    void http_errorStatus_shouldFail() throws Exception {
+        HttpServer server = startServer(429, "{\"error\":\"rate limited\"}");
+        try {
+            CompletableFuture<String> future = newHttpClient(server).streamAsync(request("q"), token -> { });
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause().getMessage().contains("429"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("HTTP回调写入失败时以取消结束，不作为模型错误")
+    void http_sinkFailure_shouldCancel() throws Exception {
+        String body = "data: {\"choices\":[{\"delta\":{\"content\":\"Hel\"}}]}\n\n"
+                + "data: {\"choices\":[{\"delta\":{\"content\":\"lo\"}}]}\n\n"
+                + "data: [DONE]\n\n";
+        HttpServer server = startServer(200, body);
+        try {
+            List<String> tokens = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> future = newHttpClient(server).streamAsync(request("q"), token -> {
+                tokens.add(token);
+                throw new UncheckedIOException(new IOException("连接已断开"));
+            });
+            assertThrows(CancellationException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(future.isCancelled());
+            assertEquals(List.of("Hel"), tokens);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private HttpStreamingChatClient newHttpClient(HttpServer server) {
+        return new HttpStreamingChatClient(HttpClient.newHttpClient(), objectMapper,
+                "http://localhost:" + server.getAddress().getPort() + "/v1/", "test-key",
+                HttpStreamingChatClient.ApiFormat.OPENAI, Duration.ofSeconds(5));
+    }
+
+    private static HttpServer startServer(int status, String body) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", status == 200 ? "text/event-stream" : "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        return server;
+    }
+}
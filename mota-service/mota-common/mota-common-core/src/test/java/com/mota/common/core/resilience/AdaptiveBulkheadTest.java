@@ -0,0 +1,123 @@
+package com.mota.common.core.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应并发舱壁单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("自适应并发舱壁测试")
+class AdaptiveBulkheadTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // ========== 舱壁测试 ==========
+
+    @Test
+    @DisplayName("并发已满且不允许排队时立即拒绝")
+    void acquire_full_shouldReject() throws Exception {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 2, 1, 10, 0, Duration.ofSeconds(1));
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        assertThrows(BulkheadFullException.class, bulkhead::acquire);
+        assertEquals(1L, bulkhead.getRejected());
+        assertEquals(2, bulkhead.getInFlight());
+    }
+
+    @Test
+    @DisplayName("排队超时后拒绝")
+    void acquire_queueTimeout_shouldReject() throws Exception {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 1, 1, 10, 5, Duration.ofMillis(20));
+        bulkhead.acquire();
+
+        assertThrows(BulkheadFullException.class, bulkhead::acquire);
+        assertEquals(0, bulkhead.getQueued());
+    }
+
+    @Test
+    @DisplayName("许可释放后唤醒排队的调用方")
+    void acquire_released_shouldWakeWaiter() throws Exception {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 1, 1, 1, 5, Duration.ofSeconds(5));
+        bulkhead.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Thread waiter = new Thread(() -> {
+            try {
+                bulkhead.acquire();
+                acquired.countDown();
+            } catch (Exception e) {
+                failed.set(true);
+            }
+        });
+        waiter.start();
+        while (bulkhead.getQueued() == 0) {
+            Thread.sleep(1);
+        }
+
+        bulkhead.onIgnored();
+        assertTrue(acquired.await(2, TimeUnit.SECONDS));
+        assertFalse(failed.get());
+        assertEquals(1, bulkhead.getInFlight());
+    }
+
+    // ========== 自适应上限测试 ==========
+
+    @Test
+    @DisplayName("延迟稳定且并发饱和时上限增长")
+    void onSuccess_stableLatency_shouldGrowLimit() throws Exception {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 4, 1, 50, 0, Duration.ZERO);
+        for (int round = 0; round < 20; round++) {
+            int limit = bulkhead.getLimit();
+            for (int i = 0; i < limit; i++) {
+                bulkhead.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                bulkhead.onSuccess(100 * MS);
+            }
+        }
+        assertTrue(bulkhead.getLimit() > 4);
+    }
+
+    @Test
+    @DisplayName("延迟明显升高时上限收缩")
+    void onSuccess_latencySpike_shouldShrinkLimit() throws Exception {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 20, 1, 50, 0, Duration.ZERO);
+        for (int i = 0; i < 20; i++) {
+            bulkhead.acquire();
+        }
+        bulkhead.onSuccess(100 * MS);
+        for (int i = 0; i < 19; i++) {
+            bulkhead.onSuccess(1000 * MS);
+        }
+        assertTrue(bulkhead.getLimit() < 20);
+    }
+
+    @Test
+    @DisplayName("过载时乘性减小且不低于下界")
+    void onDropped_shouldBackOffToMinLimit() throws Exception {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 10, 2, 50, 0, Duration.ZERO);
+        bulkhead.acquire();
+        bulkhead.onDropped();
+        assertEquals(9, bulkhead.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            bulkhead.acquire();
+            bulkhead.onDropped();
+        }
+        assertEquals(2, bulkhead.getLimit());
+        assertEquals(51L, bulkhead.getDropped());
+        assertEquals(0, bulkhead.getInFlight());
+    }
+}
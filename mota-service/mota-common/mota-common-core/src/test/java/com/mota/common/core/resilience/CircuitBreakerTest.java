@@ -0,0 +1,162 @@
+package com.mota.common.core.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 熔断器与EWMA统计单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("熔断器测试")
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker newBreaker(int threshold, int probes) {
+        return new CircuitBreaker(threshold, Duration.ofSeconds(10), probes, Duration.ofSeconds(20), now::get);
+    }
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(Duration.ofSeconds(seconds).toNanos());
+    }
+
+    // ========== 状态转换测试 ==========
+
+    @Test
+    @DisplayName("连续失败达到阈值后打开，成功会清零计数")
+    void onFailure_reachThreshold_shouldOpen() {
+        CircuitBreaker breaker = newBreaker(3, 1);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+        assertTrue(breaker.getLastFailureTime() > 0);
+    }
+
+    @Test
+    @DisplayName("打开到期后半开，只放行限定数量的探测")
+    void tryAcquire_afterOpenDuration_shouldAllowLimitedProbes() {
+        CircuitBreaker breaker = newBreaker(1, 2);
+        breaker.onFailure();
+        advanceSeconds(9);
+        assertFalse(breaker.tryAcquire());
+
+        advanceSeconds(1);
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.isCallPermitted());
+    }
+
+    @Test
+    @DisplayName("半开探测成功后关闭")
+    void halfOpen_probeSuccess_shouldClose() {
+        CircuitBreaker breaker = newBreaker(1, 1);
+        breaker.onFailure();
+        advanceSeconds(10);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("半开探测失败后重新打开并重新计时")
+    void halfOpen_probeFailure_shouldReopen() {
+        CircuitBreaker breaker = newBreaker(1, 1);
+        breaker.onFailure();
+        advanceSeconds(10);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        advanceSeconds(5);
+        assertFalse(breaker.tryAcquire());
+        advanceSeconds(5);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("release - 归还未使用的探测名额")
+    void release_shouldReturnProbe() {
+        CircuitBreaker breaker = newBreaker(1, 1);
+        breaker.onFailure();
+        advanceSeconds(10);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.release();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("半开探测超时未上报结果时重新放行")
+    void halfOpen_probeTimeout_shouldAllowNewProbe() {
+        CircuitBreaker breaker = newBreaker(1, 1);
+        breaker.onFailure();
+        advanceSeconds(10);
+        assertTrue(breaker.tryAcquire());
+
+        advanceSeconds(19);
+        assertFalse(breaker.tryAcquire());
+        advanceSeconds(1);
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("reset - 强制关闭")
+    void reset_shouldClose() {
+        CircuitBreaker breaker = newBreaker(1, 1);
+        breaker.onFailure();
+        breaker.reset();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    // ========== EWMA统计测试 ==========
+
+    @Test
+    @DisplayName("EwmaStats - 首个样本作为初值，之后按alpha平滑")
+    void ewma_shouldSmoothSamples() {
+        EwmaStats stats = new EwmaStats(0.5);
+        assertTrue(Double.isNaN(stats.getLatencyMillis()));
+
+        stats.record(100, true);
+        assertEquals(100.0, stats.getLatencyMillis(), 1e-9);
+        assertEquals(0.0, stats.getErrorRate(), 1e-9);
+
+        stats.record(300, false);
+        assertEquals(200.0, stats.getLatencyMillis(), 1e-9);
+        assertEquals(0.5, stats.getErrorRate(), 1e-9);
+        assertEquals(2, stats.getSamples());
+    }
+
+    @Test
+    @DisplayName("EwmaStats - alpha越界抛出异常")
+    void ewma_invalidAlpha_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new EwmaStats(0));
+        assertThrows(IllegalArgumentException.class, () -> new EwmaStats(1.5));
+    }
+}
@@ -0,0 +1,100 @@
+package com.mota.common.core.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 相同请求合并单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("相同请求合并测试")
+class SingleFlightTest {
+
+    // ========== 同步执行测试 ==========
+
+    @Test
+    @DisplayName("并发的相同请求只执行一次并共享结果")
+    void execute_concurrentSameKey_shouldRunOnce() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> flight.execute("doc-1", () -> {
+                    calls.incrementAndGet();
+                    release.await(2, TimeUnit.SECONDS);
+                    return "summary";
+                })));
+            }
+            while (flight.getMerged() < 3) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("summary", result.get(2, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    @DisplayName("调用结束后不缓存结果，异常原样抛出")
+    void execute_afterCompletion_shouldRunAgain() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        flight.execute("k", () -> "v" + calls.incrementAndGet());
+
+        assertEquals("v2", flight.execute("k", () -> "v" + calls.incrementAndGet()));
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> flight.execute("k", () -> {
+                    throw new IllegalStateException("HTTP 429");
+                }));
+        assertEquals("HTTP 429", error.getMessage());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    // ========== 异步执行测试 ==========
+
+    @Test
+    @DisplayName("异步请求合并，单个调用方取消不影响其他调用方")
+    void executeAsync_cancelOneCaller_shouldKeepShared() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CompletableFuture<String> source = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<String> second = flight.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return source;
+        });
+        first.cancel(true);
+        source.complete("done");
+
+        assertEquals(1, calls.get());
+        assertFalse(source.isCancelled());
+        assertEquals("done", second.join());
+        assertEquals(0, flight.getInFlight());
+    }
+}
@@ -0,0 +1,88 @@
+package com.mota.common.core.resilience;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 滑动窗口统计单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("滑动窗口统计测试")
+class SlidingWindowStatsTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private SlidingWindowStats newStats() {
+        return new SlidingWindowStats(Duration.ofSeconds(60), 6, now::get);
+    }
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(Duration.ofSeconds(seconds).toNanos());
+    }
+
+    // ========== 成功率测试 ==========
+
+    @Test
+    @DisplayName("窗口内按请求数计算成功率，无请求时为1")
+    void snapshot_shouldComputeSuccessRate() {
+        SlidingWindowStats stats = newStats();
+        assertEquals(1.0, stats.snapshot().getSuccessRate());
+
+        for (int i = 0; i < 8; i++) {
+            stats.record(100, true);
+        }
+        stats.record(100, false);
+        stats.record(100, false);
+
+        SlidingWindowStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(10L, snapshot.getRequests());
+        assertEquals(2L, snapshot.getFailures());
+        assertEquals(0.8, snapshot.getSuccessRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("超出窗口的桶不再计入统计")
+    void snapshot_expiredBuckets_shouldBeDropped() {
+        SlidingWindowStats stats = newStats();
+        stats.record(100, false);
+        advanceSeconds(30);
+        stats.record(100, true);
+
+        assertEquals(2L, stats.snapshot().getRequests());
+        advanceSeconds(35);
+        SlidingWindowStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(1L, snapshot.getRequests());
+        assertEquals(0L, snapshot.getFailures());
+
+        advanceSeconds(60);
+        assertEquals(0L, stats.snapshot().getRequests());
+    }
+
+    // ========== 延迟分位数测试 ==========
+
+    @Test
+    @DisplayName("分位数落在真实延迟的分档误差内")
+    void latencyPercentile_shouldApproximateLatency() {
+        SlidingWindowStats stats = newStats();
+        for (int i = 0; i < 95; i++) {
+            stats.record(200, true);
+        }
+        for (int i = 0; i < 5; i++) {
+            stats.record(5000, true);
+        }
+
+        SlidingWindowStats.Snapshot snapshot = stats.snapshot();
+        long p50 = snapshot.latencyPercentile(0.5);
+        long p99 = snapshot.latencyPercentile(0.99);
+        assertTrue(p50 >= 200 && p50 <= 240, "p50=" + p50);
+        assertTrue(p99 >= 5000 && p99 <= 6000, "p99=" + p99);
+        assertEquals(0L, newStats().snapshot().latencyPercentile(0.95));
+    }
+}
@@ -0,0 +1,59 @@
+package com.mota.common.core.similarity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MinHash LSH 单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("MinHash LSH测试")
+class MinHashLshTest {
+
+    @Test
+    @DisplayName("近重复文本成为候选对，无关文本不配对")
+    void candidatePairs_shouldGroupNearDuplicates() {
+        MinHashLsh lsh = new MinHashLsh(16, 4, 3);
+        lsh.add(1, "Spring Boot 微服务架构设计规范");
+        lsh.add(2, "spring boot 微服务架构设计规范！");
+        lsh.add(3, "前端组件库使用说明与主题定制");
+
+        Set<MinHashLsh.Pair> pairs = lsh.candidatePairs(100);
+        assertTrue(pairs.contains(MinHashLsh.Pair.of(2, 1)));
+        assertFalse(pairs.contains(MinHashLsh.Pair.of(1, 3)));
+        assertEquals(1.0, lsh.similarity(1, 2), 1e-9);
+        assertTrue(lsh.similarity(1, 3) < 0.2);
+    }
+
+    @Test
+    @DisplayName("签名估计的相似度接近真实Jaccard")
+    void similarity_shouldApproximateJaccard() {
+        MinHashLsh lsh = new MinHashLsh(32, 4, 3);
+        lsh.add(1, "abcdefghijklmnopqrst");
+        lsh.add(2, "abcdefghijklmnopqrsz");
+
+        // 18 个片段中共享 17 个，Jaccard = 17 / 19
+        assertEquals(17.0 / 19, lsh.similarity(1, 2), 0.12);
+    }
+
+    @Test
+    @DisplayName("无有效字符的文本忽略，过大的桶截断配对")
+    void add_shouldSkipEmptyTextAndCapBuckets() {
+        MinHashLsh lsh = new MinHashLsh(4, 2, 3);
+        assertFalse(lsh.add(1, " ，。 "));
+        assertNull(lsh.signature(null));
+
+        for (long id = 10; id < 20; id++) {
+            lsh.add(id, "同一个模板标题");
+        }
+        assertEquals(10, lsh.size());
+        assertEquals(3, lsh.candidatePairs(3).size());
+        assertEquals(45, lsh.candidatePairs(100).size());
+    }
+}
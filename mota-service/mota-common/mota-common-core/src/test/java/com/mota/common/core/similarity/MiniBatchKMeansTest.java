@@ -0,0 +1,73 @@
+package com.mota.common.core.similarity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 小批量K-Means单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("小批量K-Means测试")
+class MiniBatchKMeansTest {
+
+    private final Random random = new Random(7);
+
+    private float[] around(float[] center) {
+        float[] vector = new float[center.length];
+        for (int i = 0; i < center.length; i++) {
+            vector[i] = center[i] + (float) (random.nextGaussian() * 0.05);
+        }
+        return vector;
+    }
+
+    @Test
+    @DisplayName("分批训练后同簇样本归入同一质心")
+    void partialFit_shouldSeparateClusters() {
+        float[] x = {1, 0, 0};
+        float[] y = {0, 1, 0};
+        float[] z = {0, 0, 1};
+        MiniBatchKMeans kMeans = new MiniBatchKMeans(3, 42);
+        for (int round = 0; round < 5; round++) {
+            List<float[]> batch = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                batch.add(around(x));
+                batch.add(around(y));
+                batch.add(around(z));
+            }
+            kMeans.partialFit(batch);
+        }
+
+        assertEquals(3, kMeans.centroidCount());
+        int cx = kMeans.predict(x);
+        int cy = kMeans.predict(y);
+        int cz = kMeans.predict(z);
+        assertNotEquals(cx, cy);
+        assertNotEquals(cy, cz);
+        assertNotEquals(cx, cz);
+        assertEquals(cx, kMeans.predict(around(x)));
+        assertTrue(kMeans.similarity(x, cx) > 0.95);
+    }
+
+    @Test
+    @DisplayName("样本不足k个不同方向时后续批次补齐质心，零向量和维度不符的样本忽略")
+    void partialFit_shouldSeedIncrementally() {
+        MiniBatchKMeans kMeans = new MiniBatchKMeans(2, 1);
+        assertEquals(-1, kMeans.predict(new float[]{1, 0}));
+
+        kMeans.partialFit(List.of(new float[]{1, 0}, new float[]{2, 0}, new float[]{0, 0}));
+        assertEquals(1, kMeans.centroidCount());
+
+        kMeans.partialFit(List.of(new float[]{0, 3}, new float[]{1, 0, 0}));
+        assertEquals(2, kMeans.centroidCount());
+        assertNotEquals(kMeans.predict(new float[]{1, 0}), kMeans.predict(new float[]{0, 1}));
+        assertEquals(-1, kMeans.predict(new float[]{1, 0, 0}));
+    }
+}
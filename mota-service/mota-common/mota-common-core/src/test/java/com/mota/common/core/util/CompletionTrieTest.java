@@ -0,0 +1,143 @@
+package com.mota.common.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 前缀补全树单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("前缀补全树测试")
+class CompletionTrieTest {
+
+    private static List<String> texts(List<CompletionTrie.Entry> entries) {
+        return entries.stream().map(CompletionTrie.Entry::getText).collect(Collectors.toList());
+    }
+
+    // ========== 基本补全测试 ==========
+
+    @Test
+    @DisplayName("complete - 按热度降序返回前缀匹配词条")
+    void complete_shouldReturnByScoreDesc() {
+        CompletionTrie trie = new CompletionTrie(10);
+        trie.put("project", 5);
+        trie.put("progress", 9);
+        trie.put("promise", 1);
+        trie.put("task", 100);
+
+        assertEquals(Arrays.asList("progress", "project", "promise"), texts(trie.complete("pro", 10)));
+        assertEquals(Collections.singletonList("progress"), texts(trie.complete("pro", 1)));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    @DisplayName("complete - 前缀在边中间结束时也能匹配")
+    void complete_prefixEndsInsideEdge_shouldMatch() {
+        CompletionTrie trie = new CompletionTrie(10);
+        trie.put("项目管理", 3);
+        trie.put("项目进度", 7);
+
+        assertEquals(Arrays.asList("项目进度", "项目管理"), texts(trie.complete("项", 10)));
+        assertEquals(Collections.singletonList("项目管理"), texts(trie.complete("项目管", 10)));
+        assertTrue(trie.complete("项目计划", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("complete - 匹配不区分大小写并返回原始文本")
+    void complete_caseInsensitive_shouldKeepOriginalText() {
+        CompletionTrie trie = new CompletionTrie(10);
+        trie.put("Spring Boot", 2);
+
+        assertEquals(Collections.singletonList("Spring Boot"), texts(trie.complete("spr", 10)));
+    }
+
+    @Test
+    @DisplayName("complete - 指定匹配键时按键匹配")
+    void complete_withKey_shouldMatchByKey() {
+        CompletionTrie trie = new CompletionTrie(10);
+        trie.put("xmgl", "项目管理", 4);
+
+        assertEquals(Collections.singletonList("项目管理"), texts(trie.complete("xm", 10)));
+        assertTrue(trie.complete("项目", 10).isEmpty());
+    }
+
+    // ========== 更新测试 ==========
+
+    @Test
+    @DisplayName("increment - 累加热度后重新排序")
+    void increment_shouldReorder() {
+        CompletionTrie trie = new CompletionTrie(10);
+        trie.put("java", 5);
+        trie.put("javascript", 3);
+
+        trie.increment("javascript", 4);
+        trie.increment("jakarta", 1);
+
+        List<CompletionTrie.Entry> result = trie.complete("ja", 10);
+        assertEquals(Arrays.asList("javascript", "java", "jakarta"), texts(result));
+        assertEquals(7, result.get(0).getScore());
+    }
+
+    @Test
+    @DisplayName("remove - 删除后不再返回且不影响其他词条")
+    void remove_shouldDropEntry() {
+        CompletionTrie trie = new CompletionTrie(10);
+        trie.put("test", 1);
+        trie.put("tester", 2);
+
+        assertTrue(trie.remove("tester"));
+        assertFalse(trie.remove("tes"));
+        assertEquals(Collections.singletonList("test"), texts(trie.complete("te", 10)));
+        assertEquals(1, trie.size());
+    }
+
+    // ========== 一致性测试 ==========
+
+    @Test
+    @DisplayName("complete - 随机数据与暴力结果一致")
+    void complete_randomData_shouldMatchBruteForce() {
+        Random random = new Random(42);
+        int topK = 5;
+        CompletionTrie trie = new CompletionTrie(topK);
+        Map<String, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(3)));
+            }
+            String word = sb.toString();
+            int op = random.nextInt(10);
+            if (op < 6) {
+                long score = random.nextInt(1000);
+                trie.put(word, score);
+                expected.put(word, score);
+            } else if (op < 9) {
+                trie.increment(word, 10);
+                expected.merge(word, 10L, Long::sum);
+            } else {
+                assertEquals(expected.remove(word) != null, trie.remove(word));
+            }
+        }
+
+        for (String prefix : Arrays.asList("", "a", "b", "ab", "cab", "aaa", "bcb")) {
+            List<String> bruteForce = expected.entrySet().stream()
+                    .filter(e -> e.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(topK)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(bruteForce, texts(trie.complete(prefix, topK)), "prefix=" + prefix);
+        }
+        assertEquals(expected.size(), trie.size());
+    }
+}
@@ -0,0 +1,46 @@
+package com.mota.common.core.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 向量工具类单元测试
+ *
+ * @author Mota
+ * @since 1.0.0
+ */
+@DisplayName("向量工具类测试")
+class VectorUtilsTest {
+
+    @Test
+    @DisplayName("格式化与解析互逆，兼容Arrays.toString输出")
+    void formatAndParse_shouldRoundTrip() {
+        float[] vector = {0.5f, -1.25f, 3f};
+        assertArrayEquals(vector, VectorUtils.parse(VectorUtils.format(vector)));
+        assertArrayEquals(vector, VectorUtils.parse(Arrays.toString(vector)));
+
+        assertNull(VectorUtils.parse(null));
+        assertNull(VectorUtils.parse("[]"));
+        assertNull(VectorUtils.parse("[1, x]"));
+        assertNull(VectorUtils.parse("1, 2"));
+    }
+
+    @Test
+    @DisplayName("余弦相似度与归一化")
+    void cosineAndNormalize_shouldMatchDefinition() {
+        float[] a = {3, 4};
+        float[] b = {6, 8};
+        assertEquals(1.0, VectorUtils.cosine(a, b), 1e-6);
+        assertEquals(0.0, VectorUtils.cosine(a, new float[]{0, 0}));
+        assertEquals(0.0, VectorUtils.dot(a, new float[]{1, 2, 3}));
+
+        float[] unit = VectorUtils.normalize(a);
+        assertEquals(0.6f, unit[0], 1e-6);
+        assertEquals(0.8f, unit[1], 1e-6);
+        assertEquals(3f, a[0]);
+    }
+}
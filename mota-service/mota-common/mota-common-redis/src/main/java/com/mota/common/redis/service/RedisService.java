@@ -83,6 +83,13 @@ public class RedisService {
         return (T) redisTemplate.opsForValue().get(key);
     }
 
+    /**
+     * 批量获取缓存，结果与键一一对应，不存在的键为 null
+     */
+    public List<Object> multiGet(Collection<String> keys) {
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
     /**
      * 删除缓存
      */
@@ -356,6 +363,30 @@ public class RedisService {
         return redisTemplate.opsForZSet().size(key);
     }
 
+    // ========== Bitmap 操作 ==========
+
+    /**
+     * 设置位，返回该位原来的值
+     */
+    public Boolean setBit(String key, long offset, boolean value) {
+        return redisTemplate.opsForValue().setBit(key, offset, value);
+    }
+
+    /**
+     * 获取位
+     */
+    public Boolean getBit(String key, long offset) {
+        return redisTemplate.opsForValue().getBit(key, offset);
+    }
+
+    /**
+     * 统计值为1的位数（BITCOUNT）
+     */
+    public Long bitCount(String key) {
+        return redisTemplate.execute((org.springframework.data.redis.core.RedisCallback<Long>) connection ->
+                connection.stringCommands().bitCount(key.getBytes()));
+    }
+
     // ========== Key 操作 ==========
 
     /**
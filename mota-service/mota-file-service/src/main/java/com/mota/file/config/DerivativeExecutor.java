@@ -0,0 +1,62 @@
+package com.mota.file.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 派生文件（缩略图、预览）生成线程池
+ *
+ * 固定线程数、有界队列，队列满时拒绝新任务，由调用方降级处理。
+ * 不实现 Executor 接口，避免替换 Spring Boot 默认的 @Async 线程池
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+public class DerivativeExecutor {
+
+    @Value("${file.derivative.threads:2}")
+    private int threads;
+
+    @Value("${file.derivative.queue-capacity:200}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "file-derivative-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        log.info("派生文件线程池已启动: threads={}, queueCapacity={}", threads, queueCapacity);
+    }
+
+    /**
+     * 提交任务
+     *
+     * @throws RejectedExecutionException 队列已满或线程池已关闭
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
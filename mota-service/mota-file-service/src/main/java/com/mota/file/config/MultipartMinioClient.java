@@ -0,0 +1,75 @@
+package com.mota.file.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.ListPartsResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MinIO原生分片上传客户端
+ * 
+ * 暴露 S3 分片上传接口（创建、上传分片、列出分片、合并、取消），
+ * 合并只是服务端元数据操作，不会再复制一遍对象数据
+ * 
+ * @author mota
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传会话
+     *
+     * @return S3上传ID
+     */
+    public String createMultipartUpload(String bucketName, String objectName, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) {
+            headers.put("Content-Type", contentType);
+        }
+        return createMultipartUploadAsync(bucketName, null, objectName, headers, null).get().result().uploadId();
+    }
+
+    /**
+     * 上传分片
+     *
+     * @return 分片ETag
+     */
+    public String uploadPart(String bucketName, String objectName, String uploadId, int partNumber,
+                             InputStream data, long length) throws Exception {
+        return uploadPartAsync(bucketName, null, objectName, data, length, uploadId, partNumber, null, null)
+                .get().etag();
+    }
+
+    /**
+     * 列出已上传分片
+     *
+     * @param partNumberMarker 从该分片号之后开始列出
+     */
+    public ListPartsResponse listParts(String bucketName, String objectName, String uploadId,
+                                       int partNumberMarker) throws Exception {
+        return listPartsAsync(bucketName, null, objectName, 1000, partNumberMarker, uploadId, null, null).get();
+    }
+
+    /**
+     * 合并分片
+     */
+    public CompletableFuture<?> completeMultipartUpload(String bucketName, String objectName, String uploadId,
+                                                        Part[] parts) throws Exception {
+        return completeMultipartUploadAsync(bucketName, null, objectName, uploadId, parts, null, null);
+    }
+
+    /**
+     * 取消分片上传，释放已上传的分片
+     */
+    public CompletableFuture<?> abortMultipartUpload(String bucketName, String objectName,
+                                                     String uploadId) throws Exception {
+        return abortMultipartUploadAsync(bucketName, null, objectName, uploadId, null, null);
+    }
+}
@@ -15,15 +15,20 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.InputStream;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
@@ -68,17 +73,8 @@ public class FileController {
         return Result.success(fileInfos);
     }
 
-    @GetMapping("/instant-check")
-    @Operation(summary = "秒传检查", description = "根据MD5检查文件是否已存在")
-    public Result<FileInfoVO> checkInstantUpload(
-            @Parameter(description = "文件MD5") @RequestParam String md5Hash) {
-        Long tenantId = SecurityUtils.getTenantId();
-        FileInfoVO fileInfo = fileService.checkInstantUpload(md5Hash, tenantId);
-        return Result.success(fileInfo);
-    }
-
     @PostMapping("/chunk/init")
-    @Operation(summary = "初始化分片上传", description = "初始化分片上传任务，支持秒传和断点续传")
+    @Operation(summary = "初始化分片上传", description = "初始化分片上传任务，支持断点续传")
     public Result<ChunkUploadInitResponse> initChunkUpload(
             @RequestBody @Validated ChunkUploadInitRequest request) {
         Long tenantId = SecurityUtils.getTenantId();
@@ -143,30 +139,86 @@ public class FileController {
     }
 
     @GetMapping("/{fileId}/download")
-    @Operation(summary = "下载文件", description = "下载文件")
-    public ResponseEntity<InputStreamResource> downloadFile(
+    @Operation(summary = "下载文件", description = "下载文件，支持 Range/If-Range 断点续传与 ETag 条件请求，大文件可重定向到预签名地址")
+    public ResponseEntity<StreamingResponseBody> downloadFile(
             @Parameter(description = "文件ID") @PathVariable Long fileId,
             HttpServletRequest request) {
         Long tenantId = SecurityUtils.getTenantId();
         Long userId = SecurityUtils.getUserId();
         String userName = SecurityUtils.getUsername();
         
-        FileInfoVO fileInfo = fileService.getFileInfo(fileId, tenantId);
-        InputStream inputStream = fileService.downloadFile(fileId, tenantId);
-        
-        // 记录访问日志
-        fileService.recordAccess(fileId, "download", userId, userName, 
-                getClientIp(request), request.getHeader("User-Agent"));
-        
-        String encodedFileName = URLEncoder.encode(fileInfo.getFileName(), StandardCharsets.UTF_8)
+        FileDownloadInfo info = fileService.getDownloadInfo(fileId, tenantId);
+        long fileSize = info.getFileSize() != null ? info.getFileSize() : 0L;
+        long lastModified = info.getLastModified() != null
+                ? info.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1L;
+
+        // 大文件重定向到预签名地址，由客户端直连对象存储（对象存储自身支持范围请求）
+        if (info.getRedirectUrl() != null) {
+            fileService.recordAccess(fileId, tenantId, "download", userId, userName,
+                    getClientIp(request), request.getHeader("User-Agent"));
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(info.getRedirectUrl()))
+                    .build();
+        }
+
+        // 条件请求：客户端缓存仍有效时不返回内容
+        if (eTagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), info.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(info.getETag())
+                    .build();
+        }
+
+        String encodedFileName = URLEncoder.encode(info.getFileName(), StandardCharsets.UTF_8)
                 .replace("+", "%20");
-        
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                        "attachment; filename*=UTF-8''" + encodedFileName)
-                .contentType(MediaType.parseMediaType(fileInfo.getMimeType()))
-                .contentLength(fileInfo.getFileSize())
-                .body(new InputStreamResource(inputStream));
+        ResponseEntity.BodyBuilder builder;
+        long offset = 0;
+        long length = fileSize;
+
+        // 范围请求：只支持单个范围，多范围或 If-Range 不匹配时返回完整内容
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+        if (ranges == null) {
+            return rangeNotSatisfiable(fileSize);
+        }
+        if (ranges.size() == 1 && ifRangeMatches(request, info.getETag(), lastModified)) {
+            HttpRange range = ranges.get(0);
+            try {
+                offset = range.getRangeStart(fileSize);
+                length = range.getRangeEnd(fileSize) - offset + 1;
+            } catch (IllegalArgumentException e) {
+                return rangeNotSatisfiable(fileSize);
+            }
+            builder = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .header(HttpHeaders.CONTENT_RANGE,
+                            "bytes " + offset + "-" + (offset + length - 1) + "/" + fileSize);
+        } else {
+            builder = ResponseEntity.ok();
+        }
+
+        // 断点续传的后续分段不重复记录访问日志
+        if (offset == 0) {
+            fileService.recordAccess(fileId, tenantId, "download", userId, userName,
+                    getClientIp(request), request.getHeader("User-Agent"));
+        }
+
+        // 直接把存储端的范围读取流写到响应，不在服务内缓冲
+        InputStream inputStream = offset == 0 && length == fileSize
+                ? fileService.downloadFile(fileId, tenantId)
+                : fileService.downloadFile(fileId, tenantId, offset, length);
+        StreamingResponseBody body = outputStream -> {
+            try (InputStream in = inputStream) {
+                in.transferTo(outputStream);
+            }
+        };
+
+        builder.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + encodedFileName)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(info.getETag())
+                .contentType(MediaType.parseMediaType(info.getMimeType()))
+                .contentLength(length);
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder.body(body);
     }
 
     @GetMapping("/{fileId}/url")
@@ -192,7 +244,7 @@ public class FileController {
         InputStream inputStream = previewService.getPreview(fileId, tenantId);
         
         // 记录访问日志
-        fileService.recordAccess(fileId, "preview", userId, userName,
+        fileService.recordAccess(fileId, tenantId, "preview", userId, userName,
                 getClientIp(request), request.getHeader("User-Agent"));
         
         return ResponseEntity.ok()
@@ -259,6 +311,64 @@ public class FileController {
         return Result.success(files);
     }
 
+    /**
+     * 解析 Range 请求头：无请求头返回空列表，格式非法返回 null
+     */
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range 为 ETag 时要求与当前 ETag 一致，为日期时要求不早于最后修改时间；没有 If-Range 时总是满足
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || ifRange.isEmpty()) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified >= 0 && lastModified / 1000 <= since / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * If-None-Match 是否命中（支持 * 与逗号分隔的多个 ETag，弱比较）
+     */
+    private boolean eTagMatches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if ("*".equals(value) || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(long fileSize) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                .build();
+    }
+
     /**
      * 获取客户端IP
      */
@@ -58,16 +58,6 @@ public class ChunkUploadInitResponse {
      */
     private String uploadUrl;
 
-    /**
-     * 创建秒传成功响应
-     */
-    public static ChunkUploadInitResponse instantUpload(FileInfoVO fileInfo) {
-        ChunkUploadInitResponse response = new ChunkUploadInitResponse();
-        response.setInstantUpload(true);
-        response.setFileInfo(fileInfo);
-        return response;
-    }
-
     /**
      * 创建断点续传响应
      */
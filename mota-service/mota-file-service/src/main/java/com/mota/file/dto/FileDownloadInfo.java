@@ -0,0 +1,49 @@
+package com.mota.file.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件下载信息（用于条件请求与范围下载）
+ * 
+ * @author mota
+ */
+@Data
+public class FileDownloadInfo {
+
+    /**
+     * 文件ID
+     */
+    private Long fileId;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * MIME类型
+     */
+    private String mimeType;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 实体标签（带引号）；存储对象上传后不再修改，按内容哈希或文件ID生成即为强校验值
+     */
+    private String eTag;
+
+    /**
+     * 最后修改时间
+     */
+    private LocalDateTime lastModified;
+
+    /**
+     * 预签名重定向地址，仅大文件且启用重定向时非空
+     */
+    private String redirectUrl;
+}
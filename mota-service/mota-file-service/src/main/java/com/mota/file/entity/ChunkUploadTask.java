@@ -30,6 +30,11 @@ public class ChunkUploadTask {
      */
     private String uploadId;
 
+    /**
+     * 存储端分片上传会话ID（S3/MinIO UploadId）
+     */
+    private String storageUploadId;
+
     /**
      * 文件名
      */
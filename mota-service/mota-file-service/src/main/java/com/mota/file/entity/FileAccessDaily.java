@@ -0,0 +1,61 @@
+package com.mota.file.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 文件访问日汇总实体
+ * 
+ * @author mota
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("file_access_daily")
+public class FileAccessDaily {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+
+    /**
+     * 文件ID
+     */
+    private Long fileId;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 访问类型：view/download/preview/share
+     */
+    private String accessType;
+
+    /**
+     * 访问次数
+     */
+    private Long accessCount;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
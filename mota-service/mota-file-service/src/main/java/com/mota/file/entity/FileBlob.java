@@ -0,0 +1,77 @@
+package com.mota.file.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件内容实体（内容寻址存储）
+ * 
+ * 同一租户、同一存储桶内相同内容（SHA-256 相同）只存一份对象，
+ * 多条文件记录通过 sha256_hash 共享该对象，引用计数归零时才删除对象
+ * 
+ * @author mota
+ */
+@Data
+@TableName("file_blob")
+public class FileBlob {
+
+    /**
+     * ID
+     */
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+
+    /**
+     * 内容SHA256哈希值
+     */
+    private String sha256Hash;
+
+    /**
+     * 内容MD5哈希值
+     */
+    private String md5Hash;
+
+    /**
+     * 存储桶名称
+     */
+    private String bucketName;
+
+    /**
+     * 对象路径
+     */
+    private String objectPath;
+
+    /**
+     * 内容大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 内容类型（MIME类型）
+     */
+    private String mimeType;
+
+    /**
+     * 引用计数（引用该内容的未清理文件记录数）
+     */
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
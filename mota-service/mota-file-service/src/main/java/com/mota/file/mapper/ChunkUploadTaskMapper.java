@@ -25,11 +25,12 @@ public interface ChunkUploadTaskMapper extends BaseMapper<ChunkUploadTask> {
     ChunkUploadTask findByUploadId(@Param("uploadId") String uploadId, @Param("tenantId") Long tenantId);
 
     /**
-     * 根据MD5查询未完成的任务（断点续传）
+     * 根据MD5查询当前用户未完成的任务（断点续传）
      */
     @Select("SELECT * FROM chunk_upload_task WHERE md5_hash = #{md5Hash} AND tenant_id = #{tenantId} " +
-            "AND status = 0 AND expire_time > NOW() ORDER BY create_time DESC LIMIT 1")
-    ChunkUploadTask findByMd5Hash(@Param("md5Hash") String md5Hash, @Param("tenantId") Long tenantId);
+            "AND upload_user_id = #{userId} AND status = 0 AND expire_time > NOW() ORDER BY create_time DESC LIMIT 1")
+    ChunkUploadTask findByMd5Hash(@Param("md5Hash") String md5Hash, @Param("tenantId") Long tenantId,
+                                  @Param("userId") Long userId);
 
     /**
      * 更新已上传分片信息
@@ -0,0 +1,63 @@
+package com.mota.file.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.mota.file.entity.FileAccessDaily;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件访问日汇总Mapper
+ * 
+ * @author mota
+ */
+@Mapper
+public interface FileAccessDailyMapper extends BaseMapper<FileAccessDaily> {
+
+    /**
+     * 批量累加文件访问日汇总（不存在则插入）
+     */
+    @Insert("<script>" +
+            "INSERT INTO file_access_daily (tenant_id, file_id, stat_date, access_type, access_count) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.tenantId}, #{item.fileId}, #{item.statDate}, #{item.accessType}, #{item.accessCount})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE access_count = access_count + VALUES(access_count)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<FileAccessDaily> list);
+
+    /**
+     * 按访问类型统计
+     */
+    @Select("SELECT access_type, SUM(access_count) as count FROM file_access_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} AND stat_date <= #{endDate} " +
+            "GROUP BY access_type")
+    List<Map<String, Object>> statisticsByAccessType(@Param("tenantId") Long tenantId,
+                                                      @Param("startDate") LocalDate startDate,
+                                                      @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按日期统计访问量
+     */
+    @Select("SELECT stat_date as date, SUM(access_count) as count FROM file_access_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} AND stat_date <= #{endDate} " +
+            "GROUP BY stat_date ORDER BY stat_date")
+    List<Map<String, Object>> statisticsByDate(@Param("tenantId") Long tenantId,
+                                                @Param("startDate") LocalDate startDate,
+                                                @Param("endDate") LocalDate endDate);
+
+    /**
+     * 查询热门访问文件
+     */
+    @Select("SELECT file_id, SUM(access_count) as access_count FROM file_access_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} " +
+            "GROUP BY file_id ORDER BY access_count DESC LIMIT #{limit}")
+    List<Map<String, Object>> findHotFiles(@Param("tenantId") Long tenantId,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("limit") int limit);
+}
@@ -2,13 +2,12 @@ package com.mota.file.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.mota.file.entity.FileAccessLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 文件访问日志Mapper
@@ -19,24 +18,17 @@ import java.util.Map;
 public interface FileAccessLogMapper extends BaseMapper<FileAccessLog> {
 
     /**
-     * 按访问类型统计
+     * 批量插入访问日志（ID由调用方预先分配）
      */
-    @Select("SELECT access_type, COUNT(*) as count FROM file_access_log " +
-            "WHERE tenant_id = #{tenantId} AND access_time >= #{startTime} AND access_time < #{endTime} " +
-            "GROUP BY access_type")
-    List<Map<String, Object>> statisticsByAccessType(@Param("tenantId") Long tenantId,
-                                                      @Param("startTime") LocalDateTime startTime,
-                                                      @Param("endTime") LocalDateTime endTime);
-
-    /**
-     * 按日期统计访问量
-     */
-    @Select("SELECT DATE(access_time) as date, COUNT(*) as count FROM file_access_log " +
-            "WHERE tenant_id = #{tenantId} AND access_time >= #{startTime} AND access_time < #{endTime} " +
-            "GROUP BY DATE(access_time) ORDER BY date")
-    List<Map<String, Object>> statisticsByDate(@Param("tenantId") Long tenantId,
-                                                @Param("startTime") LocalDateTime startTime,
-                                                @Param("endTime") LocalDateTime endTime);
+    @Insert("<script>" +
+            "INSERT INTO file_access_log (id, tenant_id, file_id, access_type, user_id, user_name, " +
+            "access_ip, user_agent, access_time, success) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.id}, #{item.tenantId}, #{item.fileId}, #{item.accessType}, #{item.userId}, #{item.userName}, " +
+            "#{item.accessIp}, #{item.userAgent}, #{item.accessTime}, #{item.success})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<FileAccessLog> list);
 
     /**
      * 查询文件的访问记录
@@ -50,14 +42,4 @@ public interface FileAccessLogMapper extends BaseMapper<FileAccessLog> {
      */
     @Select("SELECT COUNT(DISTINCT user_id) FROM file_access_log WHERE file_id = #{fileId}")
     Long countDistinctUsers(@Param("fileId") Long fileId);
-
-    /**
-     * 查询热门访问文件
-     */
-    @Select("SELECT file_id, COUNT(*) as access_count FROM file_access_log " +
-            "WHERE tenant_id = #{tenantId} AND access_time >= #{startTime} " +
-            "GROUP BY file_id ORDER BY access_count DESC LIMIT #{limit}")
-    List<Map<String, Object>> findHotFiles(@Param("tenantId") Long tenantId,
-                                            @Param("startTime") LocalDateTime startTime,
-                                            @Param("limit") int limit);
 }
\ No newline at end of file
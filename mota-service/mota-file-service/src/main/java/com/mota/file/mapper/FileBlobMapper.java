@@ -0,0 +1,52 @@
+package com.mota.file.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.mota.file.entity.FileBlob;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 文件内容Mapper
+ * 
+ * @author mota
+ */
+@Mapper
+public interface FileBlobMapper extends BaseMapper<FileBlob> {
+
+    /**
+     * 按内容哈希查询（同租户同存储桶）
+     */
+    @Select("SELECT * FROM file_blob WHERE tenant_id = #{tenantId} AND bucket_name = #{bucketName} " +
+            "AND sha256_hash = #{sha256Hash} LIMIT 1")
+    FileBlob findByHash(@Param("tenantId") Long tenantId, @Param("bucketName") String bucketName,
+                        @Param("sha256Hash") String sha256Hash);
+
+    /**
+     * 按内容哈希加锁查询，读取最新提交的记录而非事务快照，用于并发登记冲突后重读
+     */
+    @Select("SELECT * FROM file_blob WHERE tenant_id = #{tenantId} AND bucket_name = #{bucketName} " +
+            "AND sha256_hash = #{sha256Hash} LIMIT 1 FOR UPDATE")
+    FileBlob findByHashForUpdate(@Param("tenantId") Long tenantId, @Param("bucketName") String bucketName,
+                                 @Param("sha256Hash") String sha256Hash);
+
+    /**
+     * 增加引用；引用已归零（正在回收）时不生效，返回0
+     */
+    @Update("UPDATE file_blob SET ref_count = ref_count + 1, update_time = NOW() WHERE id = #{id} AND ref_count > 0")
+    int incrementRef(@Param("id") Long id);
+
+    /**
+     * 减少引用
+     */
+    @Update("UPDATE file_blob SET ref_count = ref_count - 1, update_time = NOW() WHERE id = #{id} AND ref_count > 0")
+    int decrementRef(@Param("id") Long id);
+
+    /**
+     * 删除无引用的内容记录，返回1表示由当前调用方负责删除对象
+     */
+    @Delete("DELETE FROM file_blob WHERE id = #{id} AND ref_count <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
@@ -20,28 +20,30 @@ import java.util.Map;
 public interface FileInfoMapper extends BaseMapper<FileInfo> {
 
     /**
-     * 根据MD5查询文件（秒传检查）
+     * 增加访问次数
      */
-    @Select("SELECT * FROM file_info WHERE md5_hash = #{md5Hash} AND tenant_id = #{tenantId} AND status = 1 LIMIT 1")
-    FileInfo findByMd5Hash(@Param("md5Hash") String md5Hash, @Param("tenantId") Long tenantId);
+    @Update("UPDATE file_info SET access_count = access_count + 1 WHERE id = #{fileId}")
+    int incrementAccessCount(@Param("fileId") Long fileId);
 
     /**
-     * 根据SHA256查询文件
+     * 更新共享同一存储对象的所有文件记录的缩略图地址
      */
-    @Select("SELECT * FROM file_info WHERE sha256_hash = #{sha256Hash} AND tenant_id = #{tenantId} AND status = 1 LIMIT 1")
-    FileInfo findBySha256Hash(@Param("sha256Hash") String sha256Hash, @Param("tenantId") Long tenantId);
+    @Update("UPDATE file_info SET thumbnail_path = #{thumbnailPath} WHERE bucket_name = #{bucketName} AND file_path = #{filePath}")
+    int updateThumbnailPath(@Param("bucketName") String bucketName, @Param("filePath") String filePath,
+                            @Param("thumbnailPath") String thumbnailPath);
 
     /**
-     * 增加访问次数
+     * 更新共享同一存储对象的所有文件记录的预览地址
      */
-    @Update("UPDATE file_info SET access_count = access_count + 1 WHERE id = #{fileId}")
-    int incrementAccessCount(@Param("fileId") Long fileId);
+    @Update("UPDATE file_info SET preview_path = #{previewPath} WHERE bucket_name = #{bucketName} AND file_path = #{filePath}")
+    int updatePreviewPath(@Param("bucketName") String bucketName, @Param("filePath") String filePath,
+                          @Param("previewPath") String previewPath);
 
     /**
-     * 增加下载次数
+     * 累加下载次数（访问日志批量写入时按文件合并后调用）
      */
-    @Update("UPDATE file_info SET download_count = download_count + 1 WHERE id = #{fileId}")
-    int incrementDownloadCount(@Param("fileId") Long fileId);
+    @Update("UPDATE file_info SET download_count = download_count + #{delta} WHERE id = #{fileId}")
+    int addDownloadCount(@Param("fileId") Long fileId, @Param("delta") long delta);
 
     /**
      * 查询待清理的已删除文件
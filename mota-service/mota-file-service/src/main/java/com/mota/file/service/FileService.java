@@ -40,15 +40,6 @@ public interface FileService {
     List<FileInfoVO> uploadFiles(List<MultipartFile> files, FileUploadRequest request,
                                   Long tenantId, Long userId, String userName);
 
-    /**
-     * 秒传检查
-     *
-     * @param md5Hash 文件MD5
-     * @param tenantId 租户ID
-     * @return 如果存在返回文件信息，否则返回null
-     */
-    FileInfoVO checkInstantUpload(String md5Hash, Long tenantId);
-
     /**
      * 初始化分片上传
      *
@@ -117,6 +108,26 @@ public interface FileService {
      */
     InputStream downloadFile(Long fileId, Long tenantId);
 
+    /**
+     * 获取文件下载信息（ETag、大小、修改时间，大文件的预签名重定向地址）
+     *
+     * @param fileId 文件ID
+     * @param tenantId 租户ID
+     * @return 下载信息
+     */
+    FileDownloadInfo getDownloadInfo(Long fileId, Long tenantId);
+
+    /**
+     * 获取文件指定字节范围的下载流（直接映射为存储端范围读取）
+     *
+     * @param fileId 文件ID
+     * @param tenantId 租户ID
+     * @param offset 起始偏移
+     * @param length 字节数
+     * @return 输入流
+     */
+    InputStream downloadFile(Long fileId, Long tenantId, long offset, long length);
+
     /**
      * 获取文件预签名URL
      *
@@ -154,15 +165,16 @@ public interface FileService {
     List<FileInfoVO> listFiles(String businessType, Long businessId, Long tenantId);
 
     /**
-     * 记录文件访问
+     * 记录文件访问（异步批量写入，下载次数随访问日志一并累加）
      *
      * @param fileId 文件ID
+     * @param tenantId 租户ID
      * @param accessType 访问类型
      * @param userId 用户ID
      * @param userName 用户名
      * @param ip IP地址
      * @param userAgent 用户代理
      */
-    void recordAccess(Long fileId, String accessType, Long userId, String userName, 
+    void recordAccess(Long fileId, Long tenantId, String accessType, Long userId, String userName, 
                       String ip, String userAgent);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.mota.file.service;
 import com.mota.file.entity.FileInfo;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 文件预览服务接口
@@ -53,6 +54,21 @@ public interface PreviewService {
      */
     String generateTextPreview(FileInfo fileInfo);
 
+    /**
+     * 提交预览生成任务（目前为文本文件的HTML预览）；已生成时直接完成，不需要生成的类型返回 null
+     *
+     * @param fileInfo 文件信息
+     * @return 预览URL
+     */
+    CompletableFuture<String> submitPreview(FileInfo fileInfo);
+
+    /**
+     * 删除源对象的预览文件（源对象删除时调用）
+     *
+     * @param fileInfo 文件信息
+     */
+    void deletePreview(FileInfo fileInfo);
+
     /**
      * 检查是否支持预览
      *
@@ -2,6 +2,7 @@ package com.mota.file.service;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 存储服务接口
@@ -47,13 +48,23 @@ public interface StorageService {
      */
     String initiateMultipartUpload(String bucketName, String objectName, String contentType);
 
+    /**
+     * 列出已上传的分片
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param uploadId 上传ID
+     * @return 分片编号到ETag的映射（按分片编号排序）
+     */
+    Map<Integer, String> listParts(String bucketName, String objectName, String uploadId);
+
     /**
      * 完成分片上传
      *
      * @param bucketName 存储桶名称
      * @param objectName 对象名称
      * @param uploadId 上传ID
-     * @param partETags 分片ETag列表
+     * @param partETags 分片ETag列表（按分片编号1..n排列）
      * @return 文件URL
      */
     String completeMultipartUpload(String bucketName, String objectName, String uploadId, 
@@ -77,6 +88,17 @@ public interface StorageService {
      */
     InputStream downloadFile(String bucketName, String objectName);
 
+    /**
+     * 下载文件的指定字节范围
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param offset 起始偏移
+     * @param length 字节数
+     * @return 输入流
+     */
+    InputStream downloadFile(String bucketName, String objectName, long offset, long length);
+
     /**
      * 删除文件
      *
@@ -121,6 +143,17 @@ public interface StorageService {
      */
     String getPresignedUrl(String bucketName, String objectName, int expiry);
 
+    /**
+     * 获取预签名下载URL，响应以附件形式返回并带原始文件名
+     *
+     * @param bucketName 存储桶名称
+     * @param objectName 对象名称
+     * @param expiry 过期时间（秒）
+     * @param fileName 下载文件名
+     * @return 预签名URL
+     */
+    String getPresignedDownloadUrl(String bucketName, String objectName, int expiry, String fileName);
+
     /**
      * 获取预签名上传URL
      *
@@ -3,9 +3,13 @@ package com.mota.file.service;
 import com.mota.file.entity.FileInfo;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 缩略图服务接口
+ *
+ * 缩略图由派生线程池从源文件流生成，按源对象和尺寸档位存放在确定的位置，
+ * 共享同一存储对象的文件记录共用缩略图。generate* 方法在派生线程中同步执行，请求线程只读取已生成的结果
  * 
  * @author mota
  */
@@ -51,6 +55,23 @@ public interface ThumbnailService {
      */
     String generateOfficeThumbnail(FileInfo fileInfo, int width, int height);
 
+    /**
+     * 提交缩略图生成任务；已生成时直接完成，同一缩略图正在生成时复用该任务
+     *
+     * @param fileInfo 文件信息
+     * @param width 宽度
+     * @param height 高度
+     * @return 缩略图URL，不支持的类型或生成失败时为 null
+     */
+    CompletableFuture<String> submitThumbnail(FileInfo fileInfo, int width, int height);
+
+    /**
+     * 删除源对象的全部尺寸档位缩略图（源对象删除时调用）
+     *
+     * @param fileInfo 文件信息
+     */
+    void deleteThumbnails(FileInfo fileInfo);
+
     /**
      * 获取缩略图
      *
@@ -1,35 +1,51 @@
 package com.mota.file.service.impl;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.IdUtil;
-import cn.hutool.crypto.digest.DigestUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mota.common.core.exception.BusinessException;
+import com.mota.common.redis.service.RedisService;
 import com.mota.file.config.MinioConfig;
 import com.mota.file.dto.*;
 import com.mota.file.entity.ChunkUploadTask;
+import com.mota.file.entity.FileBlob;
 import com.mota.file.entity.FileAccessLog;
 import com.mota.file.entity.FileInfo;
 import com.mota.file.mapper.ChunkUploadTaskMapper;
-import com.mota.file.mapper.FileAccessLogMapper;
+import com.mota.file.mapper.FileBlobMapper;
 import com.mota.file.mapper.FileInfoMapper;
 import com.mota.file.service.FileService;
+import com.mota.file.service.PreviewService;
 import com.mota.file.service.StorageService;
+import com.mota.file.service.ThumbnailService;
+import com.mota.file.support.FileAccessBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.Tika;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -44,75 +60,91 @@ public class FileServiceImpl implements FileService {
 
     private final FileInfoMapper fileInfoMapper;
     private final ChunkUploadTaskMapper chunkUploadTaskMapper;
-    private final FileAccessLogMapper fileAccessLogMapper;
+    private final FileAccessBuffer fileAccessBuffer;
+    private final FileBlobMapper fileBlobMapper;
+    private final RedisService redisService;
     private final StorageService storageService;
+    private final ThumbnailService thumbnailService;
+    private final PreviewService previewService;
     private final MinioConfig minioConfig;
     private final ObjectMapper objectMapper;
     private final Tika tika = new Tika();
 
+    /**
+     * 类型探测缓冲区大小，Tika 只读取文件头部，探测后回退到缓冲区起点继续上传
+     */
+    private static final int SNIFF_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * S3分片上传限制：除最后一片外每片不小于5MB，最多10000片
+     */
+    private static final long MIN_PART_SIZE = 5 * 1024 * 1024L;
+    private static final long MAX_PARTS = 10000;
+
+    /**
+     * 分片上传进度缓存（Hash：分片索引 -> ETag）
+     */
+    private static final String PARTS_KEY_PREFIX = "file:chunk:parts:";
+
+    @Value("${file.thumbnail.default-width:200}")
+    private int defaultThumbnailWidth;
+
+    @Value("${file.thumbnail.default-height:200}")
+    private int defaultThumbnailHeight;
+
+    /**
+     * 大文件下载是否重定向到预签名地址，由客户端直连对象存储，不经过文件服务转发
+     */
+    @Value("${file.download.redirect-enabled:false}")
+    private boolean downloadRedirectEnabled;
+
+    @Value("${file.download.redirect-min-size:67108864}")
+    private long downloadRedirectMinSize;
+
+    @Value("${file.download.redirect-expiry:300}")
+    private int downloadRedirectExpiry;
+
     @Override
     @Transactional
     public FileInfoVO uploadFile(MultipartFile file, FileUploadRequest request,
                                   Long tenantId, Long userId, String userName) {
         try {
-            // 计算文件MD5
-            String md5Hash = DigestUtil.md5Hex(file.getInputStream());
-            
-            // 检查秒传
-            FileInfo existingFile = fileInfoMapper.findByMd5Hash(md5Hash, tenantId);
-            if (existingFile != null) {
-                log.info("秒传成功: md5={}, fileId={}", md5Hash, existingFile.getId());
-                return FileInfoVO.fromEntity(existingFile);
-            }
-
-            // 获取文件信息
             String originalFilename = file.getOriginalFilename();
             String extension = FileUtil.extName(originalFilename);
-            String mimeType = tika.detect(file.getInputStream(), originalFilename);
-            String category = getFileCategory(mimeType);
-
-            // 生成存储路径
-            String storageName = IdUtil.fastSimpleUUID() + "." + extension;
-            String storagePath = generateStoragePath(tenantId, category, storageName);
             
             // 选择存储桶
             String bucketName = Boolean.TRUE.equals(request.getIsPublic()) 
                     ? minioConfig.getPublicBucket() 
                     : minioConfig.getDefaultBucket();
 
-            // 上传文件
-            String fileUrl = storageService.uploadFile(bucketName, storagePath, 
-                    file.getInputStream(), mimeType, file.getSize());
-
-            // 保存文件信息
-            FileInfo fileInfo = new FileInfo();
-            fileInfo.setTenantId(tenantId);
-            fileInfo.setFileName(originalFilename);
-            fileInfo.setStorageName(storageName);
-            fileInfo.setFilePath(storagePath);
-            fileInfo.setFileUrl(fileUrl);
-            fileInfo.setFileSize(file.getSize());
-            fileInfo.setMimeType(mimeType);
-            fileInfo.setExtension(extension);
-            fileInfo.setMd5Hash(md5Hash);
-            fileInfo.setBucketName(bucketName);
-            fileInfo.setStorageType(FileInfo.StorageType.MINIO);
-            fileInfo.setCategory(category);
-            fileInfo.setBusinessType(request.getBusinessType());
-            fileInfo.setBusinessId(request.getBusinessId());
-            fileInfo.setIsPublic(request.getIsPublic());
-            fileInfo.setAccessCount(0L);
-            fileInfo.setDownloadCount(0L);
-            fileInfo.setUploadUserId(userId);
-            fileInfo.setUploadUserName(userName);
-            fileInfo.setStatus(FileInfo.Status.NORMAL);
-
-            fileInfoMapper.insert(fileInfo);
-
-            // 异步生成缩略图
-            if (FileInfo.Category.IMAGE.equals(category) && Boolean.TRUE.equals(request.getGenerateThumbnail())) {
-                generateThumbnailAsync(fileInfo, request.getThumbnailWidth(), request.getThumbnailHeight());
+            // 单次读取：从缓冲的文件头探测类型，随后边计算MD5/SHA256边流式上传（大文件由MinIO客户端自动分片）
+            String mimeType;
+            String storagePath;
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new BufferedInputStream(file.getInputStream(), SNIFF_BUFFER_SIZE)) {
+                mimeType = tika.detect(in, originalFilename);
+                String storageName = IdUtil.fastSimpleUUID() + "." + extension;
+                storagePath = generateStoragePath(tenantId, getFileCategory(mimeType), storageName);
+                storageService.uploadFile(bucketName, storagePath,
+                        new DigestInputStream(new DigestInputStream(in, md5), sha256), mimeType, file.getSize());
             }
+            deleteOnRollback(bucketName, storagePath);
+
+            // 登记内容；租户内已有相同内容时删除刚上传的对象，引用已有对象
+            FileBlob blob = registerBlob(tenantId, bucketName, storagePath, HexUtil.encodeHexStr(sha256.digest()),
+                    HexUtil.encodeHexStr(md5.digest()), file.getSize(), mimeType);
+            FileInfo fileInfo = saveFileInfo(blob, originalFilename, mimeType,
+                    request.getBusinessType(), request.getBusinessId(), tenantId, userId, userName);
+
+            // 事务提交后由派生线程池预生成缩略图和预览，回写地址时文件记录已可见
+            boolean generateThumbnail = Boolean.TRUE.equals(request.getGenerateThumbnail());
+            afterCommit(() -> {
+                if (generateThumbnail) {
+                    submitThumbnail(fileInfo, request.getThumbnailWidth(), request.getThumbnailHeight());
+                }
+                previewService.submitPreview(fileInfo);
+            });
 
             return FileInfoVO.fromEntity(fileInfo);
         } catch (Exception e) {
@@ -130,26 +162,18 @@ public class FileServiceImpl implements FileService {
                 .collect(Collectors.toList());
     }
 
-    @Override
-    public FileInfoVO checkInstantUpload(String md5Hash, Long tenantId) {
-        FileInfo fileInfo = fileInfoMapper.findByMd5Hash(md5Hash, tenantId);
-        return FileInfoVO.fromEntity(fileInfo);
-    }
-
     @Override
     @Transactional
     public ChunkUploadInitResponse initChunkUpload(ChunkUploadInitRequest request,
                                                     Long tenantId, Long userId) {
-        // 检查秒传
-        FileInfo existingFile = fileInfoMapper.findByMd5Hash(request.getMd5Hash(), tenantId);
-        if (existingFile != null) {
-            return ChunkUploadInitResponse.instantUpload(FileInfoVO.fromEntity(existingFile));
-        }
+        String bucketName = Boolean.TRUE.equals(request.getIsPublic()) 
+                ? minioConfig.getPublicBucket() 
+                : minioConfig.getDefaultBucket();
 
-        // 检查断点续传
-        ChunkUploadTask existingTask = chunkUploadTaskMapper.findByMd5Hash(request.getMd5Hash(), tenantId);
-        if (existingTask != null) {
-            List<Integer> uploadedChunks = parseUploadedIndexes(existingTask.getUploadedIndexes());
+        // 检查断点续传：只续传本人的任务；不按客户端声明的哈希秒传，重复内容在合并后按服务端哈希去重
+        ChunkUploadTask existingTask = chunkUploadTaskMapper.findByMd5Hash(request.getMd5Hash(), tenantId, userId);
+        if (existingTask != null && existingTask.getStorageUploadId() != null) {
+            List<Integer> uploadedChunks = loadUploadedIndexes(existingTask);
             return ChunkUploadInitResponse.resumeUpload(
                     existingTask.getUploadId(),
                     uploadedChunks,
@@ -159,30 +183,32 @@ public class FileServiceImpl implements FileService {
             );
         }
 
-        // 创建新的上传任务
+        // 创建新的上传任务：分片大小不小于S3下限，分片数不超过S3上限
         String uploadId = IdUtil.fastSimpleUUID();
-        int totalChunks = (int) Math.ceil((double) request.getFileSize() / request.getChunkSize());
+        long chunkSize = Math.max(request.getChunkSize() != null ? request.getChunkSize() : MIN_PART_SIZE, MIN_PART_SIZE);
+        chunkSize = Math.max(chunkSize, (request.getFileSize() + MAX_PARTS - 1) / MAX_PARTS);
+        int totalChunks = (int) ((request.getFileSize() + chunkSize - 1) / chunkSize);
         
         String extension = FileUtil.extName(request.getFileName());
         String storageName = IdUtil.fastSimpleUUID() + "." + extension;
         String mimeType = request.getMimeType() != null ? request.getMimeType() : "application/octet-stream";
         String category = getFileCategory(mimeType);
         String storagePath = generateStoragePath(tenantId, category, storageName);
-        
-        String bucketName = Boolean.TRUE.equals(request.getIsPublic()) 
-                ? minioConfig.getPublicBucket() 
-                : minioConfig.getDefaultBucket();
+
+        // 直接映射为存储端原生分片上传会话，分片可并行上传，完成时只提交分片清单
+        String storageUploadId = storageService.initiateMultipartUpload(bucketName, storagePath, mimeType);
 
         ChunkUploadTask task = new ChunkUploadTask();
         task.setTenantId(tenantId);
         task.setUploadId(uploadId);
+        task.setStorageUploadId(storageUploadId);
         task.setFileName(request.getFileName());
         task.setFileSize(request.getFileSize());
         task.setMd5Hash(request.getMd5Hash());
         task.setMimeType(mimeType);
         task.setBucketName(bucketName);
         task.setStoragePath(storagePath);
-        task.setChunkSize(request.getChunkSize());
+        task.setChunkSize(chunkSize);
         task.setTotalChunks(totalChunks);
         task.setUploadedChunks(0);
         task.setUploadedIndexes("[]");
@@ -192,11 +218,10 @@ public class FileServiceImpl implements FileService {
 
         chunkUploadTaskMapper.insert(task);
 
-        return ChunkUploadInitResponse.newUpload(uploadId, totalChunks, request.getChunkSize(), task.getExpireTime());
+        return ChunkUploadInitResponse.newUpload(uploadId, totalChunks, chunkSize, task.getExpireTime());
     }
 
     @Override
-    @Transactional
     public boolean uploadChunk(String uploadId, int chunkIndex, MultipartFile file, Long tenantId) {
         ChunkUploadTask task = chunkUploadTaskMapper.findByUploadId(uploadId, tenantId);
         if (task == null) {
@@ -205,23 +230,28 @@ public class FileServiceImpl implements FileService {
         if (task.getStatus() != ChunkUploadTask.Status.UPLOADING) {
             throw new BusinessException("上传任务状态异常");
         }
+        if (task.getStorageUploadId() == null) {
+            throw new BusinessException("上传任务已失效，请重新上传");
+        }
+        if (chunkIndex < 0 || chunkIndex >= task.getTotalChunks()) {
+            throw new BusinessException("分片索引超出范围");
+        }
+        // 分片大小必须与初始化时确定的大小一致（可能已被上调到S3下限），否则要到合并时才因分片过小失败
+        boolean lastChunk = chunkIndex == task.getTotalChunks() - 1;
+        long expectedSize = lastChunk
+                ? task.getFileSize() - task.getChunkSize() * (task.getTotalChunks() - 1)
+                : task.getChunkSize();
+        if (lastChunk ? file.getSize() > expectedSize : file.getSize() != expectedSize) {
+            throw new BusinessException("分片大小不正确，应为 " + expectedSize + " 字节");
+        }
 
-        try {
-            // 上传分片
-            String partObjectName = task.getStoragePath() + ".part" + chunkIndex;
-            storageService.uploadFile(task.getBucketName(), partObjectName, 
-                    file.getInputStream(), "application/octet-stream", file.getSize());
-
-            // 更新已上传分片信息
-            List<Integer> uploadedIndexes = parseUploadedIndexes(task.getUploadedIndexes());
-            if (!uploadedIndexes.contains(chunkIndex)) {
-                uploadedIndexes.add(chunkIndex);
-                uploadedIndexes.sort(Integer::compareTo);
-            }
-
-            String indexesJson = objectMapper.writeValueAsString(uploadedIndexes);
-            chunkUploadTaskMapper.updateUploadProgress(task.getId(), uploadedIndexes.size(), indexesJson);
-
+        try (InputStream in = file.getInputStream()) {
+            // 分片直接写入存储端会话（分片号从1开始），进度记录在Redis，不逐片写库
+            String etag = storageService.uploadPart(task.getBucketName(), task.getStoragePath(),
+                    task.getStorageUploadId(), chunkIndex + 1, in, file.getSize());
+            String partsKey = PARTS_KEY_PREFIX + uploadId;
+            redisService.hSet(partsKey, String.valueOf(chunkIndex), etag);
+            redisService.expire(partsKey, Math.max(1, Duration.between(LocalDateTime.now(), task.getExpireTime()).getSeconds()));
             return true;
         } catch (Exception e) {
             log.error("上传分片失败: uploadId={}, chunkIndex={}", uploadId, chunkIndex, e);
@@ -236,50 +266,51 @@ public class FileServiceImpl implements FileService {
         if (task == null) {
             throw new BusinessException("上传任务不存在");
         }
+        if (task.getStatus() != ChunkUploadTask.Status.UPLOADING || task.getStorageUploadId() == null) {
+            throw new BusinessException("上传任务状态异常");
+        }
 
-        List<Integer> uploadedIndexes = parseUploadedIndexes(task.getUploadedIndexes());
-        if (uploadedIndexes.size() != task.getTotalChunks()) {
+        // 以存储端的分片清单为准，不依赖缓存
+        Map<Integer, String> parts = storageService.listParts(task.getBucketName(), task.getStoragePath(),
+                task.getStorageUploadId());
+        if (parts.size() != task.getTotalChunks() || !parts.containsKey(task.getTotalChunks())) {
             throw new BusinessException("分片未全部上传完成");
         }
 
         try {
-            // 合并分片
-            List<String> partNames = new ArrayList<>();
+            // 合并分片：只提交分片清单，存储端不复制数据
+            storageService.completeMultipartUpload(task.getBucketName(), task.getStoragePath(),
+                    task.getStorageUploadId(), new ArrayList<>(parts.values()));
+            deleteOnRollback(task.getBucketName(), task.getStoragePath());
+
+            // 分片可乱序并行上传，无法边传边算，合并后读回对象计算内容哈希，再按内容登记（重复时复用已有对象）
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(new DigestInputStream(
+                    storageService.downloadFile(task.getBucketName(), task.getStoragePath()), md5), sha256)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            FileBlob blob = registerBlob(tenantId, task.getBucketName(), task.getStoragePath(),
+                    HexUtil.encodeHexStr(sha256.digest()), HexUtil.encodeHexStr(md5.digest()),
+                    task.getFileSize(), task.getMimeType());
+            FileInfo fileInfo = saveFileInfo(blob, task.getFileName(), task.getMimeType(),
+                    null, null, tenantId, userId, userName);
+
+            // 完成时一次性落库进度并更新任务状态
+            List<Integer> uploadedIndexes = new ArrayList<>();
             for (int i = 0; i < task.getTotalChunks(); i++) {
-                partNames.add(task.getStoragePath() + ".part" + i);
+                uploadedIndexes.add(i);
             }
-
-            String fileUrl = storageService.completeMultipartUpload(
-                    task.getBucketName(), task.getStoragePath(), uploadId, partNames);
-
-            // 保存文件信息
-            String extension = FileUtil.extName(task.getFileName());
-            String category = getFileCategory(task.getMimeType());
-
-            FileInfo fileInfo = new FileInfo();
-            fileInfo.setTenantId(tenantId);
-            fileInfo.setFileName(task.getFileName());
-            fileInfo.setStorageName(FileUtil.getName(task.getStoragePath()));
-            fileInfo.setFilePath(task.getStoragePath());
-            fileInfo.setFileUrl(fileUrl);
-            fileInfo.setFileSize(task.getFileSize());
-            fileInfo.setMimeType(task.getMimeType());
-            fileInfo.setExtension(extension);
-            fileInfo.setMd5Hash(task.getMd5Hash());
-            fileInfo.setBucketName(task.getBucketName());
-            fileInfo.setStorageType(FileInfo.StorageType.MINIO);
-            fileInfo.setCategory(category);
-            fileInfo.setIsPublic(minioConfig.getPublicBucket().equals(task.getBucketName()));
-            fileInfo.setAccessCount(0L);
-            fileInfo.setDownloadCount(0L);
-            fileInfo.setUploadUserId(userId);
-            fileInfo.setUploadUserName(userName);
-            fileInfo.setStatus(FileInfo.Status.NORMAL);
-
-            fileInfoMapper.insert(fileInfo);
-
-            // 更新任务状态
+            chunkUploadTaskMapper.updateUploadProgress(task.getId(), uploadedIndexes.size(),
+                    objectMapper.writeValueAsString(uploadedIndexes));
             chunkUploadTaskMapper.completeTask(task.getId(), fileInfo.getId());
+            redisService.delete(PARTS_KEY_PREFIX + uploadId);
+
+            // 事务提交后由派生线程池预生成缩略图和预览，回写地址时文件记录已可见
+            afterCommit(() -> {
+                submitThumbnail(fileInfo, defaultThumbnailWidth, defaultThumbnailHeight);
+                previewService.submitPreview(fileInfo);
+            });
 
             return FileInfoVO.fromEntity(fileInfo);
         } catch (Exception e) {
@@ -296,8 +327,11 @@ public class FileServiceImpl implements FileService {
             return;
         }
 
-        // 删除已上传的分片
-        storageService.abortMultipartUpload(task.getBucketName(), task.getStoragePath(), uploadId);
+        // 取消存储端会话，释放已上传的分片
+        if (task.getStorageUploadId() != null) {
+            storageService.abortMultipartUpload(task.getBucketName(), task.getStoragePath(), task.getStorageUploadId());
+        }
+        redisService.delete(PARTS_KEY_PREFIX + uploadId);
 
         // 更新任务状态
         chunkUploadTaskMapper.cancelTask(task.getId());
@@ -309,7 +343,10 @@ public class FileServiceImpl implements FileService {
         if (task == null) {
             throw new BusinessException("上传任务不存在");
         }
-        return parseUploadedIndexes(task.getUploadedIndexes());
+        if (task.getStatus() != ChunkUploadTask.Status.UPLOADING || task.getStorageUploadId() == null) {
+            return parseUploadedIndexes(task.getUploadedIndexes());
+        }
+        return loadUploadedIndexes(task);
     }
 
     @Override
@@ -328,12 +365,44 @@ public class FileServiceImpl implements FileService {
             throw new BusinessException("文件不存在");
         }
 
-        // 增加下载次数
-        fileInfoMapper.incrementDownloadCount(fileId);
-
         return storageService.downloadFile(fileInfo.getBucketName(), fileInfo.getFilePath());
     }
 
+    @Override
+    public FileDownloadInfo getDownloadInfo(Long fileId, Long tenantId) {
+        FileInfo fileInfo = fileInfoMapper.selectById(fileId);
+        if (fileInfo == null || !fileInfo.getTenantId().equals(tenantId)) {
+            throw new BusinessException("文件不存在");
+        }
+
+        FileDownloadInfo info = new FileDownloadInfo();
+        info.setFileId(fileId);
+        info.setFileName(fileInfo.getFileName());
+        info.setMimeType(fileInfo.getMimeType());
+        info.setFileSize(fileInfo.getFileSize());
+        // 存储对象上传后不再修改：有内容哈希时用哈希（共享内容的文件ETag相同），否则用文件ID
+        String validator = StringUtils.hasText(fileInfo.getSha256Hash())
+                ? fileInfo.getSha256Hash()
+                : fileId + "-" + fileInfo.getFileSize();
+        info.setETag("\"" + validator + "\"");
+        info.setLastModified(fileInfo.getCreateTime());
+        if (downloadRedirectEnabled && fileInfo.getFileSize() != null
+                && fileInfo.getFileSize() >= downloadRedirectMinSize) {
+            info.setRedirectUrl(storageService.getPresignedDownloadUrl(fileInfo.getBucketName(),
+                    fileInfo.getFilePath(), downloadRedirectExpiry, fileInfo.getFileName()));
+        }
+        return info;
+    }
+
+    @Override
+    public InputStream downloadFile(Long fileId, Long tenantId, long offset, long length) {
+        FileInfo fileInfo = fileInfoMapper.selectById(fileId);
+        if (fileInfo == null || !fileInfo.getTenantId().equals(tenantId)) {
+            throw new BusinessException("文件不存在");
+        }
+        return storageService.downloadFile(fileInfo.getBucketName(), fileInfo.getFilePath(), offset, length);
+    }
+
     @Override
     public String getPresignedUrl(Long fileId, Long tenantId, int expiry) {
         FileInfo fileInfo = fileInfoMapper.selectById(fileId);
@@ -390,32 +459,136 @@ public class FileServiceImpl implements FileService {
     }
 
     @Override
-    @Async
-    public void recordAccess(Long fileId, String accessType, Long userId, String userName,
+    public void recordAccess(Long fileId, Long tenantId, String accessType, Long userId, String userName,
                              String ip, String userAgent) {
-        try {
-            FileInfo fileInfo = fileInfoMapper.selectById(fileId);
-            if (fileInfo == null) {
-                return;
+        // 只入队，由缓冲区批量写入日志并累加日汇总和下载次数
+        FileAccessLog accessLog = new FileAccessLog();
+        accessLog.setTenantId(tenantId);
+        accessLog.setFileId(fileId);
+        accessLog.setAccessType(accessType);
+        accessLog.setUserId(userId);
+        accessLog.setUserName(userName);
+        accessLog.setAccessIp(ip);
+        accessLog.setUserAgent(userAgent);
+        accessLog.setSuccess(true);
+        fileAccessBuffer.offer(accessLog);
+    }
+
+    /**
+     * 引用租户内已有的内容，不存在或正在回收时返回null
+     */
+    private FileBlob referenceBlob(Long tenantId, String bucketName, String sha256Hash) {
+        FileBlob blob = fileBlobMapper.findByHash(tenantId, bucketName, sha256Hash.toLowerCase());
+        if (blob == null || fileBlobMapper.incrementRef(blob.getId()) == 0) {
+            return null;
+        }
+        return blob;
+    }
+
+    /**
+     * 登记刚上传的对象；相同内容已存在时（含并发上传）删除该对象并引用已有内容
+     */
+    private FileBlob registerBlob(Long tenantId, String bucketName, String objectPath, String sha256Hash,
+                                  String md5Hash, long fileSize, String mimeType) {
+        FileBlob existing = referenceBlob(tenantId, bucketName, sha256Hash);
+        if (existing == null) {
+            FileBlob blob = new FileBlob();
+            blob.setTenantId(tenantId);
+            blob.setSha256Hash(sha256Hash);
+            blob.setMd5Hash(md5Hash);
+            blob.setBucketName(bucketName);
+            blob.setObjectPath(objectPath);
+            blob.setFileSize(fileSize);
+            blob.setMimeType(mimeType);
+            blob.setRefCount(1);
+            try {
+                fileBlobMapper.insert(blob);
+                return blob;
+            } catch (DuplicateKeyException e) {
+                // 并发上传已先登记相同内容，快照读看不到对方刚提交的记录，改用加锁读取最新版本
+                existing = fileBlobMapper.findByHashForUpdate(tenantId, bucketName, sha256Hash);
+                if (existing == null || fileBlobMapper.incrementRef(existing.getId()) == 0) {
+                    deleteObject(bucketName, objectPath);
+                    throw new BusinessException("文件内容正在回收，请重试");
+                }
             }
+        }
+        deleteObject(bucketName, objectPath);
+        log.info("相同内容已存在，复用对象: sha256={}, blobId={}", sha256Hash, existing.getId());
+        return existing;
+    }
 
-            FileAccessLog log = new FileAccessLog();
-            log.setTenantId(fileInfo.getTenantId());
-            log.setFileId(fileId);
-            log.setAccessType(accessType);
-            log.setUserId(userId);
-            log.setUserName(userName);
-            log.setAccessIp(ip);
-            log.setUserAgent(userAgent);
-            log.setAccessTime(LocalDateTime.now());
-            log.setSuccess(true);
-
-            fileAccessLogMapper.insert(log);
+    /**
+     * 事务回滚时删除刚上传的对象，避免登记或保存记录失败后留下无引用的对象
+     */
+    private void deleteOnRollback(String bucketName, String objectPath) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        deleteObject(bucketName, objectPath);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 在当前事务提交后执行，无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void deleteObject(String bucketName, String objectPath) {
+        try {
+            storageService.deleteFile(bucketName, objectPath);
         } catch (Exception e) {
-            log.error("记录文件访问失败: fileId={}", fileId, e);
+            log.warn("删除对象失败: bucket={}, object={}", bucketName, objectPath);
         }
     }
 
+    /**
+     * 保存引用指定内容的文件记录
+     */
+    private FileInfo saveFileInfo(FileBlob blob, String fileName, String mimeType, String businessType,
+                                  Long businessId, Long tenantId, Long userId, String userName) {
+        FileInfo fileInfo = new FileInfo();
+        fileInfo.setTenantId(tenantId);
+        fileInfo.setFileName(fileName);
+        fileInfo.setStorageName(FileUtil.getName(blob.getObjectPath()));
+        fileInfo.setFilePath(blob.getObjectPath());
+        fileInfo.setFileUrl(storageService.getFileUrl(blob.getBucketName(), blob.getObjectPath()));
+        fileInfo.setFileSize(blob.getFileSize());
+        fileInfo.setMimeType(mimeType);
+        fileInfo.setExtension(FileUtil.extName(fileName));
+        fileInfo.setMd5Hash(blob.getMd5Hash());
+        fileInfo.setSha256Hash(blob.getSha256Hash());
+        fileInfo.setBucketName(blob.getBucketName());
+        fileInfo.setStorageType(FileInfo.StorageType.MINIO);
+        fileInfo.setCategory(getFileCategory(mimeType));
+        fileInfo.setBusinessType(businessType);
+        fileInfo.setBusinessId(businessId);
+        fileInfo.setIsPublic(minioConfig.getPublicBucket().equals(blob.getBucketName()));
+        fileInfo.setAccessCount(0L);
+        fileInfo.setDownloadCount(0L);
+        fileInfo.setUploadUserId(userId);
+        fileInfo.setUploadUserName(userName);
+        fileInfo.setStatus(FileInfo.Status.NORMAL);
+        fileInfoMapper.insert(fileInfo);
+        return fileInfo;
+    }
+
     /**
      * 生成存储路径
      */
@@ -451,6 +624,32 @@ public class FileServiceImpl implements FileService {
         return FileInfo.Category.OTHER;
     }
 
+    /**
+     * 读取上传中任务的已上传分片索引：优先读Redis，缓存丢失时从存储端分片清单恢复
+     */
+    private List<Integer> loadUploadedIndexes(ChunkUploadTask task) {
+        String partsKey = PARTS_KEY_PREFIX + task.getUploadId();
+        Map<Object, Object> cached = redisService.hGetAll(partsKey);
+        if (cached == null || cached.isEmpty()) {
+            Map<Integer, String> parts = storageService.listParts(task.getBucketName(), task.getStoragePath(),
+                    task.getStorageUploadId());
+            if (parts.isEmpty()) {
+                return new ArrayList<>();
+            }
+            Map<String, Object> restored = new HashMap<>();
+            parts.forEach((partNumber, etag) -> restored.put(String.valueOf(partNumber - 1), etag));
+            redisService.hSetAll(partsKey, restored);
+            redisService.expire(partsKey, Math.max(1, Duration.between(LocalDateTime.now(), task.getExpireTime()).getSeconds()));
+            cached = new HashMap<>(restored);
+        }
+        List<Integer> indexes = new ArrayList<>(cached.size());
+        for (Object index : cached.keySet()) {
+            indexes.add(Integer.valueOf(index.toString()));
+        }
+        indexes.sort(Integer::compareTo);
+        return indexes;
+    }
+
     /**
      * 解析已上传分片索引
      */
@@ -466,11 +665,12 @@ public class FileServiceImpl implements FileService {
     }
 
     /**
-     * 异步生成缩略图
+     * 提交缩略图生成任务（图片和PDF）
      */
-    @Async
-    public void generateThumbnailAsync(FileInfo fileInfo, int width, int height) {
-        // 缩略图生成逻辑将在ThumbnailService中实现
-        log.info("异步生成缩略图: fileId={}, width={}, height={}", fileInfo.getId(), width, height);
+    private void submitThumbnail(FileInfo fileInfo, int width, int height) {
+        if (FileInfo.Category.IMAGE.equals(fileInfo.getCategory())
+                || "pdf".equalsIgnoreCase(fileInfo.getExtension())) {
+            thumbnailService.submitThumbnail(fileInfo, width, height);
+        }
     }
 }
\ No newline at end of file
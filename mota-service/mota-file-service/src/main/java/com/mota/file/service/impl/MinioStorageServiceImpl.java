@@ -1,18 +1,23 @@
 package com.mota.file.service.impl;
 
 import com.mota.file.config.MinioConfig;
+import com.mota.file.config.MultipartMinioClient;
 import com.mota.file.service.StorageService;
 import io.minio.*;
 import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
+import io.minio.messages.Part;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -28,6 +33,7 @@ public class MinioStorageServiceImpl implements StorageService {
 
     private final MinioClient minioClient;
     private final MinioConfig minioConfig;
+    private final MultipartMinioClient multipartMinioClient;
 
     @Override
     public String uploadFile(String bucketName, String objectName, InputStream inputStream,
@@ -52,16 +58,8 @@ public class MinioStorageServiceImpl implements StorageService {
     @Override
     public String uploadPart(String bucketName, String objectName, String uploadId,
                              int partNumber, InputStream inputStream, long size) {
-        // MinIO的分片上传需要使用特殊的API
-        // 这里简化处理，实际应使用MinIO的分片上传API
         try {
-            String partObjectName = objectName + ".part" + partNumber;
-            minioClient.putObject(PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(partObjectName)
-                    .stream(inputStream, size, -1)
-                    .build());
-            return partObjectName;
+            return multipartMinioClient.uploadPart(bucketName, objectName, uploadId, partNumber, inputStream, size);
         } catch (Exception e) {
             log.error("上传分片失败: bucket={}, object={}, part={}", bucketName, objectName, partNumber, e);
             throw new RuntimeException("上传分片失败", e);
@@ -70,32 +68,45 @@ public class MinioStorageServiceImpl implements StorageService {
 
     @Override
     public String initiateMultipartUpload(String bucketName, String objectName, String contentType) {
-        // MinIO使用不同的分片上传机制
-        // 返回一个唯一标识符作为uploadId
-        return java.util.UUID.randomUUID().toString();
+        try {
+            ensureBucketExists(bucketName);
+            return multipartMinioClient.createMultipartUpload(bucketName, objectName, contentType);
+        } catch (Exception e) {
+            log.error("初始化分片上传失败: bucket={}, object={}", bucketName, objectName, e);
+            throw new RuntimeException("初始化分片上传失败", e);
+        }
+    }
+
+    @Override
+    public Map<Integer, String> listParts(String bucketName, String objectName, String uploadId) {
+        try {
+            Map<Integer, String> parts = new TreeMap<>();
+            int marker = 0;
+            ListPartsResponse response;
+            do {
+                response = multipartMinioClient.listParts(bucketName, objectName, uploadId, marker);
+                for (Part part : response.result().partList()) {
+                    parts.put(part.partNumber(), part.etag());
+                }
+                marker = response.result().nextPartNumberMarker();
+            } while (response.result().isTruncated());
+            return parts;
+        } catch (Exception e) {
+            log.error("列出分片失败: bucket={}, object={}", bucketName, objectName, e);
+            throw new RuntimeException("列出分片失败", e);
+        }
     }
 
     @Override
     public String completeMultipartUpload(String bucketName, String objectName, String uploadId,
                                           List<String> partETags) {
         try {
-            // 合并所有分片
-            List<ComposeSource> sources = partETags.stream()
-                    .map(partName -> ComposeSource.builder()
-                            .bucket(bucketName)
-                            .object(partName)
-                            .build())
-                    .collect(Collectors.toList());
-
-            minioClient.composeObject(ComposeObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .sources(sources)
-                    .build());
-
-            // 删除分片文件
-            deleteFiles(bucketName, partETags);
-
+            // 合并只提交分片清单，由存储服务端拼接元数据，不复制数据
+            Part[] parts = new Part[partETags.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new Part(i + 1, partETags.get(i));
+            }
+            multipartMinioClient.completeMultipartUpload(bucketName, objectName, uploadId, parts).get();
             return getFileUrl(bucketName, objectName);
         } catch (Exception e) {
             log.error("完成分片上传失败: bucket={}, object={}", bucketName, objectName, e);
@@ -105,23 +116,8 @@ public class MinioStorageServiceImpl implements StorageService {
 
     @Override
     public void abortMultipartUpload(String bucketName, String objectName, String uploadId) {
-        // 删除已上传的分片
         try {
-            // 列出并删除所有分片
-            Iterable<io.minio.Result<io.minio.messages.Item>> results = minioClient.listObjects(
-                    ListObjectsArgs.builder()
-                            .bucket(bucketName)
-                            .prefix(objectName + ".part")
-                            .build());
-            
-            List<String> partNames = new ArrayList<>();
-            for (io.minio.Result<io.minio.messages.Item> result : results) {
-                partNames.add(result.get().objectName());
-            }
-            
-            if (!partNames.isEmpty()) {
-                deleteFiles(bucketName, partNames);
-            }
+            multipartMinioClient.abortMultipartUpload(bucketName, objectName, uploadId).get();
         } catch (Exception e) {
             log.error("取消分片上传失败: bucket={}, object={}", bucketName, objectName, e);
         }
@@ -140,6 +136,22 @@ public class MinioStorageServiceImpl implements StorageService {
         }
     }
 
+    @Override
+    public InputStream downloadFile(String bucketName, String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (Exception e) {
+            log.error("范围下载文件失败: bucket={}, object={}, offset={}, length={}",
+                    bucketName, objectName, offset, length, e);
+            throw new RuntimeException("下载文件失败", e);
+        }
+    }
+
     @Override
     public void deleteFile(String bucketName, String objectName) {
         try {
@@ -209,6 +221,24 @@ public class MinioStorageServiceImpl implements StorageService {
         }
     }
 
+    @Override
+    public String getPresignedDownloadUrl(String bucketName, String objectName, int expiry, String fileName) {
+        try {
+            String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20");
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.GET)
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .expiry(expiry, TimeUnit.SECONDS)
+                    .extraQueryParams(Map.of("response-content-disposition",
+                            "attachment; filename*=UTF-8''" + encodedFileName))
+                    .build());
+        } catch (Exception e) {
+            log.error("获取预签名下载URL失败: bucket={}, object={}", bucketName, objectName, e);
+            throw new RuntimeException("获取预签名URL失败", e);
+        }
+    }
+
     @Override
     public String getPresignedUploadUrl(String bucketName, String objectName, int expiry) {
         try {
@@ -1,7 +1,7 @@
 package com.mota.file.service.impl;
 
-import cn.hutool.core.util.IdUtil;
 import com.mota.common.core.exception.BusinessException;
+import com.mota.file.config.DerivativeExecutor;
 import com.mota.file.config.MinioConfig;
 import com.mota.file.entity.FileInfo;
 import com.mota.file.mapper.FileInfoMapper;
@@ -9,18 +9,32 @@ import com.mota.file.service.PreviewService;
 import com.mota.file.service.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 文件预览服务实现
+ *
+ * 图片、PDF 与文本直接以流的形式返回源文件；文本的 HTML 预览由派生线程池逐块转义写入临时文件后上传，
+ * 按源对象存放在确定的位置，不把源文件读入内存。
  * 
  * @author mota
  */
@@ -32,6 +46,41 @@ public class PreviewServiceImpl implements PreviewService {
     private final StorageService storageService;
     private final FileInfoMapper fileInfoMapper;
     private final MinioConfig minioConfig;
+    private final DerivativeExecutor derivativeExecutor;
+
+    /**
+     * 文本预览最多包含的字符数，超出部分截断
+     */
+    @Value("${file.preview.max-text-chars:1048576}")
+    private int maxTextChars;
+
+    /**
+     * 正在生成的预览（存储键 -> 任务）
+     */
+    private final Map<String, CompletableFuture<String>> inflight = new ConcurrentHashMap<>();
+
+    private static final String HTML_HEAD = """
+            <!DOCTYPE html>
+            <html>
+            <head>
+                <meta charset="UTF-8">
+                <title>文件预览</title>
+                <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.8.0/styles/github.min.css">
+                <script src="https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.8.0/highlight.min.js"></script>
+                <style>
+                    body { margin: 0; padding: 20px; font-family: monospace; }
+                    pre { margin: 0; white-space: pre-wrap; word-wrap: break-word; }
+                </style>
+            </head>
+            <body>
+                <pre><code class="language-%s">""";
+
+    private static final String HTML_TAIL = """
+            </code></pre>
+                <script>hljs.highlightAll();</script>
+            </body>
+            </html>
+            """;
 
     /**
      * 支持预览的MIME类型
@@ -66,8 +115,8 @@ public class PreviewServiceImpl implements PreviewService {
 
         // 如果已有预览文件，直接返回
         if (fileInfo.getPreviewPath() != null) {
-            String previewPath = extractPathFromUrl(fileInfo.getPreviewPath());
-            return storageService.downloadFile(minioConfig.getPreviewBucket(), previewPath);
+            return storageService.downloadFile(minioConfig.getPreviewBucket(),
+                    extractPathFromUrl(fileInfo.getPreviewPath()));
         }
 
         // 根据文件类型处理
@@ -78,9 +127,9 @@ public class PreviewServiceImpl implements PreviewService {
             return storageService.downloadFile(fileInfo.getBucketName(), fileInfo.getFilePath());
         }
 
-        // 文本文件直接返回
-        if (mimeType.startsWith("text/") || mimeType.equals("application/json") 
-                || mimeType.equals("application/xml")) {
+        // 文本文件直接返回源文件流，HTML预览在后台生成，下次访问时使用
+        if (isTextDocument(mimeType)) {
+            submitPreview(fileInfo);
             return storageService.downloadFile(fileInfo.getBucketName(), fileInfo.getFilePath());
         }
 
@@ -88,8 +137,7 @@ public class PreviewServiceImpl implements PreviewService {
         if (isOfficeDocument(mimeType)) {
             String previewUrl = generateOfficePreview(fileInfo);
             if (previewUrl != null) {
-                String previewPath = extractPathFromUrl(previewUrl);
-                return storageService.downloadFile(minioConfig.getPreviewBucket(), previewPath);
+                return storageService.downloadFile(minioConfig.getPreviewBucket(), extractPathFromUrl(previewUrl));
             }
         }
 
@@ -158,39 +206,86 @@ public class PreviewServiceImpl implements PreviewService {
 
     @Override
     public String generateTextPreview(FileInfo fileInfo) {
+        Path tempFile = null;
         try {
-            // 下载文本文件
-            InputStream inputStream = storageService.downloadFile(
-                    fileInfo.getBucketName(), fileInfo.getFilePath());
-            
-            // 读取内容
-            byte[] content = inputStream.readAllBytes();
-            String text = new String(content, StandardCharsets.UTF_8);
-            
-            // 生成HTML预览
-            String html = generateHtmlPreview(text, fileInfo.getExtension());
-            
+            // 边读边转义写入临时文件，内存只占一个读缓冲区
+            tempFile = Files.createTempFile("mota-preview-", ".html");
+            try (InputStream inputStream = storageService.downloadFile(
+                        fileInfo.getBucketName(), fileInfo.getFilePath());
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+                 BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(String.format(HTML_HEAD, getLanguageFromExtension(fileInfo.getExtension())));
+                writeEscaped(reader, writer, maxTextChars);
+                writer.write(HTML_TAIL);
+            }
+
             // 上传预览文件
-            String previewName = String.format("preview_%s.html", IdUtil.fastSimpleUUID());
-            String previewPath = generatePreviewPath(fileInfo, previewName);
-            
-            ByteArrayInputStream htmlInputStream = new ByteArrayInputStream(
-                    html.getBytes(StandardCharsets.UTF_8));
-            String previewUrl = storageService.uploadFile(
-                    minioConfig.getPreviewBucket(),
-                    previewPath,
-                    htmlInputStream,
-                    "text/html",
-                    html.length());
-            
-            // 更新文件信息
-            fileInfo.setPreviewPath(previewUrl);
-            fileInfoMapper.updateById(fileInfo);
-            
+            String previewUrl;
+            try (InputStream htmlInputStream = Files.newInputStream(tempFile)) {
+                previewUrl = storageService.uploadFile(
+                        minioConfig.getPreviewBucket(),
+                        previewPath(fileInfo),
+                        htmlInputStream,
+                        "text/html",
+                        Files.size(tempFile));
+            }
+
+            // 更新共享该存储对象的文件记录
+            fileInfoMapper.updatePreviewPath(fileInfo.getBucketName(), fileInfo.getFilePath(), previewUrl);
             return previewUrl;
         } catch (Exception e) {
             log.error("生成文本预览失败: fileId={}", fileInfo.getId(), e);
             return null;
+        } finally {
+            deleteTempFile(tempFile);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> submitPreview(FileInfo fileInfo) {
+        if (!isTextDocument(fileInfo.getMimeType())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String previewPath = previewPath(fileInfo);
+
+        CompletableFuture<String> task = new CompletableFuture<>();
+        CompletableFuture<String> running = inflight.putIfAbsent(previewPath, task);
+        if (running != null) {
+            return running;
+        }
+        try {
+            derivativeExecutor.execute(() -> {
+                try {
+                    String previewUrl;
+                    if (storageService.fileExists(minioConfig.getPreviewBucket(), previewPath)) {
+                        // 共享内容的其他文件已生成预览，回写到新的文件记录
+                        previewUrl = storageService.getFileUrl(minioConfig.getPreviewBucket(), previewPath);
+                        fileInfoMapper.updatePreviewPath(fileInfo.getBucketName(), fileInfo.getFilePath(), previewUrl);
+                    } else {
+                        previewUrl = generateTextPreview(fileInfo);
+                    }
+                    task.complete(previewUrl);
+                } catch (Exception e) {
+                    log.error("生成预览失败: fileId={}", fileInfo.getId(), e);
+                    task.complete(null);
+                } finally {
+                    inflight.remove(previewPath, task);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("派生任务队列已满，跳过预览生成: fileId={}", fileInfo.getId());
+            inflight.remove(previewPath, task);
+            task.complete(null);
+        }
+        return task;
+    }
+
+    @Override
+    public void deletePreview(FileInfo fileInfo) {
+        try {
+            storageService.deleteFile(minioConfig.getPreviewBucket(), previewPath(fileInfo));
+        } catch (Exception e) {
+            log.warn("删除预览文件失败: fileId={}", fileInfo.getId());
         }
     }
 
@@ -219,43 +314,37 @@ public class PreviewServiceImpl implements PreviewService {
     }
 
     /**
-     * 生成HTML预览
+     * 检查是否为可生成HTML预览的文本文件
      */
-    private String generateHtmlPreview(String content, String extension) {
-        String escapedContent = escapeHtml(content);
-        String language = getLanguageFromExtension(extension);
-        
-        return String.format("""
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <title>文件预览</title>
-                <link rel="stylesheet" href="https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.8.0/styles/github.min.css">
-                <script src="https://cdnjs.cloudflare.com/ajax/libs/highlight.js/11.8.0/highlight.min.js"></script>
-                <style>
-                    body { margin: 0; padding: 20px; font-family: monospace; }
-                    pre { margin: 0; white-space: pre-wrap; word-wrap: break-word; }
-                </style>
-            </head>
-            <body>
-                <pre><code class="language-%s">%s</code></pre>
-                <script>hljs.highlightAll();</script>
-            </body>
-            </html>
-            """, language, escapedContent);
+    private boolean isTextDocument(String mimeType) {
+        return mimeType != null && (mimeType.startsWith("text/")
+                || mimeType.equals("application/json") || mimeType.equals("application/xml"));
     }
 
     /**
-     * HTML转义
+     * 逐块读取并做HTML转义，最多写出 limit 个字符
      */
-    private String escapeHtml(String content) {
-        return content
-                .replace("&", "&amp;")
-                .replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("\"", "&quot;")
-                .replace("'", "&#39;");
+    private void writeEscaped(BufferedReader reader, Writer writer, int limit) throws IOException {
+        char[] buffer = new char[8192];
+        int remaining = limit;
+        int read;
+        while (remaining > 0 && (read = reader.read(buffer, 0, Math.min(buffer.length, remaining))) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                switch (c) {
+                    case '&' -> writer.write("&amp;");
+                    case '<' -> writer.write("&lt;");
+                    case '>' -> writer.write("&gt;");
+                    case '"' -> writer.write("&quot;");
+                    case '\'' -> writer.write("&#39;");
+                    default -> writer.write(c);
+                }
+            }
+            remaining -= read;
+        }
+        if (remaining == 0 && reader.read() != -1) {
+            writer.write("\n\n……（内容过长，预览已截断）");
+        }
     }
 
     /**
@@ -289,10 +378,10 @@ public class PreviewServiceImpl implements PreviewService {
     }
 
     /**
-     * 生成预览文件存储路径
+     * 预览文件存储路径：由源对象确定，同一内容的文件记录共用
      */
-    private String generatePreviewPath(FileInfo fileInfo, String previewName) {
-        return String.format("%d/previews/%s", fileInfo.getTenantId(), previewName);
+    private String previewPath(FileInfo fileInfo) {
+        return String.format("%s/%s.html", fileInfo.getBucketName(), fileInfo.getFilePath());
     }
 
     /**
@@ -305,4 +394,15 @@ public class PreviewServiceImpl implements PreviewService {
         }
         return url;
     }
+
+    private void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", tempFile);
+        }
+    }
 }
\ No newline at end of file
@@ -1,28 +1,54 @@
 package com.mota.file.service.impl;
 
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.IdUtil;
+import com.mota.file.config.DerivativeExecutor;
 import com.mota.file.config.MinioConfig;
 import com.mota.file.entity.FileInfo;
 import com.mota.file.mapper.FileInfoMapper;
 import com.mota.file.service.StorageService;
 import com.mota.file.service.ThumbnailService;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.coobird.thumbnailator.Thumbnails;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 缩略图服务实现
- * 
+ *
+ * 图片按目标尺寸做子采样解码（ImageIO 以临时文件缓存输入流），内存只与缩略图尺寸相关；
+ * PDF 先落盘到临时文件，只渲染首页且渲染缓存也走临时文件，不把整个文件读入内存。
+ *
  * @author mota
  */
 @Slf4j
@@ -33,40 +59,53 @@ public class ThumbnailServiceImpl implements ThumbnailService {
     private final StorageService storageService;
     private final FileInfoMapper fileInfoMapper;
     private final MinioConfig minioConfig;
+    private final DerivativeExecutor derivativeExecutor;
+
+    /**
+     * 子采样解码后保留的尺寸倍数，缩放时有足够的像素保证画质
+     */
+    private static final int DECODE_OVERSAMPLE = 2;
+
+    /**
+     * PDF 渲染的最大缩放比例（相当于 150 DPI）
+     */
+    private static final float MAX_PDF_SCALE = 150f / 72f;
+
+    /**
+     * 缩略图尺寸档位，请求尺寸向上取整到档位，避免任意尺寸撑大派生缓存
+     */
+    @Value("${file.thumbnail.sizes:64,200,400,800}")
+    private int[] sizes;
+
+    @Value("${file.thumbnail.default-width:200}")
+    private int defaultSize;
+
+    @Value("${file.thumbnail.quality:0.8}")
+    private double quality;
+
+    /**
+     * 请求线程等待缩略图生成的最长时间，超时返回空，由客户端稍后重试
+     */
+    @Value("${file.thumbnail.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    /**
+     * 正在生成的缩略图（存储键 -> 任务）
+     */
+    private final Map<String, CompletableFuture<String>> inflight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Arrays.sort(sizes);
+    }
 
     @Override
-    @Async
     public String generateImageThumbnail(FileInfo fileInfo, int width, int height) {
-        try {
-            // 下载原图
-            InputStream inputStream = storageService.downloadFile(
-                    fileInfo.getBucketName(), fileInfo.getFilePath());
-
-            // 生成缩略图
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            Thumbnails.of(inputStream)
-                    .size(width, height)
-                    .keepAspectRatio(true)
-                    .outputFormat("jpg")
-                    .outputQuality(0.8)
-                    .toOutputStream(outputStream);
-
-            // 上传缩略图
-            String thumbnailName = String.format("thumb_%dx%d_%s.jpg", width, height, 
-                    IdUtil.fastSimpleUUID());
-            String thumbnailPath = generateThumbnailPath(fileInfo, thumbnailName);
-
-            ByteArrayInputStream thumbnailInputStream = new ByteArrayInputStream(outputStream.toByteArray());
-            String thumbnailUrl = storageService.uploadFile(
-                    minioConfig.getThumbnailBucket(), 
-                    thumbnailPath,
-                    thumbnailInputStream,
-                    "image/jpeg",
-                    outputStream.size());
-
-            // 更新文件信息
-            fileInfo.setThumbnailPath(thumbnailUrl);
-            fileInfoMapper.updateById(fileInfo);
+        int size = snapSize(width, height);
+        try (InputStream inputStream = storageService.downloadFile(
+                fileInfo.getBucketName(), fileInfo.getFilePath())) {
+            BufferedImage image = readSubsampled(inputStream, size);
+            String thumbnailUrl = uploadThumbnail(fileInfo, size, image);
 
             log.info("生成图片缩略图成功: fileId={}, thumbnailUrl={}", fileInfo.getId(), thumbnailUrl);
             return thumbnailUrl;
@@ -77,7 +116,6 @@ public class ThumbnailServiceImpl implements ThumbnailService {
     }
 
     @Override
-    @Async
     public String generateVideoThumbnail(FileInfo fileInfo, int width, int height) {
         // 视频缩略图需要FFmpeg支持，这里提供基本框架
         log.info("视频缩略图生成需要FFmpeg支持: fileId={}", fileInfo.getId());
@@ -86,44 +124,29 @@ public class ThumbnailServiceImpl implements ThumbnailService {
     }
 
     @Override
-    @Async
     public String generatePdfThumbnail(FileInfo fileInfo, int width, int height) {
+        int size = snapSize(width, height);
+        Path tempFile = null;
         try {
-            // 下载PDF文件
-            InputStream inputStream = storageService.downloadFile(
-                    fileInfo.getBucketName(), fileInfo.getFilePath());
+            // 落盘后按需读取，首页渲染不需要整个文件常驻内存
+            tempFile = Files.createTempFile("mota-thumb-", ".pdf");
+            try (InputStream inputStream = storageService.downloadFile(
+                    fileInfo.getBucketName(), fileInfo.getFilePath())) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
 
-            // 读取PDF第一页
-            byte[] pdfBytes = inputStream.readAllBytes();
-            try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            try (PDDocument document = Loader.loadPDF(tempFile.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+                if (document.getNumberOfPages() == 0) {
+                    return null;
+                }
+                // 按目标尺寸计算渲染比例，而不是固定 DPI 渲染整页大图
+                PDRectangle box = document.getPage(0).getCropBox();
+                float scale = Math.min((float) DECODE_OVERSAMPLE * size / Math.max(box.getWidth(), box.getHeight()),
+                        MAX_PDF_SCALE);
                 PDFRenderer renderer = new PDFRenderer(document);
-                BufferedImage image = renderer.renderImageWithDPI(0, 150);
-
-                // 生成缩略图
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                Thumbnails.of(image)
-                        .size(width, height)
-                        .keepAspectRatio(true)
-                        .outputFormat("jpg")
-                        .outputQuality(0.8)
-                        .toOutputStream(outputStream);
-
-                // 上传缩略图
-                String thumbnailName = String.format("thumb_%dx%d_%s.jpg", width, height,
-                        IdUtil.fastSimpleUUID());
-                String thumbnailPath = generateThumbnailPath(fileInfo, thumbnailName);
-
-                ByteArrayInputStream thumbnailInputStream = new ByteArrayInputStream(outputStream.toByteArray());
-                String thumbnailUrl = storageService.uploadFile(
-                        minioConfig.getThumbnailBucket(),
-                        thumbnailPath,
-                        thumbnailInputStream,
-                        "image/jpeg",
-                        outputStream.size());
-
-                // 更新文件信息
-                fileInfo.setThumbnailPath(thumbnailUrl);
-                fileInfoMapper.updateById(fileInfo);
+                renderer.setSubsamplingAllowed(true);
+                BufferedImage image = renderer.renderImage(0, scale, ImageType.RGB);
+                String thumbnailUrl = uploadThumbnail(fileInfo, size, image);
 
                 log.info("生成PDF缩略图成功: fileId={}, thumbnailUrl={}", fileInfo.getId(), thumbnailUrl);
                 return thumbnailUrl;
@@ -131,11 +154,12 @@ public class ThumbnailServiceImpl implements ThumbnailService {
         } catch (Exception e) {
             log.error("生成PDF缩略图失败: fileId={}", fileInfo.getId(), e);
             return null;
+        } finally {
+            deleteTempFile(tempFile);
         }
     }
 
     @Override
-    @Async
     public String generateOfficeThumbnail(FileInfo fileInfo, int width, int height) {
         // Office文档缩略图需要LibreOffice或其他工具支持
         log.info("Office文档缩略图生成需要额外工具支持: fileId={}", fileInfo.getId());
@@ -143,6 +167,48 @@ public class ThumbnailServiceImpl implements ThumbnailService {
         return null;
     }
 
+    @Override
+    public CompletableFuture<String> submitThumbnail(FileInfo fileInfo, int width, int height) {
+        int size = snapSize(width, height);
+        String thumbnailPath = thumbnailPath(fileInfo, size);
+
+        CompletableFuture<String> task = new CompletableFuture<>();
+        CompletableFuture<String> running = inflight.putIfAbsent(thumbnailPath, task);
+        if (running != null) {
+            return running;
+        }
+        try {
+            derivativeExecutor.execute(() -> {
+                try {
+                    task.complete(renderThumbnail(fileInfo, size, thumbnailPath));
+                } catch (Exception e) {
+                    log.error("生成缩略图失败: fileId={}", fileInfo.getId(), e);
+                    task.complete(null);
+                } finally {
+                    inflight.remove(thumbnailPath, task);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("派生任务队列已满，跳过缩略图生成: fileId={}", fileInfo.getId());
+            inflight.remove(thumbnailPath, task);
+            task.complete(null);
+        }
+        return task;
+    }
+
+    @Override
+    public void deleteThumbnails(FileInfo fileInfo) {
+        List<String> thumbnailPaths = new ArrayList<>(sizes.length);
+        for (int size : sizes) {
+            thumbnailPaths.add(thumbnailPath(fileInfo, size));
+        }
+        try {
+            storageService.deleteFiles(minioConfig.getThumbnailBucket(), thumbnailPaths);
+        } catch (Exception e) {
+            log.warn("删除缩略图失败: fileId={}", fileInfo.getId());
+        }
+    }
+
     @Override
     public InputStream getThumbnail(Long fileId, int width, int height) {
         FileInfo fileInfo = fileInfoMapper.selectById(fileId);
@@ -150,58 +216,138 @@ public class ThumbnailServiceImpl implements ThumbnailService {
             return null;
         }
 
-        // 如果已有缩略图，直接返回
-        if (fileInfo.getThumbnailPath() != null) {
-            String thumbnailPath = extractPathFromUrl(fileInfo.getThumbnailPath());
-            return storageService.downloadFile(minioConfig.getThumbnailBucket(), thumbnailPath);
+        // 缩略图已生成时直接从存储读取；否则交给派生线程池生成，请求线程只做有限等待
+        String thumbnailPath = thumbnailPath(fileInfo, snapSize(width, height));
+        if (!storageService.fileExists(minioConfig.getThumbnailBucket(), thumbnailPath)) {
+            try {
+                if (submitThumbnail(fileInfo, width, height).get(waitTimeoutMs, TimeUnit.MILLISECONDS) == null) {
+                    return null;
+                }
+            } catch (TimeoutException e) {
+                log.debug("缩略图生成中: fileId={}", fileId);
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
         }
+        return storageService.downloadFile(minioConfig.getThumbnailBucket(), thumbnailPath);
+    }
 
-        // 根据文件类型生成缩略图
-        String category = fileInfo.getCategory();
-        String thumbnailUrl = null;
+    // ==================== 私有方法 ====================
 
+    /**
+     * 在派生线程中生成缩略图；已存在时（共享内容的其他文件已生成）回写地址后直接返回
+     */
+    private String renderThumbnail(FileInfo fileInfo, int size, String thumbnailPath) {
+        if (storageService.fileExists(minioConfig.getThumbnailBucket(), thumbnailPath)) {
+            String thumbnailUrl = storageService.getFileUrl(minioConfig.getThumbnailBucket(), thumbnailPath);
+            if (size == snapSize(defaultSize, defaultSize)) {
+                fileInfoMapper.updateThumbnailPath(fileInfo.getBucketName(), fileInfo.getFilePath(), thumbnailUrl);
+            }
+            return thumbnailUrl;
+        }
+        String category = fileInfo.getCategory();
+        if (category == null) {
+            return null;
+        }
         switch (category) {
             case FileInfo.Category.IMAGE:
-                thumbnailUrl = generateImageThumbnail(fileInfo, width, height);
-                break;
+                return generateImageThumbnail(fileInfo, size, size);
             case FileInfo.Category.VIDEO:
-                thumbnailUrl = generateVideoThumbnail(fileInfo, width, height);
-                break;
+                return generateVideoThumbnail(fileInfo, size, size);
             case FileInfo.Category.DOCUMENT:
                 if ("pdf".equalsIgnoreCase(fileInfo.getExtension())) {
-                    thumbnailUrl = generatePdfThumbnail(fileInfo, width, height);
-                } else {
-                    thumbnailUrl = generateOfficeThumbnail(fileInfo, width, height);
+                    return generatePdfThumbnail(fileInfo, size, size);
                 }
-                break;
+                return generateOfficeThumbnail(fileInfo, size, size);
             default:
                 return null;
         }
+    }
 
-        if (thumbnailUrl != null) {
-            String thumbnailPath = extractPathFromUrl(thumbnailUrl);
-            return storageService.downloadFile(minioConfig.getThumbnailBucket(), thumbnailPath);
+    /**
+     * 按目标尺寸子采样解码图片：只解码约两倍于缩略图的像素，超大原图不会整张载入内存
+     */
+    private BufferedImage readSubsampled(InputStream inputStream, int size) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(inputStream)) {
+            if (imageInput == null) {
+                throw new IOException("无法读取图片流");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                throw new IOException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int sourceSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, sourceSide / (DECODE_OVERSAMPLE * size));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
         }
+    }
 
-        return null;
+    /**
+     * 缩放、编码并上传缩略图；默认档位的地址回写到共享该存储对象的文件记录
+     */
+    private String uploadThumbnail(FileInfo fileInfo, int size, BufferedImage image) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Thumbnails.of(image)
+                .size(size, size)
+                .keepAspectRatio(true)
+                .imageType(BufferedImage.TYPE_INT_RGB)
+                .outputFormat("jpg")
+                .outputQuality(quality)
+                .toOutputStream(outputStream);
+
+        String thumbnailUrl = storageService.uploadFile(
+                minioConfig.getThumbnailBucket(),
+                thumbnailPath(fileInfo, size),
+                new ByteArrayInputStream(outputStream.toByteArray()),
+                "image/jpeg",
+                outputStream.size());
+
+        if (size == snapSize(defaultSize, defaultSize)) {
+            fileInfoMapper.updateThumbnailPath(fileInfo.getBucketName(), fileInfo.getFilePath(), thumbnailUrl);
+        }
+        return thumbnailUrl;
     }
 
     /**
-     * 生成缩略图存储路径
+     * 请求尺寸向上取整到档位，超出最大档位时取最大档位
      */
-    private String generateThumbnailPath(FileInfo fileInfo, String thumbnailName) {
-        return String.format("%d/thumbnails/%s", fileInfo.getTenantId(), thumbnailName);
+    private int snapSize(int width, int height) {
+        int wanted = Math.max(width, height);
+        for (int size : sizes) {
+            if (size >= wanted) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
     }
 
     /**
-     * 从URL中提取路径
+     * 缩略图存储路径：由源对象和尺寸档位确定，同一内容的文件记录共用
      */
-    private String extractPathFromUrl(String url) {
-        // 假设URL格式为: http://endpoint/bucket/path
-        int bucketIndex = url.indexOf(minioConfig.getThumbnailBucket());
-        if (bucketIndex > 0) {
-            return url.substring(bucketIndex + minioConfig.getThumbnailBucket().length() + 1);
+    private String thumbnailPath(FileInfo fileInfo, int size) {
+        return String.format("%s/%s_%d.jpg", fileInfo.getBucketName(), fileInfo.getFilePath(), size);
+    }
+
+    private void deleteTempFile(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", tempFile);
         }
-        return url;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package com.mota.file.support;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.mota.file.entity.FileAccessDaily;
+import com.mota.file.entity.FileAccessLog;
+import com.mota.file.mapper.FileAccessDailyMapper;
+import com.mota.file.mapper.FileAccessLogMapper;
+import com.mota.file.mapper.FileInfoMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 文件访问日志异步缓冲区
+ *
+ * 下载、预览请求只把访问记录放入无锁队列（ConcurrentLinkedQueue + 原子计数限长），
+ * 由后台线程在攒满批量大小或到达刷新间隔时多行插入 file_access_log，
+ * 并把同一批次内的访问按 文件/日期/类型 合并后累加到 file_access_daily，下载次数按文件合并后一次累加。
+ * 队列满时丢弃新记录并计数，不阻塞下载请求。
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileAccessBuffer {
+
+    private final FileAccessLogMapper fileAccessLogMapper;
+    private final FileAccessDailyMapper fileAccessDailyMapper;
+    private final FileInfoMapper fileInfoMapper;
+
+    @Value("${file.access-log.buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${file.access-log.buffer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${file.access-log.buffer.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private static final String ACCESS_TYPE_DOWNLOAD = "download";
+
+    private final Queue<FileAccessLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+    private Thread flushThread;
+    private volatile boolean running;
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong flushedCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        flushThread = new Thread(this::flushLoop, "file-access-flusher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+        log.info("文件访问日志缓冲区已启动: capacity={}, batchSize={}, flushIntervalMs={}",
+                capacity, batchSize, flushIntervalMs);
+    }
+
+    /**
+     * 提交一条访问记录，ID和访问时间在入队时分配
+     *
+     * @return 是否成功入队
+     */
+    public boolean offer(FileAccessLog accessLog) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            long dropped = droppedCount.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                log.warn("文件访问日志缓冲区已满，记录被丢弃: dropped={}", dropped);
+            }
+            return false;
+        }
+        if (accessLog.getId() == null) {
+            accessLog.setId(IdWorker.getId());
+        }
+        if (accessLog.getAccessTime() == null) {
+            accessLog.setAccessTime(LocalDateTime.now());
+        }
+        queue.offer(accessLog);
+        // 刚好攒满一批时唤醒刷新线程，不必等到刷新间隔
+        if (size.get() == batchSize) {
+            LockSupport.unpark(flushThread);
+        }
+        return true;
+    }
+
+    /**
+     * 获取缓冲区运行状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("pending", size.get());
+        status.put("flushed", flushedCount.get());
+        status.put("dropped", droppedCount.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(flushThread);
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("文件访问日志缓冲区已关闭: flushed={}, dropped={}, remaining={}",
+                flushedCount.get(), droppedCount.get(), size.get());
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long deadline = System.nanoTime() + intervalNanos;
+        while (running || size.get() > 0) {
+            try {
+                long remaining = deadline - System.nanoTime();
+                if (running && size.get() < batchSize && remaining > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                    continue;
+                }
+                deadline = System.nanoTime() + intervalNanos;
+                List<FileAccessLog> batch = drain();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (Exception e) {
+                log.error("文件访问日志批量写入异常", e);
+            }
+        }
+    }
+
+    private List<FileAccessLog> drain() {
+        List<FileAccessLog> batch = new ArrayList<>(Math.min(batchSize, Math.max(size.get(), 1)));
+        FileAccessLog accessLog;
+        while (batch.size() < batchSize && (accessLog = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(accessLog);
+        }
+        return batch;
+    }
+
+    private void flush(List<FileAccessLog> batch) {
+        try {
+            fileAccessLogMapper.insertBatch(batch);
+            flushedCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            log.error("批量插入文件访问日志失败: size={}", batch.size(), e);
+        }
+
+        Map<String, FileAccessDaily> daily = new LinkedHashMap<>();
+        Map<Long, Long> downloads = new LinkedHashMap<>();
+        for (FileAccessLog accessLog : batch) {
+            LocalDate statDate = accessLog.getAccessTime().toLocalDate();
+            FileAccessDaily counter = daily.computeIfAbsent(
+                    accessLog.getFileId() + "|" + statDate + "|" + accessLog.getAccessType(),
+                    k -> FileAccessDaily.builder()
+                            .tenantId(accessLog.getTenantId()).fileId(accessLog.getFileId())
+                            .statDate(statDate).accessType(accessLog.getAccessType())
+                            .accessCount(0L)
+                            .build());
+            counter.setAccessCount(counter.getAccessCount() + 1);
+            if (ACCESS_TYPE_DOWNLOAD.equals(accessLog.getAccessType())) {
+                downloads.merge(accessLog.getFileId(), 1L, Long::sum);
+            }
+        }
+
+        try {
+            fileAccessDailyMapper.upsertBatch(new ArrayList<>(daily.values()));
+            for (Map.Entry<Long, Long> entry : downloads.entrySet()) {
+                fileInfoMapper.addDownloadCount(entry.getKey(), entry.getValue());
+            }
+        } catch (Exception e) {
+            log.error("更新文件访问汇总失败: size={}", batch.size(), e);
+        }
+    }
+}
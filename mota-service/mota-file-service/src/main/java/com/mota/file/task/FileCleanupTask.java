@@ -1,10 +1,15 @@
 package com.mota.file.task;
 
+import com.mota.common.redis.service.RedisService;
 import com.mota.file.entity.ChunkUploadTask;
+import com.mota.file.entity.FileBlob;
 import com.mota.file.entity.FileInfo;
 import com.mota.file.mapper.ChunkUploadTaskMapper;
+import com.mota.file.mapper.FileBlobMapper;
 import com.mota.file.mapper.FileInfoMapper;
+import com.mota.file.service.PreviewService;
 import com.mota.file.service.StorageService;
+import com.mota.file.service.ThumbnailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,8 +30,17 @@ import java.util.List;
 public class FileCleanupTask {
 
     private final FileInfoMapper fileInfoMapper;
+    private final FileBlobMapper fileBlobMapper;
     private final ChunkUploadTaskMapper chunkUploadTaskMapper;
     private final StorageService storageService;
+    private final ThumbnailService thumbnailService;
+    private final PreviewService previewService;
+    private final RedisService redisService;
+
+    /**
+     * 分片上传进度缓存前缀，与 FileServiceImpl 一致
+     */
+    private static final String CHUNK_PARTS_KEY_PREFIX = "file:chunk:parts:";
 
     /**
      * 已删除文件保留天数
@@ -57,28 +71,8 @@ public class FileCleanupTask {
                 
                 for (FileInfo fileInfo : deletedFiles) {
                     try {
-                        // 删除存储中的文件
-                        storageService.deleteFile(fileInfo.getBucketName(), fileInfo.getFilePath());
-                        
-                        // 删除缩略图
-                        if (fileInfo.getThumbnailPath() != null) {
-                            try {
-                                storageService.deleteFile(fileInfo.getBucketName(), 
-                                        extractPath(fileInfo.getThumbnailPath()));
-                            } catch (Exception e) {
-                                log.warn("删除缩略图失败: {}", fileInfo.getThumbnailPath());
-                            }
-                        }
-                        
-                        // 删除预览文件
-                        if (fileInfo.getPreviewPath() != null) {
-                            try {
-                                storageService.deleteFile(fileInfo.getBucketName(),
-                                        extractPath(fileInfo.getPreviewPath()));
-                            } catch (Exception e) {
-                                log.warn("删除预览文件失败: {}", fileInfo.getPreviewPath());
-                            }
-                        }
+                        // 释放文件内容，共享内容的引用归零后才删除存储中的对象及其缩略图、预览
+                        releaseContent(fileInfo);
                         
                         // 删除数据库记录
                         fileInfoMapper.deleteById(fileInfo.getId());
@@ -113,9 +107,12 @@ public class FileCleanupTask {
                 
                 for (ChunkUploadTask task : expiredTasks) {
                     try {
-                        // 删除已上传的分片
-                        storageService.abortMultipartUpload(task.getBucketName(), 
-                                task.getStoragePath(), task.getUploadId());
+                        // 取消存储端分片上传会话，释放已上传的分片
+                        if (task.getStorageUploadId() != null) {
+                            storageService.abortMultipartUpload(task.getBucketName(),
+                                    task.getStoragePath(), task.getStorageUploadId());
+                        }
+                        redisService.delete(CHUNK_PARTS_KEY_PREFIX + task.getUploadId());
                         
                         // 标记任务为过期
                         chunkUploadTaskMapper.markAsExpired(task.getId());
@@ -149,17 +146,29 @@ public class FileCleanupTask {
     }
 
     /**
-     * 从URL中提取路径
+     * 释放文件记录对内容的引用；未登记内容的文件（分片上传或历史数据）直接删除对象
      */
-    private String extractPath(String url) {
-        if (url == null) {
-            return null;
+    private void releaseContent(FileInfo fileInfo) {
+        FileBlob blob = fileInfo.getSha256Hash() != null
+                ? fileBlobMapper.findByHash(fileInfo.getTenantId(), fileInfo.getBucketName(), fileInfo.getSha256Hash())
+                : null;
+        if (blob == null || !blob.getObjectPath().equals(fileInfo.getFilePath())) {
+            storageService.deleteFile(fileInfo.getBucketName(), fileInfo.getFilePath());
+            deleteDerivatives(fileInfo);
+            return;
         }
-        // 简单处理，假设URL格式为 http://endpoint/bucket/path
-        int lastSlashIndex = url.lastIndexOf('/');
-        if (lastSlashIndex > 0) {
-            return url.substring(lastSlashIndex + 1);
+        fileBlobMapper.decrementRef(blob.getId());
+        if (fileBlobMapper.deleteIfUnreferenced(blob.getId()) > 0) {
+            storageService.deleteFile(blob.getBucketName(), blob.getObjectPath());
+            deleteDerivatives(fileInfo);
         }
-        return url;
+    }
+
+    /**
+     * 删除存储对象的缩略图和预览（按源对象确定的路径，与文件记录上的地址无关）
+     */
+    private void deleteDerivatives(FileInfo fileInfo) {
+        thumbnailService.deleteThumbnails(fileInfo);
+        previewService.deletePreview(fileInfo);
     }
 }
\ No newline at end of file
@@ -44,11 +44,29 @@ CREATE TABLE IF NOT EXISTS `file_info` (
     INDEX `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文件信息表';
 
+-- 文件内容表（内容寻址存储，相同内容每租户每存储桶只存一份）
+CREATE TABLE IF NOT EXISTS `file_blob` (
+    `id` BIGINT NOT NULL COMMENT 'ID',
+    `tenant_id` BIGINT NOT NULL COMMENT '租户ID',
+    `sha256_hash` VARCHAR(64) NOT NULL COMMENT '内容SHA256哈希值',
+    `md5_hash` VARCHAR(32) COMMENT '内容MD5哈希值',
+    `bucket_name` VARCHAR(100) NOT NULL COMMENT '存储桶名称',
+    `object_path` VARCHAR(1000) NOT NULL COMMENT '对象路径',
+    `file_size` BIGINT NOT NULL DEFAULT 0 COMMENT '内容大小（字节）',
+    `mime_type` VARCHAR(200) COMMENT '内容类型（MIME类型）',
+    `ref_count` INT NOT NULL DEFAULT 1 COMMENT '引用计数',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE INDEX `uk_tenant_bucket_hash` (`tenant_id`, `bucket_name`, `sha256_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文件内容表';
+
 -- 分片上传任务表
 CREATE TABLE IF NOT EXISTS `chunk_upload_task` (
     `id` BIGINT NOT NULL COMMENT '任务ID',
     `tenant_id` BIGINT NOT NULL COMMENT '租户ID',
     `upload_id` VARCHAR(64) NOT NULL COMMENT '上传标识（唯一标识一次上传）',
+    `storage_upload_id` VARCHAR(255) COMMENT '存储端分片上传会话ID（S3/MinIO UploadId）',
     `file_name` VARCHAR(500) NOT NULL COMMENT '文件名',
     `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
     `md5_hash` VARCHAR(32) COMMENT '文件MD5',
@@ -128,6 +146,20 @@ CREATE TABLE IF NOT EXISTS `file_access_log` (
     INDEX `idx_access_time` (`access_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文件访问日志表';
 
+-- 文件访问日汇总表（由访问日志缓冲区按批次累加）
+CREATE TABLE IF NOT EXISTS `file_access_daily` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `tenant_id` BIGINT NOT NULL COMMENT '租户ID',
+    `file_id` BIGINT NOT NULL COMMENT '文件ID',
+    `stat_date` DATE NOT NULL COMMENT '统计日期',
+    `access_type` VARCHAR(20) NOT NULL COMMENT '访问类型：view/download/preview/share',
+    `access_count` BIGINT NOT NULL DEFAULT 0 COMMENT '访问次数',
+    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_file_date_type` (`file_id`, `stat_date`, `access_type`),
+    INDEX `idx_tenant_date` (`tenant_id`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文件访问日汇总表';
+
 -- 存储配额表
 CREATE TABLE IF NOT EXISTS `storage_quota` (
     `id` BIGINT NOT NULL COMMENT 'ID',
@@ -5,6 +5,7 @@ import com.mota.knowledge.entity.ChunkUpload;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,4 +33,11 @@ public interface ChunkUploadMapper extends BaseMapper<ChunkUpload> {
      */
     @Select("SELECT * FROM chunk_upload WHERE status = 'uploading' AND expire_at < #{expireTime}")
     List<ChunkUpload> selectExpired(@Param("expireTime") LocalDateTime expireTime);
+
+    /**
+     * 更新已上传分片数（只在进度跨过持久化间隔或上传完成时调用）；只增不减，并行上传时较旧的计数不会覆盖较新的
+     */
+    @Update("UPDATE chunk_upload SET uploaded_chunks = GREATEST(IFNULL(uploaded_chunks, 0), #{uploadedChunks}), " +
+            "updated_at = NOW() WHERE id = #{id}")
+    int updateUploadedChunks(@Param("id") Long id, @Param("uploadedChunks") Integer uploadedChunks);
 }
\ No newline at end of file
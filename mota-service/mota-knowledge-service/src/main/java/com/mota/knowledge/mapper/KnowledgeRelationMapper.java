@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -44,6 +45,28 @@ public interface KnowledgeRelationMapper extends BaseMapper<KnowledgeRelation> {
             "WHERE (r.source_entity_id = #{entityId} OR r.target_entity_id = #{entityId}) AND r.deleted = 0")
     List<KnowledgeRelation> selectByEntity(@Param("entityId") Long entityId);
 
+    /**
+     * 批量获取一组实体的所有关系（双向），用于按层扩展子图；源端和目标端分别走索引后合并
+     */
+    @Select("<script>" +
+            "SELECT r.*, se.name as source_entity_name, te.name as target_entity_name " +
+            "FROM knowledge_relation r " +
+            "LEFT JOIN knowledge_entity se ON r.source_entity_id = se.id " +
+            "LEFT JOIN knowledge_entity te ON r.target_entity_id = te.id " +
+            "WHERE r.source_entity_id IN " +
+            "<foreach collection='entityIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " AND r.deleted = 0 " +
+            "UNION " +
+            "SELECT r.*, se.name as source_entity_name, te.name as target_entity_name " +
+            "FROM knowledge_relation r " +
+            "LEFT JOIN knowledge_entity se ON r.source_entity_id = se.id " +
+            "LEFT JOIN knowledge_entity te ON r.target_entity_id = te.id " +
+            "WHERE r.target_entity_id IN " +
+            "<foreach collection='entityIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            " AND r.deleted = 0" +
+            "</script>")
+    List<KnowledgeRelation> selectByEntityIds(@Param("entityIds") Collection<Long> entityIds);
+
     /**
      * 获取两个实体之间的关系
      */
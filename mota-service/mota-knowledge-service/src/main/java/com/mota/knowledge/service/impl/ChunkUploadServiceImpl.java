@@ -15,14 +15,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * 分片上传服务实现
@@ -40,6 +41,11 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
     private static final String TEMP_DIR = "/tmp/mota/chunks/";
     private static final long CHUNK_SIZE = 5 * 1024 * 1024; // 5MB
 
+    /**
+     * 进度持久化间隔：每新增这么多分片才写一次库，其余时间进度只在Redis位图中
+     */
+    private static final int PROGRESS_PERSIST_INTERVAL = 20;
+
     @Override
     @Transactional
     public Map<String, Object> initUpload(String fileName, Long fileSize, Integer totalChunks, String md5Hash) {
@@ -91,7 +97,6 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
     }
 
     @Override
-    @Transactional
     public ChunkUpload uploadChunk(String uploadId, Integer chunkIndex, byte[] chunkData, String chunkMd5) {
         ChunkUpload upload = chunkUploadMapper.selectByUploadId(uploadId);
         if (upload == null) {
@@ -114,16 +119,20 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
             throw new BusinessException("保存分片失败: " + e.getMessage());
         }
 
-        // 记录已上传的分片
-        String cacheKey = UPLOAD_CACHE_PREFIX + uploadId + ":chunks";
-        redisService.setCacheSetValue(cacheKey, chunkIndex.toString());
-        redisService.expire(cacheKey, 24, TimeUnit.HOURS);
-
-        // 更新上传进度
-        Set<String> uploadedSet = redisService.getCacheSet(cacheKey);
-        int uploadedCount = uploadedSet != null ? uploadedSet.size() : 0;
+        // 在位图中记录已上传的分片，BITCOUNT 即进度
+        String bitmapKey = bitmapKey(uploadId);
+        redisService.setBit(bitmapKey, chunkIndex, true);
+        redisService.expire(bitmapKey, 24, TimeUnit.HOURS);
+        Long bitCount = redisService.bitCount(bitmapKey);
+        int uploadedCount = bitCount != null ? bitCount.intValue() : 0;
+        int persistedCount = upload.getUploadedChunks() != null ? upload.getUploadedChunks() : 0;
         upload.setUploadedChunks(uploadedCount);
-        chunkUploadMapper.updateById(upload);
+
+        // 进度跨过间隔边界（与已落库的值比较，并行上传时计数可能跳过整倍数）或上传完成时落库
+        if (uploadedCount / PROGRESS_PERSIST_INTERVAL > persistedCount / PROGRESS_PERSIST_INTERVAL
+                || uploadedCount == upload.getTotalChunks()) {
+            chunkUploadMapper.updateUploadedChunks(upload.getId(), uploadedCount);
+        }
 
         log.info("上传分片: uploadId={}, chunkIndex={}, progress={}/{}", 
             uploadId, chunkIndex, uploadedCount, upload.getTotalChunks());
@@ -142,28 +151,40 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
         progress.put("uploadId", uploadId);
         progress.put("fileName", upload.getFileName());
         progress.put("fileSize", upload.getFileSize());
+        // 上传中的进度以Redis位图为准，数据库只按间隔落库
+        int uploadedChunks = upload.getUploadedChunks() != null ? upload.getUploadedChunks() : 0;
+        if ("uploading".equals(upload.getStatus())) {
+            Long bitCount = redisService.bitCount(bitmapKey(uploadId));
+            if (bitCount != null) {
+                uploadedChunks = Math.max(uploadedChunks, bitCount.intValue());
+            }
+        }
         progress.put("totalChunks", upload.getTotalChunks());
-        progress.put("uploadedChunks", upload.getUploadedChunks());
+        progress.put("uploadedChunks", uploadedChunks);
         progress.put("status", upload.getStatus());
         progress.put("progress", upload.getTotalChunks() > 0 
-            ? (double) upload.getUploadedChunks() / upload.getTotalChunks() * 100 : 0);
+            ? (double) uploadedChunks / upload.getTotalChunks() * 100 : 0);
 
         return progress;
     }
 
     @Override
     public List<Integer> getUploadedChunks(String uploadId) {
-        String cacheKey = UPLOAD_CACHE_PREFIX + uploadId + ":chunks";
-        Set<String> uploadedSet = redisService.getCacheSet(cacheKey);
-        
-        if (uploadedSet == null || uploadedSet.isEmpty()) {
-            return new ArrayList<>();
+        byte[] bitmap = redisService.getBytes(bitmapKey(uploadId));
+        List<Integer> chunks = new ArrayList<>();
+        if (bitmap == null) {
+            return chunks;
         }
 
-        return uploadedSet.stream()
-            .map(Integer::parseInt)
-            .sorted()
-            .collect(Collectors.toList());
+        // Redis 位图按字节从高位到低位编号
+        for (int i = 0; i < bitmap.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                if ((bitmap[i] & (0x80 >>> bit)) != 0) {
+                    chunks.add(i * 8 + bit);
+                }
+            }
+        }
+        return chunks;
     }
 
     @Override
@@ -174,7 +195,8 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
             throw new BusinessException("上传任务不存在");
         }
 
-        if (!upload.getUploadedChunks().equals(upload.getTotalChunks())) {
+        Long uploadedCount = redisService.bitCount(bitmapKey(uploadId));
+        if (uploadedCount == null || uploadedCount.intValue() != upload.getTotalChunks()) {
             throw new BusinessException("分片未全部上传完成");
         }
 
@@ -207,12 +229,14 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
         fileMapper.insert(file);
 
         // 更新上传状态
+        upload.setUploadedChunks(upload.getTotalChunks());
         upload.setStatus("completed");
         upload.setFileId(file.getId());
         chunkUploadMapper.updateById(upload);
 
-        // 清理临时文件
+        // 清理临时文件和进度位图
         cleanTempFiles(uploadId);
+        redisService.deleteObject(bitmapKey(uploadId));
 
         log.info("合并分片完成: uploadId={}, fileId={}", uploadId, file.getId());
         return file.getId();
@@ -231,8 +255,7 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
 
         // 清理临时文件和缓存
         cleanTempFiles(uploadId);
-        String cacheKey = UPLOAD_CACHE_PREFIX + uploadId + ":chunks";
-        redisService.deleteObject(cacheKey);
+        redisService.deleteObject(bitmapKey(uploadId));
 
         log.info("取消上传: uploadId={}", uploadId);
     }
@@ -278,6 +301,10 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
         }
     }
 
+    private String bitmapKey(String uploadId) {
+        return UPLOAD_CACHE_PREFIX + uploadId + ":bitmap";
+    }
+
     private String getChunkPath(String uploadId, Integer chunkIndex) {
         return TEMP_DIR + uploadId + "/" + chunkIndex;
     }
@@ -289,11 +316,17 @@ public class ChunkUploadServiceImpl implements ChunkUploadService {
         try {
             Files.createDirectories(Paths.get(mergedDir));
             
-            try (FileOutputStream fos = new FileOutputStream(mergedPath)) {
+            // 逐个分片用 transferTo 追加到目标文件，数据在内核中拷贝，不经过堆内存
+            try (FileChannel out = FileChannel.open(Paths.get(mergedPath), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
                 for (int i = 0; i < totalChunks; i++) {
-                    String chunkPath = getChunkPath(uploadId, i);
-                    byte[] chunkData = Files.readAllBytes(Paths.get(chunkPath));
-                    fos.write(chunkData);
+                    try (FileChannel in = FileChannel.open(Paths.get(getChunkPath(uploadId, i)), StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += in.transferTo(position, size - position, out);
+                        }
+                    }
                 }
             }
         } catch (IOException e) {
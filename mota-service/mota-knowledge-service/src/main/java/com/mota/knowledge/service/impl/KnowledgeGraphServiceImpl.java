@@ -2,6 +2,7 @@ package com.mota.knowledge.service.impl;
 
 import com.mota.common.core.context.TenantContext;
 import com.mota.common.core.context.UserContext;
+import com.mota.common.redis.service.RedisService;
 import com.mota.knowledge.entity.KnowledgeEntity;
 import com.mota.knowledge.entity.KnowledgeRelation;
 import com.mota.knowledge.mapper.KnowledgeEntityMapper;
@@ -9,11 +10,15 @@ import com.mota.knowledge.mapper.KnowledgeRelationMapper;
 import com.mota.knowledge.service.KnowledgeGraphService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +31,38 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     private final KnowledgeEntityMapper entityMapper;
     private final KnowledgeRelationMapper relationMapper;
+    private final RedisService redisService;
+
+    /**
+     * 枢纽实体邻接缓存前缀
+     */
+    private static final String ADJACENCY_CACHE_PREFIX = "knowledge:graph:adj:";
+
+    /**
+     * 单次 IN 查询的最大实体数
+     */
+    private static final int IN_QUERY_BATCH_SIZE = 500;
+
+    /**
+     * 子图中单个实体最多展开的关系数
+     */
+    @Value("${knowledge.graph.subgraph.max-fanout:50}")
+    private int subGraphMaxFanout;
+
+    /**
+     * 子图最大实体数，达到后不再加入新实体
+     */
+    @Value("${knowledge.graph.subgraph.max-nodes:2000}")
+    private int subGraphMaxNodes;
+
+    /**
+     * 关系数达到该值的实体视为枢纽，其邻接关系（截断后）写入缓存
+     */
+    @Value("${knowledge.graph.subgraph.hub-degree:200}")
+    private int hubDegreeThreshold;
+
+    @Value("${knowledge.graph.subgraph.hub-cache-ttl-seconds:600}")
+    private long hubCacheTtlSeconds;
 
     // ==================== 实体管理 ====================
 
@@ -59,7 +96,18 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
     @Override
     @Transactional
     public KnowledgeEntity updateEntity(KnowledgeEntity entity) {
+        KnowledgeEntity before = entityMapper.selectById(entity.getId());
         entityMapper.updateById(entity);
+        // 缓存的邻接关系带有两端实体名称，改名后清除该实体及其邻居的邻接缓存
+        if (before != null && entity.getName() != null && !entity.getName().equals(before.getName())) {
+            Set<Long> affected = new HashSet<>();
+            affected.add(entity.getId());
+            for (KnowledgeRelation relation : relationMapper.selectByEntity(entity.getId())) {
+                affected.add(relation.getSourceEntityId());
+                affected.add(relation.getTargetEntityId());
+            }
+            evictAdjacency(affected.toArray(new Long[0]));
+        }
         return entityMapper.selectById(entity.getId());
     }
 
@@ -70,6 +118,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         List<KnowledgeRelation> relations = relationMapper.selectByEntity(entityId);
         for (KnowledgeRelation relation : relations) {
             relationMapper.deleteById(relation.getId());
+            evictAdjacency(relation.getSourceEntityId(), relation.getTargetEntityId());
         }
         entityMapper.deleteById(entityId);
     }
@@ -119,6 +168,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         // 更新实体的引用计数
         updateEntityReferenceCount(relation.getSourceEntityId(), 1);
         updateEntityReferenceCount(relation.getTargetEntityId(), 1);
+        evictAdjacency(relation.getSourceEntityId(), relation.getTargetEntityId());
         
         return relation;
     }
@@ -137,6 +187,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
             
             updateEntityReferenceCount(relation.getSourceEntityId(), 1);
             updateEntityReferenceCount(relation.getTargetEntityId(), 1);
+            evictAdjacency(relation.getSourceEntityId(), relation.getTargetEntityId());
         }
         return relations;
     }
@@ -144,8 +195,16 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
     @Override
     @Transactional
     public KnowledgeRelation updateRelation(KnowledgeRelation relation) {
+        KnowledgeRelation before = relationMapper.selectById(relation.getId());
         relationMapper.updateById(relation);
-        return relationMapper.selectById(relation.getId());
+        KnowledgeRelation updated = relationMapper.selectById(relation.getId());
+        if (before != null) {
+            evictAdjacency(before.getSourceEntityId(), before.getTargetEntityId());
+        }
+        if (updated != null) {
+            evictAdjacency(updated.getSourceEntityId(), updated.getTargetEntityId());
+        }
+        return updated;
     }
 
     @Override
@@ -156,6 +215,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
             relationMapper.deleteById(relationId);
             updateEntityReferenceCount(relation.getSourceEntityId(), -1);
             updateEntityReferenceCount(relation.getTargetEntityId(), -1);
+            evictAdjacency(relation.getSourceEntityId(), relation.getTargetEntityId());
         }
     }
 
@@ -204,54 +264,51 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     @Override
     public Map<String, Object> getSubGraph(Long entityId, Integer depth) {
-        Set<Long> visitedEntities = new HashSet<>();
-        Set<Long> visitedRelations = new HashSet<>();
-        List<KnowledgeEntity> entities = new ArrayList<>();
-        List<KnowledgeRelation> relations = new ArrayList<>();
-        
-        // BFS遍历
-        Queue<Long> queue = new LinkedList<>();
-        Map<Long, Integer> depthMap = new HashMap<>();
-        queue.offer(entityId);
-        depthMap.put(entityId, 0);
-        
-        while (!queue.isEmpty()) {
-            Long currentId = queue.poll();
-            int currentDepth = depthMap.get(currentId);
-            
-            if (visitedEntities.contains(currentId)) {
-                continue;
-            }
-            visitedEntities.add(currentId);
-            
-            KnowledgeEntity entity = entityMapper.selectById(currentId);
-            if (entity != null) {
-                entities.add(entity);
-            }
-            
-            if (currentDepth < depth) {
-                List<KnowledgeRelation> entityRelations = relationMapper.selectByEntity(currentId);
-                for (KnowledgeRelation relation : entityRelations) {
-                    if (!visitedRelations.contains(relation.getId())) {
-                        visitedRelations.add(relation.getId());
-                        relations.add(relation);
-                        
-                        Long nextId = relation.getSourceEntityId().equals(currentId) 
-                            ? relation.getTargetEntityId() 
-                            : relation.getSourceEntityId();
-                        
-                        if (!visitedEntities.contains(nextId)) {
-                            queue.offer(nextId);
-                            depthMap.put(nextId, currentDepth + 1);
+        int maxDepth = depth != null ? Math.max(0, depth) : 1;
+        Set<Long> visitedEntities = new LinkedHashSet<>();
+        Map<Long, KnowledgeRelation> relations = new LinkedHashMap<>();
+        visitedEntities.add(entityId);
+
+        // 按层扩展：每层只做一次批量关系查询（枢纽实体命中缓存时不查库）
+        List<Long> frontier = List.of(entityId);
+        for (int level = 0; level < maxDepth && !frontier.isEmpty(); level++) {
+            Map<Long, List<KnowledgeRelation>> adjacency = loadAdjacency(frontier);
+            List<Long> nextFrontier = new ArrayList<>();
+            for (Long currentId : frontier) {
+                for (KnowledgeRelation relation : adjacency.getOrDefault(currentId, List.of())) {
+                    Long nextId = relation.getSourceEntityId().equals(currentId)
+                        ? relation.getTargetEntityId()
+                        : relation.getSourceEntityId();
+                    if (!visitedEntities.contains(nextId)) {
+                        if (visitedEntities.size() >= subGraphMaxNodes) {
+                            continue;
                         }
+                        visitedEntities.add(nextId);
+                        nextFrontier.add(nextId);
                     }
+                    relations.putIfAbsent(relation.getId(), relation);
                 }
             }
+            frontier = nextFrontier;
         }
-        
+
+        // 实体一次批量加载，按遍历顺序输出
+        Map<Long, KnowledgeEntity> entityById = new HashMap<>();
+        List<Long> entityIds = new ArrayList<>(visitedEntities);
+        for (int from = 0; from < entityIds.size(); from += IN_QUERY_BATCH_SIZE) {
+            List<Long> batch = entityIds.subList(from, Math.min(entityIds.size(), from + IN_QUERY_BATCH_SIZE));
+            for (KnowledgeEntity entity : entityMapper.selectBatchIds(batch)) {
+                entityById.put(entity.getId(), entity);
+            }
+        }
+        List<KnowledgeEntity> entities = entityIds.stream()
+            .map(entityById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+
         Map<String, Object> graphData = new HashMap<>();
         graphData.put("nodes", entities.stream().map(this::entityToNode).collect(Collectors.toList()));
-        graphData.put("edges", relations.stream().map(this::relationToEdge).collect(Collectors.toList()));
+        graphData.put("edges", relations.values().stream().map(this::relationToEdge).collect(Collectors.toList()));
         
         return graphData;
     }
@@ -386,6 +443,115 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     // ==================== 辅助方法 ====================
 
+    /**
+     * 批量加载一层实体的邻接关系：先批量读取枢纽实体的缓存，未命中的实体分批用 IN 查询，
+     * 每个实体按权重、置信度保留前 subGraphMaxFanout 条关系；度数达到枢纽阈值的实体写入缓存
+     */
+    private Map<Long, List<KnowledgeRelation>> loadAdjacency(List<Long> entityIds) {
+        Map<Long, List<KnowledgeRelation>> adjacency = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        List<Object> cached = multiGetAdjacency(entityIds);
+        for (int i = 0; i < entityIds.size(); i++) {
+            Object value = cached != null ? cached.get(i) : null;
+            if (value instanceof List) {
+                @SuppressWarnings("unchecked")
+                List<KnowledgeRelation> hubRelations = (List<KnowledgeRelation>) value;
+                adjacency.put(entityIds.get(i), hubRelations);
+            } else {
+                misses.add(entityIds.get(i));
+            }
+        }
+
+        for (int from = 0; from < misses.size(); from += IN_QUERY_BATCH_SIZE) {
+            List<Long> batch = misses.subList(from, Math.min(misses.size(), from + IN_QUERY_BATCH_SIZE));
+            Set<Long> batchIds = new HashSet<>(batch);
+            Map<Long, List<KnowledgeRelation>> loaded = new HashMap<>();
+            for (KnowledgeRelation relation : relationMapper.selectByEntityIds(batch)) {
+                if (batchIds.contains(relation.getSourceEntityId())) {
+                    loaded.computeIfAbsent(relation.getSourceEntityId(), k -> new ArrayList<>()).add(relation);
+                }
+                if (batchIds.contains(relation.getTargetEntityId())
+                        && !relation.getTargetEntityId().equals(relation.getSourceEntityId())) {
+                    loaded.computeIfAbsent(relation.getTargetEntityId(), k -> new ArrayList<>()).add(relation);
+                }
+            }
+            for (Map.Entry<Long, List<KnowledgeRelation>> entry : loaded.entrySet()) {
+                List<KnowledgeRelation> capped = capFanout(entry.getValue());
+                adjacency.put(entry.getKey(), capped);
+                if (entry.getValue().size() >= hubDegreeThreshold) {
+                    cacheAdjacency(entry.getKey(), capped);
+                }
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * 限制单个实体的扇出：按权重、置信度从高到低保留前 subGraphMaxFanout 条
+     */
+    private List<KnowledgeRelation> capFanout(List<KnowledgeRelation> relations) {
+        if (relations.size() <= subGraphMaxFanout) {
+            return relations;
+        }
+        return relations.stream()
+            .sorted(Comparator.comparing(KnowledgeRelation::getWeight, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(KnowledgeRelation::getConfidence, Comparator.nullsLast(Comparator.reverseOrder())))
+            .limit(subGraphMaxFanout)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private List<Object> multiGetAdjacency(List<Long> entityIds) {
+        try {
+            return redisService.multiGet(entityIds.stream().map(id -> ADJACENCY_CACHE_PREFIX + id).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("读取图谱邻接缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void cacheAdjacency(Long entityId, List<KnowledgeRelation> relations) {
+        try {
+            redisService.setCacheObject(ADJACENCY_CACHE_PREFIX + entityId, relations, hubCacheTtlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入图谱邻接缓存失败: entityId={}, {}", entityId, e.getMessage());
+        }
+    }
+
+    /**
+     * 关系或实体变更时清除相关实体的邻接缓存；在事务提交后执行，避免并发查询在提交前把旧关系重新写入缓存
+     */
+    private void evictAdjacency(Long... entityIds) {
+        List<String> keys = new ArrayList<>();
+        for (Long entityId : entityIds) {
+            if (entityId != null) {
+                keys.add(ADJACENCY_CACHE_PREFIX + entityId);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                redisService.delete(keys);
+            } catch (Exception e) {
+                log.warn("清除图谱邻接缓存失败: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     private void updateEntityReferenceCount(Long entityId, int delta) {
         KnowledgeEntity entity = entityMapper.selectById(entityId);
         if (entity != null) {
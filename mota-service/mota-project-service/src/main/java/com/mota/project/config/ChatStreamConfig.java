@@ -0,0 +1,51 @@
+package com.mota.project.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mota.common.core.llm.HttpStreamingChatClient;
+import com.mota.common.core.llm.StubStreamingChatClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 流式对话配置
+ *
+ * Claude 流式客户端基于异步 HttpClient，等待模型输出期间不占用 Servlet 线程；
+ * 未配置 API Key 时使用回放模拟客户端把模拟数据按流式推送
+ */
+@Configuration
+public class ChatStreamConfig {
+
+    @Value("${ai.stream.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    @Value("${ai.stream.stub-chunk-size:16}")
+    private int stubChunkSize;
+
+    @Value("${ai.stream.stub-interval-ms:20}")
+    private long stubIntervalMs;
+
+    @Bean
+    public HttpClient chatHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Bean
+    public HttpStreamingChatClient claudeStreamingChatClient(HttpClient chatHttpClient, ObjectMapper objectMapper,
+                                                             ClaudeConfig claudeConfig) {
+        return new HttpStreamingChatClient(chatHttpClient, objectMapper, claudeConfig.getBaseUrl(),
+                claudeConfig.getApiKey(), HttpStreamingChatClient.ApiFormat.fromBaseUrl(claudeConfig.getBaseUrl()),
+                Duration.ofSeconds(claudeConfig.getTimeout()));
+    }
+
+    @Bean(destroyMethod = "close")
+    public StubStreamingChatClient stubStreamingChatClient() {
+        return StubStreamingChatClient.replay(stubChunkSize, stubIntervalMs);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mota.project.config;
+
+import com.mota.common.core.embedding.EmbeddingBatcher;
+import com.mota.common.core.embedding.EmbeddingProvider;
+import com.mota.common.core.embedding.HashedNgramEmbeddingProvider;
+import com.mota.common.core.embedding.TextChunker;
+import com.mota.common.core.llm.BpeTokenizer;
+import com.mota.common.core.llm.ChatContextBuilder;
+import com.mota.common.core.llm.TokenCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 文本向量化配置
+ *
+ * 默认使用本地哈希 n-gram 向量化，注册其他 EmbeddingProvider Bean（如 ONNX 模型）即可替换；
+ * 分块 Token 数由本地 BPE 词表计数，词表加载失败时回退到按字符估算
+ */
+@Slf4j
+@Configuration
+public class EmbeddingConfig {
+
+    @Value("${ai.embedding.dimension:768}")
+    private int dimension;
+
+    @Value("${ai.embedding.batch-size:32}")
+    private int batchSize;
+
+    @Value("${ai.embedding.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${ai.embedding.cache-size:20000}")
+    private int cacheSize;
+
+    @Value("${ai.embedding.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${ai.embedding.chunk-overlap:80}")
+    private int chunkOverlap;
+
+    @Value("${ai.tokenizer.vocabulary:" + BpeTokenizer.DEFAULT_VOCABULARY + "}")
+    private String tokenizerVocabulary;
+
+    @Value("${ai.tokenizer.cache-size:20000}")
+    private int tokenCacheSize;
+
+    @Value("${ai.tokenizer.min-cached-length:256}")
+    private int tokenMinCachedLength;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EmbeddingProvider embeddingProvider() {
+        return new HashedNgramEmbeddingProvider(dimension);
+    }
+
+    @Bean(destroyMethod = "close")
+    public EmbeddingBatcher embeddingBatcher(EmbeddingProvider embeddingProvider) {
+        return new EmbeddingBatcher(embeddingProvider, batchSize, maxWaitMs, cacheSize);
+    }
+
+    @Bean
+    public TextChunker textChunker() {
+        return new TextChunker(chunkSize, chunkOverlap);
+    }
+
+    @Bean
+    public TokenCounter tokenCounter() {
+        try {
+            BpeTokenizer tokenizer = BpeTokenizer.loadResource(tokenizerVocabulary);
+            if (tokenizer != null) {
+                return new TokenCounter(tokenizer::count, tokenCacheSize, tokenMinCachedLength);
+            }
+            log.warn("分词词表不存在，回退到按字符估算: {}", tokenizerVocabulary);
+        } catch (IOException | RuntimeException e) {
+            log.warn("分词词表加载失败，回退到按字符估算: {}, error={}", tokenizerVocabulary, e.getMessage());
+        }
+        return new TokenCounter(ChatContextBuilder::estimateTokens, tokenCacheSize, tokenMinCachedLength);
+    }
+}
@@ -0,0 +1,39 @@
+package com.mota.project.config;
+
+import com.mota.common.core.embedding.EmbeddingBatcher;
+import com.mota.common.core.llm.SemanticResponseCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 大模型响应缓存配置
+ *
+ * 精确匹配始终开启；语义匹配复用文本向量化微批处理器，关闭后只做精确匹配
+ */
+@Configuration
+public class LlmCacheConfig {
+
+    @Value("${ai.cache.semantic-enabled:true}")
+    private boolean semanticEnabled;
+
+    @Value("${ai.cache.similarity-threshold:0.97}")
+    private double similarityThreshold;
+
+    @Value("${ai.cache.max-entries-per-tenant:2000}")
+    private int maxEntriesPerTenant;
+
+    @Value("${ai.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${ai.cache.semantic-scan-limit:200}")
+    private int semanticScanLimit;
+
+    @Bean
+    public SemanticResponseCache llmResponseCache(EmbeddingBatcher embeddingBatcher) {
+        return new SemanticResponseCache(semanticEnabled ? embeddingBatcher::embed : null, similarityThreshold,
+                maxEntriesPerTenant, Duration.ofMinutes(ttlMinutes), semanticScanLimit);
+    }
+}
@@ -0,0 +1,38 @@
+package com.mota.project.config;
+
+import com.mota.common.core.resilience.AdaptiveBulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 大模型调用并发控制配置
+ *
+ * Claude 同步与流式调用共用一个自适应并发舱壁，并发上限随观测延迟与限流响应自动调整
+ */
+@Configuration
+public class LlmConcurrencyConfig {
+
+    @Value("${ai.concurrency.initial-limit:8}")
+    private int initialLimit;
+
+    @Value("${ai.concurrency.min-limit:1}")
+    private int minLimit;
+
+    @Value("${ai.concurrency.max-limit:32}")
+    private int maxLimit;
+
+    @Value("${ai.concurrency.max-queue:50}")
+    private int maxQueue;
+
+    @Value("${ai.concurrency.queue-timeout-ms:5000}")
+    private long queueTimeoutMs;
+
+    @Bean
+    public AdaptiveBulkhead claudeBulkhead() {
+        return new AdaptiveBulkhead("claude", initialLimit, minLimit, maxLimit, maxQueue,
+                Duration.ofMillis(queueTimeoutMs));
+    }
+}
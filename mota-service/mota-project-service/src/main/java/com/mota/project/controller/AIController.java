@@ -10,11 +10,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * AI 项目智能功能控制器
@@ -35,6 +41,9 @@ public class AIController {
     
     private final ClaudeService claudeService;
 
+    @Value("${ai.stream.emitter-timeout-ms:300000}")
+    private long emitterTimeoutMs;
+
     // ============ AI 历史记录 API ============
 
     /**
@@ -277,6 +286,45 @@ public class AIController {
         return Result.success(response);
     }
 
+    /**
+     * AI 任务分解（SSE流式返回）
+     */
+    @Operation(summary = "AI任务分解（流式）", description = "以SSE推送模型输出：token事件为增量文本，done事件为解析后的任务分解结果")
+    @PostMapping(value = "/project/decompose/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskDecomposition(@RequestBody TaskDecompositionRequest request) {
+        log.info("收到AI流式任务分解请求, 项目名称: {}", request.getProjectName());
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        CompletableFuture<TaskDecompositionResponse> future = claudeService.streamTaskDecomposition(request,
+                token -> sendEvent(emitter, "token", Map.of("content", token)));
+
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                return;
+            }
+            try {
+                if (error == null) {
+                    sendEvent(emitter, "done", response);
+                } else {
+                    sendEvent(emitter, "error", Map.of("message", String.valueOf(error.getMessage())));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                log.debug("SSE事件发送失败，客户端可能已断开: {}", e.getMessage());
+            }
+        });
+        emitter.onTimeout(() -> future.cancel(true));
+        emitter.onError(e -> future.cancel(true));
+        return emitter;
+    }
+
+    private static void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * AI 进度预测
      */
@@ -46,6 +46,11 @@ public class AIDocumentVector implements Serializable {
      */
     private Integer chunkEnd;
 
+    /**
+     * 分块内容哈希(SHA-256)，重新向量化时用于复用未变化的分块
+     */
+    private String contentHash;
+
     /**
      * Token数量
      */
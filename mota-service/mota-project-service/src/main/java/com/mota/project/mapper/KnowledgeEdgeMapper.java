@@ -68,4 +68,10 @@ public interface KnowledgeEdgeMapper extends BaseMapper<KnowledgeEdge> {
      */
     List<KnowledgeEdge> selectHighWeightEdges(@Param("minWeight") Double minWeight,
                                               @Param("limit") int limit);
+
+    /**
+     * 按ID分页获取边的端点（只含 id、source_node_id、target_node_id），用于构建内存邻接快照
+     */
+    List<KnowledgeEdge> selectEndpointsAfter(@Param("lastId") Long lastId,
+                                             @Param("limit") int limit);
 }
\ No newline at end of file
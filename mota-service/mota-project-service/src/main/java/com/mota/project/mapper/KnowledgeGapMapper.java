@@ -50,6 +50,11 @@ public interface KnowledgeGapMapper extends BaseMapper<KnowledgeGap> {
      */
     void incrementOccurrenceCount(@Param("id") Long id);
 
+    /**
+     * 按增量更新缺口出现次数
+     */
+    void addOccurrenceCount(@Param("id") Long id, @Param("delta") Integer delta);
+
     /**
      * 根据关键词查找或创建缺口
      */
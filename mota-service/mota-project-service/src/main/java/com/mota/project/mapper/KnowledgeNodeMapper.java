@@ -75,4 +75,21 @@ public interface KnowledgeNodeMapper extends BaseMapper<KnowledgeNode> {
      * 批量获取节点
      */
     List<KnowledgeNode> selectByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 按ID分页获取节点文本（id、name、node_type、description），用于近重复检测
+     */
+    List<KnowledgeNode> selectTextAfter(@Param("lastId") Long lastId,
+                                        @Param("limit") int limit);
+
+    /**
+     * 按ID分页获取节点文本及向量，用于聚类
+     */
+    List<KnowledgeNode> selectWithEmbeddingAfter(@Param("lastId") Long lastId,
+                                                 @Param("limit") int limit);
+
+    /**
+     * 批量更新向量嵌入
+     */
+    int batchUpdateEmbeddingVectors(@Param("list") List<KnowledgeNode> list);
 }
\ No newline at end of file
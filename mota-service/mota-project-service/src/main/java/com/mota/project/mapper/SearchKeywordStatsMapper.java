@@ -36,6 +36,11 @@ public interface SearchKeywordStatsMapper extends BaseMapper<SearchKeywordStats>
      */
     void upsertKeywordStats(SearchKeywordStats stats);
 
+    /**
+     * 批量更新或插入热词统计
+     */
+    void batchUpsertKeywordStats(@Param("list") List<SearchKeywordStats> list);
+
     /**
      * 获取关键词云数据
      */
@@ -15,6 +15,11 @@ import java.util.Map;
 @Mapper
 public interface SearchLogMapper extends BaseMapper<SearchLog> {
 
+    /**
+     * 批量插入搜索记录
+     */
+    int batchInsert(@Param("list") List<SearchLog> list);
+
     /**
      * 获取搜索统计
      */
@@ -40,4 +40,14 @@ public interface AIDocumentVectorMapper extends BaseMapper<AIDocumentVector> {
      * 根据集合名称统计向量数量
      */
     int countByCollectionName(@Param("collectionName") String collectionName);
+
+    /**
+     * 批量插入分块（多值 INSERT），回填自增ID
+     */
+    int batchInsert(@Param("list") List<AIDocumentVector> list);
+
+    /**
+     * 批量更新分块位置（chunk_index / chunk_start / chunk_end）
+     */
+    int batchUpdatePositions(@Param("list") List<AIDocumentVector> list);
 }
\ No newline at end of file
@@ -46,6 +46,11 @@ public interface AIKnowledgeDocumentMapper extends BaseMapper<AIKnowledgeDocumen
             @Param("limit") int limit
     );
 
+    /**
+     * 加锁查询文档（事务内持有行锁直至提交）
+     */
+    AIKnowledgeDocument selectByIdForUpdate(@Param("id") Long id);
+
     /**
      * 批量更新解析状态
      */
@@ -26,6 +26,12 @@ public interface SearchCompletionMapper extends BaseMapper<SearchCompletion> {
             "AND is_active = true ORDER BY weight DESC LIMIT #{limit}")
     List<SearchCompletion> findByType(@Param("type") String type, @Param("limit") int limit);
     
+    /**
+     * 查询全部启用的补全词条（用于构建内存补全索引）
+     */
+    @Select("SELECT * FROM search_completion WHERE is_active = true")
+    List<SearchCompletion> findAllActive();
+    
     /**
      * 更新使用频率
      */
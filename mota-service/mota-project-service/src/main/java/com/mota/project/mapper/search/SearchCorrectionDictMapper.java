@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.mota.project.entity.search.SearchCorrectionDict;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -29,4 +30,26 @@ public interface SearchCorrectionDictMapper extends BaseMapper<SearchCorrectionD
      */
     @Update("UPDATE search_correction_dict SET usage_count = usage_count + 1 WHERE id = #{id}")
     void incrementUsageCount(@Param("id") Long id);
+    
+    /**
+     * 查询指定时间之后变更的纠错词（含已停用，用于增量刷新内存索引）
+     */
+    @Select("SELECT * FROM search_correction_dict WHERE updated_at > #{since}")
+    List<SearchCorrectionDict> findUpdatedSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * 批量累加使用次数（usageCount字段为增量），保持updated_at不变以免触发增量刷新
+     */
+    @Update("<script>" +
+            "UPDATE search_correction_dict SET usage_count = usage_count + CASE id " +
+            "<foreach collection='list' item='item'>" +
+            "WHEN #{item.id} THEN #{item.usageCount} " +
+            "</foreach>" +
+            "ELSE 0 END, updated_at = updated_at " +
+            "WHERE id IN " +
+            "<foreach collection='list' item='item' open='(' separator=',' close=')'>" +
+            "#{item.id}" +
+            "</foreach>" +
+            "</script>")
+    int batchIncrementUsageCount(@Param("list") List<SearchCorrectionDict> list);
 }
\ No newline at end of file
@@ -29,6 +29,13 @@ public interface SearchHotWordMapper extends BaseMapper<SearchHotWord> {
             "AND period_type = 'daily' ORDER BY search_count DESC LIMIT #{limit}")
     List<SearchHotWord> findByPrefix(@Param("prefix") String prefix, @Param("limit") int limit);
     
+    /**
+     * 按词汇总指定日期以来的日热词搜索次数（用于构建内存补全索引）
+     */
+    @Select("SELECT word, SUM(search_count) AS search_count FROM search_hot_word " +
+            "WHERE period_type = 'daily' AND period_date >= #{since} GROUP BY word")
+    List<SearchHotWord> sumDailySearchCountSince(@Param("since") LocalDate since);
+    
     /**
      * 根据词和周期查询
      */
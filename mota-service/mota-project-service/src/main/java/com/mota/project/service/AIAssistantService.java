@@ -1,6 +1,7 @@
 package com.mota.project.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.mota.common.core.llm.TokenCounter;
 import com.mota.project.entity.assistant.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +24,8 @@ import java.util.regex.Pattern;
 @RequiredArgsConstructor
 public class AIAssistantService {
     
+    private final TokenCounter tokenCounter;
+    
     // ==================== AA-001 智能问答 ====================
     
     /**
@@ -601,8 +604,7 @@ public class AIAssistantService {
     // ==================== 辅助方法 ====================
     
     private int estimateTokens(String text) {
-        // 简单估算：中文约1.5字符/token，英文约4字符/token
-        return text.length() / 2;
+        return tokenCounter.count(text);
     }
     
     /**
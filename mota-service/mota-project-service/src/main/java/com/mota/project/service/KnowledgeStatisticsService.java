@@ -8,7 +8,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -30,6 +29,7 @@ public class KnowledgeStatisticsService {
     private final KnowledgeReuseLogMapper knowledgeReuseLogMapper;
     private final KnowledgeGapMapper knowledgeGapMapper;
     private final DocumentRankingMapper documentRankingMapper;
+    private final SearchLogBuffer searchLogBuffer;
 
     // ========== 访问统计 (KS-001) ==========
 
@@ -161,37 +161,12 @@ public class KnowledgeStatisticsService {
 
     /**
      * 记录搜索
+     * 只入队，搜索记录、热词统计与知识缺口由 SearchLogBuffer 批量写入
      */
-    @Transactional
     public void recordSearch(SearchLog searchLog) {
         searchLog.setSearchDate(LocalDate.now());
         searchLog.setSearchTime(LocalDateTime.now());
-        searchLogMapper.insert(searchLog);
-        
-        // 更新热词统计
-        updateKeywordStats(searchLog);
-        
-        // 如果搜索无结果，记录知识缺口
-        if (searchLog.getResultCount() != null && searchLog.getResultCount() == 0) {
-            recordSearchNoResultGap(searchLog.getKeyword(), searchLog.getProjectId());
-        }
-    }
-
-    /**
-     * 更新热词统计
-     */
-    private void updateKeywordStats(SearchLog searchLog) {
-        SearchKeywordStats stats = new SearchKeywordStats();
-        stats.setKeyword(searchLog.getKeyword());
-        stats.setProjectId(searchLog.getProjectId());
-        stats.setStatsDate(searchLog.getSearchDate());
-        stats.setSearchCount(1);
-        stats.setUniqueUsers(1);
-        stats.setClickCount(searchLog.getClickedDocumentId() != null ? 1 : 0);
-        stats.setAvgResultCount(BigDecimal.valueOf(searchLog.getResultCount() != null ? searchLog.getResultCount() : 0));
-        stats.setClickRate(searchLog.getClickedDocumentId() != null ? BigDecimal.ONE : BigDecimal.ZERO);
-        
-        searchKeywordStatsMapper.upsertKeywordStats(stats);
+        searchLogBuffer.offer(searchLog);
     }
 
     /**
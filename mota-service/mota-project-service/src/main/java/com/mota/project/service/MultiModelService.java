@@ -1,7 +1,10 @@
 package com.mota.project.service;
 
+import com.mota.common.core.resilience.CircuitBreaker;
 import org.springframework.stereotype.Service;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.math.BigDecimal;
 
 /**
@@ -11,6 +14,23 @@ import java.math.BigDecimal;
 @Service
 public class MultiModelService {
 
+    /**
+     * 熔断阈值（连续失败次数）
+     */
+    private static final int CIRCUIT_BREAKER_THRESHOLD = 5;
+
+    /**
+     * 熔断打开持续时间，到期后半开放行一个探测请求
+     */
+    private static final Duration CIRCUIT_BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private static final Long DEFAULT_MODEL_ID = 3L;
+
+    /**
+     * 各模型的熔断器
+     */
+    private final Map<Long, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
     // ==================== MM-001/002/003/004/005 多模型支持 ====================
 
     /**
@@ -415,19 +435,86 @@ public class MultiModelService {
 
     /**
      * 根据条件选择模型
+     * 默认路由的主模型熔断时，按降级策略依次选择第一个熔断器放行的模型
      */
     public Map<String, Object> selectModel(Map<String, Object> context) {
-        // 模拟模型选择逻辑
+        List<Long> candidates = new ArrayList<>();
+        candidates.add(DEFAULT_MODEL_ID);
+        getFallbackStrategies().stream()
+                .filter(strategy -> DEFAULT_MODEL_ID.equals(strategy.get("primaryModelId")))
+                .findFirst()
+                .ifPresent(strategy -> {
+                    @SuppressWarnings("unchecked")
+                    List<Long> fallbackIds = (List<Long>) strategy.get("fallbackModelIds");
+                    candidates.addAll(fallbackIds);
+                });
+
+        for (Long modelId : candidates) {
+            if (!getCircuitBreaker(modelId).tryAcquire()) {
+                continue;
+            }
+            Map<String, Object> model = getModelById(modelId);
+            Map<String, Object> result = new HashMap<>();
+            result.put("selectedModelId", modelId);
+            result.put("selectedModelCode", model != null ? model.get("modelCode") : null);
+            result.put("selectedModelName", model != null ? model.get("modelName") : null);
+            result.put("routingRuleId", 1L);
+            result.put("routingRuleName", "默认路由");
+            result.put("reason", DEFAULT_MODEL_ID.equals(modelId) ? "使用默认路由规则" : "主模型熔断，使用降级模型");
+            return result;
+        }
+
         Map<String, Object> result = new HashMap<>();
-        result.put("selectedModelId", 3L);
-        result.put("selectedModelCode", "gpt-3.5-turbo");
-        result.put("selectedModelName", "GPT-3.5 Turbo");
-        result.put("routingRuleId", 1L);
-        result.put("routingRuleName", "默认路由");
-        result.put("reason", "使用默认路由规则");
+        result.put("selectedModelId", null);
+        result.put("reason", "所有候选模型均已熔断");
         return result;
     }
 
+    /**
+     * 按实际调用的模型名（如 claude-3-sonnet-20240229）匹配模型目录，取最长的模型编码前缀，未匹配时返回 null
+     */
+    public Long findModelIdByCode(String modelName) {
+        if (modelName == null) {
+            return null;
+        }
+        Long matchedId = null;
+        int matchedLength = 0;
+        for (Map<String, Object> model : getModels(null)) {
+            String modelCode = (String) model.get("modelCode");
+            if (modelCode != null && modelName.startsWith(modelCode) && modelCode.length() > matchedLength) {
+                matchedId = (Long) model.get("id");
+                matchedLength = modelCode.length();
+            }
+        }
+        return matchedId;
+    }
+
+    /**
+     * 调用模型前获取熔断器许可，调用结束后须上报 {@link #recordCallResult} 或归还 {@link #releaseCall}
+     */
+    public boolean tryAcquire(Long modelId) {
+        return getCircuitBreaker(modelId).tryAcquire();
+    }
+
+    /**
+     * 归还未实际调用的许可（如并发舱壁拒绝或调用前取消）
+     */
+    public void releaseCall(Long modelId) {
+        getCircuitBreaker(modelId).release();
+    }
+
+    /**
+     * 上报模型调用结果，驱动熔断器状态
+     */
+    public void recordCallResult(Long modelId, boolean success) {
+        CircuitBreaker breaker = getCircuitBreaker(modelId);
+        if (success) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+    }
+
     // ==================== MM-007 降级策略 ====================
 
     /**
@@ -504,23 +591,19 @@ public class MultiModelService {
      */
     public List<Map<String, Object>> getCircuitBreakerStatus() {
         List<Map<String, Object>> statuses = new ArrayList<>();
-        
-        Map<String, Object> status1 = new HashMap<>();
-        status1.put("modelId", 1L);
-        status1.put("modelName", "GPT-4");
-        status1.put("state", "closed");
-        status1.put("failureCount", 0);
-        status1.put("lastFailureTime", null);
-        statuses.add(status1);
-        
-        Map<String, Object> status2 = new HashMap<>();
-        status2.put("modelId", 4L);
-        status2.put("modelName", "Claude 3 Opus");
-        status2.put("state", "closed");
-        status2.put("failureCount", 2);
-        status2.put("lastFailureTime", new Date(System.currentTimeMillis() - 3600000));
-        statuses.add(status2);
-        
+        for (Map<String, Object> model : getModels(null)) {
+            Long modelId = (Long) model.get("id");
+            CircuitBreaker breaker = getCircuitBreaker(modelId);
+            long lastFailureTime = breaker.getLastFailureTime();
+
+            Map<String, Object> status = new HashMap<>();
+            status.put("modelId", modelId);
+            status.put("modelName", model.get("modelName"));
+            status.put("state", breaker.getState().name().toLowerCase());
+            status.put("failureCount", breaker.getConsecutiveFailures());
+            status.put("lastFailureTime", lastFailureTime > 0 ? new Date(lastFailureTime) : null);
+            statuses.add(status);
+        }
         return statuses;
     }
 
@@ -528,6 +611,7 @@ public class MultiModelService {
      * 重置熔断器
      */
     public Map<String, Object> resetCircuitBreaker(Long modelId) {
+        getCircuitBreaker(modelId).reset();
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
         result.put("message", "熔断器已重置");
@@ -535,6 +619,11 @@ public class MultiModelService {
         return result;
     }
 
+    private CircuitBreaker getCircuitBreaker(Long modelId) {
+        return circuitBreakers.computeIfAbsent(modelId,
+                id -> new CircuitBreaker(CIRCUIT_BREAKER_THRESHOLD, CIRCUIT_BREAKER_OPEN_DURATION, 1));
+    }
+
     // ==================== MM-008 成本控制 ====================
 
     /**
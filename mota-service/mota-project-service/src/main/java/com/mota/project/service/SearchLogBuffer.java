@@ -0,0 +1,204 @@
+package com.mota.project.service;
+
+import com.mota.project.entity.KnowledgeGap;
+import com.mota.project.entity.SearchKeywordStats;
+import com.mota.project.entity.SearchLog;
+import com.mota.project.mapper.KnowledgeGapMapper;
+import com.mota.project.mapper.SearchKeywordStatsMapper;
+import com.mota.project.mapper.SearchLogMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 搜索记录异步缓冲区
+ * 
+ * 搜索记录先进入有界队列，后台线程攒批后：
+ * 1. 多行插入 search_log
+ * 2. 按 (关键词, 项目, 日期) 合并后批量累加 search_keyword_stats
+ * 3. 按 (关键词, 项目) 合并零结果次数后更新知识缺口
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchLogBuffer {
+
+    private final SearchLogMapper searchLogMapper;
+    private final SearchKeywordStatsMapper searchKeywordStatsMapper;
+    private final KnowledgeGapMapper knowledgeGapMapper;
+
+    @Value("${knowledge.statistics.search-buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${knowledge.statistics.search-buffer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${knowledge.statistics.search-buffer.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private static final String GAP_TYPE_SEARCH_NO_RESULT = "search_no_result";
+
+    private BlockingQueue<SearchLog> queue;
+    private Thread flushThread;
+    private volatile boolean running;
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        flushThread = new Thread(this::flushLoop, "search-log-flusher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    /**
+     * 提交搜索记录，队列满时丢弃并返回false
+     */
+    public boolean offer(SearchLog searchLog) {
+        if (queue.offer(searchLog)) {
+            return true;
+        }
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped % 1000 == 1) {
+            log.warn("搜索记录缓冲区已满，记录被丢弃: dropped={}", dropped);
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flushLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<SearchLog> batch = new ArrayList<>(batchSize);
+                SearchLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 未攒满时再等待一个刷新间隔
+                if (queue.size() < batchSize - 1 && running) {
+                    TimeUnit.MILLISECONDS.sleep(flushIntervalMs);
+                }
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("搜索记录批量写入异常", e);
+            }
+        }
+    }
+
+    private void flush(List<SearchLog> batch) {
+        try {
+            searchLogMapper.batchInsert(batch);
+        } catch (Exception e) {
+            log.error("批量插入搜索记录失败: size={}", batch.size(), e);
+        }
+
+        // 合并热词统计
+        Map<String, SearchKeywordStats> statsMap = new LinkedHashMap<>();
+        Map<String, Set<Long>> usersMap = new HashMap<>();
+        Map<String, Long> resultSumMap = new HashMap<>();
+        Map<String, SearchLog> gapKeys = new LinkedHashMap<>();
+        Map<String, Integer> gapCounts = new HashMap<>();
+
+        for (SearchLog searchLog : batch) {
+            String key = searchLog.getKeyword() + "|" + searchLog.getProjectId() + "|" + searchLog.getSearchDate();
+            SearchKeywordStats stats = statsMap.computeIfAbsent(key, k -> {
+                SearchKeywordStats s = new SearchKeywordStats();
+                s.setKeyword(searchLog.getKeyword());
+                s.setProjectId(searchLog.getProjectId());
+                s.setStatsDate(searchLog.getSearchDate());
+                s.setSearchCount(0);
+                s.setClickCount(0);
+                return s;
+            });
+            stats.setSearchCount(stats.getSearchCount() + 1);
+            if (searchLog.getClickedDocumentId() != null) {
+                stats.setClickCount(stats.getClickCount() + 1);
+            }
+            resultSumMap.merge(key, (long) (searchLog.getResultCount() != null ? searchLog.getResultCount() : 0), Long::sum);
+            Set<Long> users = usersMap.computeIfAbsent(key, k -> new HashSet<>());
+            if (searchLog.getUserId() != null) {
+                users.add(searchLog.getUserId());
+            }
+
+            if (searchLog.getResultCount() != null && searchLog.getResultCount() == 0) {
+                String gapKey = searchLog.getKeyword() + "|" + searchLog.getProjectId();
+                gapKeys.putIfAbsent(gapKey, searchLog);
+                gapCounts.merge(gapKey, 1, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<String, SearchKeywordStats> entry : statsMap.entrySet()) {
+            SearchKeywordStats stats = entry.getValue();
+            int count = stats.getSearchCount();
+            stats.setUniqueUsers(Math.max(1, usersMap.get(entry.getKey()).size()));
+            stats.setAvgResultCount(BigDecimal.valueOf(resultSumMap.get(entry.getKey()))
+                    .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP));
+            stats.setClickRate(BigDecimal.valueOf(stats.getClickCount())
+                    .divide(BigDecimal.valueOf(count), 4, RoundingMode.HALF_UP));
+        }
+
+        try {
+            searchKeywordStatsMapper.batchUpsertKeywordStats(new ArrayList<>(statsMap.values()));
+        } catch (Exception e) {
+            log.error("批量更新热词统计失败: size={}", statsMap.size(), e);
+        }
+
+        for (Map.Entry<String, SearchLog> entry : gapKeys.entrySet()) {
+            try {
+                recordNoResultGap(entry.getValue(), gapCounts.get(entry.getKey()));
+            } catch (Exception e) {
+                log.error("记录知识缺口失败: keyword={}", entry.getValue().getKeyword(), e);
+            }
+        }
+    }
+
+    private void recordNoResultGap(SearchLog searchLog, int occurrences) {
+        String keyword = searchLog.getKeyword();
+        Long projectId = searchLog.getProjectId();
+        KnowledgeGap existingGap = knowledgeGapMapper.findByKeyword(keyword, projectId, GAP_TYPE_SEARCH_NO_RESULT);
+        if (existingGap != null) {
+            knowledgeGapMapper.addOccurrenceCount(existingGap.getId(), occurrences);
+            return;
+        }
+        KnowledgeGap gap = new KnowledgeGap();
+        gap.setProjectId(projectId);
+        gap.setGapType(GAP_TYPE_SEARCH_NO_RESULT);
+        gap.setKeyword(keyword);
+        gap.setDescription("用户搜索\"" + keyword + "\"无结果");
+        gap.setOccurrenceCount(occurrences);
+        gap.setAffectedUsers(1);
+        gap.setStatus("open");
+        gap.setPriority("medium");
+        gap.setFirstOccurredAt(LocalDateTime.now());
+        gap.setLastOccurredAt(LocalDateTime.now());
+        knowledgeGapMapper.insert(gap);
+    }
+}
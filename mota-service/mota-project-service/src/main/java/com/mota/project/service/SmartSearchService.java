@@ -2,8 +2,12 @@ package com.mota.project.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.mota.common.core.embedding.EmbeddingBatcher;
+import com.mota.common.core.util.CompletionTrie;
 import com.mota.project.entity.search.*;
 import com.mota.project.mapper.search.*;
+import com.mota.project.service.search.SearchCompletionIndex;
+import com.mota.project.service.search.SpellingCorrectionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -28,14 +32,15 @@ public class SmartSearchService {
     
     private final SmartSearchLogMapper searchLogMapper;
     private final SearchSuggestionMapper suggestionMapper;
-    private final SearchCorrectionDictMapper correctionMapper;
     private final SearchSynonymMapper synonymMapper;
     private final SearchIntentTemplateMapper intentMapper;
     private final SearchHotWordMapper hotWordMapper;
     private final SearchRelatedQueryMapper relatedQueryMapper;
-    private final SearchCompletionMapper completionMapper;
     private final UserSearchPreferenceMapper preferenceMapper;
     private final DocumentVectorMapper vectorMapper;
+    private final SpellingCorrectionIndex spellingCorrectionIndex;
+    private final SearchCompletionIndex searchCompletionIndex;
+    private final EmbeddingBatcher embeddingBatcher;
     
     // ==================== SS-001 全文检索 ====================
     
@@ -185,13 +190,8 @@ public class SmartSearchService {
     }
     
     private float[] textToVector(String text) {
-        // 模拟文本向量化（实际应调用嵌入模型API）
-        float[] vector = new float[768];
-        Random random = new Random(text.hashCode());
-        for (int i = 0; i < vector.length; i++) {
-            vector[i] = random.nextFloat() * 2 - 1;
-        }
-        return vector;
+        // 经微批处理与内容哈希缓存的本地向量化
+        return embeddingBatcher.embed(text);
     }
     
     private List<SearchResultItem> vectorSimilaritySearch(float[] queryVector, SearchRequest request) {
@@ -386,56 +386,18 @@ public class SmartSearchService {
      * 搜索词自动纠错
      */
     public String autoCorrect(String query) {
-        log.info("自动纠错: query={}", query);
-        
-        // 查找纠错词典
-        List<SearchCorrectionDict> corrections = correctionMapper.findActiveCorrections();
-        
-        String corrected = query;
-        for (SearchCorrectionDict dict : corrections) {
-            if (corrected.contains(dict.getWrongWord())) {
-                corrected = corrected.replace(dict.getWrongWord(), dict.getCorrectWord());
-                // 更新使用次数
-                correctionMapper.incrementUsageCount(dict.getId());
-            }
-        }
+        log.debug("自动纠错: query={}", query);
         
-        return corrected;
+        // 内存索引最长匹配替换，使用次数由索引批量回写
+        return spellingCorrectionIndex.correct(query);
     }
     
     /**
      * 获取纠错建议
      */
     public List<String> getCorrectionSuggestions(String query) {
-        List<String> suggestions = new ArrayList<>();
-        
-        // 基于编辑距离的纠错建议
-        List<SearchCorrectionDict> corrections = correctionMapper.findActiveCorrections();
-        for (SearchCorrectionDict dict : corrections) {
-            if (editDistance(query, dict.getWrongWord()) <= 2) {
-                suggestions.add(dict.getCorrectWord());
-            }
-        }
-        
-        return suggestions;
-    }
-    
-    private int editDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        for (int i = 0; i <= s1.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= s2.length(); j++) dp[0][j] = j;
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(dp[i - 1][j - 1], 
-                                   Math.min(dp[i - 1][j], dp[i][j - 1]));
-                }
-            }
-        }
-        return dp[s1.length()][s2.length()];
+        // 基于对称删除索引的编辑距离纠错建议
+        return spellingCorrectionIndex.suggest(query);
     }
     
     // ==================== SS-007 智能补全 ====================
@@ -450,12 +412,16 @@ public class SmartSearchService {
             return Collections.emptyList();
         }
         
-        // 从补全表查询
-        List<SearchCompletion> completions = completionMapper.findByPrefix(prefix, limit);
+        // 从补全索引查询
+        List<SearchCompletion> completions = searchCompletionIndex.completeCompletions(prefix, limit);
         
-        // 转换为建议
+        // 转换为建议，同一补全文本只保留热度最高的一条
         List<SearchSuggestion> suggestions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
         for (SearchCompletion completion : completions) {
+            if (!seen.add(completion.getCompletionText())) {
+                continue;
+            }
             SearchSuggestion suggestion = new SearchSuggestion();
             suggestion.setSuggestionText(completion.getCompletionText());
             suggestion.setSuggestionType("completion");
@@ -466,12 +432,17 @@ public class SmartSearchService {
         
         // 补充热词建议
         if (suggestions.size() < limit) {
-            List<SearchHotWord> hotWords = hotWordMapper.findByPrefix(prefix, limit - suggestions.size());
-            for (SearchHotWord hotWord : hotWords) {
+            for (CompletionTrie.Entry hotWord : searchCompletionIndex.completeHotWords(prefix, limit)) {
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+                if (!seen.add(hotWord.getText())) {
+                    continue;
+                }
                 SearchSuggestion suggestion = new SearchSuggestion();
-                suggestion.setSuggestionText(hotWord.getWord());
+                suggestion.setSuggestionText(hotWord.getText());
                 suggestion.setSuggestionType("hot");
-                suggestion.setFrequency(hotWord.getSearchCount());
+                suggestion.setFrequency((int) Math.min(hotWord.getScore(), Integer.MAX_VALUE));
                 suggestions.add(suggestion);
             }
         }
@@ -556,6 +527,7 @@ public class SmartSearchService {
      */
     @Transactional
     public void updateHotWord(String word) {
+        searchCompletionIndex.recordHotWord(word);
         SearchHotWord hotWord = hotWordMapper.findByWordAndPeriod(word, "daily", LocalDate.now());
         if (hotWord != null) {
             hotWordMapper.incrementSearchCount(hotWord.getId());
@@ -2,6 +2,9 @@ package com.mota.project.service.ai;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.mota.common.core.embedding.EmbeddingBatcher;
+import com.mota.common.core.embedding.TextChunker;
+import com.mota.common.core.llm.TokenCounter;
 import com.mota.project.entity.ai.*;
 import com.mota.project.mapper.ai.*;
 import lombok.RequiredArgsConstructor;
@@ -30,9 +33,17 @@ public class AIKnowledgeBaseService {
     private final AIKnowledgeDocumentMapper documentMapper;
     private final AIOcrRecordMapper ocrRecordMapper;
     private final AIDocumentVectorMapper vectorMapper;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final TextChunker textChunker;
+    private final TokenCounter tokenCounter;
 
     private static final String UPLOAD_DIR = "uploads/ai-knowledge/";
 
+    /**
+     * 分块批量写入的单批行数
+     */
+    private static final int CHUNK_BATCH_SIZE = 500;
+
     // ==================== AI-001 文档解析 ====================
 
     /**
@@ -415,41 +426,85 @@ public class AIKnowledgeBaseService {
 
     /**
      * 向量化文档
+     *
+     * 按标题/段落/句子重新分块后与已有分块按内容哈希比对：未变化的分块保留原行（只更新位置），
+     * 消失的分块删除，新增分块多值批量插入；只有新增分块和尚未完成向量化的分块会重新生成向量。
+     * 同一文档的并发向量化由文档行锁串行化，后执行的调用读取前一次提交后的内容与分块
      */
     @Transactional
     public void vectorizeDocument(Long documentId) {
-        AIKnowledgeDocument document = documentMapper.selectById(documentId);
+        try {
+            vectorizeChunks(documentId);
+        } catch (Exception e) {
+            log.error("Failed to vectorize document: {}", documentId, e);
+        }
+    }
+
+    private void vectorizeChunks(Long documentId) {
+        AIKnowledgeDocument document = documentMapper.selectByIdForUpdate(documentId);
         if (document == null || document.getContentText() == null) {
             log.error("Document not found or has no content: {}", documentId);
             return;
         }
 
         try {
-            // 删除旧的向量
-            vectorMapper.deleteByDocumentId(documentId);
-
-            // 分块处理
-            List<String> chunks = splitTextIntoChunks(document.getContentText(), 500);
-
-            for (int i = 0; i < chunks.size(); i++) {
-                String chunk = chunks.get(i);
-                
-                AIDocumentVector vector = new AIDocumentVector();
-                vector.setDocumentId(documentId);
-                vector.setChunkIndex(i);
-                vector.setChunkText(chunk);
-                vector.setTokenCount(estimateTokenCount(chunk));
-                vector.setEmbeddingModel(AIDocumentVector.DEFAULT_MODEL);
-                vector.setEmbeddingDimension(AIDocumentVector.DEFAULT_DIMENSION);
-                vector.setCollectionName("knowledge_base");
-                vector.setVectorizeStatus(AIDocumentVector.STATUS_PENDING);
-
-                vectorMapper.insert(vector);
-
-                // 异步生成向量
-                generateEmbeddingAsync(vector.getId());
+            List<TextChunker.Chunk> chunks = textChunker.split(document.getContentText());
+            String model = embeddingBatcher.getProvider().getModelName();
+
+            // 已有分块按内容哈希分组，同一文档内重复的分块按出现顺序逐个复用
+            Map<String, Deque<AIDocumentVector>> existingByHash = new HashMap<>();
+            for (AIDocumentVector vector : vectorMapper.selectByDocumentId(documentId)) {
+                String hash = vector.getContentHash() != null
+                        ? vector.getContentHash() : EmbeddingBatcher.contentHash(vector.getChunkText());
+                existingByHash.computeIfAbsent(hash, k -> new ArrayDeque<>()).add(vector);
             }
 
+            List<AIDocumentVector> reused = new ArrayList<>();
+            List<AIDocumentVector> created = new ArrayList<>();
+            List<Long> embedIds = new ArrayList<>();
+            for (TextChunker.Chunk chunk : chunks) {
+                Deque<AIDocumentVector> candidates = existingByHash.get(chunk.getContentHash());
+                AIDocumentVector vector = candidates != null ? candidates.poll() : null;
+                if (vector != null) {
+                    vector.setChunkIndex(chunk.getIndex());
+                    vector.setChunkStart(chunk.getStart());
+                    vector.setChunkEnd(chunk.getEnd());
+                    reused.add(vector);
+                    if (!AIDocumentVector.STATUS_COMPLETED.equals(vector.getVectorizeStatus())
+                            || !model.equals(vector.getEmbeddingModel())) {
+                        embedIds.add(vector.getId());
+                    }
+                } else {
+                    created.add(newChunkVector(documentId, chunk));
+                }
+            }
+
+            List<Long> staleIds = new ArrayList<>();
+            for (Deque<AIDocumentVector> remaining : existingByHash.values()) {
+                for (AIDocumentVector vector : remaining) {
+                    staleIds.add(vector.getId());
+                }
+            }
+            if (!staleIds.isEmpty()) {
+                vectorMapper.deleteBatchIds(staleIds);
+            }
+            for (int from = 0; from < reused.size(); from += CHUNK_BATCH_SIZE) {
+                vectorMapper.batchUpdatePositions(reused.subList(from, Math.min(from + CHUNK_BATCH_SIZE, reused.size())));
+            }
+            for (int from = 0; from < created.size(); from += CHUNK_BATCH_SIZE) {
+                List<AIDocumentVector> batch = created.subList(from, Math.min(from + CHUNK_BATCH_SIZE, created.size()));
+                vectorMapper.batchInsert(batch);
+                for (AIDocumentVector vector : batch) {
+                    embedIds.add(vector.getId());
+                }
+            }
+
+            log.info("Vectorized document {}: {} chunks, {} reused, {} created, {} deleted, {} to embed",
+                    documentId, chunks.size(), reused.size(), created.size(), staleIds.size(), embedIds.size());
+
+            // 需要重新向量化的分块一次性提交，由向量化微批合并处理
+            generateEmbeddingsAsync(embedIds);
+
         } catch (Exception e) {
             log.error("Failed to vectorize document: {}", documentId, e);
         }
@@ -467,9 +522,8 @@ public class AIKnowledgeBaseService {
             vector.setVectorizeStatus(AIDocumentVector.STATUS_PROCESSING);
             vectorMapper.updateById(vector);
 
-            // 模拟向量生成（实际应调用OpenAI Embedding API）
-            float[] embedding = generateMockEmbedding(vector.getChunkText());
-            
+            float[] embedding = embeddingBatcher.embed(vector.getChunkText());
+
             // 存储向量（实际应存储到向量数据库如Milvus）
             vector.setEmbeddingJson(Arrays.toString(embedding));
             vector.setVectorId(UUID.randomUUID().toString());
@@ -485,6 +539,41 @@ public class AIKnowledgeBaseService {
         }
     }
 
+    /**
+     * 批量生成向量嵌入，相同内容的分块只向量化一次
+     */
+    public void generateEmbeddings(List<Long> vectorIds) {
+        if (vectorIds.isEmpty()) return;
+        List<AIDocumentVector> vectors = vectorMapper.selectBatchIds(vectorIds);
+        if (vectors.isEmpty()) return;
+
+        try {
+            List<String> texts = new ArrayList<>(vectors.size());
+            for (AIDocumentVector vector : vectors) {
+                texts.add(vector.getChunkText());
+            }
+            List<float[]> embeddings = embeddingBatcher.embedAll(texts);
+
+            for (int i = 0; i < vectors.size(); i++) {
+                AIDocumentVector vector = vectors.get(i);
+                vector.setEmbeddingModel(embeddingBatcher.getProvider().getModelName());
+                vector.setEmbeddingDimension(embeddingBatcher.getProvider().getDimension());
+                vector.setEmbeddingJson(Arrays.toString(embeddings.get(i)));
+                vector.setVectorId(UUID.randomUUID().toString());
+                vector.setVectorizeStatus(AIDocumentVector.STATUS_COMPLETED);
+                vectorMapper.updateById(vector);
+            }
+
+        } catch (Exception e) {
+            log.error("Failed to generate embeddings: {}", vectorIds, e);
+            for (AIDocumentVector vector : vectors) {
+                vector.setVectorizeStatus(AIDocumentVector.STATUS_FAILED);
+                vector.setVectorizeError(e.getMessage());
+                vectorMapper.updateById(vector);
+            }
+        }
+    }
+
     // ==================== AI-010 语义检索 ====================
 
     /**
@@ -592,8 +681,9 @@ public class AIKnowledgeBaseService {
         new Thread(() -> performOcr(recordId)).start();
     }
 
-    private void generateEmbeddingAsync(Long vectorId) {
-        new Thread(() -> generateEmbedding(vectorId)).start();
+    private void generateEmbeddingsAsync(List<Long> vectorIds) {
+        if (vectorIds.isEmpty()) return;
+        new Thread(() -> generateEmbeddings(vectorIds)).start();
     }
 
     private void processDocumentAfterParse(AIKnowledgeDocument document) {
@@ -606,29 +696,19 @@ public class AIKnowledgeBaseService {
         return "OCR识别结果：这是从图片中识别出的文字内容。";
     }
 
-    private List<String> splitTextIntoChunks(String text, int chunkSize) {
-        List<String> chunks = new ArrayList<>();
-        if (text == null || text.isEmpty()) return chunks;
-
-        for (int i = 0; i < text.length(); i += chunkSize) {
-            int end = Math.min(i + chunkSize, text.length());
-            chunks.add(text.substring(i, end));
-        }
-        return chunks;
-    }
-
-    private int estimateTokenCount(String text) {
-        // 简单估算：中文约1.5字符/token，英文约4字符/token
-        return text.length() / 2;
-    }
-
-    private float[] generateMockEmbedding(String text) {
-        // 生成模拟向量
-        float[] embedding = new float[1536];
-        Random random = new Random(text.hashCode());
-        for (int i = 0; i < embedding.length; i++) {
-            embedding[i] = random.nextFloat() * 2 - 1;
-        }
-        return embedding;
+    private AIDocumentVector newChunkVector(Long documentId, TextChunker.Chunk chunk) {
+        AIDocumentVector vector = new AIDocumentVector();
+        vector.setDocumentId(documentId);
+        vector.setChunkIndex(chunk.getIndex());
+        vector.setChunkText(chunk.getText());
+        vector.setChunkStart(chunk.getStart());
+        vector.setChunkEnd(chunk.getEnd());
+        vector.setContentHash(chunk.getContentHash());
+        vector.setTokenCount(tokenCounter.countChunk(chunk.getContentHash(), chunk.getText()));
+        vector.setEmbeddingModel(embeddingBatcher.getProvider().getModelName());
+        vector.setEmbeddingDimension(embeddingBatcher.getProvider().getDimension());
+        vector.setCollectionName("knowledge_base");
+        vector.setVectorizeStatus(AIDocumentVector.STATUS_PENDING);
+        return vector;
     }
-}
\ No newline at end of file
+}
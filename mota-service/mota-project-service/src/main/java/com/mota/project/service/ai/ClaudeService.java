@@ -3,21 +3,36 @@ package com.mota.project.service.ai;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mota.common.core.context.TenantContext;
+import com.mota.common.core.llm.ChatStreamRequest;
+import com.mota.common.core.llm.HttpStreamingChatClient;
+import com.mota.common.core.llm.SemanticResponseCache;
+import com.mota.common.core.llm.StubStreamingChatClient;
+import com.mota.common.core.resilience.AdaptiveBulkhead;
+import com.mota.common.core.resilience.SingleFlight;
+import com.mota.common.core.exception.BusinessException;
 import com.mota.project.config.ClaudeConfig;
 import com.mota.project.dto.ai.ProgressDescriptionRequest;
 import com.mota.project.dto.ai.ProgressDescriptionResponse;
 import com.mota.project.dto.ai.TaskDecompositionRequest;
 import com.mota.project.dto.ai.TaskDecompositionResponse;
 import com.mota.project.dto.ai.TaskDecompositionSuggestion;
+import com.mota.project.service.MultiModelService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpTimeoutException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Claude AI 服务
@@ -35,6 +50,16 @@ public class ClaudeService {
     private final ClaudeConfig claudeConfig;
     private final ObjectMapper objectMapper;
     private final RestTemplate restTemplate;
+    private final HttpStreamingChatClient claudeStreamingChatClient;
+    private final StubStreamingChatClient stubStreamingChatClient;
+    private final SemanticResponseCache llmResponseCache;
+    private final AdaptiveBulkhead claudeBulkhead;
+    private final MultiModelService multiModelService;
+
+    /**
+     * 进行中的相同调用（租户 + 缓存键）合并为一次
+     */
+    private final SingleFlight<String, String> inFlightCalls = new SingleFlight<>();
 
     /**
      * 调用 Claude API 进行任务分解
@@ -52,8 +77,9 @@ public class ClaudeService {
             // 构建提示词
             String prompt = buildTaskDecompositionPrompt(request);
             
-            // 调用 Claude API
-            String response = callClaudeAPI(prompt);
+            // 调用 Claude API（部门与日期相同、项目名称与描述相近时可复用语义缓存）
+            String response = callClaudeAPICached(prompt, decompositionCacheParams(request),
+                    decompositionSemanticText(request), Collections.emptyList());
             
             // 解析响应
             return parseTaskDecompositionResponse(response, request);
@@ -65,6 +91,124 @@ public class ClaudeService {
         }
     }
 
+    /**
+     * 流式任务分解，模型输出的增量文本通过 onToken 推送，完成后解析为任务分解结果；
+     * 未配置 API Key 或调用失败时返回模拟数据，取消 Future 即停止生成
+     */
+    public CompletableFuture<TaskDecompositionResponse> streamTaskDecomposition(TaskDecompositionRequest request,
+                                                                               Consumer<String> onToken) {
+        CompletableFuture<String> generation;
+        boolean mock = claudeConfig.getApiKey() == null || claudeConfig.getApiKey().isEmpty();
+        if (mock) {
+            log.warn("Claude API Key 未配置，流式返回模拟数据");
+            TaskDecompositionResponse mockResponse = generateMockResponse(request);
+            try {
+                generation = stubStreamingChatClient.streamAsync(
+                        userRequest(objectMapper.writeValueAsString(mockResponse)), onToken);
+            } catch (JsonProcessingException e) {
+                return CompletableFuture.completedFuture(mockResponse);
+            }
+            CompletableFuture<TaskDecompositionResponse> result = generation.thenApply(content -> mockResponse);
+            propagateCancel(result, generation);
+            return result;
+        }
+
+        String prompt = buildTaskDecompositionPrompt(request);
+        String params = decompositionCacheParams(request);
+        String semanticText = decompositionSemanticText(request);
+        Long tenantId = TenantContext.getTenantId();
+        String cached = llmResponseCache.get(tenantId, claudeConfig.getModel(), params, prompt, semanticText);
+        if (cached != null) {
+            // 命中缓存时按流式回放，前端处理逻辑不变
+            log.info("任务分解命中响应缓存, 项目: {}", request.getProjectName());
+            generation = stubStreamingChatClient.streamAsync(userRequest(cached), onToken);
+        } else {
+            log.info("开始流式调用 Claude API 进行任务分解, 项目: {}", request.getProjectName());
+            generation = streamGuarded(userRequest(prompt), onToken);
+        }
+        CompletableFuture<TaskDecompositionResponse> result = generation.handle((content, error) -> {
+            if (error != null) {
+                log.error("流式调用 Claude API 失败: {}", error.getMessage());
+                return generateMockResponse(request);
+            }
+            if (cached == null && !content.isEmpty()) {
+                llmResponseCache.put(tenantId, claudeConfig.getModel(), params, prompt, semanticText, content,
+                        Collections.emptyList());
+            }
+            return parseTaskDecompositionResponse(content, request);
+        });
+        propagateCancel(result, generation);
+        return result;
+    }
+
+    private ChatStreamRequest userRequest(String prompt) {
+        Map<String, String> userMessage = new HashMap<>();
+        userMessage.put("role", "user");
+        userMessage.put("content", prompt);
+        return ChatStreamRequest.builder()
+                .model(claudeConfig.getModel())
+                .maxTokens(claudeConfig.getMaxTokens())
+                .temperature(claudeConfig.getTemperature())
+                .messages(Collections.singletonList(userMessage))
+                .build();
+    }
+
+    /**
+     * 在并发舱壁内发起流式调用，生成结束（含取消）时释放许可；舱壁已满时返回失败的 Future
+     */
+    private CompletableFuture<String> streamGuarded(ChatStreamRequest request, Consumer<String> onToken) {
+        Long modelId;
+        try {
+            modelId = acquireModel();
+        } catch (BusinessException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            claudeBulkhead.acquire();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            releaseModel(modelId);
+            return CompletableFuture.failedFuture(e);
+        }
+        long startNanos = System.nanoTime();
+        CompletableFuture<String> generation;
+        try {
+            generation = claudeStreamingChatClient.streamAsync(request, onToken);
+        } catch (RuntimeException e) {
+            claudeBulkhead.onIgnored();
+            releaseModel(modelId);
+            throw e;
+        }
+        generation.whenComplete((content, error) -> {
+            if (error == null) {
+                claudeBulkhead.onSuccess(System.nanoTime() - startNanos);
+            } else if (!generation.isCancelled() && isOverload(error)) {
+                claudeBulkhead.onDropped();
+            } else {
+                claudeBulkhead.onIgnored();
+            }
+            if (generation.isCancelled()) {
+                releaseModel(modelId);
+            } else {
+                reportModel(modelId, error == null);
+            }
+        });
+        return generation;
+    }
+
+    /**
+     * 下游 Future 被取消（客户端断开）时停止模型生成
+     */
+    private static void propagateCancel(CompletableFuture<?> result, CompletableFuture<?> generation) {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                generation.cancel(true);
+            }
+        });
+    }
+
     /**
      * 构建任务分解提示词
      */
@@ -119,6 +263,159 @@ public class ClaudeService {
         return prompt.toString();
     }
 
+    /**
+     * 失效指定任务相关的缓存响应（任务内容变更时调用）
+     */
+    public void evictTaskCache(Long taskId) {
+        int evicted = llmResponseCache.invalidateSource(TenantContext.getTenantId(), taskCacheSource(taskId));
+        if (evicted > 0) {
+            log.debug("任务变更，失效 {} 条AI响应缓存: taskId={}", evicted, taskId);
+        }
+    }
+
+    /**
+     * 带响应缓存的 Claude API 调用，先查精确/语义缓存，未命中时调用并写入
+     *
+     * @param params       缓存参数，语义匹配只在参数完全相同的条目间进行
+     * @param semanticText 语义匹配文本，为 null 时只做精确匹配
+     */
+    private String callClaudeAPICached(String prompt, String params, String semanticText,
+                                       Collection<String> sourceIds) {
+        Long tenantId = TenantContext.getTenantId();
+        String cached = llmResponseCache.get(tenantId, claudeConfig.getModel(), params, prompt, semanticText);
+        if (cached != null) {
+            log.info("命中AI响应缓存, 跳过 Claude API 调用");
+            return cached;
+        }
+
+        // 多个用户同时发起相同请求时只调用一次，其余等待共享结果
+        String flightKey = tenantId + ":" + SemanticResponseCache.cacheKey(claudeConfig.getModel(), params, prompt);
+        try {
+            return inFlightCalls.execute(flightKey, () -> {
+                // 前一个相同调用可能刚写入缓存
+                String latest = llmResponseCache.get(tenantId, claudeConfig.getModel(), params, prompt, false);
+                if (latest != null) {
+                    return latest;
+                }
+                String response = callClaudeAPIGuarded(prompt);
+                if (response != null && !response.isEmpty()) {
+                    llmResponseCache.put(tenantId, claudeConfig.getModel(), params, prompt, semanticText, response,
+                            sourceIds);
+                }
+                return response;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 在并发舱壁内调用 Claude API，按结果调整并发上限
+     */
+    private String callClaudeAPIGuarded(String prompt) throws InterruptedException {
+        Long modelId = acquireModel();
+        try {
+            claudeBulkhead.acquire();
+        } catch (InterruptedException | RuntimeException e) {
+            releaseModel(modelId);
+            throw e;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            String response = callClaudeAPI(prompt);
+            claudeBulkhead.onSuccess(System.nanoTime() - startNanos);
+            reportModel(modelId, true);
+            return response;
+        } catch (Throwable t) {
+            if (isOverload(t)) {
+                claudeBulkhead.onDropped();
+            } else {
+                claudeBulkhead.onIgnored();
+            }
+            reportModel(modelId, false);
+            throw t;
+        }
+    }
+
+    /**
+     * 当前配置模型在模型目录中的ID，目录中没有对应模型时为 null（不做熔断）
+     */
+    private Long resolveModelId() {
+        return multiModelService.findModelIdByCode(claudeConfig.getModel());
+    }
+
+    /**
+     * 获取模型熔断器许可，熔断中抛出业务异常，由调用方降级为模拟数据
+     */
+    private Long acquireModel() {
+        Long modelId = resolveModelId();
+        if (modelId != null && !multiModelService.tryAcquire(modelId)) {
+            throw new BusinessException("模型已熔断: " + claudeConfig.getModel());
+        }
+        return modelId;
+    }
+
+    private void reportModel(Long modelId, boolean success) {
+        if (modelId != null) {
+            multiModelService.recordCallResult(modelId, success);
+        }
+    }
+
+    private void releaseModel(Long modelId) {
+        if (modelId != null) {
+            multiModelService.releaseCall(modelId);
+        }
+    }
+
+    /**
+     * 是否为下游过载：限流（429）、网关/服务不可用（502/503/504）或超时
+     */
+    private static boolean isOverload(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpStatusCodeException) {
+            int status = ((HttpStatusCodeException) cause).getStatusCode().value();
+            return status == 429 || status == 502 || status == 503 || status == 504;
+        }
+        if (cause instanceof ResourceAccessException || cause instanceof HttpTimeoutException) {
+            return true;
+        }
+        // 流式客户端以 "HTTP <状态码>: ..." 报告非 2xx 响应
+        String message = cause.getMessage();
+        return message != null && (message.startsWith("HTTP 429") || message.startsWith("HTTP 502")
+                || message.startsWith("HTTP 503") || message.startsWith("HTTP 504"));
+    }
+
+    private String cacheParams() {
+        return "maxTokens=" + claudeConfig.getMaxTokens() + ",temperature=" + claudeConfig.getTemperature();
+    }
+
+    /**
+     * 任务分解的缓存参数：参与部门与起止日期必须完全一致才能复用
+     */
+    private String decompositionCacheParams(TaskDecompositionRequest request) {
+        List<String> departments = request.getDepartments() != null
+                ? request.getDepartments().stream().sorted().toList() : Collections.emptyList();
+        return cacheParams() + ",departments=" + String.join("|", departments)
+                + ",startDate=" + request.getStartDate() + ",endDate=" + request.getEndDate();
+    }
+
+    /**
+     * 任务分解的语义匹配文本：只取用户填写的项目名称与描述，固定模板不参与相似度
+     */
+    private static String decompositionSemanticText(TaskDecompositionRequest request) {
+        return (request.getProjectName() != null ? request.getProjectName() : "") + "\n"
+                + (request.getProjectDescription() != null ? request.getProjectDescription() : "");
+    }
+
+    private static String taskCacheSource(Long taskId) {
+        return "milestone-task:" + taskId;
+    }
+
     /**
      * 调用 Claude API（支持 Anthropic 原生格式和 OpenAI 兼容格式）
      */
@@ -504,8 +801,9 @@ public class ClaudeService {
             // 构建提示词
             String prompt = buildProgressDescriptionPrompt(request);
             
-            // 调用 Claude API
-            String response = callClaudeAPI(prompt);
+            // 调用 Claude API（用户输入各不相同，只做精确匹配）
+            String response = callClaudeAPICached(prompt, cacheParams(), null,
+                    request.getTaskId() != null ? List.of(taskCacheSource(request.getTaskId())) : Collections.emptyList());
             
             // 解析响应
             return parseProgressDescriptionResponse(response);
@@ -0,0 +1,152 @@
+package com.mota.project.service.graph;
+
+import com.mota.common.core.similarity.MinHashLsh;
+import com.mota.common.core.util.VectorUtils;
+import com.mota.project.entity.KnowledgeNode;
+import com.mota.project.mapper.KnowledgeNodeMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 知识节点近重复检测
+ *
+ * 两阶段，避免节点两两比较：
+ * 1. 按ID分页读取节点文本，计算 MinHash 签名并做 LSH 分桶，只保留落入同一桶的候选对
+ * 2. 批量加载候选节点已保存的向量，以向量余弦相似度为主打分；任一节点缺少向量时退回签名估计的文本相似度，
+ *    不在请求线程中补算（补算由后台聚类完成）
+ * 相似度达到阈值的候选对按相似度降序返回。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnowledgeDuplicateDetector {
+
+    private static final int IN_QUERY_BATCH_SIZE = 500;
+
+    private final KnowledgeNodeMapper knowledgeNodeMapper;
+    private final KnowledgeNodeEmbedder knowledgeNodeEmbedder;
+
+    @Value("${knowledge.graph.duplicate.lsh-bands:20}")
+    private int lshBands;
+
+    @Value("${knowledge.graph.duplicate.lsh-rows:5}")
+    private int lshRows;
+
+    @Value("${knowledge.graph.duplicate.shingle-size:3}")
+    private int shingleSize;
+
+    @Value("${knowledge.graph.duplicate.max-bucket-size:50}")
+    private int maxBucketSize;
+
+    @Value("${knowledge.graph.duplicate.max-candidates:20000}")
+    private int maxCandidates;
+
+    @Value("${knowledge.graph.duplicate.max-results:200}")
+    private int maxResults;
+
+    @Value("${knowledge.graph.duplicate.merge-threshold:0.95}")
+    private double mergeThreshold;
+
+    @Value("${knowledge.graph.duplicate.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    /**
+     * 查找相似度不低于阈值的节点对
+     */
+    public List<Map<String, Object>> findDuplicates(double threshold) {
+        long start = System.currentTimeMillis();
+        MinHashLsh lsh = new MinHashLsh(lshBands, lshRows, shingleSize);
+        long lastId = 0L;
+        List<KnowledgeNode> page;
+        do {
+            page = knowledgeNodeMapper.selectTextAfter(lastId, loadBatchSize);
+            for (KnowledgeNode node : page) {
+                lsh.add(node.getId(), KnowledgeNodeEmbedder.nodeText(node));
+                lastId = node.getId();
+            }
+        } while (page.size() == loadBatchSize);
+
+        List<MinHashLsh.Pair> candidates = new ArrayList<>(lsh.candidatePairs(maxBucketSize));
+        if (candidates.size() > maxCandidates) {
+            // 优先保留文本相似度高的候选
+            candidates.sort(Comparator.comparingDouble(
+                    (MinHashLsh.Pair pair) -> lsh.similarity(pair.getFirst(), pair.getSecond())).reversed());
+            candidates = candidates.subList(0, maxCandidates);
+        }
+
+        Set<Long> candidateIds = new LinkedHashSet<>();
+        for (MinHashLsh.Pair pair : candidates) {
+            candidateIds.add(pair.getFirst());
+            candidateIds.add(pair.getSecond());
+        }
+        Map<Long, KnowledgeNode> nodes = new HashMap<>();
+        Map<Long, float[]> vectors = new HashMap<>();
+        List<Long> ids = new ArrayList<>(candidateIds);
+        for (int from = 0; from < ids.size(); from += IN_QUERY_BATCH_SIZE) {
+            List<KnowledgeNode> batch = knowledgeNodeMapper.selectBatchIds(
+                    ids.subList(from, Math.min(ids.size(), from + IN_QUERY_BATCH_SIZE)));
+            vectors.putAll(knowledgeNodeEmbedder.storedVectorsOf(batch));
+            for (KnowledgeNode node : batch) {
+                // 向量已解析，返回结果中不再携带
+                node.setEmbeddingVector(null);
+                nodes.put(node.getId(), node);
+            }
+        }
+
+        List<Map<String, Object>> duplicates = new ArrayList<>();
+        for (MinHashLsh.Pair pair : candidates) {
+            KnowledgeNode first = nodes.get(pair.getFirst());
+            KnowledgeNode second = nodes.get(pair.getSecond());
+            if (first == null || second == null) {
+                continue;
+            }
+            double textSimilarity = lsh.similarity(pair.getFirst(), pair.getSecond());
+            float[] a = vectors.get(pair.getFirst());
+            float[] b = vectors.get(pair.getSecond());
+            boolean embedded = a != null && b != null;
+            double similarity = embedded ? VectorUtils.cosine(a, b) : textSimilarity;
+            if (similarity < threshold) {
+                continue;
+            }
+            duplicates.add(toCandidate(first, second, similarity, textSimilarity, embedded, threshold));
+        }
+        duplicates.sort(Comparator.comparingDouble((Map<String, Object> d) -> (Double) d.get("similarity")).reversed());
+
+        log.info("知识节点近重复检测完成: nodes={}, candidates={}, duplicates={}, cost={}ms",
+                lsh.size(), candidates.size(), duplicates.size(), System.currentTimeMillis() - start);
+        return duplicates.size() > maxResults ? new ArrayList<>(duplicates.subList(0, maxResults)) : duplicates;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private Map<String, Object> toCandidate(KnowledgeNode first, KnowledgeNode second,
+                                            double similarity, double textSimilarity, boolean embedded,
+                                            double threshold) {
+        List<String> matchedFields = new ArrayList<>();
+        if (first.getName() != null && first.getName().equalsIgnoreCase(second.getName())) {
+            matchedFields.add("name");
+        }
+        if (first.getDescription() != null && first.getDescription().equals(second.getDescription())) {
+            matchedFields.add("description");
+        }
+        if (textSimilarity >= threshold) {
+            matchedFields.add("text");
+        }
+        if (embedded && similarity >= threshold) {
+            matchedFields.add("embedding");
+        }
+
+        boolean sameType = Objects.equals(first.getNodeType(), second.getNodeType());
+        Map<String, Object> candidate = new HashMap<>();
+        candidate.put("entity1", first);
+        candidate.put("entity2", second);
+        candidate.put("similarity", Math.round(similarity * 10000) / 10000.0);
+        candidate.put("matchedFields", matchedFields);
+        candidate.put("suggestedAction", sameType && similarity >= mergeThreshold ? "merge" : "review");
+        return candidate;
+    }
+}
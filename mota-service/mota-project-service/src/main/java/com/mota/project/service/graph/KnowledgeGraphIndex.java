@@ -0,0 +1,144 @@
+package com.mota.project.service.graph;
+
+import com.mota.common.core.graph.CsrGraph;
+import com.mota.common.core.graph.IncrementalGraph;
+import com.mota.project.entity.KnowledgeEdge;
+import com.mota.project.mapper.KnowledgeEdgeMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识图谱内存邻接快照
+ *
+ * 启动时按ID分页读取 knowledge_edge 的端点构建 CSR 邻接数组，路径查询和K跳邻域直接在内存中完成，
+ * 只有最终展示的节点、边才批量回表。本服务内的建边、删边、删节点在事务提交后增量应用到快照；
+ * 定期全量重建以吸收其他实例或直接改库产生的变更，重建期间的增量会在新快照上重放。
+ * knowledge_node / knowledge_edge 没有租户字段，因此整个服务共用一份快照。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnowledgeGraphIndex {
+
+    private final KnowledgeEdgeMapper knowledgeEdgeMapper;
+
+    @Value("${knowledge.graph.snapshot.compact-threshold:5000}")
+    private int compactThreshold;
+
+    @Value("${knowledge.graph.snapshot.load-batch-size:5000}")
+    private int loadBatchSize;
+
+    @Value("${knowledge.graph.snapshot.rebuild-interval-minutes:30}")
+    private long rebuildIntervalMinutes;
+
+    private IncrementalGraph graph;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        graph = new IncrementalGraph(compactThreshold);
+        rebuild();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "knowledge-graph-rebuilder");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuild,
+                rebuildIntervalMinutes, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 当前图快照，只用于读取
+     */
+    public IncrementalGraph graph() {
+        return graph;
+    }
+
+    /**
+     * 边已创建（事务提交后生效）
+     */
+    public void onEdgeCreated(KnowledgeEdge edge) {
+        if (edge.getId() == null || edge.getSourceNodeId() == null || edge.getTargetNodeId() == null) {
+            return;
+        }
+        afterCommit(() -> graph.addEdge(edge.getId(), edge.getSourceNodeId(), edge.getTargetNodeId()));
+    }
+
+    /**
+     * 边已删除（事务提交后生效）
+     */
+    public void onEdgeDeleted(Long edgeId) {
+        afterCommit(() -> graph.removeEdge(edgeId));
+    }
+
+    /**
+     * 节点及其所有边已删除（事务提交后生效）
+     */
+    public void onNodeDeleted(Long nodeId) {
+        afterCommit(() -> graph.removeNode(nodeId));
+    }
+
+    /**
+     * 全量重建快照
+     */
+    public void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            graph.beginRebuild();
+            CsrGraph.Builder builder = CsrGraph.builder();
+            long lastId = 0L;
+            List<KnowledgeEdge> batch;
+            do {
+                batch = knowledgeEdgeMapper.selectEndpointsAfter(lastId, loadBatchSize);
+                for (KnowledgeEdge edge : batch) {
+                    builder.addEdge(edge.getId(), edge.getSourceNodeId(), edge.getTargetNodeId());
+                    lastId = edge.getId();
+                }
+            } while (batch.size() == loadBatchSize);
+
+            CsrGraph base = builder.build();
+            graph.finishRebuild(base);
+            log.info("知识图谱邻接快照重建完成: nodes={}, edges={}, cost={}ms",
+                    base.nodeCount(), base.edgeCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 重建失败时保留旧快照，重建期间的增量已应用在旧快照上
+            graph.abortRebuild();
+            log.error("知识图谱邻接快照重建失败", e);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mota.project.service.graph;
+
+import com.mota.common.core.similarity.MiniBatchKMeans;
+import com.mota.project.entity.KnowledgeNode;
+import com.mota.project.mapper.KnowledgeNodeMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 知识节点后台聚类
+ *
+ * 后台线程定期按ID分页遍历全部节点，每页作为一个小批量训练 K-Means（余弦相似度），
+ * 质心跨轮次保留，新节点在后续轮次中逐步并入；缺少向量的节点在遍历时批量补算并写回。
+ * 每页训练后立即按当前质心分配该页节点，一轮结束后整体替换聚类结果，查询只读最新结果。
+ * 请求的聚类数与当前模型不同时重置模型并立即开始新一轮。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnowledgeNodeClusterer {
+
+    private static final long RANDOM_SEED = 20240101L;
+
+    private static final String[] COLORS = {
+            "#1890ff", "#52c41a", "#faad14", "#f5222d", "#722ed1",
+            "#13c2c2", "#eb2f96", "#fa8c16", "#a0d911", "#2f54eb"
+    };
+
+    private final KnowledgeNodeMapper knowledgeNodeMapper;
+    private final KnowledgeNodeEmbedder knowledgeNodeEmbedder;
+
+    @Value("${knowledge.graph.cluster.k:8}")
+    private int defaultK;
+
+    @Value("${knowledge.graph.cluster.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${knowledge.graph.cluster.interval-minutes:30}")
+    private long intervalMinutes;
+
+    @Value("${knowledge.graph.cluster.max-node-ids:500}")
+    private int maxNodeIds;
+
+    private volatile MiniBatchKMeans model;
+    private volatile Result result = new Result(Map.of(), Map.of());
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        model = new MiniBatchKMeans(defaultK, RANDOM_SEED);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "knowledge-node-clusterer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, 1, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 当前聚类结果；k 与当前模型不同时重置模型并在后台重新聚类，本次仍返回已有结果
+     *
+     * @param k          期望的聚类数，为 null 时沿用当前模型
+     * @param minSize    最小聚类规模，小于该值的聚类不返回
+     */
+    public List<Map<String, Object>> getClusters(Integer k, int minSize) {
+        if (k != null && k > 0 && k != model.getK()) {
+            model = new MiniBatchKMeans(k, RANDOM_SEED);
+            scheduler.execute(this::run);
+        }
+        Result current = result;
+        List<Map<String, Object>> clusters = new ArrayList<>();
+        for (Integer clusterId : current.members.keySet()) {
+            Map<String, Object> cluster = clusterToMap(current, clusterId);
+            if ((Integer) cluster.get("nodeCount") >= minSize) {
+                clusters.add(cluster);
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * 单个聚类，不存在时返回 null
+     */
+    public Map<String, Object> getCluster(long clusterId) {
+        Result current = result;
+        return current.members.containsKey((int) clusterId) ? clusterToMap(current, (int) clusterId) : null;
+    }
+
+    /**
+     * 节点所属聚类ID，尚未聚类时返回 null
+     */
+    public Integer clusterOf(Long nodeId) {
+        return result.assignments.get(nodeId);
+    }
+
+    /**
+     * 执行一轮小批量训练与分配
+     */
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            MiniBatchKMeans current = model;
+            Map<Long, Integer> assignments = new HashMap<>();
+            Map<Integer, List<KnowledgeNode>> members = new TreeMap<>();
+            long lastId = 0L;
+            List<KnowledgeNode> page;
+            do {
+                page = knowledgeNodeMapper.selectWithEmbeddingAfter(lastId, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+                Map<Long, float[]> vectors = knowledgeNodeEmbedder.vectorsOf(page);
+                current.partialFit(new ArrayList<>(vectors.values()));
+                for (KnowledgeNode node : page) {
+                    int cluster = current.predict(vectors.get(node.getId()));
+                    if (cluster >= 0) {
+                        node.setEmbeddingVector(null);
+                        assignments.put(node.getId(), cluster + 1);
+                        members.computeIfAbsent(cluster + 1, c -> new ArrayList<>()).add(node);
+                    }
+                }
+            } while (page.size() == batchSize);
+
+            if (current == model) {
+                result = new Result(assignments, members);
+            }
+            log.info("知识节点聚类完成: k={}, nodes={}, clusters={}, cost={}ms",
+                    current.getK(), assignments.size(), members.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("知识节点聚类失败", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private Map<String, Object> clusterToMap(Result current, int clusterId) {
+        List<KnowledgeNode> nodes = current.members.getOrDefault(clusterId, List.of());
+        List<String> keywords = nodes.stream()
+                .map(KnowledgeNode::getNodeType)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(type -> type, Collectors.counting()))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(3)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        Map<String, Object> cluster = new HashMap<>();
+        cluster.put("id", clusterId);
+        cluster.put("name", "聚类-" + clusterId);
+        cluster.put("description", keywords.isEmpty() ? "" : "主要类型: " + String.join("、", keywords));
+        cluster.put("color", COLORS[(clusterId - 1) % COLORS.length]);
+        cluster.put("nodeIds", nodes.stream().limit(maxNodeIds).map(KnowledgeNode::getId).toList());
+        cluster.put("nodeCount", nodes.size());
+        cluster.put("keywords", keywords);
+        return cluster;
+    }
+
+    /**
+     * 一轮聚类的结果：节点ID -> 聚类ID、聚类ID -> 成员节点（不含向量）
+     */
+    private static class Result {
+        private final Map<Long, Integer> assignments;
+        private final Map<Integer, List<KnowledgeNode>> members;
+
+        private Result(Map<Long, Integer> assignments, Map<Integer, List<KnowledgeNode>> members) {
+            this.assignments = assignments;
+            this.members = members;
+        }
+    }
+}
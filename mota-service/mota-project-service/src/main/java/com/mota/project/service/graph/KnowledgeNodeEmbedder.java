@@ -0,0 +1,103 @@
+package com.mota.project.service.graph;
+
+import com.mota.common.core.embedding.EmbeddingBatcher;
+import com.mota.common.core.util.VectorUtils;
+import com.mota.project.entity.KnowledgeNode;
+import com.mota.project.mapper.KnowledgeNodeMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 知识节点向量化
+ *
+ * 节点文本（名称 + 描述）经 EmbeddingBatcher 微批向量化，结果以 JSON 数组写回 embedding_vector，
+ * 每批用一条 CASE 语句批量更新。读取向量时缺失或维度与当前模型不符的节点会被补算并写回；
+ * 节点名称或描述修改时向量被清空，由后台聚类遍历时补算。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnowledgeNodeEmbedder {
+
+    private final KnowledgeNodeMapper knowledgeNodeMapper;
+    private final EmbeddingBatcher embeddingBatcher;
+
+    @Value("${knowledge.graph.embedding.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 节点用于向量化和相似度比较的文本
+     */
+    public static String nodeText(KnowledgeNode node) {
+        String name = node.getName() != null ? node.getName() : "";
+        return node.getDescription() != null ? name + "\n" + node.getDescription() : name;
+    }
+
+    /**
+     * 向量化并批量写回
+     *
+     * @return 节点ID -> 向量
+     */
+    public Map<Long, float[]> embedAndSave(List<KnowledgeNode> nodes) {
+        Map<Long, float[]> vectors = new HashMap<>();
+        for (int from = 0; from < nodes.size(); from += batchSize) {
+            List<KnowledgeNode> batch = nodes.subList(from, Math.min(nodes.size(), from + batchSize));
+            List<float[]> embeddings = embeddingBatcher.embedAll(batch.stream().map(KnowledgeNodeEmbedder::nodeText).toList());
+
+            List<KnowledgeNode> updates = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                KnowledgeNode update = new KnowledgeNode();
+                update.setId(batch.get(i).getId());
+                update.setEmbeddingVector(VectorUtils.format(embeddings.get(i)));
+                updates.add(update);
+                vectors.put(update.getId(), embeddings.get(i));
+            }
+            knowledgeNodeMapper.batchUpdateEmbeddingVectors(updates);
+        }
+        return vectors;
+    }
+
+    /**
+     * 只读取已保存且维度与当前模型一致的向量，不补算（用于请求线程）
+     *
+     * @return 节点ID -> 向量
+     */
+    public Map<Long, float[]> storedVectorsOf(List<KnowledgeNode> nodes) {
+        int dimension = embeddingBatcher.getProvider().getDimension();
+        Map<Long, float[]> vectors = new HashMap<>();
+        for (KnowledgeNode node : nodes) {
+            float[] vector = VectorUtils.parse(node.getEmbeddingVector());
+            if (vector != null && vector.length == dimension) {
+                vectors.put(node.getId(), vector);
+            }
+        }
+        return vectors;
+    }
+
+    /**
+     * 读取节点向量，缺失或维度不符的节点补算并写回
+     *
+     * @return 节点ID -> 向量
+     */
+    public Map<Long, float[]> vectorsOf(List<KnowledgeNode> nodes) {
+        Map<Long, float[]> vectors = storedVectorsOf(nodes);
+        List<KnowledgeNode> missing = new ArrayList<>();
+        for (KnowledgeNode node : nodes) {
+            if (!vectors.containsKey(node.getId())) {
+                missing.add(node);
+            }
+        }
+        if (!missing.isEmpty()) {
+            try {
+                vectors.putAll(embedAndSave(missing));
+            } catch (Exception e) {
+                log.warn("知识节点向量补算失败: size={}, error={}", missing.size(), e.getMessage());
+            }
+        }
+        return vectors;
+    }
+}
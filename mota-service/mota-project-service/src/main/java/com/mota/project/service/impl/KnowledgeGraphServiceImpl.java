@@ -1,14 +1,21 @@
 package com.mota.project.service.impl;
 
+import com.mota.common.core.graph.IncrementalGraph;
 import com.mota.project.entity.KnowledgeEdge;
 import com.mota.project.entity.KnowledgeNode;
 import com.mota.project.mapper.KnowledgeEdgeMapper;
 import com.mota.project.mapper.KnowledgeNodeMapper;
 import com.mota.project.service.KnowledgeGraphService;
+import com.mota.project.service.graph.KnowledgeDuplicateDetector;
+import com.mota.project.service.graph.KnowledgeGraphIndex;
+import com.mota.project.service.graph.KnowledgeNodeClusterer;
+import com.mota.project.service.graph.KnowledgeNodeEmbedder;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -21,6 +28,27 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     private final KnowledgeNodeMapper knowledgeNodeMapper;
     private final KnowledgeEdgeMapper knowledgeEdgeMapper;
+    private final KnowledgeGraphIndex knowledgeGraphIndex;
+    private final KnowledgeNodeEmbedder knowledgeNodeEmbedder;
+    private final KnowledgeDuplicateDetector knowledgeDuplicateDetector;
+    private final KnowledgeNodeClusterer knowledgeNodeClusterer;
+
+    /**
+     * 单次 IN 查询的最大ID数
+     */
+    private static final int IN_QUERY_BATCH_SIZE = 500;
+
+    /**
+     * 邻域查询最多返回的节点数
+     */
+    @Value("${knowledge.graph.snapshot.max-hop-nodes:2000}")
+    private int maxHopNodes;
+
+    /**
+     * 未指定数量时路径查询返回的路径数
+     */
+    @Value("${knowledge.graph.snapshot.max-paths:10}")
+    private int defaultMaxPaths;
 
     // ========== 节点管理 ==========
 
@@ -45,6 +73,12 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         node.setId(id);
         node.setUpdatedAt(LocalDateTime.now());
         knowledgeNodeMapper.updateById(node);
+
+        // 名称或描述变化后原向量失效，清空后由后台聚类补算
+        if ((node.getName() != null && !node.getName().equals(existing.getName()))
+                || (node.getDescription() != null && !node.getDescription().equals(existing.getDescription()))) {
+            knowledgeNodeMapper.updateEmbeddingVector(id, null);
+        }
         
         return knowledgeNodeMapper.selectById(id);
     }
@@ -54,6 +88,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
     public boolean deleteNode(Long id) {
         // 删除相关的边
         knowledgeEdgeMapper.deleteByNodeId(id);
+        knowledgeGraphIndex.onNodeDeleted(id);
         return knowledgeNodeMapper.deleteById(id) > 0;
     }
 
@@ -102,6 +137,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
     public KnowledgeEdge createEdge(KnowledgeEdge edge) {
         edge.setCreatedAt(LocalDateTime.now());
         knowledgeEdgeMapper.insert(edge);
+        knowledgeGraphIndex.onEdgeCreated(edge);
         
         // 增加目标节点的引用次数
         knowledgeNodeMapper.incrementReferenceCount(edge.getTargetNodeId());
@@ -115,6 +151,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         KnowledgeEdge edge = knowledgeEdgeMapper.selectById(id);
         if (edge != null) {
             knowledgeEdgeMapper.deleteById(id);
+            knowledgeGraphIndex.onEdgeDeleted(id);
             return true;
         }
         return false;
@@ -250,22 +287,25 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     @Override
     public List<KnowledgeNode> getNeighbors(Long nodeId, int depth) {
-        return knowledgeNodeMapper.selectNeighbors(nodeId, depth);
+        IncrementalGraph.Neighborhood neighborhood = knowledgeGraphIndex.graph()
+                .kHop(nodeId, Math.max(depth, 1), maxHopNodes + 1);
+        List<Long> neighborIds = neighborhood.getNodeIds();
+        return loadNodes(neighborIds.subList(1, neighborIds.size()));
     }
 
     @Override
     public List<List<KnowledgeNode>> findPaths(Long sourceNodeId, Long targetNodeId, int maxDepth) {
-        // TODO: 实现路径查找算法（BFS/DFS）
+        List<IncrementalGraph.GraphPath> graphPaths = knowledgeGraphIndex.graph()
+                .kShortestPaths(sourceNodeId, targetNodeId, maxDepth, defaultMaxPaths);
+        Map<Long, KnowledgeNode> nodes = loadNodeMap(graphPaths);
+
         List<List<KnowledgeNode>> paths = new ArrayList<>();
-        
-        // 简单实现：直接连接
-        List<KnowledgeEdge> directEdges = getEdgesBetween(sourceNodeId, targetNodeId);
-        if (!directEdges.isEmpty()) {
-            KnowledgeNode source = getNodeById(sourceNodeId);
-            KnowledgeNode target = getNodeById(targetNodeId);
-            paths.add(Arrays.asList(source, target));
+        for (IncrementalGraph.GraphPath graphPath : graphPaths) {
+            List<KnowledgeNode> path = graphPath.getNodeIds().stream().map(nodes::get).toList();
+            if (!path.contains(null)) {
+                paths.add(path);
+            }
         }
-        
         return paths;
     }
 
@@ -308,57 +348,27 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         
         List<Map<String, Object>> nodes = new ArrayList<>();
         List<Map<String, Object>> edges = new ArrayList<>();
-        Set<Long> visitedNodes = new HashSet<>();
+        boolean truncated = false;
         
-        // 添加中心节点
+        // 在内存快照中按层展开邻域，再批量加载节点和边
         KnowledgeNode centerNode = getNodeById(centerNodeId);
         if (centerNode != null) {
+            IncrementalGraph.Neighborhood neighborhood = knowledgeGraphIndex.graph()
+                    .kHop(centerNodeId, depth, maxHopNodes);
+            List<Long> nodeIds = neighborhood.getNodeIds();
             nodes.add(nodeToMap(centerNode));
-            visitedNodes.add(centerNodeId);
-            
-            // 递归获取邻居节点
-            collectNeighbors(centerNodeId, depth, nodes, edges, visitedNodes);
+            loadNodes(nodeIds.subList(1, nodeIds.size())).forEach(node -> nodes.add(nodeToMap(node)));
+            loadEdges(neighborhood.getEdgeIds()).forEach(edge -> edges.add(edgeToMap(edge)));
+            truncated = neighborhood.isTruncated();
         }
         
         data.put("nodes", nodes);
         data.put("edges", edges);
+        data.put("truncated", truncated);
         
         return data;
     }
 
-    private void collectNeighbors(Long nodeId, int depth, List<Map<String, Object>> nodes, 
-                                  List<Map<String, Object>> edges, Set<Long> visitedNodes) {
-        if (depth <= 0) return;
-        
-        List<KnowledgeEdge> outEdges = getOutEdges(nodeId);
-        for (KnowledgeEdge edge : outEdges) {
-            edges.add(edgeToMap(edge));
-            
-            if (!visitedNodes.contains(edge.getTargetNodeId())) {
-                KnowledgeNode node = getNodeById(edge.getTargetNodeId());
-                if (node != null) {
-                    nodes.add(nodeToMap(node));
-                    visitedNodes.add(edge.getTargetNodeId());
-                    collectNeighbors(edge.getTargetNodeId(), depth - 1, nodes, edges, visitedNodes);
-                }
-            }
-        }
-        
-        List<KnowledgeEdge> inEdges = getInEdges(nodeId);
-        for (KnowledgeEdge edge : inEdges) {
-            edges.add(edgeToMap(edge));
-            
-            if (!visitedNodes.contains(edge.getSourceNodeId())) {
-                KnowledgeNode node = getNodeById(edge.getSourceNodeId());
-                if (node != null) {
-                    nodes.add(nodeToMap(node));
-                    visitedNodes.add(edge.getSourceNodeId());
-                    collectNeighbors(edge.getSourceNodeId(), depth - 1, nodes, edges, visitedNodes);
-                }
-            }
-        }
-    }
-
     private Map<String, Object> nodeToMap(KnowledgeNode node) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", node.getId());
@@ -369,6 +379,64 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         return map;
     }
 
+    /**
+     * 按给定顺序批量加载节点，已删除的节点跳过
+     */
+    private List<KnowledgeNode> loadNodes(List<Long> nodeIds) {
+        Map<Long, KnowledgeNode> loaded = new HashMap<>();
+        for (int from = 0; from < nodeIds.size(); from += IN_QUERY_BATCH_SIZE) {
+            List<Long> batch = nodeIds.subList(from, Math.min(nodeIds.size(), from + IN_QUERY_BATCH_SIZE));
+            knowledgeNodeMapper.selectBatchIds(batch).forEach(node -> loaded.put(node.getId(), node));
+        }
+        return nodeIds.stream().map(loaded::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * 批量加载边，已删除的边跳过
+     */
+    private List<KnowledgeEdge> loadEdges(Collection<Long> edgeIds) {
+        List<Long> ids = new ArrayList<>(edgeIds);
+        List<KnowledgeEdge> edges = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += IN_QUERY_BATCH_SIZE) {
+            edges.addAll(knowledgeEdgeMapper.selectBatchIds(
+                    ids.subList(from, Math.min(ids.size(), from + IN_QUERY_BATCH_SIZE))));
+        }
+        return edges;
+    }
+
+    private Map<Long, KnowledgeNode> loadNodeMap(List<IncrementalGraph.GraphPath> paths) {
+        Set<Long> nodeIds = new LinkedHashSet<>();
+        paths.forEach(path -> nodeIds.addAll(path.getNodeIds()));
+        Map<Long, KnowledgeNode> nodes = new HashMap<>();
+        loadNodes(new ArrayList<>(nodeIds)).forEach(node -> nodes.put(node.getId(), node));
+        return nodes;
+    }
+
+    private Map<Long, KnowledgeEdge> loadEdgeMap(List<IncrementalGraph.GraphPath> paths) {
+        Set<Long> edgeIds = new LinkedHashSet<>();
+        paths.forEach(path -> edgeIds.addAll(path.getEdgeIds()));
+        Map<Long, KnowledgeEdge> edges = new HashMap<>();
+        loadEdges(edgeIds).forEach(edge -> edges.put(edge.getId(), edge));
+        return edges;
+    }
+
+    private Map<String, Object> pathToMap(IncrementalGraph.GraphPath path, Map<Long, KnowledgeNode> nodes,
+                                          Map<Long, KnowledgeEdge> edges) {
+        List<KnowledgeEdge> pathEdges = path.getEdgeIds().stream().map(edges::get).filter(Objects::nonNull).toList();
+        double totalWeight = pathEdges.stream()
+                .map(KnowledgeEdge::getWeight)
+                .filter(Objects::nonNull)
+                .mapToDouble(BigDecimal::doubleValue)
+                .sum();
+
+        Map<String, Object> pathData = new HashMap<>();
+        pathData.put("nodes", path.getNodeIds().stream().map(nodes::get).filter(Objects::nonNull).map(this::nodeToMap).toList());
+        pathData.put("edges", pathEdges.stream().map(this::edgeToMap).toList());
+        pathData.put("totalWeight", totalWeight);
+        pathData.put("length", path.getNodeIds().size());
+        return pathData;
+    }
+
     private Map<String, Object> edgeToMap(KnowledgeEdge edge) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", edge.getId());
@@ -404,14 +472,9 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
             nodeIds.add(node.getId());
         }
         
-        // 获取这些节点之间的边
-        for (Long nodeId : nodeIds) {
-            List<KnowledgeEdge> outEdges = getOutEdges(nodeId);
-            for (KnowledgeEdge edge : outEdges) {
-                if (nodeIds.contains(edge.getTargetNodeId())) {
-                    edges.add(edgeToMap(edge));
-                }
-            }
+        // 从内存快照取这些节点之间的边，一次批量加载
+        for (KnowledgeEdge edge : loadEdges(knowledgeGraphIndex.graph().edgesAmong(nodeIds))) {
+            edges.add(edgeToMap(edge));
         }
         
         overview.put("nodes", nodes);
@@ -425,18 +488,17 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
     @Override
     @Transactional
     public void updateNodeEmbedding(Long nodeId) {
-        // TODO: 调用AI服务生成向量嵌入
-        // 1. 获取节点信息
-        // 2. 调用Embedding API
-        // 3. 更新节点的embeddingVector字段
+        KnowledgeNode node = knowledgeNodeMapper.selectById(nodeId);
+        if (node != null) {
+            knowledgeNodeEmbedder.embedAndSave(List.of(node));
+        }
     }
 
     @Override
     @Transactional
     public void batchUpdateEmbeddings(List<Long> nodeIds) {
-        for (Long nodeId : nodeIds) {
-            updateNodeEmbedding(nodeId);
-        }
+        // 节点分批加载，向量化与写回由 embedder 按批完成
+        knowledgeNodeEmbedder.embedAndSave(loadNodes(nodeIds));
     }
 
     // ========== 统计分析 ==========
@@ -477,16 +539,16 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
         Map<String, Object> overview = getGlobalGraphOverview();
         data.putAll(overview);
         
-        // 添加聚类信息
-        List<Map<String, Object>> clusters = new ArrayList<>();
-        Map<String, Object> defaultCluster = new HashMap<>();
-        defaultCluster.put("id", 1);
-        defaultCluster.put("name", "默认聚类");
-        defaultCluster.put("color", "#1890ff");
-        defaultCluster.put("nodeCount", ((List<?>) overview.get("nodes")).size());
-        clusters.add(defaultCluster);
-        
-        data.put("clusters", clusters);
+        // 添加聚类信息，节点标注所属聚类
+        for (Object node : (List<?>) overview.get("nodes")) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> nodeMap = (Map<String, Object>) node;
+            Integer clusterId = knowledgeNodeClusterer.clusterOf((Long) nodeMap.get("id"));
+            if (clusterId != null) {
+                nodeMap.put("clusterId", clusterId);
+            }
+        }
+        data.put("clusters", clusterNodes(config));
         
         return data;
     }
@@ -502,31 +564,35 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     @Override
     public List<Map<String, Object>> clusterNodes(Map<String, Object> config) {
-        // TODO: 实现真正的聚类算法
-        List<Map<String, Object>> clusters = new ArrayList<>();
-        
-        Map<String, Object> cluster = new HashMap<>();
-        cluster.put("id", 1);
-        cluster.put("name", "默认聚类");
-        cluster.put("description", "所有节点的默认聚类");
-        cluster.put("color", "#1890ff");
-        cluster.put("nodeIds", List.of());
-        cluster.put("nodeCount", 0);
-        clusters.add(cluster);
-        
-        return clusters;
+        // 聚类由后台增量训练，这里只读取最近一轮的结果
+        Integer numClusters = null;
+        int minClusterSize = 1;
+        if (config != null) {
+            if (config.get("numClusters") instanceof Number number) {
+                numClusters = number.intValue();
+            }
+            if (config.get("minClusterSize") instanceof Number number) {
+                minClusterSize = number.intValue();
+            }
+        }
+        return knowledgeNodeClusterer.getClusters(numClusters, minClusterSize);
     }
 
     @Override
     public Map<String, Object> getClusterDetails(Long clusterId) {
-        Map<String, Object> details = new HashMap<>();
-        details.put("id", clusterId);
-        details.put("name", "聚类-" + clusterId);
-        details.put("description", "聚类详情");
-        details.put("color", "#1890ff");
-        details.put("nodeIds", List.of());
-        details.put("nodeCount", 0);
-        details.put("nodes", List.of());
+        Map<String, Object> details = knowledgeNodeClusterer.getCluster(clusterId);
+        if (details == null) {
+            details = new HashMap<>();
+            details.put("id", clusterId);
+            details.put("name", "聚类-" + clusterId);
+            details.put("nodeIds", List.of());
+            details.put("nodeCount", 0);
+            details.put("nodes", List.of());
+            return details;
+        }
+        @SuppressWarnings("unchecked")
+        List<Long> nodeIds = (List<Long>) details.get("nodeIds");
+        details.put("nodes", loadNodes(nodeIds).stream().map(this::nodeToMap).toList());
         return details;
     }
 
@@ -569,15 +635,12 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
             Integer maxDepth, List<String> relationTypes) {
         Map<String, Object> result = new HashMap<>();
         
-        List<List<KnowledgeNode>> paths = findPaths(sourceNodeId, targetNodeId,
-                maxDepth != null ? maxDepth : 5);
+        IncrementalGraph.GraphPath shortestPath = knowledgeGraphIndex.graph().shortestPath(
+                sourceNodeId, targetNodeId, maxDepth != null ? maxDepth : 5);
         
-        if (!paths.isEmpty()) {
-            List<KnowledgeNode> shortestPath = paths.get(0);
-            result.put("nodes", shortestPath.stream().map(this::nodeToMap).toList());
-            result.put("edges", List.of());
-            result.put("totalWeight", 1.0);
-            result.put("length", shortestPath.size());
+        if (shortestPath != null) {
+            result.putAll(pathToMap(shortestPath, loadNodeMap(List.of(shortestPath)),
+                    loadEdgeMap(List.of(shortestPath))));
         }
         
         return result;
@@ -588,17 +651,14 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
             Integer maxDepth, Integer maxPaths) {
         List<Map<String, Object>> result = new ArrayList<>();
         
-        List<List<KnowledgeNode>> paths = findPaths(sourceNodeId, targetNodeId,
-                maxDepth != null ? maxDepth : 5);
-        
-        int limit = maxPaths != null ? maxPaths : 10;
-        for (int i = 0; i < Math.min(paths.size(), limit); i++) {
-            Map<String, Object> pathData = new HashMap<>();
-            pathData.put("nodes", paths.get(i).stream().map(this::nodeToMap).toList());
-            pathData.put("edges", List.of());
-            pathData.put("totalWeight", 1.0);
-            pathData.put("length", paths.get(i).size());
-            result.add(pathData);
+        List<IncrementalGraph.GraphPath> paths = knowledgeGraphIndex.graph().kShortestPaths(
+                sourceNodeId, targetNodeId, maxDepth != null ? maxDepth : 5,
+                maxPaths != null ? maxPaths : defaultMaxPaths);
+        
+        Map<Long, KnowledgeNode> nodes = loadNodeMap(paths);
+        Map<Long, KnowledgeEdge> edges = loadEdgeMap(paths);
+        for (IncrementalGraph.GraphPath path : paths) {
+            result.add(pathToMap(path, nodes, edges));
         }
         
         return result;
@@ -747,8 +807,7 @@ public class KnowledgeGraphServiceImpl implements KnowledgeGraphService {
 
     @Override
     public List<Map<String, Object>> findDuplicates(Double threshold) {
-        // TODO: 实现重复实体检测
-        return new ArrayList<>();
+        return knowledgeDuplicateDetector.findDuplicates(threshold != null ? threshold : 0.85);
     }
 
     @Override
@@ -14,6 +14,7 @@ import com.mota.project.mapper.MilestoneTaskMapper;
 import com.mota.project.mapper.MilestoneTaskProgressRecordMapper;
 import com.mota.project.service.MilestoneService;
 import com.mota.project.service.MilestoneTaskService;
+import com.mota.project.service.ai.ClaudeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
@@ -37,6 +38,7 @@ public class MilestoneTaskServiceImpl extends ServiceImpl<MilestoneTaskMapper, M
     private final MilestoneTaskAttachmentMapper attachmentMapper;
     private final MilestoneTaskProgressRecordMapper progressRecordMapper;
     private final ObjectMapper objectMapper;
+    private final ClaudeService claudeService;
     
     @Lazy
     private final MilestoneService milestoneService;
@@ -184,6 +186,9 @@ public class MilestoneTaskServiceImpl extends ServiceImpl<MilestoneTaskMapper, M
         }
         
         updateById(existing);
+        
+        // 任务内容变更，失效基于旧内容生成的AI响应缓存
+        claudeService.evictTaskCache(existing.getId());
         return existing;
     }
 
@@ -264,6 +269,7 @@ public class MilestoneTaskServiceImpl extends ServiceImpl<MilestoneTaskMapper, M
         
         // 删除任务
         removeById(id);
+        claudeService.evictTaskCache(id);
         
         // 更新父任务进度
         if (parentTaskId != null) {
@@ -0,0 +1,163 @@
+package com.mota.project.service.search;
+
+import com.mota.common.core.util.CompletionTrie;
+import com.mota.project.entity.search.SearchCompletion;
+import com.mota.project.entity.search.SearchHotWord;
+import com.mota.project.mapper.search.SearchCompletionMapper;
+import com.mota.project.mapper.search.SearchHotWordMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 智能补全内存索引 (SS-007)
+ *
+ * 两棵前缀补全树：
+ * 1. 补全词条树：以 search_completion.prefix 为匹配键，热度按 weight、frequency 排序
+ * 2. 热词树：以近 N 天日热词累计搜索次数为热度，搜索时实时累加
+ * 节点预存 topK，补全只需沿前缀路径下行；定期全量重建后整体替换，读请求不受影响。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchCompletionIndex {
+
+    /**
+     * 频率在组合热度中占用的区间，weight 保留4位小数作为高位
+     */
+    private static final long FREQUENCY_SPAN = 1_000_000_000L;
+
+    /**
+     * 匹配键与补全文本的分隔符，保证同一前缀下多个补全互不覆盖
+     */
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final SearchCompletionMapper completionMapper;
+    private final SearchHotWordMapper hotWordMapper;
+
+    @Value("${search.completion.top-k:20}")
+    private int topK;
+
+    @Value("${search.completion.hot-word-days:30}")
+    private int hotWordDays;
+
+    @Value("${search.completion.rebuild-interval-minutes:10}")
+    private long rebuildIntervalMinutes;
+
+    private volatile Index index;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        index = new Index(new CompletionTrie(topK), new HashMap<>(), new CompletionTrie(topK));
+        rebuild();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "completion-index-rebuilder");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuild,
+                rebuildIntervalMinutes, rebuildIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 补全词条前缀匹配，按 weight、frequency 降序
+     */
+    public List<SearchCompletion> completeCompletions(String prefix, int limit) {
+        Index current = index;
+        List<SearchCompletion> result = new ArrayList<>();
+        for (CompletionTrie.Entry entry : current.completions.complete(prefix, limit)) {
+            SearchCompletion completion = current.completionRows.get(entry.getText());
+            if (completion != null) {
+                result.add(completion);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 热词前缀匹配，按累计搜索次数降序
+     */
+    public List<CompletionTrie.Entry> completeHotWords(String prefix, int limit) {
+        return index.hotWords.complete(prefix, limit);
+    }
+
+    /**
+     * 记录一次热词搜索
+     */
+    public void recordHotWord(String word) {
+        index.hotWords.increment(word, 1);
+    }
+
+    /**
+     * 全量重建索引
+     */
+    public void rebuild() {
+        try {
+            CompletionTrie completions = new CompletionTrie(topK);
+            Map<String, SearchCompletion> completionRows = new HashMap<>();
+            for (SearchCompletion completion : completionMapper.findAllActive()) {
+                if (completion.getPrefix() == null || completion.getCompletionText() == null) {
+                    continue;
+                }
+                String key = completion.getPrefix() + KEY_SEPARATOR + completion.getCompletionText();
+                completions.put(key, key, score(completion));
+                completionRows.put(key, completion);
+            }
+
+            CompletionTrie hotWords = new CompletionTrie(topK);
+            for (SearchHotWord hotWord : hotWordMapper.sumDailySearchCountSince(LocalDate.now().minusDays(hotWordDays))) {
+                hotWords.put(hotWord.getWord(), hotWord.getSearchCount() != null ? hotWord.getSearchCount() : 0L);
+            }
+
+            index = new Index(completions, completionRows, hotWords);
+            log.info("智能补全索引重建完成: completions={}, hotWords={}", completions.size(), hotWords.size());
+        } catch (Exception e) {
+            log.error("智能补全索引重建失败", e);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private static long score(SearchCompletion completion) {
+        BigDecimal weight = completion.getWeight() != null ? completion.getWeight() : BigDecimal.ZERO;
+        long frequency = completion.getFrequency() != null ? completion.getFrequency() : 0L;
+        return weight.movePointRight(4).longValue() * FREQUENCY_SPAN
+                + Math.max(0L, Math.min(frequency, FREQUENCY_SPAN - 1));
+    }
+
+    /**
+     * 索引数据：补全词条树、匹配键 -> 补全词条、热词树
+     */
+    private static class Index {
+        private final CompletionTrie completions;
+        private final Map<String, SearchCompletion> completionRows;
+        private final CompletionTrie hotWords;
+
+        private Index(CompletionTrie completions, Map<String, SearchCompletion> completionRows,
+                      CompletionTrie hotWords) {
+            this.completions = completions;
+            this.completionRows = completionRows;
+            this.hotWords = hotWords;
+        }
+    }
+}
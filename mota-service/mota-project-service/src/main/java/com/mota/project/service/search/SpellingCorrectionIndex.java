@@ -0,0 +1,366 @@
+package com.mota.project.service.search;
+
+import com.mota.project.entity.search.SearchCorrectionDict;
+import com.mota.project.mapper.search.SearchCorrectionDictMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 纠错词典内存索引 (SS-006)
+ *
+ * 基于对称删除（SymSpell）算法：
+ * 1. 启动时为每个错误词的前缀生成编辑距离内的所有删除变体，建立 删除变体 -> 错误词 的倒排
+ * 2. 查询时只对查询词前缀生成删除变体并查表，候选再用有界编辑距离校验
+ * 3. 按 updated_at 增量刷新，定期全量重建兜底
+ * 4. 纠错命中次数在内存累加，定时批量回写
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpellingCorrectionIndex {
+
+    private final SearchCorrectionDictMapper correctionMapper;
+
+    @Value("${search.correction.max-edit-distance:2}")
+    private int maxEditDistance;
+
+    @Value("${search.correction.prefix-length:7}")
+    private int prefixLength;
+
+    @Value("${search.correction.refresh-interval-seconds:60}")
+    private long refreshIntervalSeconds;
+
+    @Value("${search.correction.rebuild-interval-minutes:60}")
+    private long rebuildIntervalMinutes;
+
+    @Value("${search.correction.usage-flush-interval-seconds:30}")
+    private long usageFlushIntervalSeconds;
+
+    private volatile Index index = new Index();
+    private volatile LocalDateTime lastRefreshTime;
+
+    private final Map<Long, LongAdder> pendingUsage = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "spelling-index-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh,
+                refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::rebuild,
+                rebuildIntervalMinutes, rebuildIntervalMinutes, TimeUnit.MINUTES);
+        scheduler.scheduleWithFixedDelay(this::flushUsage,
+                usageFlushIntervalSeconds, usageFlushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flushUsage();
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 对查询串做纠错：从左到右按最长匹配替换错误词，并累加命中次数
+     */
+    public String correct(String query) {
+        if (query == null || query.isEmpty()) {
+            return query;
+        }
+        Index current = index;
+        int[] lengths = current.lengthsDescending();
+        if (lengths.length == 0) {
+            return query;
+        }
+
+        StringBuilder corrected = new StringBuilder(query.length());
+        int i = 0;
+        while (i < query.length()) {
+            SearchCorrectionDict matched = null;
+            int matchedLength = 0;
+            for (int length : lengths) {
+                if (i + length > query.length()) {
+                    continue;
+                }
+                SearchCorrectionDict dict = current.terms.get(query.substring(i, i + length));
+                if (dict != null) {
+                    matched = dict;
+                    matchedLength = length;
+                    break;
+                }
+            }
+            if (matched != null) {
+                corrected.append(matched.getCorrectWord());
+                recordUsage(matched.getId());
+                i += matchedLength;
+            } else {
+                corrected.append(query.charAt(i));
+                i++;
+            }
+        }
+        return corrected.toString();
+    }
+
+    /**
+     * 获取编辑距离内的纠错建议，按编辑距离、使用次数排序
+     */
+    public List<String> suggest(String query) {
+        if (query == null || query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Index current = index;
+
+        Map<String, Integer> candidates = new HashMap<>();
+        for (String variant : deletes(prefix(query))) {
+            Set<String> words = current.deletes.get(variant);
+            if (words == null) {
+                continue;
+            }
+            for (String word : words) {
+                if (candidates.containsKey(word) || Math.abs(word.length() - query.length()) > maxEditDistance) {
+                    continue;
+                }
+                int distance = boundedEditDistance(query, word, maxEditDistance);
+                if (distance >= 0) {
+                    candidates.put(word, distance);
+                }
+            }
+        }
+
+        List<SearchCorrectionDict> matched = new ArrayList<>();
+        for (String word : candidates.keySet()) {
+            SearchCorrectionDict dict = current.terms.get(word);
+            if (dict != null) {
+                matched.add(dict);
+            }
+        }
+        matched.sort(Comparator
+                .comparingInt((SearchCorrectionDict d) -> candidates.get(d.getWrongWord()))
+                .thenComparing(d -> d.getUsageCount() != null ? d.getUsageCount() : 0, Comparator.reverseOrder()));
+
+        List<String> suggestions = new ArrayList<>();
+        for (SearchCorrectionDict dict : matched) {
+            if (!suggestions.contains(dict.getCorrectWord())) {
+                suggestions.add(dict.getCorrectWord());
+            }
+        }
+        return suggestions;
+    }
+
+    // ==================== 索引维护 ====================
+
+    /**
+     * 全量重建索引
+     */
+    public void rebuild() {
+        try {
+            LocalDateTime startTime = LocalDateTime.now();
+            Index rebuilt = new Index();
+            for (SearchCorrectionDict dict : correctionMapper.findActiveCorrections()) {
+                add(rebuilt, dict);
+            }
+            index = rebuilt;
+            lastRefreshTime = startTime;
+            log.info("纠错词典索引重建完成: terms={}, deletes={}", rebuilt.terms.size(), rebuilt.deletes.size());
+        } catch (Exception e) {
+            log.error("纠错词典索引重建失败", e);
+        }
+    }
+
+    /**
+     * 增量刷新：只加载上次刷新后变更的词条
+     */
+    public void refresh() {
+        if (lastRefreshTime == null) {
+            rebuild();
+            return;
+        }
+        try {
+            LocalDateTime startTime = LocalDateTime.now();
+            List<SearchCorrectionDict> changed = correctionMapper.findUpdatedSince(lastRefreshTime);
+            Index current = index;
+            for (SearchCorrectionDict dict : changed) {
+                remove(current, dict.getWrongWord());
+                if (Boolean.TRUE.equals(dict.getIsActive())) {
+                    add(current, dict);
+                }
+            }
+            lastRefreshTime = startTime;
+            if (!changed.isEmpty()) {
+                log.info("纠错词典索引增量刷新: changed={}", changed.size());
+            }
+        } catch (Exception e) {
+            log.error("纠错词典索引增量刷新失败", e);
+        }
+    }
+
+    /**
+     * 将内存中累加的使用次数批量回写
+     */
+    public void flushUsage() {
+        if (pendingUsage.isEmpty()) {
+            return;
+        }
+        List<SearchCorrectionDict> deltas = new ArrayList<>();
+        for (Long id : new ArrayList<>(pendingUsage.keySet())) {
+            LongAdder adder = pendingUsage.remove(id);
+            long delta = adder != null ? adder.sumThenReset() : 0;
+            if (delta > 0) {
+                SearchCorrectionDict item = new SearchCorrectionDict();
+                item.setId(id);
+                item.setUsageCount((int) delta);
+                deltas.add(item);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            correctionMapper.batchIncrementUsageCount(deltas);
+        } catch (Exception e) {
+            // 回写失败时放回内存，等待下次刷新
+            deltas.forEach(item -> pendingUsage.computeIfAbsent(item.getId(), k -> new LongAdder()).add(item.getUsageCount()));
+            log.error("纠错词使用次数回写失败: size={}", deltas.size(), e);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private void recordUsage(Long id) {
+        if (id != null) {
+            pendingUsage.computeIfAbsent(id, k -> new LongAdder()).increment();
+        }
+    }
+
+    private void add(Index target, SearchCorrectionDict dict) {
+        String word = dict.getWrongWord();
+        if (word == null || word.isEmpty()) {
+            return;
+        }
+        if (target.terms.put(word, dict) == null) {
+            target.lengthCounts.computeIfAbsent(word.length(), k -> new AtomicInteger()).incrementAndGet();
+        }
+        for (String variant : deletes(prefix(word))) {
+            target.deletes.computeIfAbsent(variant, k -> ConcurrentHashMap.newKeySet()).add(word);
+        }
+    }
+
+    private void remove(Index target, String word) {
+        if (word == null || target.terms.remove(word) == null) {
+            return;
+        }
+        AtomicInteger count = target.lengthCounts.get(word.length());
+        if (count != null && count.decrementAndGet() <= 0) {
+            target.lengthCounts.remove(word.length());
+        }
+        for (String variant : deletes(prefix(word))) {
+            Set<String> words = target.deletes.get(variant);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    target.deletes.remove(variant);
+                }
+            }
+        }
+    }
+
+    private String prefix(String word) {
+        return word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+    }
+
+    /**
+     * 生成编辑距离内的所有删除变体（包含自身）
+     */
+    private Set<String> deletes(String word) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> frontier = Collections.singletonList(word);
+        for (int distance = 1; distance <= maxEditDistance; distance++) {
+            List<String> next = new ArrayList<>();
+            for (String w : frontier) {
+                if (w.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < w.length(); i++) {
+                    String variant = w.substring(0, i) + w.substring(i + 1);
+                    if (result.add(variant)) {
+                        next.add(variant);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * 有界编辑距离，超过上限时返回-1
+     */
+    private static int boundedEditDistance(String s1, String s2, int max) {
+        int n = s1.length();
+        int m = s2.length();
+        if (Math.abs(n - m) > max) {
+            return -1;
+        }
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return -1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] <= max ? previous[m] : -1;
+    }
+
+    /**
+     * 索引数据：错误词 -> 词条，删除变体 -> 错误词集合
+     */
+    private static class Index {
+        private final Map<String, SearchCorrectionDict> terms = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> deletes = new ConcurrentHashMap<>();
+        private final Map<Integer, AtomicInteger> lengthCounts = new ConcurrentHashMap<>();
+
+        int[] lengthsDescending() {
+            return lengthCounts.keySet().stream()
+                    .sorted(Comparator.reverseOrder())
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
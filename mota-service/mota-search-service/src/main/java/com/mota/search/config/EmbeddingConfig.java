@@ -0,0 +1,43 @@
+package com.mota.search.config;
+
+import com.mota.common.core.embedding.EmbeddingBatcher;
+import com.mota.common.core.embedding.EmbeddingProvider;
+import com.mota.common.core.embedding.HashedNgramEmbeddingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文本向量化配置类
+ * 
+ * 默认使用本地哈希 n-gram 向量化，注册其他 EmbeddingProvider Bean 即可替换
+ * 
+ * @author mota
+ */
+@Configuration
+public class EmbeddingConfig {
+
+    @Value("${search.vector.dimension:768}")
+    private int dimension;
+
+    @Value("${search.vector.embedding.batch-size:32}")
+    private int batchSize;
+
+    @Value("${search.vector.embedding.max-wait-ms:5}")
+    private long maxWaitMs;
+
+    @Value("${search.vector.embedding.cache-size:20000}")
+    private int cacheSize;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EmbeddingProvider embeddingProvider() {
+        return new HashedNgramEmbeddingProvider(dimension);
+    }
+
+    @Bean(destroyMethod = "close")
+    public EmbeddingBatcher embeddingBatcher(EmbeddingProvider embeddingProvider) {
+        return new EmbeddingBatcher(embeddingProvider, batchSize, maxWaitMs, cacheSize);
+    }
+}
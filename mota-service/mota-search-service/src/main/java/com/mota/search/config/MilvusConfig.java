@@ -3,15 +3,19 @@ package com.mota.search.config;
 import io.milvus.client.MilvusServiceClient;
 import io.milvus.param.ConnectParam;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * Milvus向量数据库配置类
  * 
+ * search.vector.store=memory 时使用进程内向量存储，不创建 Milvus 客户端
+ * 
  * @author mota
  */
 @Configuration
+@ConditionalOnProperty(name = "search.vector.store", havingValue = "milvus", matchIfMissing = true)
 public class MilvusConfig {
 
     @Value("${milvus.host:localhost}")
@@ -58,6 +58,11 @@ public class SearchResponse {
      */
     private Boolean hasMore;
 
+    /**
+     * 搜索历史ID（用于点击上报）
+     */
+    private Long historyId;
+
     /**
      * 搜索结果项
      */
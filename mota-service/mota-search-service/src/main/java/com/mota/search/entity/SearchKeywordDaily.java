@@ -0,0 +1,60 @@
+package com.mota.search.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 搜索关键词日汇总实体
+ * 
+ * @author mota
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("search_keyword_daily")
+public class SearchKeywordDaily {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 搜索关键词
+     */
+    private String keyword;
+
+    /**
+     * 搜索次数
+     */
+    private Long searchCount;
+
+    /**
+     * 零结果次数
+     */
+    private Long zeroResultCount;
+
+    /**
+     * 点击次数
+     */
+    private Long clickCount;
+}
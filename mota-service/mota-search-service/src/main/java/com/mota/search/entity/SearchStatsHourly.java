@@ -0,0 +1,75 @@
+package com.mota.search.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 搜索小时汇总实体
+ * 
+ * @author mota
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("search_stats_hourly")
+public class SearchStatsHourly {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+
+    /**
+     * 统计小时（整点）
+     */
+    private LocalDateTime statHour;
+
+    /**
+     * 搜索模式
+     */
+    private String searchMode;
+
+    /**
+     * 搜索类型
+     */
+    private String searchType;
+
+    /**
+     * 搜索次数
+     */
+    private Long searchCount;
+
+    /**
+     * 零结果次数
+     */
+    private Long zeroResultCount;
+
+    /**
+     * 点击次数
+     */
+    private Long clickCount;
+
+    /**
+     * 点击位置累计
+     */
+    private Long clickPositionSum;
+
+    /**
+     * 响应耗时累计（毫秒）
+     */
+    private Long durationSum;
+}
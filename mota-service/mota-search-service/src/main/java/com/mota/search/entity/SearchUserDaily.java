@@ -0,0 +1,55 @@
+package com.mota.search.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * 用户搜索日汇总实体
+ * 
+ * @author mota
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("search_user_daily")
+public class SearchUserDaily {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 租户ID
+     */
+    private Long tenantId;
+
+    /**
+     * 统计日期
+     */
+    private LocalDate statDate;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 搜索次数
+     */
+    private Long searchCount;
+
+    /**
+     * 点击次数
+     */
+    private Long clickCount;
+}
@@ -3,6 +3,7 @@ package com.mota.search.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.mota.search.entity.SearchHistory;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -20,6 +21,20 @@ import java.util.Map;
 @Mapper
 public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
 
+    /**
+     * 批量插入搜索历史（ID由调用方预先分配）
+     */
+    @Insert("<script>" +
+            "INSERT INTO search_history (id, tenant_id, user_id, keyword, search_type, search_mode, " +
+            "result_count, duration, clicked, client_ip, user_agent, source, created_at) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.id}, #{item.tenantId}, #{item.userId}, #{item.keyword}, #{item.searchType}, #{item.searchMode}, " +
+            "#{item.resultCount}, #{item.duration}, #{item.clicked}, #{item.clientIp}, #{item.userAgent}, " +
+            "#{item.source}, #{item.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<SearchHistory> list);
+
     /**
      * 获取用户最近搜索记录
      */
@@ -107,7 +122,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT COUNT(*) FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Long countByDateRange(@Param("tenantId") Long tenantId,
                           @Param("startDate") LocalDate startDate,
                           @Param("endDate") LocalDate endDate);
@@ -117,7 +132,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT COUNT(DISTINCT user_id) FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Long countUniqueUsers(@Param("tenantId") Long tenantId,
                           @Param("startDate") LocalDate startDate,
                           @Param("endDate") LocalDate endDate);
@@ -127,7 +142,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT COUNT(*) FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND result_count = 0 " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Long countZeroResultSearches(@Param("tenantId") Long tenantId,
                                   @Param("startDate") LocalDate startDate,
                                   @Param("endDate") LocalDate endDate);
@@ -137,7 +152,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT COUNT(*) FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND clicked = true " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Long countClickedSearches(@Param("tenantId") Long tenantId,
                                @Param("startDate") LocalDate startDate,
                                @Param("endDate") LocalDate endDate);
@@ -147,7 +162,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT AVG(duration) FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Double avgResponseTime(@Param("tenantId") Long tenantId,
                            @Param("startDate") LocalDate startDate,
                            @Param("endDate") LocalDate endDate);
@@ -159,7 +174,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
             "SUM(CASE WHEN clicked = true THEN 1 ELSE 0 END) as clicked_count " +
             "FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY DATE(created_at) ORDER BY date")
     List<Map<String, Object>> getDailyStats(@Param("tenantId") Long tenantId,
                                              @Param("startDate") LocalDate startDate,
@@ -170,7 +185,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT search_type as type, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY search_type")
     List<Map<String, Object>> getTypeDistribution(@Param("tenantId") Long tenantId,
                                                    @Param("startDate") LocalDate startDate,
@@ -181,7 +196,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT keyword, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY keyword ORDER BY count DESC LIMIT #{limit}")
     List<Map<String, Object>> getTopKeywords(@Param("tenantId") Long tenantId,
                                               @Param("startDate") LocalDate startDate,
@@ -193,7 +208,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT keyword, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND result_count = 0 " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY keyword ORDER BY count DESC LIMIT #{limit}")
     List<Map<String, Object>> getZeroResultKeywords(@Param("tenantId") Long tenantId,
                                                      @Param("startDate") LocalDate startDate,
@@ -205,7 +220,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT click_position as position, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND clicked = true " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY click_position ORDER BY position")
     List<Map<String, Object>> getClickPositionStats(@Param("tenantId") Long tenantId,
                                                      @Param("startDate") LocalDate startDate,
@@ -216,7 +231,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT AVG(click_position) FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND clicked = true " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Double avgClickPosition(@Param("tenantId") Long tenantId,
                             @Param("startDate") LocalDate startDate,
                             @Param("endDate") LocalDate endDate);
@@ -226,7 +241,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT COUNT(*) FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND user_id = #{userId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Long countByUserAndDateRange(@Param("tenantId") Long tenantId,
                                   @Param("userId") Long userId,
                                   @Param("startDate") LocalDate startDate,
@@ -237,7 +252,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT keyword, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND user_id = #{userId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY keyword ORDER BY count DESC LIMIT #{limit}")
     List<Map<String, Object>> getUserTopKeywords(@Param("tenantId") Long tenantId,
                                                   @Param("userId") Long userId,
@@ -250,7 +265,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT search_type as type, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND user_id = #{userId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY search_type ORDER BY count DESC")
     List<Map<String, Object>> getUserTypePreference(@Param("tenantId") Long tenantId,
                                                      @Param("userId") Long userId,
@@ -262,7 +277,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT COUNT(*) FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND user_id = #{userId} AND clicked = true " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate}")
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY)")
     Long countUserClickedSearches(@Param("tenantId") Long tenantId,
                                    @Param("userId") Long userId,
                                    @Param("startDate") LocalDate startDate,
@@ -273,7 +288,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT HOUR(created_at) as hour, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} AND user_id = #{userId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY HOUR(created_at) ORDER BY hour")
     List<Map<String, Object>> getUserHourlyDistribution(@Param("tenantId") Long tenantId,
                                                          @Param("userId") Long userId,
@@ -285,7 +300,7 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      */
     @Select("SELECT search_mode as mode, COUNT(*) as count FROM search_history " +
             "WHERE tenant_id = #{tenantId} " +
-            "AND DATE(created_at) >= #{startDate} AND DATE(created_at) <= #{endDate} " +
+            "AND created_at >= #{startDate} AND created_at < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
             "GROUP BY search_mode")
     List<Map<String, Object>> getModeDistribution(@Param("tenantId") Long tenantId,
                                                    @Param("startDate") LocalDate startDate,
@@ -0,0 +1,59 @@
+package com.mota.search.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.mota.search.entity.SearchKeywordDaily;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索关键词日汇总Mapper
+ * 
+ * @author mota
+ */
+@Mapper
+public interface SearchKeywordDailyMapper extends BaseMapper<SearchKeywordDaily> {
+
+    /**
+     * 批量累加关键词日汇总（不存在则插入）
+     */
+    @Insert("<script>" +
+            "INSERT INTO search_keyword_daily (tenant_id, stat_date, keyword, search_count, zero_result_count, click_count) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.tenantId}, #{item.statDate}, #{item.keyword}, #{item.searchCount}, #{item.zeroResultCount}, #{item.clickCount})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "search_count = search_count + VALUES(search_count), " +
+            "zero_result_count = zero_result_count + VALUES(zero_result_count), " +
+            "click_count = click_count + VALUES(click_count)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<SearchKeywordDaily> list);
+
+    /**
+     * 获取热门关键词
+     */
+    @Select("SELECT keyword, SUM(search_count) AS count FROM search_keyword_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} AND stat_date <= #{endDate} " +
+            "GROUP BY keyword ORDER BY count DESC LIMIT #{limit}")
+    List<Map<String, Object>> selectTopKeywords(@Param("tenantId") Long tenantId,
+                                                @Param("startDate") LocalDate startDate,
+                                                @Param("endDate") LocalDate endDate,
+                                                @Param("limit") int limit);
+
+    /**
+     * 获取零结果关键词
+     */
+    @Select("SELECT keyword, SUM(zero_result_count) AS count FROM search_keyword_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} AND stat_date <= #{endDate} " +
+            "AND zero_result_count > 0 " +
+            "GROUP BY keyword ORDER BY count DESC LIMIT #{limit}")
+    List<Map<String, Object>> selectZeroResultKeywords(@Param("tenantId") Long tenantId,
+                                                       @Param("startDate") LocalDate startDate,
+                                                       @Param("endDate") LocalDate endDate,
+                                                       @Param("limit") int limit);
+}
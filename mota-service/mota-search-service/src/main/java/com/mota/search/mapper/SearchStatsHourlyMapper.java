@@ -0,0 +1,85 @@
+package com.mota.search.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.mota.search.entity.SearchStatsHourly;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索小时汇总Mapper
+ * 
+ * @author mota
+ */
+@Mapper
+public interface SearchStatsHourlyMapper extends BaseMapper<SearchStatsHourly> {
+
+    /**
+     * 批量累加小时汇总（不存在则插入）
+     */
+    @Insert("<script>" +
+            "INSERT INTO search_stats_hourly (tenant_id, stat_hour, search_mode, search_type, " +
+            "search_count, zero_result_count, click_count, click_position_sum, duration_sum) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.tenantId}, #{item.statHour}, #{item.searchMode}, #{item.searchType}, " +
+            "#{item.searchCount}, #{item.zeroResultCount}, #{item.clickCount}, #{item.clickPositionSum}, #{item.durationSum})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "search_count = search_count + VALUES(search_count), " +
+            "zero_result_count = zero_result_count + VALUES(zero_result_count), " +
+            "click_count = click_count + VALUES(click_count), " +
+            "click_position_sum = click_position_sum + VALUES(click_position_sum), " +
+            "duration_sum = duration_sum + VALUES(duration_sum)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<SearchStatsHourly> list);
+
+    /**
+     * 汇总时间范围内的搜索指标
+     */
+    @Select("SELECT COALESCE(SUM(search_count), 0) AS searchCount, " +
+            "COALESCE(SUM(zero_result_count), 0) AS zeroResultCount, " +
+            "COALESCE(SUM(click_count), 0) AS clickCount, " +
+            "COALESCE(SUM(click_position_sum), 0) AS clickPositionSum, " +
+            "COALESCE(SUM(duration_sum), 0) AS durationSum " +
+            "FROM search_stats_hourly " +
+            "WHERE tenant_id = #{tenantId} AND stat_hour >= #{startTime} AND stat_hour < #{endTime}")
+    Map<String, Object> selectTotals(@Param("tenantId") Long tenantId,
+                                     @Param("startTime") LocalDateTime startTime,
+                                     @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按天汇总搜索次数与点击次数
+     */
+    @Select("SELECT DATE(stat_hour) AS date, SUM(search_count) AS searchCount, SUM(click_count) AS clickCount " +
+            "FROM search_stats_hourly " +
+            "WHERE tenant_id = #{tenantId} AND stat_hour >= #{startTime} AND stat_hour < #{endTime} " +
+            "GROUP BY DATE(stat_hour) ORDER BY date")
+    List<Map<String, Object>> selectDailyTrend(@Param("tenantId") Long tenantId,
+                                               @Param("startTime") LocalDateTime startTime,
+                                               @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 搜索类型分布
+     */
+    @Select("SELECT search_type AS type, SUM(search_count) AS count FROM search_stats_hourly " +
+            "WHERE tenant_id = #{tenantId} AND stat_hour >= #{startTime} AND stat_hour < #{endTime} " +
+            "GROUP BY search_type")
+    List<Map<String, Object>> selectTypeDistribution(@Param("tenantId") Long tenantId,
+                                                     @Param("startTime") LocalDateTime startTime,
+                                                     @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 搜索模式分布
+     */
+    @Select("SELECT search_mode AS mode, SUM(search_count) AS count FROM search_stats_hourly " +
+            "WHERE tenant_id = #{tenantId} AND stat_hour >= #{startTime} AND stat_hour < #{endTime} " +
+            "GROUP BY search_mode")
+    List<Map<String, Object>> selectModeDistribution(@Param("tenantId") Long tenantId,
+                                                     @Param("startTime") LocalDateTime startTime,
+                                                     @Param("endTime") LocalDateTime endTime);
+}
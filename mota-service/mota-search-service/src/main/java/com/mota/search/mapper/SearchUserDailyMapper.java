@@ -0,0 +1,68 @@
+package com.mota.search.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.mota.search.entity.SearchUserDaily;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户搜索日汇总Mapper
+ * 
+ * @author mota
+ */
+@Mapper
+public interface SearchUserDailyMapper extends BaseMapper<SearchUserDaily> {
+
+    /**
+     * 批量累加用户日汇总（不存在则插入）
+     */
+    @Insert("<script>" +
+            "INSERT INTO search_user_daily (tenant_id, stat_date, user_id, search_count, click_count) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.tenantId}, #{item.statDate}, #{item.userId}, #{item.searchCount}, #{item.clickCount})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "search_count = search_count + VALUES(search_count), " +
+            "click_count = click_count + VALUES(click_count)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<SearchUserDaily> list);
+
+    /**
+     * 统计独立搜索用户数
+     */
+    @Select("SELECT COUNT(DISTINCT user_id) FROM search_user_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} AND stat_date <= #{endDate} " +
+            "AND search_count > 0")
+    Long countUniqueUsers(@Param("tenantId") Long tenantId,
+                          @Param("startDate") LocalDate startDate,
+                          @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按天统计独立搜索用户数
+     */
+    @Select("SELECT stat_date AS date, COUNT(*) AS uniqueUsers FROM search_user_daily " +
+            "WHERE tenant_id = #{tenantId} AND stat_date >= #{startDate} AND stat_date <= #{endDate} " +
+            "AND search_count > 0 " +
+            "GROUP BY stat_date")
+    List<Map<String, Object>> selectDailyUniqueUsers(@Param("tenantId") Long tenantId,
+                                                     @Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    /**
+     * 汇总单个用户的搜索次数与点击次数
+     */
+    @Select("SELECT COALESCE(SUM(search_count), 0) AS searchCount, COALESCE(SUM(click_count), 0) AS clickCount " +
+            "FROM search_user_daily " +
+            "WHERE tenant_id = #{tenantId} AND user_id = #{userId} " +
+            "AND stat_date >= #{startDate} AND stat_date <= #{endDate}")
+    Map<String, Object> selectUserTotals(@Param("tenantId") Long tenantId,
+                                         @Param("userId") Long userId,
+                                         @Param("startDate") LocalDate startDate,
+                                         @Param("endDate") LocalDate endDate);
+}
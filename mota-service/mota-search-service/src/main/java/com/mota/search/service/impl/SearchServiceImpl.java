@@ -8,23 +8,25 @@ import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.core.search.HighlightField;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mota.common.core.embedding.EmbeddingBatcher;
 import com.mota.search.dto.IndexRequest;
 import com.mota.search.dto.SearchRequest;
 import com.mota.search.dto.SearchResponse;
 import com.mota.search.entity.SearchDocument;
 import com.mota.search.entity.SearchHistory;
-import com.mota.search.mapper.SearchHistoryMapper;
 import com.mota.search.service.SearchService;
 import com.mota.search.service.SearchSuggestionService;
-import io.milvus.client.MilvusServiceClient;
-import io.milvus.grpc.SearchResults;
-import io.milvus.param.R;
-import io.milvus.param.dml.SearchParam;
+import com.mota.search.support.SearchHistoryBuffer;
+import com.mota.search.support.vector.VectorHit;
+import com.mota.search.support.vector.VectorRecord;
+import com.mota.search.support.vector.VectorStore;
+import com.mota.search.support.vector.VectorWriteBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -40,16 +42,16 @@ import java.util.stream.Collectors;
 public class SearchServiceImpl implements SearchService {
 
     private final ElasticsearchClient elasticsearchClient;
-    private final MilvusServiceClient milvusClient;
-    private final SearchHistoryMapper searchHistoryMapper;
+    private final VectorStore vectorStore;
+    private final VectorWriteBuffer vectorWriteBuffer;
     private final SearchSuggestionService suggestionService;
+    private final SearchHistoryBuffer searchHistoryBuffer;
+    private final EmbeddingBatcher embeddingBatcher;
     private final ObjectMapper objectMapper;
 
     @Value("${elasticsearch.index-prefix:mota}")
     private String indexPrefix;
 
-    @Value("${milvus.collection:mota_vectors}")
-    private String milvusCollection;
 
     private static final int MAX_CONTENT_LENGTH = 500;
 
@@ -149,7 +151,7 @@ public class SearchServiceImpl implements SearchService {
     @Override
     public SearchResponse semanticSearch(Long tenantId, String query, List<String> types, int topK) {
         try {
-            // 首先生成查询向量（这里需要调用AI服务生成embedding）
+            // 首先生成查询向量
             List<Float> queryVector = generateEmbedding(query);
             
             return vectorSearch(tenantId, queryVector, types, topK, 0.7f);
@@ -163,33 +165,9 @@ public class SearchServiceImpl implements SearchService {
     @Override
     public SearchResponse vectorSearch(Long tenantId, List<Float> vector, List<String> types, int topK, float minScore) {
         try {
-            // 构建Milvus搜索参数
-            String filter = String.format("tenant_id == %d", tenantId);
-            if (types != null && !types.isEmpty()) {
-                String typeFilter = types.stream()
-                        .map(t -> String.format("type == \"%s\"", t))
-                        .collect(Collectors.joining(" || "));
-                filter = String.format("(%s) && (%s)", filter, typeFilter);
-            }
-            
-            SearchParam searchParam = SearchParam.newBuilder()
-                    .withCollectionName(milvusCollection)
-                    .withMetricType(io.milvus.param.MetricType.COSINE)
-                    .withOutFields(Arrays.asList("doc_id", "type", "title"))
-                    .withTopK(topK)
-                    .withVectors(Collections.singletonList(vector))
-                    .withExpr(filter)
-                    .build();
-            
-            R<SearchResults> response = milvusClient.search(searchParam);
-            
-            if (response.getStatus() != R.Status.Success.getCode()) {
-                log.error("Milvus搜索失败: {}", response.getMessage());
-                return buildEmptyResponse(1, topK);
-            }
-            
-            // 解析Milvus结果并从ES获取完整文档
-            return buildVectorSearchResponse(tenantId, response.getData(), minScore);
+            // 向量库检索（租户分区 + 类型过滤），再从ES获取完整文档
+            List<VectorHit> vectorHits = vectorStore.search(tenantId, vector, types, topK);
+            return buildVectorSearchResponse(tenantId, vectorHits, minScore, topK);
             
         } catch (Exception e) {
             log.error("向量搜索失败: tenantId={}", tenantId, e);
@@ -239,18 +217,14 @@ public class SearchServiceImpl implements SearchService {
             
             // 生成向量嵌入
             if (Boolean.TRUE.equals(request.getGenerateEmbedding())) {
-                String textForEmbedding = request.getTitle() + " " + 
-                        (request.getSummary() != null ? request.getSummary() : "") + " " +
-                        (request.getContent() != null ? request.getContent().substring(0, 
-                                Math.min(request.getContent().length(), MAX_CONTENT_LENGTH)) : "");
-                List<Float> embedding = generateEmbedding(textForEmbedding);
+                List<Float> embedding = generateEmbedding(buildEmbeddingText(request));
                 document.setEmbedding(embedding);
                 
-                // 同时索引到Milvus
-                indexToMilvus(tenantId, docId, request.getType(), request.getTitle(), embedding);
+                // 同时写入向量库
+                indexVector(tenantId, docId, request.getType(), request.getTitle(), embedding);
             } else if (request.getEmbedding() != null) {
                 document.setEmbedding(request.getEmbedding());
-                indexToMilvus(tenantId, docId, request.getType(), request.getTitle(), request.getEmbedding());
+                indexVector(tenantId, docId, request.getType(), request.getTitle(), request.getEmbedding());
             }
             
             // 索引到Elasticsearch
@@ -275,6 +249,18 @@ public class SearchServiceImpl implements SearchService {
             String indexName = getIndexName(tenantId);
             List<BulkOperation> operations = new ArrayList<>();
             
+            // 需要生成向量的文档一次性提交，由向量化微批合并处理
+            List<IndexRequest> toEmbed = requests.stream()
+                    .filter(request -> Boolean.TRUE.equals(request.getGenerateEmbedding()))
+                    .collect(Collectors.toList());
+            List<float[]> generated = embeddingBatcher.embedAll(toEmbed.stream()
+                    .map(this::buildEmbeddingText)
+                    .collect(Collectors.toList()));
+            Map<IndexRequest, List<Float>> embeddings = new IdentityHashMap<>();
+            for (int i = 0; i < toEmbed.size(); i++) {
+                embeddings.put(toEmbed.get(i), toList(generated.get(i)));
+            }
+            
             for (IndexRequest request : requests) {
                 String docId = generateDocId(request.getType(), request.getBusinessId());
                 
@@ -293,6 +279,12 @@ public class SearchServiceImpl implements SearchService {
                 document.setUpdateTime(request.getUpdateTime());
                 document.setMetadata(request.getMetadata());
                 
+                List<Float> embedding = embeddings.getOrDefault(request, request.getEmbedding());
+                if (embedding != null) {
+                    document.setEmbedding(embedding);
+                    indexVector(tenantId, docId, request.getType(), request.getTitle(), embedding);
+                }
+                
                 operations.add(BulkOperation.of(op -> op
                         .index(idx -> idx
                                 .index(indexName)
@@ -355,8 +347,8 @@ public class SearchServiceImpl implements SearchService {
                     .index(indexName)
                     .id(docId));
             
-            // 同时从Milvus删除
-            deleteFromMilvus(docId);
+            // 同时从向量库删除
+            deleteVector(tenantId, docId);
             
             log.info("文档删除成功: docId={}, result={}", docId, response.result());
             return true;
@@ -388,13 +380,8 @@ public class SearchServiceImpl implements SearchService {
     @Override
     public void recordClick(Long tenantId, Long userId, Long historyId, String documentId, int position) {
         try {
-            SearchHistory history = searchHistoryMapper.selectById(historyId);
-            if (history != null && history.getTenantId().equals(tenantId) && history.getUserId().equals(userId)) {
-                history.setClickedDocId(documentId);
-                history.setClickPosition(position);
-                history.setClickTime(LocalDateTime.now());
-                searchHistoryMapper.updateById(history);
-            }
+            // 搜索历史异步落库，点击由缓冲区在历史写入后回写并累加汇总
+            searchHistoryBuffer.offerClick(tenantId, userId, historyId, documentId, position);
         } catch (Exception e) {
             log.error("记录搜索点击失败: historyId={}, documentId={}", historyId, documentId, e);
         }
@@ -411,23 +398,38 @@ public class SearchServiceImpl implements SearchService {
     }
 
     private List<Float> generateEmbedding(String text) {
-        // TODO: 调用AI服务生成embedding
-        // 这里返回模拟的向量
-        List<Float> embedding = new ArrayList<>();
-        for (int i = 0; i < 768; i++) {
-            embedding.add((float) Math.random());
+        // 经微批处理与内容哈希缓存的本地向量化
+        return toList(embeddingBatcher.embed(text));
+    }
+
+    private String buildEmbeddingText(IndexRequest request) {
+        return request.getTitle() + " " + 
+                (request.getSummary() != null ? request.getSummary() : "") + " " +
+                (request.getContent() != null ? request.getContent().substring(0, 
+                        Math.min(request.getContent().length(), MAX_CONTENT_LENGTH)) : "");
+    }
+
+    private List<Float> toList(float[] vector) {
+        List<Float> embedding = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            embedding.add(v);
         }
         return embedding;
     }
 
-    private void indexToMilvus(Long tenantId, String docId, String type, String title, List<Float> embedding) {
-        // TODO: 实现Milvus索引逻辑
-        log.debug("索引到Milvus: docId={}", docId);
+    private void indexVector(Long tenantId, String docId, String type, String title, List<Float> embedding) {
+        // 经写入缓冲区合并后批量 upsert
+        vectorWriteBuffer.upsert(VectorRecord.builder()
+                .tenantId(tenantId)
+                .docId(docId)
+                .type(type)
+                .title(title)
+                .vector(embedding)
+                .build());
     }
 
-    private void deleteFromMilvus(String docId) {
-        // TODO: 实现Milvus删除逻辑
-        log.debug("从Milvus删除: docId={}", docId);
+    private void deleteVector(Long tenantId, String docId) {
+        vectorWriteBuffer.delete(tenantId, docId);
     }
 
     private SearchResponse buildSearchResponse(
@@ -478,9 +480,61 @@ public class SearchServiceImpl implements SearchService {
         return response;
     }
 
-    private SearchResponse buildVectorSearchResponse(Long tenantId, SearchResults results, float minScore) {
-        // TODO: 实现向量搜索结果解析
-        return buildEmptyResponse(1, 20);
+    private SearchResponse buildVectorSearchResponse(Long tenantId, List<VectorHit> vectorHits, float minScore,
+                                                     int topK) throws IOException {
+        List<VectorHit> matched = vectorHits.stream()
+                .filter(hit -> hit.getScore() >= minScore)
+                .collect(Collectors.toList());
+        if (matched.isEmpty()) {
+            return buildEmptyResponse(1, topK);
+        }
+
+        // 一次 mget 取回完整文档
+        List<String> ids = matched.stream().map(VectorHit::getDocId).collect(Collectors.toList());
+        MgetResponse<SearchDocument> mget = elasticsearchClient.mget(m -> m
+                .index(getIndexName(tenantId))
+                .ids(ids),
+                SearchDocument.class);
+        Map<String, SearchDocument> documents = new HashMap<>();
+        mget.docs().forEach(item -> {
+            if (item.isResult() && item.result().found() && item.result().source() != null) {
+                documents.put(item.result().id(), item.result().source());
+            }
+        });
+
+        List<SearchResponse.SearchHit> hits = new ArrayList<>();
+        for (VectorHit vectorHit : matched) {
+            SearchDocument doc = documents.get(vectorHit.getDocId());
+            SearchResponse.SearchHit searchHit = new SearchResponse.SearchHit();
+            searchHit.setId(vectorHit.getDocId());
+            searchHit.setScore(vectorHit.getScore());
+            if (doc != null) {
+                searchHit.setType(doc.getType());
+                searchHit.setBusinessId(doc.getBusinessId());
+                searchHit.setTitle(doc.getTitle());
+                searchHit.setSummary(doc.getSummary());
+                searchHit.setTags(doc.getTags());
+                searchHit.setCreatorId(doc.getCreatorId());
+                searchHit.setCreatorName(doc.getCreatorName());
+                searchHit.setCreateTime(doc.getCreateTime());
+                searchHit.setUpdateTime(doc.getUpdateTime());
+                searchHit.setMetadata(doc.getMetadata());
+            } else {
+                // ES中已不存在时退回向量库中保存的字段
+                searchHit.setType(vectorHit.getType());
+                searchHit.setTitle(vectorHit.getTitle());
+            }
+            hits.add(searchHit);
+        }
+
+        SearchResponse response = new SearchResponse();
+        response.setHits(hits);
+        response.setTotal((long) hits.size());
+        response.setPage(1);
+        response.setSize(topK);
+        response.setTotalPages(1);
+        response.setHasMore(false);
+        return response;
     }
 
     private SearchResponse mergeSearchResults(SearchResponse fulltext, SearchResponse semantic, int page, int size) {
@@ -546,13 +600,19 @@ public class SearchServiceImpl implements SearchService {
             history.setTenantId(tenantId);
             history.setUserId(userId);
             history.setKeyword(request.getKeyword());
-            history.setSearchMode(request.getMode());
+            history.setSearchMode(request.getMode() != null ? request.getMode() : "fulltext");
             history.setSearchTypes(request.getTypes() != null ? String.join(",", request.getTypes()) : null);
+            history.setSearchType(request.getTypes() != null && !request.getTypes().isEmpty()
+                    ? String.join(",", request.getTypes()) : "all");
             history.setResultCount(response.getTotal().intValue());
             history.setResponseTime(response.getTook().intValue());
+            history.setClicked(false);
             history.setSearchTime(LocalDateTime.now());
             
-            searchHistoryMapper.insert(history);
+            // 异步批量落库，ID在入队时分配并返回给客户端用于点击上报
+            if (searchHistoryBuffer.offerSearch(history)) {
+                response.setHistoryId(history.getId());
+            }
         } catch (Exception e) {
             log.error("记录搜索历史失败", e);
         }
@@ -4,6 +4,9 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch.cat.IndicesResponse;
 import com.mota.search.mapper.SearchHistoryMapper;
 import com.mota.search.mapper.SearchHotwordMapper;
+import com.mota.search.mapper.SearchKeywordDailyMapper;
+import com.mota.search.mapper.SearchStatsHourlyMapper;
+import com.mota.search.mapper.SearchUserDailyMapper;
 import com.mota.search.service.SearchStatisticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,12 +14,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
  * 搜索统计服务实现类
  * 
+ * 看板类统计读取由 SearchHistoryBuffer 增量维护的小时/日汇总表，
+ * 仅按用户维度的明细分析才回查 search_history。
+ * 
  * @author mota
  */
 @Slf4j
@@ -27,6 +34,9 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
     private final ElasticsearchClient elasticsearchClient;
     private final SearchHistoryMapper searchHistoryMapper;
     private final SearchHotwordMapper searchHotwordMapper;
+    private final SearchStatsHourlyMapper searchStatsHourlyMapper;
+    private final SearchKeywordDailyMapper searchKeywordDailyMapper;
+    private final SearchUserDailyMapper searchUserDailyMapper;
 
     @Value("${elasticsearch.index-prefix:mota}")
     private String indexPrefix;
@@ -36,12 +46,15 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         Map<String, Object> overview = new HashMap<>();
         
         try {
+            Map<String, Object> totals = selectTotals(tenantId, startDate, endDate);
+            
             // 总搜索次数
-            Long totalSearches = searchHistoryMapper.countByDateRange(tenantId, startDate, endDate);
+            long totalSearches = toLong(totals.get("searchCount"));
             overview.put("totalSearches", totalSearches);
             
             // 独立用户数
-            Long uniqueUsers = searchHistoryMapper.countUniqueUsers(tenantId, startDate, endDate);
+            Long uniqueUsers = searchUserDailyMapper.countUniqueUsers(tenantId, startDate, endDate);
+            uniqueUsers = uniqueUsers != null ? uniqueUsers : 0L;
             overview.put("uniqueUsers", uniqueUsers);
             
             // 平均每用户搜索次数
@@ -49,7 +62,7 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
             overview.put("avgSearchesPerUser", Math.round(avgSearchesPerUser * 100) / 100.0);
             
             // 零结果搜索次数
-            Long zeroResultSearches = searchHistoryMapper.countZeroResultSearches(tenantId, startDate, endDate);
+            long zeroResultSearches = toLong(totals.get("zeroResultCount"));
             overview.put("zeroResultSearches", zeroResultSearches);
             
             // 零结果率
@@ -57,7 +70,7 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
             overview.put("zeroResultRate", Math.round(zeroResultRate * 100) / 100.0);
             
             // 有点击的搜索次数
-            Long clickedSearches = searchHistoryMapper.countClickedSearches(tenantId, startDate, endDate);
+            long clickedSearches = toLong(totals.get("clickCount"));
             overview.put("clickedSearches", clickedSearches);
             
             // 点击率
@@ -65,8 +78,8 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
             overview.put("clickRate", Math.round(clickRate * 100) / 100.0);
             
             // 平均响应时间
-            Double avgResponseTime = searchHistoryMapper.avgResponseTime(tenantId, startDate, endDate);
-            overview.put("avgResponseTime", avgResponseTime != null ? Math.round(avgResponseTime) : 0);
+            double avgResponseTime = totalSearches > 0 ? (double) toLong(totals.get("durationSum")) / totalSearches : 0;
+            overview.put("avgResponseTime", Math.round(avgResponseTime));
             
         } catch (Exception e) {
             log.error("获取搜索概览统计失败: tenantId={}", tenantId, e);
@@ -80,7 +93,9 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         List<Map<String, Object>> trend = new ArrayList<>();
         
         try {
-            List<Map<String, Object>> dailyStats = searchHistoryMapper.getDailyStats(tenantId, startDate, endDate);
+            List<Map<String, Object>> dailyStats = searchStatsHourlyMapper.selectDailyTrend(
+                    tenantId, startDate.atStartOfDay(), endExclusive(endDate));
+            List<Map<String, Object>> dailyUsers = searchUserDailyMapper.selectDailyUniqueUsers(tenantId, startDate, endDate);
             
             // 填充缺失的日期
             Map<String, Map<String, Object>> statsMap = new HashMap<>();
@@ -88,6 +103,10 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
                 String date = stat.get("date").toString();
                 statsMap.put(date, stat);
             }
+            for (Map<String, Object> stat : dailyUsers) {
+                String date = stat.get("date").toString();
+                statsMap.computeIfAbsent(date, d -> new HashMap<>()).put("uniqueUsers", stat.get("uniqueUsers"));
+            }
             
             LocalDate current = startDate;
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
@@ -114,7 +133,8 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         Map<String, Long> distribution = new HashMap<>();
         
         try {
-            List<Map<String, Object>> typeStats = searchHistoryMapper.getTypeDistribution(tenantId, startDate, endDate);
+            List<Map<String, Object>> typeStats = searchStatsHourlyMapper.selectTypeDistribution(
+                    tenantId, startDate.atStartOfDay(), endExclusive(endDate));
             for (Map<String, Object> stat : typeStats) {
                 String type = stat.get("type") != null ? stat.get("type").toString() : "unknown";
                 Long count = ((Number) stat.get("count")).longValue();
@@ -130,7 +150,7 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
     @Override
     public List<Map<String, Object>> getTopKeywords(Long tenantId, LocalDate startDate, LocalDate endDate, int limit) {
         try {
-            return searchHistoryMapper.getTopKeywords(tenantId, startDate, endDate, limit);
+            return searchKeywordDailyMapper.selectTopKeywords(tenantId, startDate, endDate, limit);
         } catch (Exception e) {
             log.error("获取热门关键词统计失败: tenantId={}", tenantId, e);
             return Collections.emptyList();
@@ -140,7 +160,7 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
     @Override
     public List<Map<String, Object>> getZeroResultKeywords(Long tenantId, LocalDate startDate, LocalDate endDate, int limit) {
         try {
-            return searchHistoryMapper.getZeroResultKeywords(tenantId, startDate, endDate, limit);
+            return searchKeywordDailyMapper.selectZeroResultKeywords(tenantId, startDate, endDate, limit);
         } catch (Exception e) {
             log.error("获取零结果关键词统计失败: tenantId={}", tenantId, e);
             return Collections.emptyList();
@@ -152,12 +172,14 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         Map<String, Object> ctrData = new HashMap<>();
         
         try {
+            Map<String, Object> totals = selectTotals(tenantId, startDate, endDate);
+            
             // 总搜索次数
-            Long totalSearches = searchHistoryMapper.countByDateRange(tenantId, startDate, endDate);
+            long totalSearches = toLong(totals.get("searchCount"));
             ctrData.put("totalSearches", totalSearches);
             
             // 有点击的搜索次数
-            Long clickedSearches = searchHistoryMapper.countClickedSearches(tenantId, startDate, endDate);
+            long clickedSearches = toLong(totals.get("clickCount"));
             ctrData.put("clickedSearches", clickedSearches);
             
             // 总点击率
@@ -169,8 +191,8 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
             ctrData.put("positionDistribution", positionStats);
             
             // 平均点击位置
-            Double avgPosition = searchHistoryMapper.avgClickPosition(tenantId, startDate, endDate);
-            ctrData.put("avgClickPosition", avgPosition != null ? Math.round(avgPosition * 100) / 100.0 : 0);
+            double avgPosition = clickedSearches > 0 ? (double) toLong(totals.get("clickPositionSum")) / clickedSearches : 0;
+            ctrData.put("avgClickPosition", Math.round(avgPosition * 100) / 100.0);
             
         } catch (Exception e) {
             log.error("获取点击率统计失败: tenantId={}", tenantId, e);
@@ -182,7 +204,9 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
     @Override
     public Double getAverageResponseTime(Long tenantId, LocalDate startDate, LocalDate endDate) {
         try {
-            return searchHistoryMapper.avgResponseTime(tenantId, startDate, endDate);
+            Map<String, Object> totals = selectTotals(tenantId, startDate, endDate);
+            long totalSearches = toLong(totals.get("searchCount"));
+            return totalSearches > 0 ? (double) toLong(totals.get("durationSum")) / totalSearches : 0.0;
         } catch (Exception e) {
             log.error("获取平均响应时间失败: tenantId={}", tenantId, e);
             return 0.0;
@@ -194,8 +218,10 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         Map<String, Object> behavior = new HashMap<>();
         
         try {
+            Map<String, Object> userTotals = searchUserDailyMapper.selectUserTotals(tenantId, userId, startDate, endDate);
+            
             // 用户搜索次数
-            Long searchCount = searchHistoryMapper.countByUserAndDateRange(tenantId, userId, startDate, endDate);
+            long searchCount = userTotals != null ? toLong(userTotals.get("searchCount")) : 0L;
             behavior.put("searchCount", searchCount);
             
             // 用户常用关键词
@@ -207,7 +233,7 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
             behavior.put("typePreference", typePreference);
             
             // 用户点击率
-            Long clickedCount = searchHistoryMapper.countUserClickedSearches(tenantId, userId, startDate, endDate);
+            long clickedCount = userTotals != null ? toLong(userTotals.get("clickCount")) : 0L;
             double userCtr = searchCount > 0 ? (double) clickedCount / searchCount * 100 : 0;
             behavior.put("clickRate", Math.round(userCtr * 100) / 100.0);
             
@@ -227,7 +253,8 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         Map<String, Long> distribution = new HashMap<>();
         
         try {
-            List<Map<String, Object>> modeStats = searchHistoryMapper.getModeDistribution(tenantId, startDate, endDate);
+            List<Map<String, Object>> modeStats = searchStatsHourlyMapper.selectModeDistribution(
+                    tenantId, startDate.atStartOfDay(), endExclusive(endDate));
             for (Map<String, Object> stat : modeStats) {
                 String mode = stat.get("mode") != null ? stat.get("mode").toString() : "fulltext";
                 Long count = ((Number) stat.get("count")).longValue();
@@ -283,4 +310,20 @@ public class SearchStatisticsServiceImpl implements SearchStatisticsService {
         
         return "/api/files/download/search-report-" + tenantId + "-" + startDate + "-" + endDate + "." + format;
     }
-}
\ No newline at end of file
+
+    // ==================== 私有方法 ====================
+
+    private Map<String, Object> selectTotals(Long tenantId, LocalDate startDate, LocalDate endDate) {
+        Map<String, Object> totals = searchStatsHourlyMapper.selectTotals(
+                tenantId, startDate.atStartOfDay(), endExclusive(endDate));
+        return totals != null ? totals : Collections.emptyMap();
+    }
+
+    private LocalDateTime endExclusive(LocalDate endDate) {
+        return endDate.plusDays(1).atStartOfDay();
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -12,6 +12,7 @@ import com.mota.search.mapper.SearchHistoryMapper;
 import com.mota.search.mapper.SearchHotwordMapper;
 import com.mota.search.mapper.SearchSynonymMapper;
 import com.mota.search.service.SearchSuggestionService;
+import com.mota.search.support.CompletionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -39,6 +40,7 @@ public class SearchSuggestionServiceImpl implements SearchSuggestionService {
     private final SearchHotwordMapper searchHotwordMapper;
     private final SearchSynonymMapper searchSynonymMapper;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final CompletionIndex completionIndex;
 
     @Value("${elasticsearch.index-prefix:mota}")
     private String indexPrefix;
@@ -93,6 +95,12 @@ public class SearchSuggestionServiceImpl implements SearchSuggestionService {
             return Collections.emptyList();
         }
         
+        // 优先使用内存前缀树，按热词热度排序
+        List<String> local = completionIndex.complete(tenantId, prefix, limit);
+        if (!local.isEmpty()) {
+            return local;
+        }
+        
         // 尝试从缓存获取
         String cacheKey = SUGGESTION_CACHE_KEY + tenantId + ":" + prefix;
         @SuppressWarnings("unchecked")
@@ -302,6 +310,8 @@ public class SearchSuggestionServiceImpl implements SearchSuggestionService {
             return;
         }
         
+        completionIndex.recordSearch(tenantId, keyword);
+        
         try {
             // 更新或创建热词记录
             SearchHotword hotword = searchHotwordMapper.selectByKeyword(tenantId, keyword, "daily");
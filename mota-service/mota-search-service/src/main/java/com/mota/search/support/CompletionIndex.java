@@ -0,0 +1,116 @@
+package com.mota.search.support;
+
+import com.mota.common.core.util.CompletionTrie;
+import com.mota.search.entity.SearchHotword;
+import com.mota.search.mapper.SearchHotwordMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 租户级自动补全内存索引
+ *
+ * 每个租户一棵前缀补全树，以热词搜索次数为热度，节点预存 topK，
+ * 补全请求只需沿前缀路径下行即可返回，不再访问 Redis 和 ES。
+ * 租户首次访问时从 search_hotword 懒加载，之后搜索行为实时累加热度；
+ * 定时全量重载已加载的租户以吸收排行刷新等离线变更，并淘汰长时间未访问的租户。
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CompletionIndex {
+
+    private final SearchHotwordMapper searchHotwordMapper;
+
+    @Value("${search.completion.top-k:20}")
+    private int topK;
+
+    @Value("${search.completion.idle-evict-minutes:120}")
+    private long idleEvictMinutes;
+
+    private final Map<Long, TenantTrie> tries = new ConcurrentHashMap<>();
+
+    /**
+     * 前缀补全，按热度降序
+     */
+    public List<String> complete(Long tenantId, String prefix, int limit) {
+        if (tenantId == null) {
+            return Collections.emptyList();
+        }
+        TenantTrie tenantTrie = tries.computeIfAbsent(tenantId, this::load);
+        tenantTrie.lastAccessTime = System.currentTimeMillis();
+        return tenantTrie.trie.complete(prefix, limit).stream()
+                .map(CompletionTrie.Entry::getText)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 记录一次搜索，租户索引未加载时忽略（加载时会从数据库读到）
+     */
+    public void recordSearch(Long tenantId, String keyword) {
+        if (tenantId == null) {
+            return;
+        }
+        TenantTrie tenantTrie = tries.get(tenantId);
+        if (tenantTrie != null) {
+            tenantTrie.trie.increment(keyword, 1);
+        }
+    }
+
+    /**
+     * 定时重载已加载的租户，淘汰空闲租户
+     */
+    @Scheduled(fixedDelayString = "${search.completion.reload-interval-ms:600000}")
+    public void reload() {
+        long evictBefore = System.currentTimeMillis() - idleEvictMinutes * 60_000L;
+        for (Map.Entry<Long, TenantTrie> entry : new ArrayList<>(tries.entrySet())) {
+            Long tenantId = entry.getKey();
+            if (entry.getValue().lastAccessTime < evictBefore) {
+                tries.remove(tenantId);
+                continue;
+            }
+            TenantTrie reloaded = load(tenantId);
+            reloaded.lastAccessTime = entry.getValue().lastAccessTime;
+            tries.put(tenantId, reloaded);
+        }
+    }
+
+    // ==================== 私有方法 ====================
+
+    private TenantTrie load(Long tenantId) {
+        CompletionTrie trie = new CompletionTrie(topK);
+        try {
+            // 同一关键词存在多个统计周期，取最大搜索次数作为热度
+            Map<String, Long> counts = new HashMap<>();
+            for (SearchHotword hotword : searchHotwordMapper.selectAll(tenantId)) {
+                if (hotword.getKeyword() == null || hotword.getKeyword().isEmpty()) {
+                    continue;
+                }
+                long count = hotword.getSearchCount() != null ? hotword.getSearchCount() : 0L;
+                counts.merge(hotword.getKeyword(), count, Math::max);
+            }
+            counts.forEach(trie::put);
+            log.debug("自动补全索引加载完成: tenantId={}, size={}", tenantId, trie.size());
+        } catch (Exception e) {
+            log.error("自动补全索引加载失败: tenantId={}", tenantId, e);
+        }
+        return new TenantTrie(trie);
+    }
+
+    private static class TenantTrie {
+        private final CompletionTrie trie;
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+        private TenantTrie(CompletionTrie trie) {
+            this.trie = trie;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.mota.search.support;
+
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.mota.search.entity.SearchHistory;
+import com.mota.search.entity.SearchKeywordDaily;
+import com.mota.search.entity.SearchStatsHourly;
+import com.mota.search.entity.SearchUserDaily;
+import com.mota.search.mapper.SearchHistoryMapper;
+import com.mota.search.mapper.SearchKeywordDailyMapper;
+import com.mota.search.mapper.SearchStatsHourlyMapper;
+import com.mota.search.mapper.SearchUserDailyMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 搜索历史异步缓冲区
+ *
+ * 搜索请求只把历史记录放入有界队列，由后台线程按批量大小或时间间隔
+ * 多行插入 search_history，并在同一批次内把搜索/点击增量合并后
+ * 累加到小时、关键词日、用户日三张汇总表，统计看板只查询汇总表。
+ * 点击按入队时预分配的历史ID缓冲，在同一次刷新中于搜索记录落库之后回写，
+ * 对应搜索仍在队列中的点击顺延到下一批，避免点击早于历史落库而丢失。
+ * 队列满时丢弃新记录并计数，不阻塞搜索请求。
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchHistoryBuffer {
+
+    private final SearchHistoryMapper searchHistoryMapper;
+    private final SearchStatsHourlyMapper searchStatsHourlyMapper;
+    private final SearchKeywordDailyMapper searchKeywordDailyMapper;
+    private final SearchUserDailyMapper searchUserDailyMapper;
+
+    @Value("${search.history.buffer.capacity:10000}")
+    private int capacity;
+
+    @Value("${search.history.buffer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${search.history.buffer.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private static final String DEFAULT_MODE = "fulltext";
+    private static final String DEFAULT_TYPE = "all";
+
+    private BlockingQueue<SearchHistory> searchQueue;
+    private BlockingQueue<SearchHistory> clickQueue;
+    private final Set<Long> pendingSearchIds = ConcurrentHashMap.newKeySet();
+    private Thread flushThread;
+    private volatile boolean running;
+
+    private final AtomicLong droppedCount = new AtomicLong(0);
+    private final AtomicLong flushedCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        searchQueue = new ArrayBlockingQueue<>(capacity);
+        clickQueue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        flushThread = new Thread(this::flushLoop, "search-history-flusher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+        log.info("搜索历史缓冲区已启动: capacity={}, batchSize={}, flushIntervalMs={}",
+                capacity, batchSize, flushIntervalMs);
+    }
+
+    /**
+     * 提交一条搜索历史，ID在入队时分配，调用方可立即用于点击上报
+     *
+     * @return 是否成功入队
+     */
+    public boolean offerSearch(SearchHistory history) {
+        if (history.getId() == null) {
+            history.setId(IdWorker.getId());
+        }
+        if (history.getSearchTime() == null) {
+            history.setSearchTime(LocalDateTime.now());
+        }
+        pendingSearchIds.add(history.getId());
+        if (offer(searchQueue, history)) {
+            return true;
+        }
+        pendingSearchIds.remove(history.getId());
+        return false;
+    }
+
+    /**
+     * 提交一次点击，在对应搜索记录落库后由后台线程回写并计入汇总
+     *
+     * @param historyId 搜索返回的历史ID，对应的记录可能仍在缓冲中
+     * @return 是否成功入队
+     */
+    public boolean offerClick(Long tenantId, Long userId, Long historyId, String documentId, int position) {
+        SearchHistory click = SearchHistory.builder()
+                .id(historyId)
+                .tenantId(tenantId)
+                .userId(userId)
+                .clickedDocId(documentId)
+                .clickPosition(position)
+                .build();
+        click.setClickTime(LocalDateTime.now());
+        return offer(clickQueue, click);
+    }
+
+    /**
+     * 获取缓冲区运行状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("pendingSearches", searchQueue.size());
+        status.put("pendingClicks", clickQueue.size());
+        status.put("flushed", flushedCount.get());
+        status.put("dropped", droppedCount.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            flushThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("搜索历史缓冲区已关闭: flushed={}, dropped={}, remaining={}",
+                flushedCount.get(), droppedCount.get(), searchQueue.size() + clickQueue.size());
+    }
+
+    // ==================== 私有方法 ====================
+
+    private boolean offer(BlockingQueue<SearchHistory> queue, SearchHistory history) {
+        if (queue.offer(history)) {
+            return true;
+        }
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped % 1000 == 1) {
+            log.warn("搜索历史缓冲区已满，记录被丢弃: dropped={}", dropped);
+        }
+        return false;
+    }
+
+    private void flushLoop() {
+        while (running || !searchQueue.isEmpty() || !clickQueue.isEmpty()) {
+            try {
+                List<SearchHistory> searches = collectBatch();
+                List<SearchHistory> clicks = new ArrayList<>();
+                clickQueue.drainTo(clicks, batchSize);
+                if (!searches.isEmpty() || !clicks.isEmpty()) {
+                    flush(searches, clicks);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("搜索历史批量写入异常", e);
+            }
+        }
+    }
+
+    /**
+     * 攒批：拿到第一条后最多再等待一个刷新间隔，或攒满批量大小即返回
+     */
+    private List<SearchHistory> collectBatch() throws InterruptedException {
+        List<SearchHistory> batch = new ArrayList<>(batchSize);
+        SearchHistory first = searchQueue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize && running) {
+            searchQueue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            SearchHistory next = searchQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        searchQueue.drainTo(batch, batchSize - batch.size());
+        return batch;
+    }
+
+    private void flush(List<SearchHistory> searches, List<SearchHistory> clicks) {
+        if (!searches.isEmpty()) {
+            try {
+                searchHistoryMapper.insertBatch(searches);
+                flushedCount.addAndGet(searches.size());
+            } catch (Exception e) {
+                log.error("批量插入搜索历史失败: size={}", searches.size(), e);
+            } finally {
+                searches.forEach(history -> pendingSearchIds.remove(history.getId()));
+            }
+        }
+
+        List<SearchHistory> firstClicks = List.of();
+        if (!clicks.isEmpty()) {
+            try {
+                firstClicks = applyClicks(clicks);
+            } catch (Exception e) {
+                log.error("回写搜索点击失败: size={}", clicks.size(), e);
+            }
+        }
+
+        Map<String, SearchStatsHourly> hourly = new LinkedHashMap<>();
+        Map<String, SearchKeywordDaily> keywordDaily = new LinkedHashMap<>();
+        Map<String, SearchUserDaily> userDaily = new LinkedHashMap<>();
+
+        for (SearchHistory history : searches) {
+            boolean zeroResult = history.getResultCount() != null && history.getResultCount() == 0;
+            long duration = history.getDuration() != null ? history.getDuration() : 0L;
+            accumulate(hourly, keywordDaily, userDaily, history, 1, zeroResult ? 1 : 0, 0, 0, duration);
+        }
+        for (SearchHistory history : firstClicks) {
+            int position = history.getClickPosition() != null ? history.getClickPosition() : 0;
+            accumulate(hourly, keywordDaily, userDaily, history, 0, 0, 1, position, 0);
+        }
+
+        try {
+            if (!hourly.isEmpty()) {
+                searchStatsHourlyMapper.upsertBatch(new ArrayList<>(hourly.values()));
+            }
+            if (!keywordDaily.isEmpty()) {
+                searchKeywordDailyMapper.upsertBatch(new ArrayList<>(keywordDaily.values()));
+            }
+            if (!userDaily.isEmpty()) {
+                searchUserDailyMapper.upsertBatch(new ArrayList<>(userDaily.values()));
+            }
+        } catch (Exception e) {
+            log.error("更新搜索汇总统计失败: searches={}, clicks={}", searches.size(), clicks.size(), e);
+        }
+    }
+
+    /**
+     * 回写点击到搜索历史，返回首次点击的历史记录（带原始搜索时间，用于定位统计桶）
+     */
+    private List<SearchHistory> applyClicks(List<SearchHistory> clicks) {
+        List<SearchHistory> ready = new ArrayList<>(clicks.size());
+        for (SearchHistory click : clicks) {
+            if (pendingSearchIds.contains(click.getId())) {
+                // 对应搜索记录尚未落库，顺延到下一批
+                offer(clickQueue, click);
+            } else {
+                ready.add(click);
+            }
+        }
+        if (ready.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, SearchHistory> histories = new HashMap<>();
+        searchHistoryMapper.selectBatchIds(ready.stream().map(SearchHistory::getId).distinct().toList())
+                .forEach(history -> histories.put(history.getId(), history));
+
+        List<SearchHistory> firstClicks = new ArrayList<>();
+        for (SearchHistory click : ready) {
+            SearchHistory history = histories.get(click.getId());
+            if (history == null || !Objects.equals(history.getTenantId(), click.getTenantId())
+                    || !Objects.equals(history.getUserId(), click.getUserId())) {
+                continue;
+            }
+            // 同一次搜索只计一次点击
+            boolean firstClick = !Boolean.TRUE.equals(history.getClicked());
+            history.setClicked(true);
+            history.setClickedDocId(click.getClickedDocId());
+            history.setClickPosition(click.getClickPosition());
+            history.setClickTime(click.getClickTime());
+            searchHistoryMapper.updateById(history);
+            if (firstClick) {
+                firstClicks.add(history);
+            }
+        }
+        return firstClicks;
+    }
+
+    private void accumulate(Map<String, SearchStatsHourly> hourly,
+                            Map<String, SearchKeywordDaily> keywordDaily,
+                            Map<String, SearchUserDaily> userDaily,
+                            SearchHistory history,
+                            long searches, long zeroResults, long clicks, long clickPosition, long duration) {
+        LocalDateTime time = history.getSearchTime() != null ? history.getSearchTime() : LocalDateTime.now();
+        LocalDateTime statHour = time.truncatedTo(ChronoUnit.HOURS);
+        LocalDate statDate = time.toLocalDate();
+        Long tenantId = history.getTenantId();
+        String mode = history.getSearchMode() != null ? history.getSearchMode() : DEFAULT_MODE;
+        String type = history.getSearchType() != null ? history.getSearchType() : DEFAULT_TYPE;
+
+        SearchStatsHourly hour = hourly.computeIfAbsent(tenantId + "|" + statHour + "|" + mode + "|" + type,
+                k -> SearchStatsHourly.builder()
+                        .tenantId(tenantId).statHour(statHour).searchMode(mode).searchType(type)
+                        .searchCount(0L).zeroResultCount(0L).clickCount(0L)
+                        .clickPositionSum(0L).durationSum(0L)
+                        .build());
+        hour.setSearchCount(hour.getSearchCount() + searches);
+        hour.setZeroResultCount(hour.getZeroResultCount() + zeroResults);
+        hour.setClickCount(hour.getClickCount() + clicks);
+        hour.setClickPositionSum(hour.getClickPositionSum() + clickPosition);
+        hour.setDurationSum(hour.getDurationSum() + duration);
+
+        if (history.getKeyword() != null && !history.getKeyword().isEmpty()) {
+            SearchKeywordDaily keyword = keywordDaily.computeIfAbsent(
+                    tenantId + "|" + statDate + "|" + history.getKeyword(),
+                    k -> SearchKeywordDaily.builder()
+                            .tenantId(tenantId).statDate(statDate).keyword(history.getKeyword())
+                            .searchCount(0L).zeroResultCount(0L).clickCount(0L)
+                            .build());
+            keyword.setSearchCount(keyword.getSearchCount() + searches);
+            keyword.setZeroResultCount(keyword.getZeroResultCount() + zeroResults);
+            keyword.setClickCount(keyword.getClickCount() + clicks);
+        }
+
+        if (history.getUserId() != null) {
+            SearchUserDaily user = userDaily.computeIfAbsent(
+                    tenantId + "|" + statDate + "|" + history.getUserId(),
+                    k -> SearchUserDaily.builder()
+                            .tenantId(tenantId).statDate(statDate).userId(history.getUserId())
+                            .searchCount(0L).clickCount(0L)
+                            .build());
+            user.setSearchCount(user.getSearchCount() + searches);
+            user.setClickCount(user.getClickCount() + clicks);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.mota.search.support.vector;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内向量存储
+ *
+ * 用于测试与小规模部署（search.vector.store=memory）：按租户分桶保存归一化向量，
+ * 检索时暴力计算余弦相似度并用容量为 topK 的小顶堆取前 K 个。
+ * 数据不持久化，重启后需重建索引。
+ *
+ * @author mota
+ */
+@Component
+@ConditionalOnProperty(name = "search.vector.store", havingValue = "memory")
+public class InMemoryVectorStore implements VectorStore {
+
+    private final Map<Long, Map<String, Stored>> tenants = new ConcurrentHashMap<>();
+
+    @Override
+    public void upsert(List<VectorRecord> records) {
+        for (VectorRecord record : records) {
+            float[] normalized = normalize(record.getVector());
+            if (normalized == null) {
+                continue;
+            }
+            tenants.computeIfAbsent(record.getTenantId(), k -> new ConcurrentHashMap<>())
+                    .put(record.getDocId(), new Stored(record.getType(), record.getTitle(), normalized));
+        }
+    }
+
+    @Override
+    public void delete(Long tenantId, List<String> docIds) {
+        Map<String, Stored> docs = tenants.get(tenantId);
+        if (docs != null) {
+            docIds.forEach(docs::remove);
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(Long tenantId, List<Float> vector, List<String> types, int topK) {
+        Map<String, Stored> docs = tenants.get(tenantId);
+        float[] query = normalize(vector);
+        if (docs == null || query == null || topK <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> typeFilter = types != null && !types.isEmpty() ? new HashSet<>(types) : null;
+
+        PriorityQueue<VectorHit> heap = new PriorityQueue<>(Comparator.comparingDouble(VectorHit::getScore));
+        for (Map.Entry<String, Stored> entry : docs.entrySet()) {
+            Stored stored = entry.getValue();
+            if (typeFilter != null && !typeFilter.contains(stored.type) || stored.vector.length != query.length) {
+                continue;
+            }
+            float score = dot(query, stored.vector);
+            if (heap.size() < topK) {
+                heap.offer(new VectorHit(entry.getKey(), stored.type, stored.title, score));
+            } else if (score > heap.peek().getScore()) {
+                heap.poll();
+                heap.offer(new VectorHit(entry.getKey(), stored.type, stored.title, score));
+            }
+        }
+
+        List<VectorHit> hits = new ArrayList<>(heap);
+        hits.sort(Comparator.comparingDouble(VectorHit::getScore).reversed());
+        return hits;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private static float[] normalize(List<Float> vector) {
+        if (vector == null || vector.isEmpty()) {
+            return null;
+        }
+        float[] result = new float[vector.size()];
+        double norm = 0;
+        for (int i = 0; i < result.length; i++) {
+            result[i] = vector.get(i);
+            norm += result[i] * result[i];
+        }
+        if (norm == 0) {
+            return result;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < result.length; i++) {
+            result[i] *= scale;
+        }
+        return result;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class Stored {
+        private final String type;
+        private final String title;
+        private final float[] vector;
+
+        private Stored(String type, String title, float[] vector) {
+            this.type = type;
+            this.title = title;
+            this.vector = vector;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.mota.search.support.vector;
+
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.MutationResult;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.RpcStatus;
+import io.milvus.param.collection.CreateCollectionParam;
+import io.milvus.param.collection.FieldType;
+import io.milvus.param.collection.HasCollectionParam;
+import io.milvus.param.collection.LoadCollectionParam;
+import io.milvus.param.dml.DeleteParam;
+import io.milvus.param.dml.InsertParam;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.param.dml.UpsertParam;
+import io.milvus.param.index.CreateIndexParam;
+import io.milvus.response.SearchResultsWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Milvus向量存储
+ *
+ * 1. 每种向量维度一个集合（{collection}_{dimension}），切换模型维度时新旧数据互不影响
+ * 2. tenant_id 作为分区键，由 Milvus 按哈希路由到分区，检索表达式带租户条件即只扫描对应分区
+ * 3. 主键为 租户ID:文档ID，写入使用 upsert，删除按主键 in 批量执行
+ * 4. 集合在首次写入时创建索引并加载
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "search.vector.store", havingValue = "milvus", matchIfMissing = true)
+public class MilvusVectorStore implements VectorStore {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TENANT_ID = "tenant_id";
+    private static final String FIELD_DOC_ID = "doc_id";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_EMBEDDING = "embedding";
+
+    private static final int MAX_ID_LENGTH = 256;
+    private static final int MAX_TYPE_LENGTH = 64;
+    private static final int MAX_TITLE_LENGTH = 256;
+
+    /**
+     * VarChar 长度按 UTF-8 字节计，按每字符最多4字节预留
+     */
+    private static final int BYTES_PER_CHAR = 4;
+
+    private final MilvusServiceClient milvusClient;
+
+    @Value("${milvus.collection:mota_vectors}")
+    private String collectionPrefix;
+
+    @Value("${milvus.partition-num:64}")
+    private int partitionNum;
+
+    @Value("${search.vector.dimension:768}")
+    private int defaultDimension;
+
+    @Value("${search.vector.index-type:IVF_FLAT}")
+    private String indexType;
+
+    @Value("${search.vector.nlist:1024}")
+    private int nlist;
+
+    @Value("${search.vector.nprobe:16}")
+    private int nprobe;
+
+    private final Set<String> readyCollections = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void upsert(List<VectorRecord> records) {
+        Map<Integer, List<VectorRecord>> byDimension = records.stream()
+                .filter(r -> r.getVector() != null && !r.getVector().isEmpty())
+                .collect(Collectors.groupingBy(r -> r.getVector().size()));
+
+        for (Map.Entry<Integer, List<VectorRecord>> entry : byDimension.entrySet()) {
+            String collection = ensureCollection(entry.getKey());
+            List<VectorRecord> group = entry.getValue();
+
+            List<String> ids = new ArrayList<>(group.size());
+            List<Long> tenantIds = new ArrayList<>(group.size());
+            List<String> docIds = new ArrayList<>(group.size());
+            List<String> types = new ArrayList<>(group.size());
+            List<String> titles = new ArrayList<>(group.size());
+            List<List<Float>> vectors = new ArrayList<>(group.size());
+            for (VectorRecord record : group) {
+                ids.add(primaryKey(record.getTenantId(), record.getDocId()));
+                tenantIds.add(record.getTenantId());
+                docIds.add(record.getDocId());
+                types.add(truncate(record.getType(), MAX_TYPE_LENGTH));
+                titles.add(truncate(record.getTitle(), MAX_TITLE_LENGTH));
+                vectors.add(record.getVector());
+            }
+
+            List<InsertParam.Field> fields = Arrays.asList(
+                    new InsertParam.Field(FIELD_ID, ids),
+                    new InsertParam.Field(FIELD_TENANT_ID, tenantIds),
+                    new InsertParam.Field(FIELD_DOC_ID, docIds),
+                    new InsertParam.Field(FIELD_TYPE, types),
+                    new InsertParam.Field(FIELD_TITLE, titles),
+                    new InsertParam.Field(FIELD_EMBEDDING, vectors));
+
+            R<MutationResult> response = milvusClient.upsert(UpsertParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withFields(fields)
+                    .build());
+            check(response, "upsert " + collection);
+            log.debug("Milvus批量写入: collection={}, size={}", collection, group.size());
+        }
+    }
+
+    @Override
+    public void delete(Long tenantId, List<String> docIds) {
+        if (docIds.isEmpty()) {
+            return;
+        }
+        String expr = FIELD_ID + " in [" + docIds.stream()
+                .map(docId -> quote(primaryKey(tenantId, docId)))
+                .collect(Collectors.joining(",")) + "]";
+
+        // 删除时不知道向量维度，对本进程已知的所有集合执行
+        Set<String> collections = new HashSet<>(readyCollections);
+        collections.add(collectionName(defaultDimension));
+        for (String collection : collections) {
+            if (!readyCollections.contains(collection) && !hasCollection(collection)) {
+                continue;
+            }
+            R<MutationResult> response = milvusClient.delete(DeleteParam.newBuilder()
+                    .withCollectionName(collection)
+                    .withExpr(expr)
+                    .build());
+            check(response, "delete " + collection);
+        }
+    }
+
+    @Override
+    public List<VectorHit> search(Long tenantId, List<Float> vector, List<String> types, int topK) {
+        String collection = collectionName(vector.size());
+        if (!readyCollections.contains(collection)) {
+            if (!hasCollection(collection)) {
+                return Collections.emptyList();
+            }
+            ensureCollection(vector.size());
+        }
+
+        String expr = FIELD_TENANT_ID + " == " + tenantId;
+        if (types != null && !types.isEmpty()) {
+            expr += " && " + FIELD_TYPE + " in ["
+                    + types.stream().map(MilvusVectorStore::quote).collect(Collectors.joining(",")) + "]";
+        }
+
+        R<SearchResults> response = milvusClient.search(SearchParam.newBuilder()
+                .withCollectionName(collection)
+                .withMetricType(MetricType.COSINE)
+                .withVectorFieldName(FIELD_EMBEDDING)
+                .withOutFields(Arrays.asList(FIELD_DOC_ID, FIELD_TYPE, FIELD_TITLE))
+                .withTopK(topK)
+                .withVectors(Collections.singletonList(vector))
+                .withExpr(expr)
+                .withParams("{\"nprobe\":" + nprobe + "}")
+                .build());
+        check(response, "search " + collection);
+
+        SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
+        List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(0);
+        if (scores.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<?> docIds = wrapper.getFieldData(FIELD_DOC_ID, 0);
+        List<?> docTypes = wrapper.getFieldData(FIELD_TYPE, 0);
+        List<?> titles = wrapper.getFieldData(FIELD_TITLE, 0);
+
+        List<VectorHit> hits = new ArrayList<>(scores.size());
+        for (int i = 0; i < scores.size(); i++) {
+            hits.add(new VectorHit(
+                    String.valueOf(docIds.get(i)),
+                    String.valueOf(docTypes.get(i)),
+                    String.valueOf(titles.get(i)),
+                    scores.get(i).getScore()));
+        }
+        return hits;
+    }
+
+    // ==================== 私有方法 ====================
+
+    private String collectionName(int dimension) {
+        return collectionPrefix + "_" + dimension;
+    }
+
+    private String ensureCollection(int dimension) {
+        String collection = collectionName(dimension);
+        if (readyCollections.contains(collection)) {
+            return collection;
+        }
+        synchronized (this) {
+            if (readyCollections.contains(collection)) {
+                return collection;
+            }
+            if (!hasCollection(collection)) {
+                createCollection(collection, dimension);
+            }
+            R<RpcStatus> loaded = milvusClient.loadCollection(LoadCollectionParam.newBuilder()
+                    .withCollectionName(collection)
+                    .build());
+            check(loaded, "load " + collection);
+            readyCollections.add(collection);
+            return collection;
+        }
+    }
+
+    private boolean hasCollection(String collection) {
+        R<Boolean> response = milvusClient.hasCollection(HasCollectionParam.newBuilder()
+                .withCollectionName(collection)
+                .build());
+        check(response, "hasCollection " + collection);
+        return Boolean.TRUE.equals(response.getData());
+    }
+
+    private void createCollection(String collection, int dimension) {
+        CreateCollectionParam createParam = CreateCollectionParam.newBuilder()
+                .withCollectionName(collection)
+                .withDescription("mota search vectors, dimension " + dimension)
+                .withPartitionsNum(partitionNum)
+                .addFieldType(FieldType.newBuilder()
+                        .withName(FIELD_ID).withDataType(DataType.VarChar)
+                        .withMaxLength(MAX_ID_LENGTH).withPrimaryKey(true).withAutoID(false).build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(FIELD_TENANT_ID).withDataType(DataType.Int64)
+                        .withPartitionKey(true).build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(FIELD_DOC_ID).withDataType(DataType.VarChar)
+                        .withMaxLength(MAX_ID_LENGTH).build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(FIELD_TYPE).withDataType(DataType.VarChar)
+                        .withMaxLength(MAX_TYPE_LENGTH * BYTES_PER_CHAR).build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(FIELD_TITLE).withDataType(DataType.VarChar)
+                        .withMaxLength(MAX_TITLE_LENGTH * BYTES_PER_CHAR).build())
+                .addFieldType(FieldType.newBuilder()
+                        .withName(FIELD_EMBEDDING).withDataType(DataType.FloatVector)
+                        .withDimension(dimension).build())
+                .build();
+        check(milvusClient.createCollection(createParam), "create " + collection);
+
+        R<RpcStatus> indexed = milvusClient.createIndex(CreateIndexParam.newBuilder()
+                .withCollectionName(collection)
+                .withFieldName(FIELD_EMBEDDING)
+                .withIndexType(IndexType.valueOf(indexType))
+                .withMetricType(MetricType.COSINE)
+                .withExtraParam("{\"nlist\":" + nlist + "}")
+                .withSyncMode(Boolean.FALSE)
+                .build());
+        check(indexed, "createIndex " + collection);
+        log.info("Milvus集合已创建: collection={}, dimension={}", collection, dimension);
+    }
+
+    private static String primaryKey(Long tenantId, String docId) {
+        return tenantId + ":" + docId;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null) {
+            return "";
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void check(R<?> response, String operation) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("Milvus " + operation + " failed: " + response.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mota.search.support.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 向量检索命中
+ * 
+ * @author mota
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorHit {
+
+    /**
+     * 文档ID
+     */
+    private String docId;
+
+    /**
+     * 文档类型
+     */
+    private String type;
+
+    /**
+     * 标题
+     */
+    private String title;
+
+    /**
+     * 余弦相似度
+     */
+    private float score;
+}
@@ -0,0 +1,45 @@
+package com.mota.search.support.vector;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 向量记录
+ * 
+ * @author mota
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorRecord {
+
+    /**
+     * 租户ID（分区键）
+     */
+    private Long tenantId;
+
+    /**
+     * 文档ID，租户内唯一
+     */
+    private String docId;
+
+    /**
+     * 文档类型
+     */
+    private String type;
+
+    /**
+     * 标题
+     */
+    private String title;
+
+    /**
+     * 向量
+     */
+    private List<Float> vector;
+}
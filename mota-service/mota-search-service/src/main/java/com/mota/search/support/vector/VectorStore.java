@@ -0,0 +1,29 @@
+package com.mota.search.support.vector;
+
+import java.util.List;
+
+/**
+ * 向量存储
+ * 
+ * 实现需支持按租户隔离与批量写入；写入可见性由实现决定，
+ * 业务侧统一经 {@link VectorWriteBuffer} 合并后批量调用。
+ * 
+ * @author mota
+ */
+public interface VectorStore {
+
+    /**
+     * 批量写入或覆盖
+     */
+    void upsert(List<VectorRecord> records);
+
+    /**
+     * 批量删除
+     */
+    void delete(Long tenantId, List<String> docIds);
+
+    /**
+     * 相似度检索，按分数降序
+     */
+    List<VectorHit> search(Long tenantId, List<Float> vector, List<String> types, int topK);
+}
@@ -0,0 +1,228 @@
+package com.mota.search.support.vector;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 向量写入缓冲区
+ *
+ * 索引与删除请求先按 租户+文档ID 合并到待写集合（同一文档只保留最后一次操作），
+ * 达到 flush-size 或等待 flush-interval-ms 后由后台线程分批调用
+ * {@link VectorStore#upsert} / {@link VectorStore#delete}，避免逐条写入向量库。
+ * 写入失败的批次放回待写集合重试（不覆盖期间产生的新操作），待写数超过上限时拒绝新写入。
+ *
+ * @author mota
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VectorWriteBuffer {
+
+    private final VectorStore vectorStore;
+
+    @Value("${search.vector.write.flush-size:500}")
+    private int flushSize;
+
+    @Value("${search.vector.write.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${search.vector.write.max-pending:50000}")
+    private int maxPending;
+
+    private final Object lock = new Object();
+    private LinkedHashMap<String, Op> pending = new LinkedHashMap<>();
+    private Thread flushThread;
+    private volatile boolean running;
+
+    private final AtomicLong flushedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        running = true;
+        flushThread = new Thread(this::flushLoop, "vector-write-flusher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+        log.info("向量写入缓冲区已启动: flushSize={}, flushIntervalMs={}", flushSize, flushIntervalMs);
+    }
+
+    /**
+     * 写入或覆盖向量
+     */
+    public boolean upsert(VectorRecord record) {
+        return offer(new Op(record.getTenantId(), record.getDocId(), record));
+    }
+
+    /**
+     * 删除向量
+     */
+    public boolean delete(Long tenantId, String docId) {
+        return offer(new Op(tenantId, docId, null));
+    }
+
+    /**
+     * 立即写出全部待写操作
+     */
+    public void flush() {
+        while (flushOnce() > 0) {
+            // 持续写出直到清空
+        }
+    }
+
+    /**
+     * 获取缓冲区状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        synchronized (lock) {
+            status.put("pending", pending.size());
+        }
+        status.put("flushed", flushedCount.get());
+        status.put("rejected", rejectedCount.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flushThread != null) {
+            flushThread.interrupt();
+            try {
+                flushThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("关闭时写出向量失败", e);
+        }
+        log.info("向量写入缓冲区已关闭: flushed={}, rejected={}", flushedCount.get(), rejectedCount.get());
+    }
+
+    // ==================== 私有方法 ====================
+
+    private boolean offer(Op op) {
+        synchronized (lock) {
+            String key = op.key();
+            if (!pending.containsKey(key) && pending.size() >= maxPending) {
+                rejectedCount.incrementAndGet();
+                log.warn("向量写入缓冲区已满，丢弃操作: tenantId={}, docId={}", op.tenantId, op.docId);
+                return false;
+            }
+            // 先移除再放入，保证同一文档的操作按最后一次提交的顺序写出
+            pending.remove(key);
+            pending.put(key, op);
+            if (pending.size() >= flushSize) {
+                lock.notifyAll();
+            }
+            return true;
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (lock) {
+                    if (pending.size() < flushSize) {
+                        lock.wait(flushIntervalMs);
+                    }
+                }
+                flushOnce();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("向量写入失败", e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * 取出至多 flushSize 个操作写出，返回本次写出数量
+     */
+    private int flushOnce() {
+        List<Op> batch = new ArrayList<>();
+        synchronized (lock) {
+            Iterator<Op> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < flushSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            List<VectorRecord> upserts = batch.stream()
+                    .filter(op -> op.record != null)
+                    .map(op -> op.record)
+                    .collect(Collectors.toList());
+            Map<Long, List<String>> deletes = batch.stream()
+                    .filter(op -> op.record == null)
+                    .collect(Collectors.groupingBy(op -> op.tenantId,
+                            Collectors.mapping(op -> op.docId, Collectors.toList())));
+
+            for (Map.Entry<Long, List<String>> entry : deletes.entrySet()) {
+                vectorStore.delete(entry.getKey(), entry.getValue());
+            }
+            if (!upserts.isEmpty()) {
+                vectorStore.upsert(upserts);
+            }
+            flushedCount.addAndGet(batch.size());
+            return batch.size();
+        } catch (RuntimeException e) {
+            requeue(batch);
+            throw e;
+        }
+    }
+
+    /**
+     * 失败批次放回队首，期间已有更新操作的文档以新操作为准
+     */
+    private void requeue(List<Op> batch) {
+        synchronized (lock) {
+            LinkedHashMap<String, Op> merged = new LinkedHashMap<>();
+            for (Op op : batch) {
+                merged.put(op.key(), op);
+            }
+            merged.putAll(pending);
+            pending = merged;
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(flushIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Op {
+        private final Long tenantId;
+        private final String docId;
+        private final VectorRecord record;
+
+        private Op(Long tenantId, String docId, VectorRecord record) {
+            this.tenantId = tenantId;
+            this.docId = docId;
+            this.record = record;
+        }
+
+        private String key() {
+            return tenantId + ":" + docId;
+        }
+    }
+}
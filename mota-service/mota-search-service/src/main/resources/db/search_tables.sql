@@ -114,6 +114,48 @@ CREATE TABLE IF NOT EXISTS search_log (
     INDEX idx_search_time (search_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='搜索日志表';
 
+-- 搜索小时汇总表（由搜索历史缓冲区增量累加，供统计看板查询）
+CREATE TABLE IF NOT EXISTS search_stats_hourly (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    tenant_id BIGINT NOT NULL COMMENT '租户ID',
+    stat_hour DATETIME NOT NULL COMMENT '统计小时（整点）',
+    search_mode VARCHAR(20) NOT NULL DEFAULT 'fulltext' COMMENT '搜索模式',
+    search_type VARCHAR(200) NOT NULL DEFAULT 'all' COMMENT '搜索类型',
+    search_count BIGINT DEFAULT 0 COMMENT '搜索次数',
+    zero_result_count BIGINT DEFAULT 0 COMMENT '零结果次数',
+    click_count BIGINT DEFAULT 0 COMMENT '点击次数',
+    click_position_sum BIGINT DEFAULT 0 COMMENT '点击位置累计（用于计算平均点击位置）',
+    duration_sum BIGINT DEFAULT 0 COMMENT '响应耗时累计（毫秒）',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_tenant_hour_mode_type (tenant_id, stat_hour, search_mode, search_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='搜索小时汇总表';
+
+-- 搜索关键词日汇总表
+CREATE TABLE IF NOT EXISTS search_keyword_daily (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    tenant_id BIGINT NOT NULL COMMENT '租户ID',
+    stat_date DATE NOT NULL COMMENT '统计日期',
+    keyword VARCHAR(200) NOT NULL COMMENT '搜索关键词',
+    search_count BIGINT DEFAULT 0 COMMENT '搜索次数',
+    zero_result_count BIGINT DEFAULT 0 COMMENT '零结果次数',
+    click_count BIGINT DEFAULT 0 COMMENT '点击次数',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_tenant_date_keyword (tenant_id, stat_date, keyword)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='搜索关键词日汇总表';
+
+-- 用户搜索日汇总表（用于独立用户数统计）
+CREATE TABLE IF NOT EXISTS search_user_daily (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    tenant_id BIGINT NOT NULL COMMENT '租户ID',
+    stat_date DATE NOT NULL COMMENT '统计日期',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    search_count BIGINT DEFAULT 0 COMMENT '搜索次数',
+    click_count BIGINT DEFAULT 0 COMMENT '点击次数',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_tenant_date_user (tenant_id, stat_date, user_id),
+    INDEX idx_tenant_user_date (tenant_id, user_id, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户搜索日汇总表';
+
 -- 初始化默认配置
 INSERT INTO search_config (tenant_id, config_key, config_value, config_type, description) VALUES
 (0, 'default_page_size', '20', 'number', '默认每页大小'),